@@ -0,0 +1,84 @@
+package university.registration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import university.registration.controller.AdminController;
+import university.registration.controller.StudentRegistrationController;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dữ liệu cho các bảng trên màn hình: AdminController.getRegistrationApprovalData,
+ * AdminController.getCourseTableData và StudentRegistrationController.getCatalogData
+ *
+ * Mỗi benchmark trả về danh sách dòng (để JIT không bỏ qua phần dựng dòng).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int students;
+
+    @Param({"10"})
+    public int regsPerStudent;
+
+    private AdminController admin;
+    private StudentRegistrationController student;
+    private String program;
+
+    @Setup
+    public void setup() {
+        Dataset data = Dataset.load(students, regsPerStudent);
+        admin = new AdminController();
+        student = new StudentRegistrationController(data.store.findStudent(Dataset.studentId(0)));
+        program = data.programs.get(0);
+    }
+
+    /** Màn hình duyệt không lọc (mọi đăng ký) */
+    @Benchmark
+    public List<Object[]> approvalDataAll() {
+        return admin.getRegistrationApprovalData("", "Tất cả", "Tất cả", "Tất cả");
+    }
+
+    /** Màn hình duyệt lọc theo chờ xử lý + học kỳ + Khoa/Viện */
+    @Benchmark
+    public List<Object[]> approvalDataFiltered() {
+        return admin.getRegistrationApprovalData("", "Chờ xử lý", Dataset.TERMS[1], program);
+    }
+
+    /** Màn hình duyệt tìm theo từ khóa */
+    @Benchmark
+    public List<Object[]> approvalDataSearch() {
+        return admin.getRegistrationApprovalData("giải tích", "Tất cả", "Tất cả", "Tất cả");
+    }
+
+    @Benchmark
+    public List<Object[]> courseTableData() {
+        return admin.getCourseTableData(Dataset.TERMS[1]);
+    }
+
+    @Benchmark
+    public List<Object[]> catalogDataAll() {
+        return student.getCatalogData(Dataset.TERMS[1], "");
+    }
+
+    @Benchmark
+    public List<Object[]> catalogDataSearch() {
+        return student.getCatalogData(Dataset.TERMS[1], "lập trình");
+    }
+}
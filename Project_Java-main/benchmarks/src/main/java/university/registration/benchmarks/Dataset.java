@@ -0,0 +1,55 @@
+package university.registration.benchmarks;
+
+import university.registration.model.Course;
+import university.registration.store.DataGenerator;
+import university.registration.store.MemoryStorage;
+import university.registration.store.Storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bộ dữ liệu dùng chung cho các benchmark: bộ dữ liệu tổng hợp của DataGenerator
+ * (N sinh viên, trung bình K đăng ký mỗi sinh viên, seed mặc định) - cùng bộ dữ liệu với
+ * App --generate "students=N,regs=K", nên số đo ở đây so được với khi chạy ứng dụng.
+ *
+ * Dữ liệu được sinh lại giống hệt nhau ở mỗi lần chạy (cùng seed) để so kết quả
+ * giữa các lần đo. Không bật nhật ký (không đặt registration.dataDir).
+ * Mỗi tổ hợp @Param chạy trong một JVM riêng (fork), nên nạp một lần cho mỗi lần đo là đủ.
+ */
+final class Dataset {
+
+    /** Hai học kỳ gần nhất: TERMS[1] là kỳ mới nhất (đang mở đăng ký) */
+    static final String[] TERMS = {DataGenerator.term(1), DataGenerator.term(0)};
+
+    final Storage store = new MemoryStorage();
+    final List<Course> courses;
+    final List<String> programs;
+    final int students;
+
+    private Dataset(int students, int regsPerStudent) {
+        DataGenerator.Spec spec = new DataGenerator.Spec();
+        spec.students = students;
+        spec.regs = regsPerStudent;
+        DataGenerator.generate(spec);
+        this.students = students;
+        courses = new ArrayList<>(store.courses());
+        programs = store.programs();
+    }
+
+    static Dataset load(int students, int regsPerStudent) {
+        return new Dataset(students, regsPerStudent);
+    }
+
+    static String studentId(int s) {
+        return DataGenerator.studentId(s);
+    }
+
+    static String email(int s) {
+        return DataGenerator.email(s);
+    }
+
+    static String password(int s) {
+        return DataGenerator.PASSWORD;
+    }
+}
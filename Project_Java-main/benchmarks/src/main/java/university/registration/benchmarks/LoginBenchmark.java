@@ -0,0 +1,60 @@
+package university.registration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import university.registration.model.Student;
+import university.registration.service.AuthenticationService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthenticationService.loginStudent theo MSSV, theo email và với mật khẩu sai
+ * (sinh viên được chọn xoay vòng để không đo mãi một mục trong cache của CPU)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int students;
+
+    private AuthenticationService auth;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Dataset.load(students, 0);
+        auth = new AuthenticationService();
+    }
+
+    @Benchmark
+    public Student loginById() {
+        int s = Math.floorMod(next++, students);
+        return auth.loginStudent(Dataset.studentId(s), Dataset.password(s));
+    }
+
+    @Benchmark
+    public Student loginByEmail() {
+        int s = Math.floorMod(next++, students);
+        return auth.loginStudent(Dataset.email(s), Dataset.password(s));
+    }
+
+    @Benchmark
+    public Student loginWrongPassword() {
+        int s = Math.floorMod(next++, students);
+        return auth.loginStudent(Dataset.studentId(s), "sai-mat-khau");
+    }
+}
@@ -0,0 +1,72 @@
+package university.registration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chi phí đo một lần gọi method (mục tiêu &lt; 100 ns): try/finally + Timer.record so với gọi trần,
+ * một luồng và 4 luồng ghi cùng một Timer (tranh chấp ô histogram).
+ * clock: riêng hai lần System.nanoTime() - phần không tránh được, phụ thuộc nguồn đồng hồ của máy
+ * (máy ảo thường chậm hơn máy thật nhiều lần).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final Timer TIMER = Metrics.timer("MetricsBenchmark.timed");
+    private static final LongAdder COUNTER = Metrics.counter("MetricsBenchmark.counter");
+
+    private int value;
+
+    @Benchmark
+    public int baseline() {
+        return work();
+    }
+
+    @Benchmark
+    public long clock() {
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    @Benchmark
+    public int timed() {
+        long t0 = System.nanoTime();
+        try {
+            return work();
+        } finally {
+            TIMER.record(t0);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int timedContended() {
+        return timed();
+    }
+
+    @Benchmark
+    public void counter() {
+        COUNTER.increment();
+    }
+
+    private int work() {
+        return value++ * 31;
+    }
+}
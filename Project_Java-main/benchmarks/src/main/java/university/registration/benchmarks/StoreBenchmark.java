@@ -0,0 +1,75 @@
+package university.registration.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.store.Memory;
+import university.registration.store.Storage;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đường nóng của kho dữ liệu: Memory.addReg, Memory.countRegByCourse, Memory.canDeleteCourse
+ *
+ * addReg được đo cùng deleteByCourseCodes (thêm rồi xóa cùng học phần ở học kỳ riêng)
+ * để dữ liệu không lớn dần theo số lần gọi; thời gian là của cả cặp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+
+    static final String BENCH_TERM = "29991";
+
+    @Param({"1000", "10000", "100000"})
+    public int students;
+
+    @Param({"10"})
+    public int regsPerStudent;
+
+    private Dataset data;
+    private Course[] courses;
+    private int next;
+
+    @Setup
+    public void setup() {
+        data = Dataset.load(students, regsPerStudent);
+        courses = data.courses.toArray(new Course[0]);
+    }
+
+    @Benchmark
+    public Storage.AddResult addReg() {
+        int i = next++;
+        String sid = Dataset.studentId(Math.floorMod(i, students));
+        Course c = courses[Math.floorMod(i, courses.length)];
+        Storage.AddResult result = Memory.addReg(sid, BENCH_TERM, new RegItem(c, "2025-01-15", RegStatus.DRAFT), false);
+        Memory.deleteByCourseCodes(sid, BENCH_TERM, Set.of(c.code));
+        return result;
+    }
+
+    @Benchmark
+    public int countRegByCourse() {
+        int i = next++;
+        return Memory.countRegByCourse(Dataset.TERMS[i & 1], courses[Math.floorMod(i, courses.length)].code);
+    }
+
+    @Benchmark
+    public boolean canDeleteCourse() {
+        return Memory.canDeleteCourse(courses[Math.floorMod(next++, courses.length)].code);
+    }
+}
@@ -0,0 +1,334 @@
+package university.registration.tools;
+
+import university.registration.metrics.LatencyHistogram;
+import university.registration.server.Json;
+import university.registration.store.DataGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Kiểm tra tải máy chủ API (ApiServer) qua loopback: N client đồng thời, mỗi client một kết nối
+ * HTTP/1.1 keep-alive và một luồng ảo
+ *
+ * Mỗi client:
+ * 1. Mở kết nối, đăng nhập một sinh viên khác nhau (POST /api/login) - tối đa 500 client đăng nhập cùng lúc
+ * 2. Chờ mọi client đăng nhập xong rồi gửi request liên tục (vòng kín, không nghỉ) trong T giây:
+ *    40% lọc danh mục (GET /api/student/catalog, có / không từ khóa), 25% chuyển trang theo cursor,
+ *    25% xem đăng ký của mình, 10% đăng ký một học phần vừa xem (POST /api/student/registrations)
+ * 3. Mất kết nối thì mở lại và gửi lại request (đếm số lần mở lại)
+ *
+ * Client tự đọc / ghi HTTP trên socket (không dùng HttpClient) để đo đúng một kết nối cho mỗi client.
+ * Mặc định chạy máy chủ ở một JVM con (App --server --port 0 --generate spec, không ghi dữ liệu ra đĩa):
+ * 10.000 client cần ~10.000 socket ở mỗi phía, tách tiến trình để mỗi bên tự có giới hạn file mở riêng.
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.ApiLoadTest [clients] [giây] [spec] [http://host:port]
+ *   mặc định: 10000 client, 30 giây, spec "students=20000"; có URL thì dùng máy chủ đó
+ *   (phải được sinh bằng cùng spec để MSSV / mật khẩu khớp)
+ */
+public class ApiLoadTest {
+
+    private static final String[] QUERIES = {"", "", "Tiếng Anh", "lập trình", "IT", "Giải tích", "vật lý"};
+
+    private static final LatencyHistogram latency = new LatencyHistogram();
+    private static final LongAdder ok2xx = new LongAdder();
+    private static final LongAdder client4xx = new LongAdder();
+    private static final LongAdder server5xx = new LongAdder();
+    private static final LongAdder ioErrors = new LongAdder();
+    private static final LongAdder reconnects = new LongAdder();
+    private static final LongAdder connections = new LongAdder();
+    private static final LongAdder loginFailures = new LongAdder();
+
+    private static volatile boolean measuring;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        DataGenerator.Spec spec = DataGenerator.Spec.parse(args.length > 2 ? args[2] : "students=20000");
+        if (spec.students < clients) throw new RuntimeException("Cần students >= clients để mỗi client một sinh viên");
+
+        Process serverProcess = null;
+        InetSocketAddress address;
+        if (args.length > 3) {
+            URI uri = URI.create(args[3]);
+            address = new InetSocketAddress(uri.getHost(), uri.getPort());
+        } else {
+            serverProcess = startServer(spec);
+            address = new InetSocketAddress("127.0.0.1", readPort(serverProcess));
+        }
+        try {
+            run(address, clients, seconds, spec);
+        } finally {
+            if (serverProcess != null) {
+                serverProcess.destroy();
+                serverProcess.waitFor(10, TimeUnit.SECONDS);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(InetSocketAddress address, int clients, int seconds, DataGenerator.Spec spec) throws Exception {
+        String term = DataGenerator.term(0);
+        CountDownLatch loggedIn = new CountDownLatch(clients);
+        CountDownLatch finished = new CountDownLatch(clients);
+        Semaphore loginSlots = new Semaphore(500);
+        long[] deadline = new long[1];
+        CountDownLatch go = new CountDownLatch(1);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            int index = i;
+            Thread.ofVirtual().name("client-" + i).start(() -> {
+                Client c = new Client(address);
+                try {
+                    String token;
+                    loginSlots.acquireUninterruptibly();
+                    try {
+                        token = c.login(DataGenerator.studentId(index), DataGenerator.PASSWORD);
+                    } finally {
+                        loginSlots.release();
+                        loggedIn.countDown();
+                    }
+                    if (token == null) return;
+                    go.await();
+                    c.loop(token, term, deadline[0]);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    c.close();
+                    finished.countDown();
+                }
+            });
+        }
+
+        loggedIn.await();
+        double loginSec = (System.nanoTime() - t0) / 1e9;
+        System.out.printf(Locale.ROOT, "%,d client đăng nhập trong %.1f s (%,d thất bại), %,d kết nối đang mở%n",
+                clients, loginSec, loginFailures.sum(), connections.sum());
+
+        deadline[0] = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        measuring = true;
+        long start = System.nanoTime();
+        go.countDown();
+        finished.await();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        measuring = false;
+
+        long requests = latency.count();
+        System.out.printf(Locale.ROOT, "Đo %.1f s: %,d request, %,.0f request/s%n", elapsed, requests, requests / elapsed);
+        System.out.printf(Locale.ROOT, "Độ trễ (ms): mean %.1f  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                latency.mean() / 1e6, latency.percentile(0.50) / 1e6, latency.percentile(0.90) / 1e6,
+                latency.percentile(0.99) / 1e6, latency.percentile(0.999) / 1e6, latency.max() / 1e6);
+        System.out.printf(Locale.ROOT, "Kết quả: 2xx %,d  4xx %,d  5xx %,d  lỗi kết nối %,d%n",
+                ok2xx.sum(), client4xx.sum(), server5xx.sum(), ioErrors.sum());
+        long opened = connections.sum();
+        System.out.printf(Locale.ROOT, "Keep-alive: %,d kết nối cho %,d request (mở lại %,d lần), trung bình %.0f request / kết nối%n",
+                opened, requests + clients, reconnects.sum(), (double) (requests + clients) / Math.max(1, opened));
+
+        Client probe = new Client(address);
+        Response health = probe.send("GET", "/api/health", null, null);
+        probe.close();
+        System.out.println("Máy chủ: " + health.body);
+    }
+
+    /* ---------- client HTTP/1.1 keep-alive tối giản ---------- */
+
+    private record Response(int status, String body) {}
+
+    private static final class Client {
+        final InetSocketAddress address;
+        Socket socket;
+        InputStream in;
+        OutputStream out;
+        String cursor;
+        int totalPages;
+        List<String> lastCourses = List.of();
+
+        Client(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        String login(String studentId, String password) {
+            Response r = send("POST", "/api/login", null, Json.write(Map.of("username", studentId, "password", password)));
+            if (r == null || r.status != 200) {
+                loginFailures.increment();
+                return null;
+            }
+            return (String) ((Map<?, ?>) Json.parse(r.body)).get("token");
+        }
+
+        void loop(String token, String term, long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String encodedTerm = URLEncoder.encode(term, StandardCharsets.UTF_8);
+            while (System.nanoTime() < deadline) {
+                int op = random.nextInt(100);
+                if (op < 40 || cursor == null) {
+                    String q = URLEncoder.encode(QUERIES[random.nextInt(QUERIES.length)], StandardCharsets.UTF_8);
+                    Response r = send("GET", "/api/student/catalog?term=" + encodedTerm + "&q=" + q + "&pageSize=20", token, null);
+                    if (r != null && r.status == 200) readPage(r.body);
+                } else if (op < 65) {
+                    int page = 1 + random.nextInt(Math.max(1, totalPages));
+                    Response r = send("GET", "/api/student/catalog/page?cursor=" + cursor + "&page=" + page, token, null);
+                    if (r != null && r.status == 200) readPage(r.body);
+                    else cursor = null;
+                } else if (op < 90) {
+                    send("GET", "/api/student/registrations?term=" + encodedTerm, token, null);
+                } else if (!lastCourses.isEmpty()) {
+                    String code = lastCourses.get(random.nextInt(lastCourses.size()));
+                    send("POST", "/api/student/registrations", token, Json.write(Map.of("term", term, "courseCode", code)));
+                }
+            }
+        }
+
+        private void readPage(String body) {
+            Map<?, ?> page = (Map<?, ?>) Json.parse(body);
+            cursor = (String) page.get("cursor");
+            totalPages = ((Long) page.get("totalPages")).intValue();
+            List<String> codes = new ArrayList<>();
+            for (Object c : (List<?>) page.get("courses")) codes.add((String) ((Map<?, ?>) c).get("code"));
+            lastCourses = codes;
+        }
+
+        /** Gửi một request trên kết nối hiện tại (mở lại một lần nếu kết nối đã bị đóng); null nếu lỗi */
+        Response send(String method, String path, String token, String json) {
+            byte[] body = json == null ? new byte[0] : json.getBytes(StandardCharsets.UTF_8);
+            StringBuilder head = new StringBuilder(256)
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(address.getHostString()).append(':').append(address.getPort()).append("\r\n");
+            if (token != null) head.append("Authorization: Bearer ").append(token).append("\r\n");
+            if (json != null) head.append("Content-Type: application/json\r\n");
+            if (json != null || method.equals("POST")) head.append("Content-Length: ").append(body.length).append("\r\n");
+            head.append("\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+
+            for (int attempt = 0; attempt < 2; attempt++) {
+                long t0 = System.nanoTime();
+                try {
+                    if (socket == null) {
+                        if (in != null) reconnects.increment();
+                        connect();
+                    }
+                    out.write(headBytes);
+                    out.write(body);
+                    out.flush();
+                    Response r = read();
+                    if (measuring) {
+                        latency.record(System.nanoTime() - t0);
+                        if (r.status >= 500) server5xx.increment();
+                        else if (r.status >= 400) client4xx.increment();
+                        else ok2xx.increment();
+                    }
+                    return r;
+                } catch (IOException e) {
+                    dropConnection();
+                }
+            }
+            if (measuring) ioErrors.increment();
+            return null;
+        }
+
+        private void connect() throws IOException {
+            Socket s = new Socket();
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(60_000);
+            s.connect(address, 60_000);
+            socket = s;
+            in = new BufferedInputStream(s.getInputStream(), 4096);
+            out = s.getOutputStream();
+            connections.increment();
+        }
+
+        private Response read() throws IOException {
+            String statusLine = line();
+            if (statusLine == null) throw new IOException("Kết nối đã đóng");
+            int status = Integer.parseInt(statusLine.split(" ")[1]);
+            int length = -1;
+            boolean close = false;
+            String header;
+            while (!(header = line()).isEmpty()) {
+                int colon = header.indexOf(':');
+                String name = header.substring(0, colon).trim();
+                String value = header.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) length = Integer.parseInt(value);
+                if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close")) close = true;
+            }
+            if (length < 0) throw new IOException("Response không có Content-Length");
+            byte[] body = in.readNBytes(length);
+            if (body.length < length) throw new IOException("Response bị cắt");
+            if (close) dropConnection();
+            return new Response(status, new String(body, StandardCharsets.UTF_8));
+        }
+
+        private String line() throws IOException {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') return buf.toString(StandardCharsets.ISO_8859_1).stripTrailing();
+                buf.write(b);
+            }
+            if (buf.size() == 0) return null;
+            throw new IOException("Kết nối đóng giữa dòng");
+        }
+
+        private void dropConnection() {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {
+            }
+            socket = null;
+        }
+
+        void close() {
+            dropConnection();
+        }
+    }
+
+    /* ---------- máy chủ ở JVM con ---------- */
+
+    private static Process startServer(DataGenerator.Spec spec) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> cmd = List.of(java, "-Dregistration.dataDir=", "-Dstdout.encoding=UTF-8",
+                "-cp", System.getProperty("java.class.path"),
+                "university.registration.App", "--server", "--port", "0", "--generate", spec.toString());
+        return new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    /** Đọc port từ dòng "Máy chủ API: http://localhost:<port>/api/" của JVM con */
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Pattern pattern = Pattern.compile(":(\\d+)/api/");
+        String line;
+        while ((line = reader.readLine()) != null) {
+            System.out.println("[máy chủ] " + line);
+            Matcher m = pattern.matcher(line);
+            if (m.find()) {
+                // Tiếp tục chuyển output còn lại của máy chủ ra console
+                Thread.ofPlatform().daemon().start(() -> reader.lines().forEach(l -> System.out.println("[máy chủ] " + l)));
+                return Integer.parseInt(m.group(1));
+            }
+        }
+        throw new IOException("Máy chủ dừng trước khi mở port");
+    }
+}
@@ -0,0 +1,148 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.RegRow;
+import university.registration.model.Student;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * So sánh lọc màn hình duyệt đăng ký: duyệt toàn bộ (cách cũ) và truy vấn qua index phụ (queryRegs)
+ *
+ * Kịch bản:
+ * 1. Thêm N sinh viên thuộc nhiều CTĐT, mỗi sinh viên đăng ký K học phần ở 2 học kỳ,
+ *    trạng thái xen kẽ (mặc định 50.000 x 20 = 1.000.000 đăng ký)
+ * 2. Chạy một loạt bộ lọc (học kỳ / trạng thái / Khoa-Viện / từ khóa) bằng cả hai cách,
+ *    so thời gian và so kết quả
+ * 3. Duyệt, từ chối, xóa và đổi mã học kỳ cho một phần dữ liệu rồi so kết quả lần nữa
+ *    (index phụ phải được cập nhật theo từng thay đổi)
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.ApprovalQueryBenchmark [students] [regsPerStudent]
+ *
+ * Thoát với mã 1 nếu hai cách cho kết quả khác nhau.
+ */
+public class ApprovalQueryBenchmark {
+
+    static final String[] TERMS = {"20251", "20252"};
+    static final RegStatus[] STATUSES = RegStatus.values();
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Memory.init();
+        Storage store = new MemoryStorage();
+        List<Course> courses = new ArrayList<>(store.courses());
+        List<String> programs = store.programs();
+        perStudent = Math.min(perStudent, courses.size());
+        for (int s = 0; s < students; s++) {
+            String sid = "B" + s;
+            store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                    sid.toLowerCase() + "@bench.test", programs.get(s % programs.size())), "x");
+            for (int k = 0; k < perStudent; k++) {
+                Course c = courses.get((s + k * 7) % courses.size());
+                store.addReg(sid, TERMS[k % 2], new RegItem(c, "2025-01-15", STATUSES[(s + k) % 4]), false);
+            }
+        }
+        String someCourse = courses.get(3).name.toLowerCase();
+        String[][] filters = {
+                // từ khóa, trạng thái, học kỳ, Khoa/Viện
+                {"", "Tất cả", "Tất cả", "Tất cả"},
+                {"", "Chờ duyệt", "Tất cả", "Tất cả"},
+                {"", "Chờ duyệt", "20252", programs.get(0)},
+                {"", "Đã duyệt", "20251", "Tất cả"},
+                {"b123", "Tất cả", "Tất cả", "Tất cả"},
+                {"sinh viên 4999", "Chờ duyệt", "20252", "Tất cả"},
+                {someCourse, "Đã từ chối", "Tất cả", programs.get(1 % programs.size())},
+                {"không có ai", "Tất cả", "Tất cả", "Tất cả"},
+        };
+
+        boolean ok = run(store, filters);
+
+        // Thay đổi một phần dữ liệu: index phụ phải cập nhật theo
+        for (int s = 0; s < students; s += 3) {
+            String sid = "B" + s;
+            for (RegItem it : store.loadReg(sid, TERMS[1]))
+                if (it.status.isPending())
+                    store.setStatus(sid, TERMS[1], it.course.code, s % 2 == 0 ? RegStatus.APPROVED : RegStatus.REJECTED);
+        }
+        for (int s = 1; s < students; s += 5) {
+            String sid = "B" + s;
+            List<RegItem> regs = store.loadReg(sid, TERMS[0]);
+            if (!regs.isEmpty()) store.deleteRegs(sid, TERMS[0], Set.of(regs.get(0).course.code));
+        }
+        store.renameTerm(TERMS[0], "20250");
+        System.out.println("-- sau khi duyệt / từ chối / xóa / đổi mã học kỳ 20251 -> 20250 --");
+        filters[3][2] = "20250";
+        ok &= run(store, filters);
+
+        System.out.println(ok ? "OK - hai cách lọc cho cùng kết quả." : "LỖI: kết quả khác nhau");
+        if (!ok) System.exit(1);
+    }
+
+    static boolean run(Storage store, String[][] filters) {
+        boolean ok = true;
+        for (String[] f : filters) {
+            // Chạy mỗi cách vài lần, lấy lần nhanh nhất (bỏ qua khởi động JIT)
+            long scanNs = Long.MAX_VALUE, indexNs = Long.MAX_VALUE;
+            List<String> expected = null, actual = null;
+            for (int i = 0; i < 3; i++) {
+                long t0 = System.nanoTime();
+                expected = scan(store, f[0], f[1], f[2], f[3]);
+                long t1 = System.nanoTime();
+                actual = keys(store.queryRegs(RegQuery.fromFilters(f[0], f[1], f[2], f[3], "Chờ duyệt")));
+                long t2 = System.nanoTime();
+                scanNs = Math.min(scanNs, t1 - t0);
+                indexNs = Math.min(indexNs, t2 - t1);
+            }
+            Collections.sort(expected);
+            Collections.sort(actual);
+            boolean same = expected.equals(actual);
+            ok &= same;
+            System.out.printf("%-45s %,9d dòng | duyệt toàn bộ %7.1f ms | index %6.1f ms %s%n",
+                    String.join(" / ", f), actual.size(), scanNs / 1e6, indexNs / 1e6, same ? "" : "<-- KHÁC");
+        }
+        return ok;
+    }
+
+    /** Cách lọc cũ của AdminFrame.filterApprovalTable: duyệt mọi đăng ký, so chuỗi từng dòng */
+    static List<String> scan(Storage store, String searchText, String selectedStatus,
+                             String selectedTerm, String selectedDept) {
+        List<String> rows = new ArrayList<>();
+        Map<String, Student> students = new HashMap<>();
+        store.forEachReg((studentId, term, item) -> {
+            Student student = students.computeIfAbsent(studentId, store::findStudent);
+            if (student == null) return;
+            if (!selectedDept.equals("Tất cả") && !selectedDept.equals(student.program)) return;
+            if (!selectedTerm.equals("Tất cả") && !selectedTerm.equals(term)) return;
+            String status = RegQuery.shownAs(item.status, "Chờ duyệt");
+            if (!selectedStatus.equals("Tất cả") && !selectedStatus.equals(status)) return;
+            if (!searchText.isEmpty()
+                    && !student.fullName.toLowerCase().contains(searchText)
+                    && !studentId.toLowerCase().contains(searchText)
+                    && !item.course.name.toLowerCase().contains(searchText)
+                    && !item.course.code.toLowerCase().contains(searchText)) return;
+            String regCode = "DK" + String.format("%03d", rows.size() + 1);
+            rows.add(studentId + "|" + term + "|" + item.course.code + "|" + item.status + "|" + regCode.charAt(0));
+        });
+        return rows;
+    }
+
+    static List<String> keys(List<RegRow> rows) {
+        List<String> keys = new ArrayList<>(rows.size());
+        for (RegRow r : rows) keys.add(r.studentId + "|" + r.term + "|" + r.courseCode + "|" + r.status + "|D");
+        return keys;
+    }
+}
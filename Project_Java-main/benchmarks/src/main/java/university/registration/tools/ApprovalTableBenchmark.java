@@ -0,0 +1,165 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.RegRow;
+import university.registration.model.Student;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+import university.registration.ui.ListTableModel;
+import university.registration.ui.SearchPipeline;
+
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Đo việc đổ kết quả duyệt đăng ký lên bảng: DefaultTableModel một Object[] mỗi dòng (cách cũ)
+ * so với ListTableModel bọc thẳng kết quả queryRegs (ô chỉ được tính khi hiển thị)
+ *
+ * Kịch bản:
+ * 1. Thêm N sinh viên, mỗi sinh viên K đăng ký (mặc định 25.000 x 20 = 500.000 đăng ký)
+ * 2. Mỗi cách làm mới bảng không lọc vài lần: đo thời gian và bộ nhớ bảng giữ lại sau GC,
+ *    rồi đọc 30 dòng đầu như khi JTable vẽ màn hình đầu tiên
+ * 3. Đổi trạng thái / xóa một phần đăng ký: kết quả đã truy vấn không đổi (bản chụp),
+ *    và khớp với RegRow dựng sẵn trước khi đổi
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.ApprovalTableBenchmark [students] [regsPerStudent]
+ *
+ * Thoát với mã 1 nếu hai cách cho nội dung ô khác nhau.
+ */
+public class ApprovalTableBenchmark {
+
+    static final String[] TERMS = {"20251", "20252"};
+    static final RegStatus[] STATUSES = RegStatus.values();
+    static final String[] COLUMNS = {
+            "Mã đăng ký", "Tên sinh viên", "Mã SV", "Khoa/Viện", "Mã học phần", "Tên học phần",
+            "Trạng thái", "Hành động"
+    };
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 25_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Memory.init();
+        Storage store = new MemoryStorage();
+        List<Course> courses = new ArrayList<>(store.courses());
+        List<String> programs = store.programs();
+        perStudent = Math.min(perStudent, courses.size());
+        for (int s = 0; s < students; s++) {
+            String sid = "B" + s;
+            store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                    sid.toLowerCase() + "@bench.test", programs.get(s % programs.size())), "x");
+            for (int k = 0; k < perStudent; k++) {
+                Course c = courses.get((s + k * 7) % courses.size());
+                store.addReg(sid, TERMS[k % 2], new RegItem(c, "2025-01-15", STATUSES[(s + k) % 4]), false);
+            }
+        }
+        RegQuery all = new RegQuery();
+
+        // Cách cũ: một Object[] (và một Vector) cho mỗi dòng
+        DefaultTableModel eager = new DefaultTableModel(COLUMNS, 0);
+        long base = usedAfterGc();
+        double eagerMs = Double.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long t0 = System.nanoTime();
+            SearchPipeline.setRows(eager, eagerRows(store.queryRegs(all)));
+            eagerMs = Math.min(eagerMs, (System.nanoTime() - t0) / 1e6);
+        }
+        long eagerBytes = usedAfterGc() - base;
+        List<Object[]> firstScreenOld = firstScreen(eager);
+        eager.setRowCount(0);
+
+        // Cách mới: bọc kết quả truy vấn
+        ListTableModel<RegRow> lazy = new ListTableModel<>(COLUMNS, ApprovalTableBenchmark::cell);
+        base = usedAfterGc();
+        double lazyMs = Double.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long t0 = System.nanoTime();
+            lazy.setRows(store.queryRegs(all));
+            lazyMs = Math.min(lazyMs, (System.nanoTime() - t0) / 1e6);
+        }
+        long lazyBytes = usedAfterGc() - base;
+        List<Object[]> firstScreenNew = firstScreen(lazy);
+
+        System.out.printf("%,d dòng | Object[] mỗi dòng: %,.0f ms, giữ %,d MB | bọc kết quả: %,.0f ms, giữ %,d MB%n",
+                lazy.getRowCount(), eagerMs, eagerBytes >> 20, lazyMs, lazyBytes >> 20);
+        boolean ok = same(firstScreenOld, firstScreenNew);
+        System.out.println(ok ? "30 dòng đầu giống nhau" : "LỖI: 30 dòng đầu khác nhau");
+
+        // Bản chụp: đổi trạng thái / xóa sau khi truy vấn không làm đổi kết quả đã có
+        List<RegRow> before = store.queryRegs(all);
+        List<RegRow> materialized = new ArrayList<>(before);
+        for (int s = 0; s < students; s += 7) {
+            String sid = "B" + s;
+            List<RegItem> regs = store.loadReg(sid, TERMS[1]);
+            if (regs.isEmpty()) continue;
+            if (regs.get(0).status.isPending()) store.setStatus(sid, TERMS[1], regs.get(0).course.code, RegStatus.APPROVED);
+            store.deleteRegs(sid, TERMS[0], Set.of(store.loadReg(sid, TERMS[0]).get(0).course.code));
+            store.addReg(sid, TERMS[0], new RegItem(courses.get(s % courses.size()), "2025-02-01", RegStatus.DRAFT), false);
+        }
+        boolean snapshot = before.size() == materialized.size();
+        for (int i = 0; snapshot && i < before.size(); i++) snapshot = key(before.get(i)).equals(key(materialized.get(i)));
+        System.out.println(snapshot ? "Kết quả đã truy vấn không đổi sau khi dữ liệu thay đổi"
+                : "LỖI: kết quả đã truy vấn bị thay đổi");
+        ok &= snapshot;
+
+        System.out.println(ok ? "OK" : "LỖI");
+        if (!ok) System.exit(1);
+    }
+
+    static List<Object[]> eagerRows(List<RegRow> found) {
+        List<Object[]> rows = new ArrayList<>(found.size());
+        for (RegRow r : found) rows.add(new Object[]{
+                cell(r, rows.size(), 0), cell(r, rows.size(), 1), cell(r, rows.size(), 2), cell(r, rows.size(), 3),
+                cell(r, rows.size(), 4), cell(r, rows.size(), 5), cell(r, rows.size(), 6), cell(r, rows.size(), 7)});
+        return rows;
+    }
+
+    /** Giá trị ô như AdminFrame.approvalCell */
+    static Object cell(RegRow r, int index, int column) {
+        switch (column) {
+            case 0: return RegRow.regCode(r.id);
+            case 1: return r.fullName;
+            case 2: return r.studentId;
+            case 3: return r.program;
+            case 4: return r.courseCode;
+            case 5: return r.courseName;
+            case 6: return RegQuery.shownAs(r.status, "Chờ duyệt");
+            default: return "";
+        }
+    }
+
+    static List<Object[]> firstScreen(TableModel model) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int r = 0; r < Math.min(30, model.getRowCount()); r++) {
+            Object[] row = new Object[model.getColumnCount()];
+            for (int c = 0; c < row.length; c++) row[c] = model.getValueAt(r, c);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    static boolean same(List<Object[]> a, List<Object[]> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) if (!Arrays.equals(a.get(i), b.get(i))) return false;
+        return true;
+    }
+
+    static String key(RegRow r) {
+        return r.id + "|" + r.studentId + "|" + r.term + "|" + r.courseCode + "|" + r.status + "|" + r.date + "|" + r.fullName;
+    }
+
+    static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,131 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.store.Memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Đo danh sách học phần có thể đăng ký theo (học kỳ, CTĐT): view dựng sẵn (Memory.availableCourses)
+ * so với xét offering của từng học phần mỗi lần (cách cũ của getAvailableCourses)
+ *
+ * Kịch bản:
+ * 1. Thêm N học phần (mặc định 20.000), mở ngẫu nhiên ở 2 học kỳ cho "Tất cả" hoặc một CTĐT
+ * 2. T luồng (mặc định 8) cùng xin danh sách của cùng các CTĐT (giờ cao điểm mở đăng ký),
+ *    đo số lượt/giây của hai cách
+ * 3. Đóng / mở offering, thêm / xóa học phần xen kẽ, sau mỗi thay đổi so view với cách cũ
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.AvailableCoursesBenchmark [courses] [threads] [requestsPerThread]
+ *
+ * Thoát với mã 1 nếu view khác kết quả xét từng học phần.
+ */
+public class AvailableCoursesBenchmark {
+
+    static final String[] TERMS = {"20251", "20252"};
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        Memory.init();
+        List<String> programs = new ArrayList<>(Memory.programs);
+        Random rnd = new Random(3);
+        for (int i = 0; i < n; i++) {
+            String code = "AV" + (10000 + i);
+            Memory.addCourse(new Course(code, "Học phần " + i, 3));
+            for (String term : TERMS) {
+                if (rnd.nextInt(3) == 0) continue;
+                String allowed = rnd.nextBoolean() ? "Tất cả" : programs.get(rnd.nextInt(programs.size()));
+                Memory.setOffering(term, code, true, allowed);
+            }
+        }
+
+        double oldRate = load(threads, Math.max(1, requests / 1000), programs, true);
+        double viewRate = load(threads, requests, programs, false);
+        System.out.printf("%d luồng: xét từng học phần %,.0f lượt/s | view dựng sẵn %,.0f lượt/s%n",
+                threads, oldRate, viewRate);
+
+        boolean shared = Memory.availableCourses(TERMS[1], programs.get(0))
+                == Memory.availableCourses(TERMS[1], programs.get(0));
+        System.out.println(shared ? "Hai lần đọc cùng (học kỳ, CTĐT) trả về cùng một danh sách"
+                : "LỖI: view bị dựng lại dù không có thay đổi");
+        boolean ok = shared && checkAll(programs);
+
+        // Thay đổi xen kẽ: view phải theo kịp
+        for (int round = 0; round < 50 && ok; round++) {
+            String code = "AV" + (10000 + rnd.nextInt(n));
+            String term = TERMS[rnd.nextInt(TERMS.length)];
+            switch (round % 4) {
+                case 0 -> Memory.setOffering(term, code, false, "Tất cả");
+                case 1 -> Memory.setOffering(term, code, true, programs.get(rnd.nextInt(programs.size())));
+                case 2 -> {
+                    Memory.addCourse(new Course("NEW" + round, "Học phần mới " + round, 2));
+                    Memory.setOffering(term, "NEW" + round, true, "Tất cả");
+                }
+                default -> {
+                    if (Memory.canDeleteCourse(code)) Memory.deleteCourse(code);
+                }
+            }
+            ok = checkAll(programs);
+        }
+        System.out.println(ok ? "OK - view khớp với xét từng học phần sau mọi thay đổi." : "LỖI: view khác kết quả");
+        if (!ok) System.exit(1);
+    }
+
+    /** Số lượt lấy danh sách mỗi giây khi T luồng cùng xin */
+    static double load(int threads, int requests, List<String> programs, boolean scan) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(pool.submit(() -> {
+                long sum = 0;
+                for (int i = 0; i < requests; i++) {
+                    String program = programs.get((seed + i) % programs.size());
+                    String term = TERMS[i % TERMS.length];
+                    sum += scan ? scan(term, program).size() : Memory.availableCourses(term, program).size();
+                }
+                return sum;
+            }));
+        }
+        for (Future<Long> f : results) f.get();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+        return (double) threads * requests / secs;
+    }
+
+    static boolean checkAll(List<String> programs) {
+        for (String term : TERMS)
+            for (String program : programs)
+                if (!scan(term, program).equals(Memory.availableCourses(term, program))) {
+                    System.out.println("Khác tại " + term + " / " + program);
+                    return false;
+                }
+        return true;
+    }
+
+    /** Cách cũ: duyệt toàn bộ danh mục, xét offering của từng học phần */
+    static List<Course> scan(String term, String program) {
+        List<Course> result = new ArrayList<>();
+        List<Course> all;
+        synchronized (Memory.courses) {
+            all = new ArrayList<>(Memory.courses.values());
+        }
+        for (Course c : all) {
+            var byCode = Memory.offerings.get(term);
+            Offering off = byCode == null ? null : byCode.get(c.code);
+            if (off != null && off.open && ("Tất cả".equals(off.allowedProgram) || program.equals(off.allowedProgram)))
+                result.add(c);
+        }
+        return result;
+    }
+}
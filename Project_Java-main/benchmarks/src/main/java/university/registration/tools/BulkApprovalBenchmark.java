@@ -0,0 +1,196 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.service.RegistrationService;
+import university.registration.store.FileStorage;
+import university.registration.store.Journal;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Đo và kiểm tra duyệt / từ chối hàng loạt (Storage.setStatuses, RegistrationService.decideMatching)
+ *
+ * Kịch bản:
+ * 1. Bật nhật ký vào thư mục tạm, thêm N sinh viên x K đăng ký "Đã gửi" chia đều 2 học kỳ
+ *    (mặc định 20.000 x 10 = 100.000 đăng ký chờ duyệt mỗi học kỳ)
+ * 2. Học kỳ thứ nhất: duyệt từng đăng ký theo mã (như nút "Duyệt tất cả" cũ, chưa tính refresh bảng)
+ *    Học kỳ thứ hai: duyệt cả học kỳ bằng một lần decideMatching (truy vấn + đổi trạng thái cả lô)
+ * 3. Chạy lại lô trên cùng các mã (đã duyệt) kèm một mã đã xóa: không đổi gì, mỗi mã có lý do riêng
+ * 4. Lọc theo học phần: từ chối các đăng ký giữ chỗ của một lớp đầy, người trong danh sách chờ được
+ *    đưa vào lớp sau khi xong cả lô
+ * 5. Bộ đếm trạng thái khớp duyệt toàn bộ; giữ nguyên sau khi replay nhật ký và trên FileStorage
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.BulkApprovalBenchmark [students] [regsPerStudent]
+ *
+ * Thoát với mã 1 nếu số đăng ký đã đổi, lý do lỗi, danh sách chờ hoặc bộ đếm sai.
+ */
+public class BulkApprovalBenchmark {
+
+    static final String[] TERMS = {"20251", "20252"};
+    static final String WAIT_TERM = "20253";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path dir = Files.createTempDirectory("bulk-approval");
+        try {
+            Path dataDir = dir.resolve("data");
+            System.setProperty("registration.dataDir", dataDir.toString());
+            System.setProperty("registration.fsync", "false");
+            Memory.init();
+            Storage store = new MemoryStorage();
+            List<Course> courses = new ArrayList<>(store.courses());
+            List<String> programs = store.programs();
+            perStudent = Math.min(perStudent, courses.size());
+            for (int s = 0; s < students; s++) {
+                String sid = "B" + s;
+                store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                        sid.toLowerCase() + "@bench.test", programs.get(s % programs.size())), "x");
+                for (int k = 0; k < perStudent; k++) {
+                    Course c = courses.get((s + k * 7) % courses.size());
+                    store.addReg(sid, TERMS[k % 2], new RegItem(c, "2025-01-15", RegStatus.SUBMITTED), false);
+                }
+            }
+
+            // Cách cũ: từng đăng ký một
+            List<Long> first = pendingIds(store, TERMS[0]);
+            long t0 = System.nanoTime();
+            int oneByOne = 0;
+            for (long id : first) if (store.setStatus(id, RegStatus.APPROVED)) oneByOne++;
+            double oneByOneMs = (System.nanoTime() - t0) / 1e6;
+
+            // Cách mới: một lô cho cả học kỳ
+            List<Long> second = pendingIds(store, TERMS[1]);
+            RegQuery wholeTerm = new RegQuery();
+            wholeTerm.term = TERMS[1];
+            t0 = System.nanoTime();
+            Storage.BatchResult bulk = new RegistrationService().decideMatching(wholeTerm, RegStatus.APPROVED);
+            double bulkMs = (System.nanoTime() - t0) / 1e6;
+
+            System.out.printf("Duyệt từng đăng ký: %,d đăng ký trong %,.0f ms | cả lô: %,d đăng ký trong %,.0f ms (%s mục tiêu < 1 giây)%n",
+                    oneByOne, oneByOneMs, bulk.changed, bulkMs, bulkMs < 1000 ? "đạt" : "CHƯA ĐẠT");
+            boolean ok = oneByOne == first.size() && bulk.changed == second.size() && bulk.failures.isEmpty()
+                    && store.countRegs(TERMS[1], RegStatus.SUBMITTED) == 0;
+            ok &= failures(store, second);
+            ok &= waitlist(store, courses, students);
+            ok &= compare("Sau khi duyệt hàng loạt", store);
+            Map<String, Long> expected = counts(store);
+
+            Journal.close();
+            Journal.recover(dataDir);
+            ok &= compare("Sau khi replay nhật ký", store) && counts(store).equals(expected);
+            System.clearProperty("registration.dataDir");
+
+            FileStorage file = FileStorage.open(dir.resolve("file-store"));
+            ok &= file(file, students);
+            file.close();
+
+            System.out.println(ok ? "OK - duyệt hàng loạt đúng." : "LỖI: duyệt hàng loạt sai");
+            if (!ok) System.exit(1);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /** Chạy lại lô trên các mã đã duyệt (kèm một mã đã xóa): không đổi gì, mỗi mã một lý do */
+    static boolean failures(Storage store, List<Long> approved) {
+        List<Long> ids = new ArrayList<>(approved.subList(0, Math.min(1000, approved.size())));
+        RegRow gone = store.findReg(ids.get(0));
+        store.deleteRegs(gone.studentId, gone.term, Set.of(gone.courseCode));
+        long approvedBefore = store.countRegs(null, RegStatus.APPROVED);
+        Storage.BatchResult again = store.setStatuses(ids, RegStatus.REJECTED);
+        boolean ok = again.changed == 0 && again.failures.size() == ids.size()
+                && again.failures.get(gone.id).equals("Không tìm thấy đăng ký")
+                && again.failures.get(ids.get(1)).contains("Đã duyệt")
+                && store.countRegs(null, RegStatus.APPROVED) == approvedBefore;
+        System.out.printf("%-40s %,d mã, đổi %d, %,d lý do %s%n", "Chạy lại lô đã duyệt", ids.size(),
+                again.changed, again.failures.size(), ok ? "" : "<-- LỖI");
+        return ok;
+    }
+
+    /** Từ chối các đăng ký giữ chỗ của một lớp đầy: người chờ được đưa vào lớp sau khi xong cả lô */
+    static boolean waitlist(Storage store, List<Course> courses, int students) {
+        String code = courses.get(0).code;
+        int capacity = 50, waiting = 30;
+        store.setOffering(WAIT_TERM, code, true, "Tất cả");
+        store.setCapacity(WAIT_TERM, code, capacity);
+        for (int s = 0; s < capacity + waiting && s < students; s++)
+            store.addReg("B" + s, WAIT_TERM, new RegItem(courses.get(0), "2025-01-20", RegStatus.SUBMITTED), true);
+        Offering off = store.getOffering(WAIT_TERM, code);
+        int queued = off.waitlist.size();
+
+        RegQuery holders = new RegQuery();
+        holders.term = WAIT_TERM;
+        holders.courseCode = code;
+        Storage.BatchResult rejected = new RegistrationService().decideMatching(holders, RegStatus.REJECTED);
+        boolean ok = queued == waiting && rejected.changed == capacity && rejected.failures.isEmpty()
+                && off.waitlist.isEmpty() && off.seatsTaken() == waiting
+                && store.countRegs(WAIT_TERM, RegStatus.SUBMITTED) == waiting;
+        System.out.printf("%-40s từ chối %d, %d người chờ -> %d chỗ đang giữ %s%n", "Lớp đầy " + code,
+                rejected.changed, queued, off.seatsTaken(), ok ? "" : "<-- LỖI");
+        return ok;
+    }
+
+    /** FileStorage (chép từ Memory): từ chối hàng loạt phần còn chờ duyệt, bộ đếm khớp sau khi mở lại */
+    static boolean file(FileStorage file, int students) {
+        boolean ok = compare("FileStorage (chép từ Memory)", file);
+        List<Long> ids = pendingIds(file, WAIT_TERM);
+        long t0 = System.nanoTime();
+        Storage.BatchResult r = file.setStatuses(ids, RegStatus.REJECTED);
+        double ms = (System.nanoTime() - t0) / 1e6;
+        ok &= r.changed == ids.size() && r.failures.isEmpty() && file.countRegs(WAIT_TERM, RegStatus.SUBMITTED) == 0;
+        System.out.printf("%-40s %,d đăng ký trong %,.1f ms %s%n", "FileStorage từ chối cả lô", r.changed, ms, ok ? "" : "<-- LỖI");
+        return ok & compare("FileStorage sau khi từ chối", file);
+    }
+
+    static List<Long> pendingIds(Storage store, String term) {
+        RegQuery q = new RegQuery();
+        q.term = term;
+        q.statuses = EnumSet.of(RegStatus.SUBMITTED);
+        List<Long> ids = new ArrayList<>();
+        for (RegRow r : store.queryRegs(q)) ids.add(r.id);
+        return ids;
+    }
+
+    /** (học kỳ, trạng thái) -> số đăng ký theo bộ đếm */
+    static Map<String, Long> counts(Storage store) {
+        Map<String, Long> counts = new HashMap<>();
+        for (String term : new String[]{TERMS[0], TERMS[1], WAIT_TERM})
+            for (RegStatus status : RegStatus.values()) counts.put(term + "|" + status, store.countRegs(term, status));
+        return counts;
+    }
+
+    /** So bộ đếm với số đếm khi duyệt toàn bộ đăng ký */
+    static boolean compare(String label, Storage store) {
+        Map<String, Long> scanned = new HashMap<>();
+        store.forEachReg((sid, term, item) -> scanned.merge(term + "|" + item.status, 1L, Long::sum));
+        Map<String, Long> counted = counts(store);
+        boolean ok = true;
+        for (var e : counted.entrySet()) ok &= e.getValue().equals(scanned.getOrDefault(e.getKey(), 0L));
+        System.out.printf("%-40s %,9d đã duyệt | %,d chờ duyệt %s%n", label, store.countRegs(null, RegStatus.APPROVED),
+                store.countRegs(null, RegStatus.SUBMITTED), ok ? "" : "<-- LỆCH");
+        return ok;
+    }
+}
@@ -0,0 +1,105 @@
+package university.registration.tools;
+
+import university.registration.controller.StudentRegistrationController;
+import university.registration.controller.StudentRegistrationController.CatalogPage;
+import university.registration.model.Course;
+import university.registration.model.Student;
+import university.registration.store.Memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * So sánh chuyển trang danh mục học phần: lọc lại cả danh mục mỗi lần (cách cũ)
+ * và cắt trang từ kết quả đã cache theo cursor (queryCatalogPage / getCatalogPage)
+ *
+ * Kịch bản:
+ * 1. Thêm N học phần (mặc định 20.000), mở 2/3 số học phần trong học kỳ TERM
+ * 2. Lọc một lần, rồi lấy lần lượt mọi trang bằng cả hai cách: so thời gian và so nội dung từng trang
+ * 3. Đóng / thêm học phần (đổi phiên bản danh mục): cursor cũ phải trả về kết quả đã lọc lại
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.CatalogPageBenchmark [courses] [pageSize]
+ *
+ * Thoát với mã 1 nếu hai cách cho kết quả khác nhau.
+ */
+public class CatalogPageBenchmark {
+
+    static final String TERM = "20252";
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Memory.init();
+        for (int i = 0; i < n; i++) {
+            String code = "BM" + (10000 + i);
+            Memory.addCourse(new Course(code, "Học phần thử nghiệm " + i, 1 + i % 4));
+            if (i % 3 != 0) Memory.setOffering(TERM, code, true, "Tất cả");
+        }
+        Student student = Memory.studentsById.values().iterator().next();
+        StudentRegistrationController controller = new StudentRegistrationController(student);
+
+        boolean ok = run(controller, student, "", pageSize);
+        ok &= run(controller, student, "thu nghiem 1", pageSize);
+
+        // Đổi danh mục: đóng một học phần đang mở, thêm một học phần mới đang mở
+        CatalogPage first = controller.queryCatalogPage(TERM, "", pageSize);
+        String closed = first.courses.get(0).code;
+        Memory.setOffering(TERM, closed, false, "Tất cả");
+        Memory.addCourse(new Course("BMNEW", "Học phần mới mở", 3));
+        Memory.setOffering(TERM, "BMNEW", true, "Tất cả");
+        CatalogPage again = controller.getCatalogPage(first.cursor, 1);
+        List<Course> expected = filter(student, "");
+        boolean refreshed = again.totalCount == expected.size()
+                && !again.courses.get(0).code.equals(closed)
+                && again.courses.equals(expected.subList(0, Math.min(pageSize, expected.size())));
+        System.out.printf("Sau khi đóng %s và mở BMNEW: %,d -> %,d kết quả %s%n",
+                closed, first.totalCount, again.totalCount, refreshed ? "(cursor đã lọc lại)" : "<-- KHÔNG LỌC LẠI");
+        ok &= refreshed;
+
+        System.out.println(ok ? "OK - hai cách cho cùng nội dung từng trang." : "LỖI: kết quả khác nhau");
+        if (!ok) System.exit(1);
+    }
+
+    static boolean run(StudentRegistrationController controller, Student student, String text, int pageSize) {
+        long t0 = System.nanoTime();
+        CatalogPage page = controller.queryCatalogPage(TERM, text, pageSize);
+        long queryNs = System.nanoTime() - t0;
+        int pages = page.totalPages;
+
+        // Cách cũ: mỗi lần chuyển trang lọc lại cả danh mục rồi bỏ đi mọi thứ ngoài một trang
+        int oldPages = Math.min(pages, 200);
+        List<List<Course>> oldResult = new ArrayList<>();
+        t0 = System.nanoTime();
+        for (int p = 1; p <= oldPages; p++) {
+            List<Course> all = filter(student, text);
+            oldResult.add(all.subList((p - 1) * pageSize, Math.min(p * pageSize, all.size())));
+        }
+        double oldUs = (System.nanoTime() - t0) / 1e3 / Math.max(1, oldPages);
+
+        // Cách mới: cắt trang theo cursor
+        List<List<Course>> newResult = new ArrayList<>();
+        t0 = System.nanoTime();
+        for (int p = 1; p <= pages; p++) newResult.add(controller.getCatalogPage(page.cursor, p).courses);
+        double newUs = (System.nanoTime() - t0) / 1e3 / Math.max(1, pages);
+
+        boolean same = newResult.subList(0, oldPages).equals(oldResult);
+        System.out.printf("\"%s\": %,d kết quả, %,d trang | lọc lần đầu %.1f ms | chuyển trang: lọc lại %,.1f µs/trang, cursor %,.2f µs/trang %s%n",
+                text, page.totalCount, pages, queryNs / 1e6, oldUs, newUs, same ? "" : "<-- KHÁC");
+        return same;
+    }
+
+    /** Lọc như getFilteredCourses cũ của StudentRegistrationFrame */
+    static List<Course> filter(Student student, String text) {
+        List<Course> filtered = new ArrayList<>();
+        for (Course c : Memory.searchCourses(text)) {
+            var off = Memory.getOffering(TERM, c.code);
+            if (off != null && off.open &&
+                    ("Tất cả".equals(off.allowedProgram) || student.program.equals(off.allowedProgram))) {
+                filtered.add(c);
+            }
+        }
+        return filtered;
+    }
+}
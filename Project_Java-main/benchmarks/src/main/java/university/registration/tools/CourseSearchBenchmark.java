@@ -0,0 +1,128 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.store.Memory;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Đo tìm kiếm học phần qua index n-gram (Memory.searchCourses) trên danh mục lớn
+ *
+ * Kịch bản:
+ * 1. Thêm N học phần (mặc định 20.000) với tên tiếng Việt có dấu ghép ngẫu nhiên
+ * 2. Với mỗi từ khóa (có dấu, không dấu, mã học phần, 1-2 ký tự...):
+ *    - tìm qua index, lấy thời gian trung bình mỗi lần
+ *    - so với cách cũ: duyệt cả danh mục, bỏ dấu rồi contains (kết quả phải cùng tập học phần)
+ * 3. Xóa / sửa một số học phần rồi so lại (index cập nhật theo từng thay đổi)
+ * 4. Xóa thêm quá 1/4 danh mục (index dồn các ô đã xóa) rồi so lại, kể cả từ khóa rỗng
+ *    phải trả đúng thứ tự danh mục
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.CourseSearchBenchmark [courses]
+ *
+ * Thoát với mã 1 nếu kết quả khác cách duyệt toàn bộ.
+ */
+public class CourseSearchBenchmark {
+
+    static final String[] SUBJECTS = {
+            "Giải tích", "Đại số tuyến tính", "Vật lý đại cương", "Xác suất thống kê", "Lý thuyết mạch",
+            "Điện tử số", "Cấu trúc dữ liệu", "Kỹ thuật lập trình", "Mạng máy tính", "Hệ điều hành",
+            "Tín hiệu và hệ thống", "Thông tin số", "Trường điện từ", "Xử lý tín hiệu số", "Bóng chuyền",
+            "Tiếng Anh cơ sở", "Triết học Mác - Lênin", "Tư tưởng Hồ Chí Minh", "Đồ án thiết kế", "Thiết kế VLSI"
+    };
+    static final String[] SUFFIXES = {"I", "II", "III", "nâng cao", "ứng dụng", "cơ bản", "chuyên sâu"};
+    static final String[] PREFIXES = {"ET", "MI", "PH", "IT", "PE", "FL", "SSH", "EM"};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        Memory.init();
+        Random rnd = new Random(7);
+        for (int i = 0; i < n; i++) {
+            String code = PREFIXES[i % PREFIXES.length] + (5000 + i);
+            String name = SUBJECTS[rnd.nextInt(SUBJECTS.length)] + " " + SUFFIXES[rnd.nextInt(SUFFIXES.length)]
+                    + (rnd.nextInt(4) == 0 ? " (" + (i % 97) + ")" : "");
+            Memory.addCourse(new Course(code, name, 1 + rnd.nextInt(4)));
+        }
+
+        String[] queries = {"giai tich", "Giải tích", "GIẢI TÍCH II", "đại số", "dai so tuyen", "tín hiệu",
+                "xu ly tin hieu so", "et5123", "ET51", "mi", "vl", "a", "lenin", "hồ chí", "khong co mon nay"};
+        boolean ok = run(queries);
+
+        // Xóa và sửa một phần danh mục: index phải cập nhật theo
+        List<Course> all = new ArrayList<>(Memory.courses.values());
+        for (int i = 0; i < all.size(); i += 10) Memory.deleteCourse(all.get(i).code);
+        for (int i = 5; i < all.size(); i += 10)
+            Memory.addCourse(new Course(all.get(i).code, "Học phần đổi tên " + i, 3));
+        System.out.println("-- sau khi xóa 10% và đổi tên 10% học phần --");
+        ok &= run(new String[]{"doi ten", "giai tich", "học phần đổi tên 15", "et5123", "mi"});
+
+        // Xóa thêm 40%: index phải dồn lại mà vẫn giữ thứ tự danh mục
+        for (int i = 0; i < all.size(); i++) if (i % 10 >= 1 && i % 10 <= 4) Memory.deleteCourse(all.get(i).code);
+        System.out.println("-- sau khi xóa thêm 40% học phần --");
+        ok &= run(new String[]{"", "doi ten", "giai tich", "et5123", "mi"});
+        List<String> order = new ArrayList<>();
+        for (Course c : Memory.searchCourses("")) order.add(c.code);
+        List<String> catalog;
+        synchronized (Memory.courses) {
+            catalog = new ArrayList<>(Memory.courses.keySet());
+        }
+        boolean sameOrder = order.equals(catalog);
+        ok &= sameOrder;
+        System.out.println("Từ khóa rỗng theo thứ tự danh mục: " + (sameOrder ? "đúng" : "<-- KHÁC"));
+
+        System.out.println(ok ? "OK - index cho cùng kết quả với duyệt toàn bộ." : "LỖI: kết quả khác nhau");
+        if (!ok) System.exit(1);
+    }
+
+    static boolean run(String[] queries) {
+        boolean ok = true;
+        for (String q : queries) {
+            int reps = 2000;
+            List<Course> found = null;
+            for (int i = 0; i < reps; i++) found = Memory.searchCourses(q); // khởi động JIT
+            long t0 = System.nanoTime();
+            for (int i = 0; i < reps; i++) found = Memory.searchCourses(q);
+            double indexUs = (System.nanoTime() - t0) / 1e3 / reps;
+
+            t0 = System.nanoTime();
+            Set<String> expected = scan(q);
+            double scanUs = (System.nanoTime() - t0) / 1e3;
+
+            Set<String> actual = new HashSet<>();
+            for (Course c : found) actual.add(c.code);
+            boolean same = expected.equals(actual);
+            ok &= same;
+            System.out.printf("%-22s %,6d kết quả | index %8.1f µs | duyệt toàn bộ %,9.1f µs | đầu tiên: %s %s%n",
+                    "\"" + q + "\"", found.size(), indexUs, scanUs,
+                    found.isEmpty() ? "-" : found.get(0).code + " " + found.get(0).name, same ? "" : "<-- KHÁC");
+        }
+        return ok;
+    }
+
+    /** Cách cũ (có thêm bỏ dấu): duyệt mọi học phần, mọi từ của từ khóa phải nằm trong mã + tên */
+    static Set<String> scan(String query) {
+        String[] words = fold(query).split(" ");
+        Set<String> codes = new HashSet<>();
+        synchronized (Memory.courses) {
+            for (Course c : Memory.courses.values()) {
+                String key = fold(c.code) + " " + fold(c.name);
+                boolean all = true;
+                for (String w : words) all &= key.contains(w);
+                if (all) codes.add(c.code);
+            }
+        }
+        return codes;
+    }
+
+    static String fold(String s) {
+        String d = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{Mn}", "");
+        return d.replace('đ', 'd').replace('Đ', 'd').toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,266 @@
+package university.registration.tools;
+
+import university.registration.controller.AdminController;
+import university.registration.controller.LoginController;
+import university.registration.controller.StudentRegistrationController;
+import university.registration.metrics.LatencyHistogram;
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.Storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Mô phỏng tải lúc mở đăng ký: N sinh viên đăng nhập trong vài giây và đăng ký qua controller
+ * (không có giao diện), trong khi PĐT duyệt đăng ký cùng lúc
+ *
+ * Mỗi sinh viên là một virtual thread chạy kịch bản giống thao tác trên màn hình:
+ *   LoginController.login -> getAvailableCourses -> addRegistration (K học phần)
+ *   -> deleteRegistrations (bỏ một học phần, một nửa số sinh viên) -> submitRegistrations
+ * Thời điểm bắt đầu của các sinh viên rải đều trong rampSeconds giây.
+ * Song song, mỗi người duyệt (approvers) lặp: AdminController.approveMatching cho các Khoa/Viện của mình,
+ * thỉnh thoảng rejectMatching một học phần (trả chỗ, đưa người chờ vào lớp).
+ * Sĩ số các lớp được đặt nhỏ hơn nhu cầu để có danh sách chờ.
+ *
+ * Báo cáo: số thao tác, thông lượng và độ trễ p50 / p99 / p99.9 / max theo từng loại thao tác,
+ * rồi kiểm tra các bất biến sau khi chạy xong:
+ * - đăng nhập / thêm / xóa / gửi không trả lỗi ngoài dự kiến
+ * - không học phần nào xuất hiện 2 lần trong đăng ký của một sinh viên
+ * - số chỗ đã giữ của mỗi lớp bằng số đăng ký giữ chỗ, không vượt sĩ số
+ * - không còn chỗ trống trong khi vẫn có người trong danh sách chờ
+ * - bộ đếm theo (học kỳ, trạng thái) khớp với duyệt toàn bộ
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.LoadSimulator [students] [rampSeconds] [coursesPerStudent] [approvers]
+ *
+ * Thoát với mã 1 nếu có vi phạm.
+ */
+public class LoadSimulator {
+
+    static final String TERM = "20252";
+    static final String PASSWORD = "x";
+
+    /** Độ trễ theo loại thao tác (thứ tự in theo kịch bản) */
+    static final Map<String, LatencyHistogram> latencies = Collections.synchronizedMap(new LinkedHashMap<>());
+    /** Vi phạm bất biến hoặc lỗi ngoài dự kiến (chỉ in 20 dòng đầu) */
+    static final ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+    static final AtomicLong waitlisted = new AtomicLong();
+    /** Sinh viên mà mọi học phần đều vào danh sách chờ (không có gì để gửi) */
+    static final AtomicLong onlyWaiting = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rampSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int perStudent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int approvers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        for (String op : new String[]{"login", "getAvailableCourses", "addRegistration", "deleteRegistrations",
+                "submitRegistrations", "approveMatching", "rejectMatching"})
+            latencies.put(op, new LatencyHistogram());
+
+        Memory.init();
+        Storage store = new MemoryStorage();
+        List<String> programs = store.programs();
+        for (int s = 0; s < students; s++) {
+            String sid = "L" + s;
+            store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                    sid.toLowerCase() + "@load.test", programs.get(s % programs.size())), PASSWORD);
+        }
+        // Sĩ số ~90% nhu cầu trung bình để có lớp đầy và danh sách chờ
+        List<Course> courses = new ArrayList<>(store.courses());
+        int capacity = Math.max(1, (int) (0.9 * students * perStudent / courses.size()));
+        for (Course c : courses) {
+            store.setOffering(TERM, c.code, true, "Tất cả");
+            store.setCapacity(TERM, c.code, capacity);
+        }
+        store.setTermOpen(TERM, true);
+        System.out.printf("%,d sinh viên đăng nhập trong %d giây, %d học phần / người, %d người duyệt, sĩ số %d x %d lớp%n",
+                students, rampSeconds, perStudent, approvers, capacity, courses.size());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        long start = System.nanoTime();
+        long rampNs = TimeUnit.SECONDS.toNanos(rampSeconds);
+        List<Thread> admins = new ArrayList<>();
+        for (int a = 0; a < approvers; a++) {
+            List<String> mine = new ArrayList<>();
+            for (int p = a; p < programs.size(); p += approvers) mine.add(programs.get(p));
+            admins.add(Thread.ofVirtual().name("approver-" + a).start(() -> approve(mine, courses, running)));
+        }
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < students; s++) {
+                String sid = "L" + s;
+                long at = start + (long) (ThreadLocalRandom.current().nextDouble() * rampNs);
+                pool.submit(() -> journey(sid, at, perStudent));
+            }
+        } // close() chờ mọi sinh viên xong
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        for (Thread t : admins) t.join();
+        // Vòng duyệt cuối cho đăng ký gửi sau lần duyệt cuối của các người duyệt
+        new AdminController().approveMatching(TERM, "Tất cả", null, "Tất cả");
+
+        report(wallSeconds, students);
+        checkInvariants(store);
+        System.out.printf("Xếp vào danh sách chờ: %,d lần (%,d sinh viên chỉ có học phần chờ) | đã duyệt %,d | đã từ chối %,d | còn tạm %,d%n",
+                waitlisted.get(), onlyWaiting.get(), store.countRegs(TERM, RegStatus.APPROVED), store.countRegs(TERM, RegStatus.REJECTED),
+                store.countRegs(TERM, RegStatus.DRAFT));
+        int shown = 0;
+        for (String v : violations) {
+            if (shown++ == 20) break;
+            System.out.println("  " + v);
+        }
+        System.out.println(violations.isEmpty() ? "OK - không có vi phạm." : "LỖI: " + violations.size() + " vi phạm");
+        if (!violations.isEmpty()) System.exit(1);
+    }
+
+    /** Kịch bản của một sinh viên, bắt đầu lúc startAt (System.nanoTime) */
+    static void journey(String sid, long startAt, int perStudent) {
+        try {
+            long wait = startAt - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+
+            LoginController.LoginResult login = time("login", () -> new LoginController().login(sid, PASSWORD));
+            if (login.type != LoginController.LoginResultType.STUDENT) {
+                violations.add(sid + ": đăng nhập thất bại (" + login.errorMessage + ")");
+                return;
+            }
+            StudentRegistrationController ctrl = new StudentRegistrationController(login.student);
+            List<StudentRegistrationController.CourseItem> available =
+                    time("getAvailableCourses", () -> ctrl.getAvailableCourses(TERM));
+            if (available.isEmpty()) {
+                violations.add(sid + ": không có học phần nào để đăng ký");
+                return;
+            }
+
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            Set<String> picked = new HashSet<>();
+            while (picked.size() < Math.min(perStudent + 1, available.size()))
+                picked.add(available.get(rnd.nextInt(available.size())).code);
+            List<String> codes = new ArrayList<>(picked);
+            String spare = codes.remove(codes.size() - 1); // thêm sau khi bỏ một học phần
+            Set<String> enrolled = new HashSet<>();
+            for (String code : codes) if (add(ctrl, sid, code)) enrolled.add(code);
+            if (rnd.nextBoolean()) {
+                String dropped = codes.get(rnd.nextInt(codes.size()));
+                String err = time("deleteRegistrations", () -> ctrl.deleteRegistrations(TERM, Set.of(dropped)));
+                if (err != null) violations.add(sid + ": xóa " + dropped + " lỗi: " + err);
+                enrolled.remove(dropped);
+                if (add(ctrl, sid, spare)) enrolled.add(spare);
+            }
+            String err = time("submitRegistrations", () -> ctrl.submitRegistrations(TERM));
+            if (err != null && enrolled.isEmpty()) onlyWaiting.incrementAndGet();
+            else if (err != null) violations.add(sid + ": gửi đăng ký lỗi: " + err);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            violations.add(sid + ": " + ex);
+        }
+    }
+
+    /** Thêm một học phần; true nếu vào lớp ngay, false nếu vào danh sách chờ (hoặc lỗi) */
+    static boolean add(StudentRegistrationController ctrl, String sid, String code) {
+        String err = time("addRegistration", () -> ctrl.addRegistration(TERM, code));
+        if (err == null) return true;
+        if (err.contains("danh sách chờ")) waitlisted.incrementAndGet();
+        else violations.add(sid + ": thêm " + code + " lỗi: " + err);
+        return false;
+    }
+
+    /** Một người duyệt: duyệt hàng loạt các Khoa/Viện của mình, mỗi 10 vòng từ chối trước một học phần */
+    static void approve(List<String> programs, List<Course> courses, AtomicBoolean running) {
+        AdminController admin = new AdminController();
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        try {
+            for (int round = 0; running.get(); round++) {
+                for (String program : programs) {
+                    if (round % 10 == 9) {
+                        String code = courses.get(rnd.nextInt(courses.size())).code;
+                        time("rejectMatching", () -> admin.rejectMatching(TERM, program, code, "Tất cả"));
+                    }
+                    time("approveMatching", () -> admin.approveMatching(TERM, program, null, "Tất cả"));
+                }
+                Thread.sleep(20);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            violations.add(Thread.currentThread().getName() + ": " + ex);
+        }
+    }
+
+    static <T> T time(String op, Supplier<T> call) {
+        long t0 = System.nanoTime();
+        T result = call.get();
+        latencies.get(op).record(System.nanoTime() - t0);
+        return result;
+    }
+
+    static void report(double wallSeconds, int students) {
+        System.out.printf("Thời gian chạy %.1f s (%,.0f sinh viên/s)%n", wallSeconds, students / wallSeconds);
+        System.out.printf("%-22s %10s %10s %10s %10s %10s %10s%n", "thao tác", "số lần", "op/s", "p50", "p99", "p99.9", "max");
+        latencies.forEach((op, h) -> {
+            if (h.count() == 0) return;
+            System.out.printf("%-22s %,10d %,10.0f %10s %10s %10s %10s%n", op, h.count(), h.count() / wallSeconds,
+                    ms(h.percentile(0.50)), ms(h.percentile(0.99)), ms(h.percentile(0.999)), ms(h.max()));
+        });
+    }
+
+    static String ms(long ns) {
+        return String.format("%.2f ms", ns / 1e6);
+    }
+
+    /** Kiểm tra bất biến sau khi mọi thread đã dừng */
+    static void checkInvariants(Storage store) {
+        Map<String, Integer> holding = new HashMap<>();
+        Map<String, Map<RegStatus, Long>> scanned = new TreeMap<>();
+        Map<String, Set<String>> seen = new ConcurrentHashMap<>();
+        store.forEachReg((sid, term, item) -> {
+            if (!seen.computeIfAbsent(sid + "|" + term, k -> new HashSet<>()).add(item.course.code))
+                violations.add(sid + ": học phần " + item.course.code + " xuất hiện 2 lần trong học kỳ " + term);
+            scanned.computeIfAbsent(term, t -> new HashMap<>()).merge(item.status, 1L, Long::sum);
+            if (term.equals(TERM) && item.status.holdsSeat()) holding.merge(item.course.code, 1, Integer::sum);
+        });
+        for (Course c : store.courses()) {
+            Offering off = store.getOffering(TERM, c.code);
+            if (off == null) continue;
+            int held = holding.getOrDefault(c.code, 0);
+            if (off.seatsTaken() != held)
+                violations.add(c.code + ": số chỗ đã giữ " + off.seatsTaken() + " khác số đăng ký giữ chỗ " + held);
+            if (off.capacity > 0 && off.seatsTaken() > off.capacity)
+                violations.add(c.code + ": " + off.seatsTaken() + " chỗ vượt sĩ số " + off.capacity);
+            if (off.hasFreeSeat() && !off.waitlist.isEmpty())
+                violations.add(c.code + ": còn chỗ nhưng " + off.waitlist.size() + " người vẫn trong danh sách chờ");
+        }
+        for (String term : store.terms()) {
+            for (RegStatus status : RegStatus.values()) {
+                long expected = scanned.getOrDefault(term, Map.of()).getOrDefault(status, 0L);
+                if (store.countRegs(term, status) != expected)
+                    violations.add(term + " / " + status + ": bộ đếm " + store.countRegs(term, status)
+                            + ", duyệt toàn bộ " + expected);
+            }
+        }
+        for (RegItem it : store.loadReg("L0", TERM))
+            if (it.id <= 0) violations.add("L0: đăng ký " + it.course.code + " chưa có mã");
+    }
+}
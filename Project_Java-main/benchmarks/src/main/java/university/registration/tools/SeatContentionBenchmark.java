@@ -0,0 +1,115 @@
+package university.registration.tools;
+
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.service.RegistrationService;
+import university.registration.store.Memory;
+import university.registration.store.Storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark tranh chấp chỗ ngồi: hàng nghìn client (virtual thread) cùng đăng ký một lớp "hot"
+ *
+ * Kịch bản:
+ * 1. Mỗi vòng mở 1 học phần với sĩ số nhỏ (mặc định 60 chỗ)
+ * 2. N client (mặc định 5000) cùng bắt đầu một lúc, mỗi client gọi
+ *    RegistrationService.register cho lớp đó
+ * 3. Một nửa số sinh viên vào được lớp sẽ hủy đăng ký, một phần gửi đăng ký rồi bị PĐT từ chối
+ *    → chỗ trống phải được tự động nhường cho danh sách chờ
+ *
+ * Kiểm tra:
+ * - Không bao giờ vượt sĩ số (số RegItem chiếm chỗ <= capacity)
+ * - Số ADDED + WAITLISTED = số client (không ai bị "rơi")
+ * - Sau khi hủy/từ chối, lớp được lấp đầy lại từ danh sách chờ
+ *
+ * Cách chạy (cần JDK 21+):
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.SeatContentionBenchmark [clients] [capacity] [rounds]
+ */
+public class SeatContentionBenchmark {
+
+    static final String TERM = "20252";
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Memory.init();
+        RegistrationService service = new RegistrationService();
+        List<String> hotCodes = new ArrayList<>(Memory.courses.keySet());
+        rounds = Math.min(rounds, hotCodes.size());
+        boolean ok = true;
+
+        for (int round = 1; round <= rounds; round++) {
+            // Mỗi vòng dùng một học phần "hot" riêng để lớp bắt đầu từ trạng thái trống
+            String hot = hotCodes.get(round - 1);
+            String prefix = "R" + round + "-";
+            Memory.setOffering(TERM, hot, true, "Tất cả");
+            Memory.setCapacity(TERM, hot, capacity);
+            Offering off = Memory.getOffering(TERM, hot);
+
+            AtomicInteger added = new AtomicInteger();
+            AtomicInteger waitlisted = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+
+            long t0 = System.nanoTime();
+            try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    String sid = prefix + i;
+                    exec.submit(() -> {
+                        start.await();
+                        Storage.AddResult r = service.register(sid, TERM, hot);
+                        if (r == Storage.AddResult.ADDED) added.incrementAndGet();
+                        else if (r == Storage.AddResult.WAITLISTED) waitlisted.incrementAndGet();
+                        return null;
+                    });
+                }
+                start.countDown();
+            }
+            long elapsedUs = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - t0);
+
+            int enrolled = Memory.countRegByCourse(TERM, hot);
+            boolean roundOk = added.get() == capacity
+                    && enrolled == capacity
+                    && off.seatsTaken() == capacity
+                    && added.get() + waitlisted.get() == clients
+                    && off.waitlist.size() == clients - capacity;
+
+            // Nhả chỗ: một nửa tự hủy, PĐT từ chối một phần tư → danh sách chờ phải lấp đầy lại
+            int dropped = 0;
+            var enrolledNow = Memory.enrolledStudents(hot).getOrDefault(TERM, Set.of());
+            for (String sid : enrolledNow) {
+                if (dropped < capacity / 2) {
+                    service.deleteRegistrations(sid, TERM, Set.of(hot));
+                } else if (dropped < capacity * 3 / 4) {
+                    service.submitRegistrations(sid, TERM); // chỉ đăng ký đã gửi mới bị từ chối được
+                    service.rejectRegistration(sid, TERM, hot);
+                } else {
+                    break;
+                }
+                dropped++;
+            }
+            int holding = 0;
+            for (String sid : Memory.enrolledStudents(hot).getOrDefault(TERM, Set.of()))
+                for (RegItem it : Memory.loadReg(sid, TERM))
+                    if (it.course.code.equals(hot) && it.status.holdsSeat()) holding++;
+            roundOk &= holding == capacity && off.seatsTaken() == capacity;
+
+            System.out.printf("Vòng %d: %d client, %d vào lớp, %d chờ, %.1f ms (%.0f lượt/s) | sau khi nhả %d chỗ: %d/%d chỗ, còn %d chờ -> %s%n",
+                    round, clients, added.get(), waitlisted.get(), elapsedUs / 1000.0,
+                    clients * 1_000_000.0 / Math.max(1, elapsedUs),
+                    dropped, holding, capacity, off.waitlist.size(), roundOk ? "OK" : "SAI");
+            ok &= roundOk;
+        }
+
+        if (!ok) System.exit(1);
+    }
+}
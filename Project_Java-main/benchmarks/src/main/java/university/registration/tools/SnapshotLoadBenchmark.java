@@ -0,0 +1,97 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.store.Memory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo thời gian ghi/nạp snapshot cho một bộ dữ liệu lớn
+ *
+ * Kịch bản:
+ * 1. Khởi tạo dữ liệu demo, thêm N sinh viên, mỗi sinh viên đăng ký K học phần
+ *    (mặc định 50.000 sinh viên x 20 học phần = 1.000.000 đăng ký)
+ * 2. Ghi snapshot ra file (Memory.saveSnapshot)
+ * 3. Nạp lại từ file (Memory.initFromSnapshot) và so sánh số liệu trước/sau.
+ *    In hai mốc: nạp xong (sinh viên dùng được) và index duyệt đăng ký dựng nền xong (Memory.awaitIndexes)
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.SnapshotLoadBenchmark [students] [regsPerStudent] [file]
+ *
+ * File snapshot được giữ lại sau khi chạy, có thể dùng cho:
+ *   java university.registration.App --snapshot [file]
+ *
+ * Thoát với mã 1 nếu dữ liệu sau khi nạp không khớp.
+ */
+public class SnapshotLoadBenchmark {
+
+    static final String TERM = "20252";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Path file = Path.of(args.length > 2 ? args[2] : "snapshot-bench.bin");
+
+        Memory.init();
+        List<Course> courses = new ArrayList<>(Memory.courses.values());
+        perStudent = Math.min(perStudent, courses.size());
+        String program = Memory.programs.get(0);
+        for (int s = 0; s < students; s++) {
+            String sid = "B" + s;
+            Memory.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                    sid.toLowerCase() + "@bench.test", program), "x");
+            for (int k = 0; k < perStudent; k++) {
+                Course c = courses.get((s + k * 7) % courses.size());
+                Memory.addReg(sid, TERM, new RegItem(c, "2025-01-15", RegStatus.SUBMITTED));
+            }
+        }
+        Map<String, Integer> before = fingerprint();
+
+        long t0 = System.nanoTime();
+        Memory.saveSnapshot(file);
+        long writeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        Memory.initFromSnapshot(file);
+        long loadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        Memory.awaitIndexes();
+        long indexMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        Map<String, Integer> after = fingerprint();
+
+        System.out.printf("Snapshot %s: %.1f MB, %d sinh viên, %d đăng ký%n", file,
+                Files.size(file) / 1e6, Memory.studentsById.size(), after.get("regs"));
+        System.out.printf("Ghi: %d ms | Nạp (mmap): %d ms | index duyệt đăng ký sẵn sàng sau: %d ms%n",
+                writeMs, loadMs, indexMs);
+        if (!before.equals(after)) {
+            System.out.println("LỖI: dữ liệu sau khi nạp không khớp");
+            System.out.println("  trước: " + before);
+            System.out.println("  sau:   " + after);
+            System.exit(1);
+        }
+        System.out.println("OK - dữ liệu sau khi nạp khớp với trước khi ghi.");
+    }
+
+    /** Số liệu tổng hợp để so sánh trước/sau: số sinh viên, học phần, đăng ký, bộ đếm từng môn */
+    static Map<String, Integer> fingerprint() {
+        Map<String, Integer> f = new TreeMap<>();
+        f.put("students", Memory.studentsById.size());
+        f.put("courses", Memory.courses.size());
+        f.put("terms", Memory.terms.size());
+        int regs = 0;
+        for (var byTerm : Memory.regs.values())
+            for (var list : byTerm.values()) regs += list.size();
+        f.put("regs", regs);
+        for (String code : Memory.courses.keySet())
+            f.put("count:" + code, Memory.countRegByCourse(TERM, code));
+        return f;
+    }
+}
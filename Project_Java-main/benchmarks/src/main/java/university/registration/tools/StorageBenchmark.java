@@ -0,0 +1,147 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.RegRow;
+import university.registration.model.Student;
+import university.registration.store.FileStorage;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * So sánh hai backend Storage với cùng một khối lượng công việc
+ *
+ * Kịch bản (chạy lần lượt trên MemoryStorage và FileStorage):
+ * 1. Thêm N sinh viên, mỗi sinh viên đăng ký K học phần trong học kỳ TERM
+ * 2. Duyệt một nửa số đăng ký (setStatus)
+ * 3. Đọc ngẫu nhiên đăng ký của sinh viên (loadReg) - đo tỉ lệ trúng bộ đệm trang
+ * 4. Quét toàn bộ (forEachReg) và so "vân tay" dữ liệu giữa hai backend
+ *    và với index phụ của từng backend (queryRegs)
+ *
+ * FileStorage được mở với bộ đệm nhỏ (mặc định 256 trang = 2 MB) để dữ liệu
+ * không vừa bộ đệm (phần lớn lần đọc phải xuống file).
+ *
+ * Cách chạy:
+ *   java -cp benchmarks/target/benchmarks.jar university.registration.tools.StorageBenchmark [students] [regsPerStudent] [cachePages]
+ */
+public class StorageBenchmark {
+
+    static final String TERM = "20252";
+
+    public static void main(String[] args) throws IOException {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int cachePages = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        Memory.init();
+        Path dir = Files.createTempDirectory("storage-bench");
+        // Mở FileStorage trước khi chạy để cả hai backend bắt đầu từ cùng dữ liệu mẫu
+        FileStorage file = FileStorage.open(dir, cachePages);
+        try {
+            long memPrint = run("memory", new MemoryStorage(), students, perStudent);
+            long filePrint = run("file", file, students, perStudent);
+            System.out.println("Bộ đệm trang: " + file.cacheStats());
+
+            // Mở lại từ đĩa: dữ liệu phải giữ nguyên
+            file.close();
+            file = FileStorage.open(dir, cachePages);
+            long reopenPrint = fingerprint(file);
+
+            // Index phụ (queryRegs) của từng backend phải khớp với dữ liệu gốc
+            boolean indexOk = queryFingerprint(file) == reopenPrint
+                    && queryFingerprint(new MemoryStorage()) == memPrint;
+            if (!indexOk) System.out.println("LỖI: queryRegs không khớp với dữ liệu");
+
+            boolean ok = indexOk && memPrint == filePrint && filePrint == reopenPrint;
+            System.out.println(ok ? "OK: hai backend cho cùng kết quả"
+                    : "LỖI: vân tay khác nhau " + memPrint + " / " + filePrint + " / " + reopenPrint);
+            if (!ok) System.exit(1);
+        } finally {
+            file.close();
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    /** Chạy kịch bản trên một backend, trả về vân tay dữ liệu sau khi chạy */
+    static long run(String name, Storage store, int students, int perStudent) {
+        List<Course> courses = new ArrayList<>(store.courses());
+        perStudent = Math.min(perStudent, courses.size());
+        for (Course c : courses) store.setOffering(TERM, c.code, true, "Tất cả");
+        String program = store.programs().get(0);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < students; i++) {
+            String sid = "B" + i;
+            store.addStudent(new Student(sid, "Sinh viên " + i, "01/01/2004", "Hà Nội",
+                    sid + "@bench.edu.vn", program), "123");
+            for (int k = 0; k < perStudent; k++) {
+                Course c = courses.get((i + k) % courses.size());
+                store.addReg(sid, TERM, new RegItem(c, "01/01/2026", RegStatus.SUBMITTED), false);
+            }
+        }
+        long t1 = System.nanoTime();
+
+        for (int i = 0; i < students; i += 2) {
+            String sid = "B" + i;
+            for (int k = 0; k < perStudent; k++) {
+                store.setStatus(sid, TERM, courses.get((i + k) % courses.size()).code, RegStatus.APPROVED);
+            }
+        }
+        long t2 = System.nanoTime();
+
+        Random rnd = new Random(42);
+        int reads = students * 2;
+        long found = 0;
+        for (int i = 0; i < reads; i++) {
+            found += store.loadReg("B" + rnd.nextInt(students), TERM).size();
+        }
+        long t3 = System.nanoTime();
+
+        long print = fingerprint(store);
+        long t4 = System.nanoTime();
+        store.flush();
+
+        long writes = (long) students * (perStudent + 1);
+        System.out.printf("%-7s ghi %,d: %,.0f op/s | duyệt %,d: %,.0f op/s | đọc %,d (%,d mục): %,.0f op/s | quét: %d ms%n",
+                name,
+                writes, writes / secs(t0, t1),
+                (long) (students + 1) / 2 * perStudent, ((students + 1) / 2 * perStudent) / secs(t1, t2),
+                reads, found, reads / secs(t2, t3),
+                (t4 - t3) / 1_000_000);
+        return print;
+    }
+
+    /** Vân tay không phụ thuộc thứ tự duyệt: tổng hash của (MSSV, học kỳ, mã HP, trạng thái) */
+    static long fingerprint(Storage store) {
+        long[] sum = {0};
+        store.forEachReg((sid, term, item) ->
+                sum[0] += (sid + "|" + term + "|" + item.course.code + "|" + item.status).hashCode());
+        return sum[0];
+    }
+
+    /** Vân tay tính từ queryRegs không lọc (phải bằng fingerprint) */
+    static long queryFingerprint(Storage store) {
+        long sum = 0;
+        for (RegRow r : store.queryRegs(new RegQuery()))
+            sum += (r.studentId + "|" + r.term + "|" + r.courseCode + "|" + r.status).hashCode();
+        return sum;
+    }
+
+    static double secs(long from, long to) {
+        return Math.max(1, to - from) / 1e9;
+    }
+}
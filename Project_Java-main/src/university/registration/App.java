@@ -1,10 +1,17 @@
 package university.registration;
 
+import university.registration.metrics.Metrics;
+import university.registration.server.ApiServer;
+import university.registration.store.DataGenerator;
 import university.registration.store.Memory;
+import university.registration.ui.EdtWatchdog;
 import university.registration.ui.LoginFrame;
 import university.registration.util.LookAndFeelUtil;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
 
 /**
  * Lớp App - Entry point (điểm khởi đầu) của ứng dụng Đăng ký Học phần
@@ -23,6 +30,8 @@ import javax.swing.*;
  * 
  * Ví dụ chạy ứng dụng:
  *   java university.registration.App
+ *   java university.registration.App --server --port 8080   (máy chủ API, không giao diện - xem ApiServer)
+ *   java university.registration.App --server --bind 0.0.0.0  (nhận kết nối từ máy khác)
  * 
  * Hoặc từ IDE: Run App.main()
  */
@@ -33,7 +42,13 @@ public class App {
      * 
      * Đây là phương thức đầu tiên được gọi khi chạy chương trình.
      * 
-     * @param args Tham số dòng lệnh (command-line arguments) - không sử dụng trong ứng dụng này
+     * @param args Tham số dòng lệnh (command-line arguments):
+     *             --snapshot &lt;file&gt; : nạp dữ liệu từ file snapshot thay cho dữ liệu demo
+     *             --generate &lt;spec&gt; : sinh bộ dữ liệu tổng hợp thay cho dữ liệu demo,
+     *                                 ví dụ "students=100000,regs=20,seed=42" (xem DataGenerator.Spec)
+     *             --server           : chạy máy chủ HTTP/JSON thay cho giao diện (xem ApiServer)
+     *             --port &lt;số&gt;       : port của máy chủ (mặc định 8080, 0 = port trống bất kỳ)
+     *             --bind &lt;địa chỉ&gt;  : địa chỉ máy chủ nghe (mặc định chỉ loopback 127.0.0.1)
      * 
      * Quy trình khởi động:
      * 1. Thiết lập Look & Feel (giao diện):
@@ -60,7 +75,56 @@ public class App {
      * - Tất cả thao tác với UI (tạo frame, hiển thị component) phải chạy trong EDT
      * - Nếu không, có thể gây ra lỗi "Not on EDT" và UI không hiển thị đúng
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Lưu dữ liệu vào thư mục "data" (nhật ký + snapshot) nếu chưa cấu hình
+        // Có thể đổi bằng: java -Dregistration.dataDir=/đường/dẫn ...
+        if (System.getProperty("registration.dataDir") == null) {
+            System.setProperty("registration.dataDir", "data");
+        }
+
+        // Số liệu đo (độ trễ controller / service): xem qua JMX và ghi định kỳ ra <dataDir>/metrics.txt
+        // Có thể đổi bằng: java -Dregistration.metricsFile=/đường/dẫn/metrics.txt ... (xem Metrics)
+        String dataDir = System.getProperty("registration.dataDir");
+        if (System.getProperty("registration.metricsFile") == null && !dataDir.isBlank()) {
+            System.setProperty("registration.metricsFile", Path.of(dataDir, "metrics.txt").toString());
+        }
+        Metrics.start();
+
+        // --snapshot <file>: nạp nhanh một bộ dữ liệu có sẵn (xem Memory.saveSnapshot)
+        // --generate <spec>: sinh bộ dữ liệu tổng hợp cỡ lớn, giống hệt nhau với cùng spec (xem DataGenerator)
+        // --server [--port <số>] [--bind <địa chỉ>]: máy chủ API không giao diện
+        String snapshotFile = null;
+        DataGenerator.Spec generateSpec = null;
+        int port = ApiServer.DEFAULT_PORT;
+        String bind = null;
+        boolean server = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--server".equals(args[i])) server = true;
+            if (i + 1 >= args.length) continue;
+            if ("--snapshot".equals(args[i])) snapshotFile = args[i + 1];
+            if ("--generate".equals(args[i])) generateSpec = DataGenerator.Spec.parse(args[i + 1]);
+            if ("--port".equals(args[i])) port = Integer.parseInt(args[i + 1]);
+            if ("--bind".equals(args[i])) bind = args[i + 1];
+        }
+        final String snapshot = snapshotFile;
+        final DataGenerator.Spec generate = generateSpec;
+
+        if (server) {
+            // Không dùng Swing: nạp dữ liệu ngay trên luồng main rồi mở máy chủ
+            initData(snapshot, generate);
+            ApiServer api = bind == null ? ApiServer.start(port) : ApiServer.start(new InetSocketAddress(bind, port));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> api.stop(1), "api-shutdown"));
+            System.out.println("Máy chủ API: http://" + api.address().getHostString() + ":" + api.port() + "/api/");
+            return;
+        }
+
+        // Phát hiện giao diện bị treo (EDT bị chặn quá ngưỡng): ghi stack và hành động gây treo
+        // vào <dataDir>/edt-stalls.*.log (xem EdtWatchdog; đổi ngưỡng bằng -Dregistration.edtStallMs=...)
+        if (System.getProperty("registration.edtLogFile") == null && !dataDir.isBlank()) {
+            System.setProperty("registration.edtLogFile", Path.of(dataDir, "edt-stalls.log").toString());
+        }
+        EdtWatchdog.install();
+
         // Chạy UI trong Event Dispatch Thread (EDT) - tiêu chuẩn của Swing
         // invokeLater() đảm bảo code bên trong được thực thi trong EDT,
         // tránh lỗi thread-safety và đảm bảo UI hoạt động đúng
@@ -89,7 +153,9 @@ public class App {
             //   + Mô đun chuyên ngành
             // - Mở lớp (Offering) cho tất cả học phần trong học kỳ mới nhất
             // - Tạo sinh viên demo: MSSV="SV001", password="sv123", email="sv001@university.edu"
-            Memory.init();
+            // (hoặc nạp từ file snapshot nếu chạy với --snapshot <file>,
+            //  hoặc sinh dữ liệu tổng hợp nếu chạy với --generate <spec>)
+            initData(snapshot, generate);
 
             // ========== BƯỚC 3: HIỂN THỊ MÀN HÌNH ĐĂNG NHẬP ==========
             // Tạo và hiển thị màn hình đăng nhập (LoginFrame)
@@ -100,4 +166,15 @@ public class App {
             new LoginFrame();
         });
     }
+
+    /** Nạp dữ liệu: từ snapshot, sinh tổng hợp, hoặc khôi phục thư mục dữ liệu / dữ liệu demo */
+    private static void initData(String snapshot, DataGenerator.Spec generate) {
+        if (snapshot != null) {
+            Memory.initFromSnapshot(Path.of(snapshot));
+        } else if (generate != null) {
+            Memory.initGenerated(generate);
+        } else {
+            Memory.init();
+        }
+    }
 }
@@ -1,13 +1,17 @@
 package university.registration.controller;
 
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
 import university.registration.model.Course;
 import university.registration.model.Offering;
-import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
 import university.registration.model.Student;
 import university.registration.service.CourseService;
 import university.registration.service.RegistrationService;
 import university.registration.service.TermService;
-import university.registration.store.Memory;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -27,6 +31,25 @@ import java.util.Map;
  */
 public class AdminController {
     
+    // Thời gian từng method public (xem Metrics); service không đo riêng, kho đo ở TimedStorage
+    private static final Timer GET_ALL_TERMS = Metrics.timer("AdminController.getAllTerms");
+    private static final Timer IS_TERM_OPEN = Metrics.timer("AdminController.isTermOpen");
+    private static final Timer SET_TERM_OPEN = Metrics.timer("AdminController.setTermOpen");
+    private static final Timer GET_COURSE_TABLE_DATA = Metrics.timer("AdminController.getCourseTableData");
+    private static final Timer ADD_OR_UPDATE_COURSE = Metrics.timer("AdminController.addOrUpdateCourse");
+    private static final Timer VALIDATE_DELETE_COURSES = Metrics.timer("AdminController.validateDeleteCourses");
+    private static final Timer DELETE_COURSES = Metrics.timer("AdminController.deleteCourses");
+    private static final Timer GET_COURSE_INFO_FOR_FORM = Metrics.timer("AdminController.getCourseInfoForForm");
+    private static final Timer GET_REGISTRATION_APPROVAL_DATA = Metrics.timer("AdminController.getRegistrationApprovalData");
+    private static final Timer GET_REGISTRATION_APPROVAL_PAGE = Metrics.timer("AdminController.getRegistrationApprovalPage");
+    private static final Timer GET_PENDING_COUNT = Metrics.timer("AdminController.getPendingCount");
+    private static final Timer APPROVE_REGISTRATION = Metrics.timer("AdminController.approveRegistration");
+    private static final Timer REJECT_REGISTRATION = Metrics.timer("AdminController.rejectRegistration");
+    private static final Timer APPROVE_REGISTRATIONS = Metrics.timer("AdminController.approveRegistrations");
+    private static final Timer REJECT_REGISTRATIONS = Metrics.timer("AdminController.rejectRegistrations");
+    private static final Timer APPROVE_MATCHING = Metrics.timer("AdminController.approveMatching");
+    private static final Timer REJECT_MATCHING = Metrics.timer("AdminController.rejectMatching");
+    
     // Các service để xử lý logic nghiệp vụ
     private final CourseService courseService = new CourseService();
     private final TermService termService = new TermService();
@@ -38,7 +61,7 @@ public class AdminController {
      * @return Danh sách học kỳ
      */
     public List<String> getAllTerms() {
-        return termService.getAllTerms();
+        return GET_ALL_TERMS.time(() -> termService.getAllTerms());
     }
     
     /**
@@ -48,7 +71,7 @@ public class AdminController {
      * @return true nếu đang mở, false nếu đã đóng
      */
     public boolean isTermOpen(String term) {
-        return termService.isTermOpen(term);
+        return IS_TERM_OPEN.time(() -> termService.isTermOpen(term));
     }
     
     /**
@@ -58,7 +81,7 @@ public class AdminController {
      * @param open true để mở, false để đóng
      */
     public void setTermOpen(String term, boolean open) {
-        termService.setTermOpen(term, open);
+        SET_TERM_OPEN.run(() -> termService.setTermOpen(term, open));
     }
     
     /**
@@ -68,45 +91,47 @@ public class AdminController {
      * @return Danh sách các mảng Object, mỗi mảng chứa thông tin 1 học phần
      */
     public List<Object[]> getCourseTableData(String term) {
-        List<Object[]> rows = new ArrayList<>();
+        return GET_COURSE_TABLE_DATA.time(() -> {
+            List<Object[]> rows = new ArrayList<>();
         
-        // Duyệt tất cả học phần trong hệ thống
-        for (Course course : courseService.getAllCourses().values()) {
-            // Lấy Offering (cấu hình mở lớp) cho học phần này trong kỳ đang chọn
-            Offering offering = termService.getOffering(term, course.code);
+            // Duyệt tất cả học phần trong hệ thống
+            for (Course course : courseService.getAllCourses().values()) {
+                // Lấy Offering (cấu hình mở lớp) cho học phần này trong kỳ đang chọn
+                Offering offering = termService.getOffering(term, course.code);
             
-            // Lấy chương trình đào tạo được phép (mặc định "Tất cả" nếu chưa có offering)
-            String allowedProgram = (offering == null) ? "Tất cả" : offering.allowedProgram;
+                // Lấy chương trình đào tạo được phép (mặc định "Tất cả" nếu chưa có offering)
+                String allowedProgram = (offering == null) ? "Tất cả" : offering.allowedProgram;
             
-            // Đếm số lượng sinh viên đã đăng ký
-            int registrationCount = courseService.countRegistrationsByCourse(term, course.code);
+                // Đếm số lượng sinh viên đã đăng ký
+                int registrationCount = courseService.countRegistrationsByCourse(term, course.code);
             
-            // Chuẩn bị dữ liệu hiển thị (một số field chưa có trong model, để mặc định)
-            String type = "Tự chọn"; // TODO: Thêm field type vào Course model
-            String instructor = "-"; // TODO: Thêm field instructor vào Course/Offering model
-            String schedule = "-"; // TODO: Thêm field schedule vào Offering model
-            String room = "-"; // TODO: Thêm field room vào Offering model
-            String openDisplay = (offering != null && offering.open) ? "Mở" : "Đóng";
+                // Chuẩn bị dữ liệu hiển thị (một số field chưa có trong model, để mặc định)
+                String type = "Tự chọn"; // TODO: Thêm field type vào Course model
+                String instructor = "-"; // TODO: Thêm field instructor vào Course/Offering model
+                String schedule = "-"; // TODO: Thêm field schedule vào Offering model
+                String room = "-"; // TODO: Thêm field room vào Offering model
+                String openDisplay = (offering != null && offering.open) ? "Mở" : "Đóng";
             
-            // Tạo mảng Object chứa dữ liệu cho 1 dòng trong bảng
-            Object[] row = new Object[]{
-                course.code,              // Mã HP
-                course.name,              // Tên học phần
-                String.valueOf(course.credits), // Số TC
-                type,                     // Loại
-                instructor,               // Giảng viên
-                openDisplay,              // Mở lớp?
-                allowedProgram,           // Chỉ CTĐT
-                schedule,                 // Lịch học
-                room,                     // Phòng
-                String.valueOf(registrationCount), // SV đã DK
-                false                     // Chọn (checkbox)
-            };
+                // Tạo mảng Object chứa dữ liệu cho 1 dòng trong bảng
+                Object[] row = new Object[]{
+                    course.code,              // Mã HP
+                    course.name,              // Tên học phần
+                    String.valueOf(course.credits), // Số TC
+                    type,                     // Loại
+                    instructor,               // Giảng viên
+                    openDisplay,              // Mở lớp?
+                    allowedProgram,           // Chỉ CTĐT
+                    schedule,                 // Lịch học
+                    room,                     // Phòng
+                    String.valueOf(registrationCount), // SV đã DK
+                    false                     // Chọn (checkbox)
+                };
             
-            rows.add(row);
-        }
+                rows.add(row);
+            }
         
-        return rows;
+            return rows;
+        });
     }
     
     /**
@@ -121,25 +146,27 @@ public class AdminController {
      */
     public String addOrUpdateCourse(String code, String name, int credits, 
                                      String selectedTerm, String allowedProgram) {
-        // Validate dữ liệu đầu vào
-        if (code == null || code.trim().isEmpty() || 
-            name == null || name.trim().isEmpty()) {
-            return "Nhập đầy đủ Mã HP và Tên học phần.";
-        }
+        return ADD_OR_UPDATE_COURSE.time(() -> {
+            // Validate dữ liệu đầu vào
+            if (code == null || code.trim().isEmpty() || 
+                name == null || name.trim().isEmpty()) {
+                return "Nhập đầy đủ Mã HP và Tên học phần.";
+            }
         
-        if (selectedTerm == null || selectedTerm.equals("-- Chọn kỳ --")) {
-            return "Vui lòng chọn kỳ để mở lớp.";
-        }
+            if (selectedTerm == null || selectedTerm.equals("-- Chọn kỳ --")) {
+                return "Vui lòng chọn kỳ để mở lớp.";
+            }
         
-        // Tạo đối tượng Course và lưu vào hệ thống
-        Course course = new Course(code.trim().toUpperCase(), name.trim(), credits);
-        courseService.addCourse(course);
+            // Tạo đối tượng Course và lưu vào hệ thống
+            Course course = new Course(code.trim().toUpperCase(), name.trim(), credits);
+            courseService.addCourse(course);
         
-        // Thiết lập Offering (mở lớp) cho học phần này trong kỳ đã chọn
-        boolean open = true; // Mặc định là mở khi đã chọn kỳ
-        termService.setOffering(selectedTerm, course.code, open, allowedProgram);
+            // Thiết lập Offering (mở lớp) cho học phần này trong kỳ đã chọn
+            boolean open = true; // Mặc định là mở khi đã chọn kỳ
+            termService.setOffering(selectedTerm, course.code, open, allowedProgram);
         
-        return null; // Thành công
+            return null; // Thành công
+        });
     }
     
     /**
@@ -149,19 +176,22 @@ public class AdminController {
      * @return Thông báo lỗi nếu có (null nếu có thể xóa)
      */
     public String validateDeleteCourses(List<String> courseCodes) {
-        if (courseCodes == null || courseCodes.isEmpty()) {
-            return "Chọn các dòng cần xóa (cột Chọn).";
-        }
+        return VALIDATE_DELETE_COURSES.time(() -> {
+            if (courseCodes == null || courseCodes.isEmpty()) {
+                return "Chọn các dòng cần xóa (cột Chọn).";
+            }
         
-        // Kiểm tra từng học phần có thể xóa được không
-        for (String code : courseCodes) {
-            if (!courseService.canDeleteCourse(code)) {
-                return "Không thể xóa " + code + 
-                       " vì đã có sinh viên đăng ký ở một số học kỳ.";
+            // Kiểm tra từng học phần có thể xóa được không
+            for (String code : courseCodes) {
+                if (!courseService.canDeleteCourse(code)) {
+                    var enrolled = courseService.getEnrolledStudents(code);
+                    return "Không thể xóa " + code + 
+                           " vì đã có sinh viên đăng ký ở học kỳ " + String.join(", ", enrolled.keySet()) + ".";
+                }
             }
-        }
         
-        return null; // Có thể xóa
+            return null; // Có thể xóa
+        });
     }
     
     /**
@@ -170,9 +200,11 @@ public class AdminController {
      * @param courseCodes Danh sách mã học phần cần xóa
      */
     public void deleteCourses(List<String> courseCodes) {
-        for (String code : courseCodes) {
-            courseService.deleteCourse(code);
-        }
+        DELETE_COURSES.run(() -> {
+            for (String code : courseCodes) {
+                courseService.deleteCourse(code);
+            }
+        });
     }
     
     /**
@@ -183,13 +215,15 @@ public class AdminController {
      * @return Mảng Object chứa thông tin: [course, offering] hoặc null nếu không tìm thấy
      */
     public Object[] getCourseInfoForForm(String courseCode, String term) {
-        Course course = courseService.getCourseByCode(courseCode);
-        if (course == null) {
-            return null;
-        }
+        return GET_COURSE_INFO_FOR_FORM.time(() -> {
+            Course course = courseService.getCourseByCode(courseCode);
+            if (course == null) {
+                return null;
+            }
         
-        Offering offering = termService.getOffering(term, courseCode);
-        return new Object[]{course, offering};
+            Offering offering = termService.getOffering(term, courseCode);
+            return new Object[]{course, offering};
+        });
     }
     
     /**
@@ -203,132 +237,192 @@ public class AdminController {
      */
     public List<Object[]> getRegistrationApprovalData(String searchText, String selectedStatus, 
                                                        String selectedTerm, String selectedDept) {
-        List<Object[]> rows = new ArrayList<>();
-        String searchLower = (searchText != null) ? searchText.toLowerCase() : "";
+        return GET_REGISTRATION_APPROVAL_DATA.time(() -> {
+            List<Object[]> rows = new ArrayList<>();
         
-        int regCount = 0;
-        
-        // Duyệt tất cả sinh viên và các học kỳ của họ
-        for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-            String studentId = studentEntry.getKey();
-            Student student = Memory.studentsById.get(studentId);
-            if (student == null) continue;
-            
-            // Lọc theo khoa/viện
-            if (selectedDept != null && !selectedDept.equals("Tất cả")) {
-                if (!selectedDept.equals(student.program)) {
-                    continue;
-                }
-            }
-            
-            Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-            for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                String term = termEntry.getKey();
-                
-                // Lọc theo học kỳ
-                if (selectedTerm != null && !selectedTerm.equals("Tất cả")) {
-                    if (!selectedTerm.equals(term)) {
-                        continue;
-                    }
-                }
-                
-                List<RegItem> regItems = termEntry.getValue();
-                for (RegItem item : regItems) {
-                    // Chuẩn hóa trạng thái
-                    String status = item.status;
-                    if ("Tạm".equals(status) || "Đã gửi".equals(status)) {
-                        status = "Chờ xử lý";
-                    }
-                    
-                    // Lọc theo trạng thái
-                    if (selectedStatus != null && !selectedStatus.equals("Tất cả")) {
-                        if (!selectedStatus.equals(status)) {
-                            continue;
-                        }
-                    }
-                    
-                    // Lọc theo từ khóa tìm kiếm
-                    if (!searchLower.isEmpty()) {
-                        if (!student.fullName.toLowerCase().contains(searchLower) &&
-                            !studentId.toLowerCase().contains(searchLower) &&
-                            !item.course.name.toLowerCase().contains(searchLower) &&
-                            !item.course.code.toLowerCase().contains(searchLower)) {
-                            continue;
-                        }
-                    }
-                    
-                    // Thêm vào danh sách kết quả
-                    regCount++;
-                    String regCode = "DK" + String.format("%03d", regCount);
-                    
-                    rows.add(new Object[]{
-                        regCode,                    // Mã ĐK
-                        student.fullName,           // Tên sinh viên
-                        studentId,                  // Mã SV
-                        item.course.name,           // Tên học phần
-                        String.valueOf(item.course.credits), // Tín chỉ
-                        item.date,                  // Thời gian ĐK
-                        status,                     // Trạng thái
-                        term,                       // Học kỳ
-                        ""                          // Hành động (để UI xử lý)
-                    });
-                }
+            // Lọc bằng index phụ của kho dữ liệu, không duyệt toàn bộ đăng ký
+            RegQuery query = RegQuery.fromFilters(searchText, selectedStatus, selectedTerm, selectedDept, "Chờ xử lý");
+            for (RegRow r : registrationService.queryRegistrations(query)) {
+                rows.add(approvalRow(r));
             }
-        }
         
-        return rows;
+            return rows;
+        });
     }
     
     /**
-     * Duyệt đăng ký học phần
+     * Lấy một trang của bảng duyệt đăng ký (cùng bộ lọc và cùng cột như getRegistrationApprovalData).
+     * Chỉ tạo dòng cho các đăng ký trong trang: kết quả lọc của kho được đọc theo vị trí,
+     * không dựng toàn bộ danh sách (có thể tới hàng triệu đăng ký).
      * 
-     * @param studentId Mã số sinh viên
-     * @param term Học kỳ
-     * @param courseName Tên học phần (để tìm chính xác)
-     * @return true nếu thành công, false nếu không tìm thấy
+     * @param offset Vị trí (0-based) của đăng ký đầu trang trong toàn bộ kết quả lọc
+     * @param pageSize Số đăng ký tối đa của trang
+     * @return Trang kết quả, kèm tổng số đăng ký khớp bộ lọc
      */
-    public boolean approveRegistration(String studentId, String term, String courseName) {
-        // Tìm course code từ course name
-        String courseCode = null;
-        List<RegItem> regs = registrationService.getRegistrations(studentId, term);
-        for (RegItem item : regs) {
-            if (item.course.name.equals(courseName)) {
-                courseCode = item.course.code;
-                break;
+    public RegistrationPage getRegistrationApprovalPage(String searchText, String selectedStatus,
+                                                        String selectedTerm, String selectedDept,
+                                                        int offset, int pageSize) {
+        return GET_REGISTRATION_APPROVAL_PAGE.time(() -> {
+            RegQuery query = RegQuery.fromFilters(searchText, selectedStatus, selectedTerm, selectedDept, "Chờ xử lý");
+            List<RegRow> found = registrationService.queryRegistrations(query);
+            int size = Math.max(pageSize, 0);
+            int from = Math.min(Math.max(offset, 0), found.size());
+            int to = Math.min(from + size, found.size());
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (RegRow r : found.subList(from, to)) {
+                rows.add(approvalRow(r));
             }
-        }
+            return new RegistrationPage(rows, from, size, found.size());
+        });
+    }
+    
+    /**
+     * Một trang của bảng duyệt đăng ký (kết quả của getRegistrationApprovalPage)
+     */
+    public static class RegistrationPage {
+        /** Dòng của trang này (cột như getRegistrationApprovalData, tối đa pageSize dòng) */
+        public final List<Object[]> rows;
+        /** Vị trí (0-based) của dòng đầu trang và số dòng tối đa mỗi trang */
+        public final int offset, pageSize;
+        /** Tổng số đăng ký khớp bộ lọc */
+        public final int totalCount;
         
-        if (courseCode != null) {
-            return registrationService.approveRegistration(studentId, term, courseCode);
+        RegistrationPage(List<Object[]> rows, int offset, int pageSize, int totalCount) {
+            this.rows = rows;
+            this.offset = offset;
+            this.pageSize = pageSize;
+            this.totalCount = totalCount;
         }
+    }
+    
+    /** Một dòng của bảng duyệt đăng ký */
+    private static Object[] approvalRow(RegRow r) {
+        // Chuẩn hóa trạng thái ("Đã gửi" -> "Chờ xử lý")
+        String status = RegQuery.shownAs(r.status, "Chờ xử lý");
         
-        return false;
+        return new Object[]{
+            RegRow.regCode(r.id),       // Mã ĐK (không đổi theo bộ lọc)
+            r.fullName,                 // Tên sinh viên
+            r.studentId,                // Mã SV
+            r.courseName,               // Tên học phần
+            String.valueOf(r.credits),  // Tín chỉ
+            r.date,                     // Thời gian ĐK
+            status,                     // Trạng thái
+            r.term,                     // Học kỳ
+            ""                          // Hành động (để UI xử lý)
+        };
+    }
+    
+    /**
+     * Số đăng ký đang chờ duyệt (trạng thái "Đã gửi"), đọc từ bộ đếm - không duyệt đăng ký
+     * 
+     * @param term Học kỳ (null hoặc "Tất cả" = mọi học kỳ)
+     * @return Số đăng ký chờ duyệt
+     */
+    public long getPendingCount(String term) {
+        String t = "Tất cả".equals(term) ? null : term;
+        return GET_PENDING_COUNT.time(() -> registrationService.countRegistrations(t, RegStatus.SUBMITTED));
+    }
+    
+    /**
+     * Duyệt đăng ký học phần
+     * 
+     * @param regCode Mã ĐK của dòng (cột đầu tiên của getRegistrationApprovalData, ví dụ "DK001")
+     * @return true nếu thành công, false nếu không tìm thấy hoặc đăng ký không còn chờ duyệt
+     */
+    public boolean approveRegistration(String regCode) {
+        return APPROVE_REGISTRATION.time(() -> decide(regCode, true));
     }
     
     /**
      * Từ chối đăng ký học phần
      * 
-     * @param studentId Mã số sinh viên
-     * @param term Học kỳ
-     * @param courseName Tên học phần (để tìm chính xác)
-     * @return true nếu thành công, false nếu không tìm thấy
+     * @param regCode Mã ĐK của dòng (cột đầu tiên của getRegistrationApprovalData, ví dụ "DK001")
+     * @return true nếu thành công, false nếu không tìm thấy hoặc đăng ký không còn chờ duyệt
      */
-    public boolean rejectRegistration(String studentId, String term, String courseName) {
-        // Tìm course code từ course name
-        String courseCode = null;
-        List<RegItem> regs = registrationService.getRegistrations(studentId, term);
-        for (RegItem item : regs) {
-            if (item.course.name.equals(courseName)) {
-                courseCode = item.course.code;
-                break;
-            }
+    public boolean rejectRegistration(String regCode) {
+        return REJECT_REGISTRATION.time(() -> decide(regCode, false));
+    }
+    
+    /**
+     * Duyệt hàng loạt các dòng đã chọn trong một lượt (một lần refresh bảng cho cả lô)
+     * 
+     * @param regCodes Mã ĐK của các dòng (ví dụ "DK001")
+     * @return Số đăng ký đã duyệt và lý do của từng mã không duyệt được
+     *         (mã ĐK sai định dạng được ghi với mã -1)
+     */
+    public Storage.BatchResult approveRegistrations(List<String> regCodes) {
+        return APPROVE_REGISTRATIONS.time(() -> decideAll(regCodes, RegStatus.APPROVED));
+    }
+    
+    /**
+     * Từ chối hàng loạt các dòng đã chọn trong một lượt (chỗ được trả cho danh sách chờ sau khi xong cả lô)
+     * 
+     * @param regCodes Mã ĐK của các dòng (ví dụ "DK001")
+     * @return Số đăng ký đã từ chối và lý do của từng mã không từ chối được
+     */
+    public Storage.BatchResult rejectRegistrations(List<String> regCodes) {
+        return REJECT_REGISTRATIONS.time(() -> decideAll(regCodes, RegStatus.REJECTED));
+    }
+    
+    /**
+     * Duyệt mọi đăng ký khớp bộ lọc (không cần hiển thị lên bảng trước)
+     * 
+     * @param selectedTerm Học kỳ ("Tất cả" = mọi học kỳ)
+     * @param selectedDept Khoa/Viện ("Tất cả" = mọi khoa)
+     * @param courseCode Mã học phần (null hoặc "Tất cả" = mọi học phần)
+     * @param selectedStatus Trạng thái ("Tất cả" = chỉ các đăng ký "Chờ xử lý")
+     * @return Số đăng ký đã duyệt và lý do của từng mã không duyệt được
+     */
+    public Storage.BatchResult approveMatching(String selectedTerm, String selectedDept,
+                                               String courseCode, String selectedStatus) {
+        return APPROVE_MATCHING.time(() -> registrationService.decideMatching(
+                matching(selectedTerm, selectedDept, courseCode, selectedStatus), RegStatus.APPROVED));
+    }
+    
+    /**
+     * Từ chối mọi đăng ký khớp bộ lọc (tham số như approveMatching)
+     * 
+     * @return Số đăng ký đã từ chối và lý do của từng mã không từ chối được
+     */
+    public Storage.BatchResult rejectMatching(String selectedTerm, String selectedDept,
+                                              String courseCode, String selectedStatus) {
+        return REJECT_MATCHING.time(() -> registrationService.decideMatching(
+                matching(selectedTerm, selectedDept, courseCode, selectedStatus), RegStatus.REJECTED));
+    }
+    
+    private Storage.BatchResult decideAll(List<String> regCodes, RegStatus status) {
+        Storage.BatchResult invalid = new Storage.BatchResult();
+        List<Long> regIds = new ArrayList<>(regCodes.size());
+        for (String code : regCodes) {
+            long regId = RegRow.regId(code);
+            if (regId > 0) regIds.add(regId);
+            else invalid.fail(regId, "Mã đăng ký không hợp lệ: " + code);
         }
-        
-        if (courseCode != null) {
-            return registrationService.rejectRegistration(studentId, term, courseCode);
+        Storage.BatchResult result = registrationService.decideRegistrations(regIds, status);
+        result.failures.putAll(invalid.failures);
+        return result;
+    }
+    
+    private RegQuery matching(String selectedTerm, String selectedDept, String courseCode, String selectedStatus) {
+        RegQuery query = RegQuery.fromFilters(null, selectedStatus, selectedTerm, selectedDept, "Chờ xử lý");
+        query.courseCode = courseCode == null || courseCode.equals("Tất cả") ? null : courseCode;
+        return query;
+    }
+    
+    /**
+     * Duyệt / từ chối theo mã đăng ký: mã ĐK không đổi theo bộ lọc nên tra thẳng index chính,
+     * không tìm lại đăng ký theo tên học phần
+     */
+    private boolean decide(String regCode, boolean approve) {
+        long regId = RegRow.regId(regCode);
+        if (regId <= 0) return false;
+        try {
+            return approve ? registrationService.approveRegistration(regId)
+                           : registrationService.rejectRegistration(regId);
+        } catch (RuntimeException ex) {
+            return false; // đã được xử lý ở nơi khác (bước chuyển trạng thái không hợp lệ)
         }
-        
-        return false;
     }
 }
 
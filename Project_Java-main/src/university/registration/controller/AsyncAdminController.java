@@ -0,0 +1,137 @@
+package university.registration.controller;
+
+import university.registration.store.Storage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Phiên bản bất đồng bộ của AdminController: mỗi method chạy method cùng tên của AdminController
+ * trên luồng nền (xem AsyncTasks) và trả về CompletableFuture, để UI không bị treo khi truy vấn chậm
+ *
+ * Tham số danh sách được sao chép trước khi chạy (UI có thể sửa danh sách gốc ngay sau khi gọi).
+ * Duyệt / từ chối hàng loạt theo mã ĐK chạy theo từng lô BATCH_SIZE: báo tiến độ sau mỗi lô
+ * và dừng ở ranh giới lô khi bị hủy (các lô đã xong vẫn giữ nguyên).
+ */
+public class AsyncAdminController {
+
+    /** Số đăng ký mỗi lô khi duyệt / từ chối hàng loạt */
+    public static final int BATCH_SIZE = 1000;
+
+    private final AdminController controller;
+
+    public AsyncAdminController() {
+        this(new AdminController());
+    }
+
+    public AsyncAdminController(AdminController controller) {
+        this.controller = controller;
+    }
+
+    /** Controller đồng bộ bên dưới */
+    public AdminController sync() {
+        return controller;
+    }
+
+    public CompletableFuture<List<String>> getAllTerms() {
+        return AsyncTasks.supply(controller::getAllTerms);
+    }
+
+    public CompletableFuture<Boolean> isTermOpen(String term) {
+        return AsyncTasks.supply(() -> controller.isTermOpen(term));
+    }
+
+    public CompletableFuture<Void> setTermOpen(String term, boolean open) {
+        return AsyncTasks.run(() -> controller.setTermOpen(term, open));
+    }
+
+    public CompletableFuture<List<Object[]>> getCourseTableData(String term) {
+        return AsyncTasks.supply(() -> controller.getCourseTableData(term));
+    }
+
+    public CompletableFuture<String> addOrUpdateCourse(String code, String name, int credits,
+                                                       String selectedTerm, String allowedProgram) {
+        return AsyncTasks.supply(() -> controller.addOrUpdateCourse(code, name, credits, selectedTerm, allowedProgram));
+    }
+
+    public CompletableFuture<String> validateDeleteCourses(List<String> courseCodes) {
+        List<String> codes = List.copyOf(courseCodes);
+        return AsyncTasks.supply(() -> controller.validateDeleteCourses(codes));
+    }
+
+    public CompletableFuture<Void> deleteCourses(List<String> courseCodes) {
+        List<String> codes = List.copyOf(courseCodes);
+        return AsyncTasks.run(() -> controller.deleteCourses(codes));
+    }
+
+    public CompletableFuture<Object[]> getCourseInfoForForm(String courseCode, String term) {
+        return AsyncTasks.supply(() -> controller.getCourseInfoForForm(courseCode, term));
+    }
+
+    public CompletableFuture<List<Object[]>> getRegistrationApprovalData(String searchText, String selectedStatus,
+                                                                        String selectedTerm, String selectedDept) {
+        return AsyncTasks.supply(() -> controller.getRegistrationApprovalData(searchText, selectedStatus,
+                selectedTerm, selectedDept));
+    }
+
+    public CompletableFuture<Long> getPendingCount(String term) {
+        return AsyncTasks.supply(() -> controller.getPendingCount(term));
+    }
+
+    public CompletableFuture<Boolean> approveRegistration(String regCode) {
+        return AsyncTasks.supply(() -> controller.approveRegistration(regCode));
+    }
+
+    public CompletableFuture<Boolean> rejectRegistration(String regCode) {
+        return AsyncTasks.supply(() -> controller.rejectRegistration(regCode));
+    }
+
+    public CompletableFuture<Storage.BatchResult> approveRegistrations(List<String> regCodes) {
+        return approveRegistrations(regCodes, null);
+    }
+
+    /** Duyệt hàng loạt theo lô, báo tiến độ (số mã ĐK đã xử lý / tổng) tới progress */
+    public CompletableFuture<Storage.BatchResult> approveRegistrations(List<String> regCodes,
+                                                                     AsyncTasks.Progress progress) {
+        return inBatches(regCodes, controller::approveRegistrations, progress);
+    }
+
+    public CompletableFuture<Storage.BatchResult> rejectRegistrations(List<String> regCodes) {
+        return rejectRegistrations(regCodes, null);
+    }
+
+    /** Từ chối hàng loạt theo lô, báo tiến độ (số mã ĐK đã xử lý / tổng) tới progress */
+    public CompletableFuture<Storage.BatchResult> rejectRegistrations(List<String> regCodes,
+                                                                    AsyncTasks.Progress progress) {
+        return inBatches(regCodes, controller::rejectRegistrations, progress);
+    }
+
+    public CompletableFuture<Storage.BatchResult> approveMatching(String selectedTerm, String selectedDept,
+                                                                String courseCode, String selectedStatus) {
+        return AsyncTasks.supply(() -> controller.approveMatching(selectedTerm, selectedDept, courseCode, selectedStatus));
+    }
+
+    public CompletableFuture<Storage.BatchResult> rejectMatching(String selectedTerm, String selectedDept,
+                                                               String courseCode, String selectedStatus) {
+        return AsyncTasks.supply(() -> controller.rejectMatching(selectedTerm, selectedDept, courseCode, selectedStatus));
+    }
+
+    /** Chạy decide cho từng lô BATCH_SIZE mã ĐK, cộng dồn kết quả; dừng giữa hai lô nếu bị hủy */
+    private static CompletableFuture<Storage.BatchResult> inBatches(List<String> regCodes,
+                                                                    Function<List<String>, Storage.BatchResult> decide,
+                                                                    AsyncTasks.Progress progress) {
+        List<String> codes = List.copyOf(regCodes);
+        return AsyncTasks.supply(() -> {
+            Storage.BatchResult total = new Storage.BatchResult();
+            for (int from = 0; from < codes.size() && !AsyncTasks.cancelled(); from += BATCH_SIZE) {
+                int to = Math.min(codes.size(), from + BATCH_SIZE);
+                Storage.BatchResult batch = decide.apply(codes.subList(from, to));
+                total.changed += batch.changed;
+                total.failures.putAll(batch.failures);
+                AsyncTasks.progress(to, codes.size());
+            }
+            return total;
+        }, progress);
+    }
+}
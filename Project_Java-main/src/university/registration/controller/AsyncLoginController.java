@@ -0,0 +1,31 @@
+package university.registration.controller;
+
+import university.registration.controller.LoginController.LoginResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Phiên bản bất đồng bộ của LoginController: xác thực (tra kho tài khoản, so mật khẩu)
+ * chạy trên luồng nền (xem AsyncTasks) thay vì trên EDT
+ */
+public class AsyncLoginController {
+
+    private final LoginController controller;
+
+    public AsyncLoginController() {
+        this(new LoginController());
+    }
+
+    public AsyncLoginController(LoginController controller) {
+        this.controller = controller;
+    }
+
+    /** Controller đồng bộ bên dưới */
+    public LoginController sync() {
+        return controller;
+    }
+
+    public CompletableFuture<LoginResult> login(String username, String password) {
+        return AsyncTasks.supply(() -> controller.login(username, password));
+    }
+}
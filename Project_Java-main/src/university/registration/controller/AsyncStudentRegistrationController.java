@@ -0,0 +1,83 @@
+package university.registration.controller;
+
+import university.registration.controller.StudentRegistrationController.CatalogPage;
+import university.registration.controller.StudentRegistrationController.CourseItem;
+import university.registration.model.Student;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Phiên bản bất đồng bộ của StudentRegistrationController: mỗi method chạy method cùng tên
+ * trên luồng nền (xem AsyncTasks) và trả về CompletableFuture
+ *
+ * Dùng chung controller đồng bộ (sync()) với các chỗ gọi trực tiếp, nên cache cursor
+ * của danh mục là một: cursor nhận từ queryCatalogPage bất đồng bộ dùng được cho getCatalogPage đồng bộ và ngược lại.
+ */
+public class AsyncStudentRegistrationController {
+
+    private final StudentRegistrationController controller;
+
+    public AsyncStudentRegistrationController(Student student) {
+        this(new StudentRegistrationController(student));
+    }
+
+    public AsyncStudentRegistrationController(StudentRegistrationController controller) {
+        this.controller = controller;
+    }
+
+    /** Controller đồng bộ bên dưới */
+    public StudentRegistrationController sync() {
+        return controller;
+    }
+
+    public CompletableFuture<List<String>> getAllTerms() {
+        return AsyncTasks.supply(controller::getAllTerms);
+    }
+
+    public CompletableFuture<Boolean> isTermOpen(String term) {
+        return AsyncTasks.supply(() -> controller.isTermOpen(term));
+    }
+
+    public CompletableFuture<List<CourseItem>> getAvailableCourses(String term) {
+        return AsyncTasks.supply(() -> controller.getAvailableCourses(term));
+    }
+
+    public CompletableFuture<CatalogPage> queryCatalogPage(String term, String searchText, int pageSize) {
+        return AsyncTasks.supply(() -> controller.queryCatalogPage(term, searchText, pageSize));
+    }
+
+    public CompletableFuture<CatalogPage> getCatalogPage(String cursor, int page) {
+        return AsyncTasks.supply(() -> controller.getCatalogPage(cursor, page));
+    }
+
+    public CompletableFuture<String> addRegistration(String term, String courseCode) {
+        return AsyncTasks.supply(() -> controller.addRegistration(term, courseCode));
+    }
+
+    public CompletableFuture<String> deleteRegistrations(String term, Set<String> courseCodes) {
+        Set<String> codes = courseCodes == null ? null : Set.copyOf(courseCodes);
+        return AsyncTasks.supply(() -> controller.deleteRegistrations(term, codes));
+    }
+
+    public CompletableFuture<String> submitRegistrations(String term) {
+        return AsyncTasks.supply(() -> controller.submitRegistrations(term));
+    }
+
+    public CompletableFuture<List<Object[]>> getRegistrationTableData(String term) {
+        return AsyncTasks.supply(() -> controller.getRegistrationTableData(term));
+    }
+
+    public CompletableFuture<Integer> calculateTotalCredits(String term) {
+        return AsyncTasks.supply(() -> controller.calculateTotalCredits(term));
+    }
+
+    public CompletableFuture<List<Object[]>> getCatalogData(String term, String searchText) {
+        return AsyncTasks.supply(() -> controller.getCatalogData(term, searchText));
+    }
+
+    public CompletableFuture<List<Object[]>> getHistoryData() {
+        return AsyncTasks.supply(controller::getHistoryData);
+    }
+}
@@ -0,0 +1,89 @@
+package university.registration.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Chạy lời gọi controller trên luồng nền, trả về CompletableFuture (dùng cho các lớp Async*Controller)
+ *
+ * - Mỗi lời gọi một luồng ảo (virtual thread): lời gọi chờ khóa / đọc file không giữ luồng hệ điều hành,
+ *   không cần giới hạn kích thước pool
+ * - Hủy (future.cancel): lời gọi chưa bắt đầu thì bỏ qua; đang chạy thì KHÔNG interrupt
+ *   (kho dữ liệu dạng file dùng FileChannel, interrupt sẽ đóng kênh) - lời gọi dài tự kiểm tra
+ *   cancelled() giữa các bước và dừng sớm, kết quả bị bỏ
+ * - Tiến độ: lời gọi dài gọi progress(done, total), chuyển tới Progress truyền vào supply
+ *   (trên luồng nền - phía giao diện tự chuyển sang EDT)
+ *
+ * Kết quả / lỗi được hoàn tất trên luồng nền: giao diện áp dụng kết quả qua AsyncUi (chạy trên EDT).
+ */
+public final class AsyncTasks {
+
+    /** Nhận tiến độ của lời gọi đang chạy (gọi trên luồng nền) */
+    @FunctionalInterface
+    public interface Progress {
+        void update(long done, long total);
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("controller-", 0).factory());
+
+    /** Lời gọi đang chạy trên luồng hiện tại (để kiểm tra cancelled() / báo progress()) */
+    private static final ThreadLocal<Task<?>> CURRENT = new ThreadLocal<>();
+
+    private AsyncTasks() {}
+
+    private static final class Task<T> extends CompletableFuture<T> {
+        final Progress progress;
+
+        Task(Progress progress) {
+            this.progress = progress;
+        }
+    }
+
+    /** Chạy task trên luồng nền */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return supply(task, null);
+    }
+
+    /** Chạy task trên luồng nền, tiến độ (nếu task báo) gửi tới progress (null = bỏ qua) */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task, Progress progress) {
+        Task<T> future = new Task<>(progress);
+        EXECUTOR.execute(() -> {
+            if (future.isDone()) return; // đã hủy trước khi kịp chạy
+            CURRENT.set(future);
+            try {
+                future.complete(task.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                CURRENT.remove();
+            }
+        });
+        return future;
+    }
+
+    /** Chạy task không có kết quả trên luồng nền */
+    public static CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Lời gọi đang chạy trên luồng hiện tại đã bị hủy chưa.
+     * Lời gọi dài kiểm tra giữa các bước và trả về sớm. Luôn là false khi gọi đồng bộ (ngoài supply).
+     */
+    public static boolean cancelled() {
+        Task<?> task = CURRENT.get();
+        return task != null && task.isCancelled();
+    }
+
+    /** Báo tiến độ của lời gọi đang chạy trên luồng hiện tại (không có tác dụng khi gọi đồng bộ) */
+    public static void progress(long done, long total) {
+        Task<?> task = CURRENT.get();
+        if (task != null && task.progress != null) task.progress.update(done, total);
+    }
+}
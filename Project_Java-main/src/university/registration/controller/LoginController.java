@@ -1,8 +1,12 @@
 package university.registration.controller;
 
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
 import university.registration.model.Student;
 import university.registration.service.AuthenticationService;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Controller xử lý logic nghiệp vụ cho màn hình LoginFrame
  * 
@@ -16,6 +20,10 @@ import university.registration.service.AuthenticationService;
  */
 public class LoginController {
     
+    private static final Timer LOGIN = Metrics.timer("LoginController.login");
+    // Số lần đăng nhập sai tài khoản / mật khẩu
+    private static final LongAdder LOGIN_FAILED = Metrics.counter("LoginController.login.failed");
+    
     // Service xử lý logic đăng nhập và xác thực
     private final AuthenticationService authService = new AuthenticationService();
     
@@ -69,29 +77,32 @@ public class LoginController {
      * @return LoginResult chứa kết quả đăng nhập
      */
     public LoginResult login(String username, String password) {
-        // Validate dữ liệu đầu vào
-        if (username == null || username.trim().isEmpty() ||
-            password == null || password.isEmpty()) {
-            return LoginResult.failed("Vui lòng nhập đầy đủ thông tin.");
-        }
+        return LOGIN.time(() -> {
+            // Validate dữ liệu đầu vào
+            if (username == null || username.trim().isEmpty() ||
+                password == null || password.isEmpty()) {
+                return LoginResult.failed("Vui lòng nhập đầy đủ thông tin.");
+            }
         
-        String user = username.trim();
+            String user = username.trim();
         
-        // Thử đăng nhập với tài khoản Admin (PĐT) trước
-        if (authService.verifyAdmin(user, password)) {
-            return LoginResult.admin();
-        }
+            // Thử đăng nhập với tài khoản Admin (PĐT) trước
+            if (authService.verifyAdmin(user, password)) {
+                return LoginResult.admin();
+            }
         
-        // Nếu không phải Admin, thử đăng nhập với tài khoản Sinh viên
-        // AuthenticationService sẽ tự động tìm theo MSSV hoặc Email
-        Student student = authService.loginStudent(user, password);
+            // Nếu không phải Admin, thử đăng nhập với tài khoản Sinh viên
+            // AuthenticationService sẽ tự động tìm theo MSSV hoặc Email
+            Student student = authService.loginStudent(user, password);
         
-        if (student != null) {
-            return LoginResult.student(student);
-        }
+            if (student != null) {
+                return LoginResult.student(student);
+            }
         
-        // Nếu cả hai đều thất bại
-        return LoginResult.failed("Tài khoản hoặc mật khẩu không đúng.");
+            // Nếu cả hai đều thất bại
+            LOGIN_FAILED.increment();
+            return LoginResult.failed("Tài khoản hoặc mật khẩu không đúng.");
+        });
     }
 }
 
@@ -1,18 +1,22 @@
 package university.registration.controller;
 
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
 import university.registration.model.Course;
 import university.registration.model.RegItem;
 import university.registration.model.Student;
 import university.registration.service.CourseService;
 import university.registration.service.RegistrationService;
 import university.registration.service.TermService;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -28,6 +32,20 @@ import java.util.Set;
  */
 public class StudentRegistrationController {
     
+    // Thời gian từng method public (xem Metrics); service không đo riêng, kho đo ở TimedStorage
+    private static final Timer GET_ALL_TERMS = Metrics.timer("StudentRegistrationController.getAllTerms");
+    private static final Timer IS_TERM_OPEN = Metrics.timer("StudentRegistrationController.isTermOpen");
+    private static final Timer GET_AVAILABLE_COURSES = Metrics.timer("StudentRegistrationController.getAvailableCourses");
+    private static final Timer QUERY_CATALOG_PAGE = Metrics.timer("StudentRegistrationController.queryCatalogPage");
+    private static final Timer GET_CATALOG_PAGE = Metrics.timer("StudentRegistrationController.getCatalogPage");
+    private static final Timer ADD_REGISTRATION = Metrics.timer("StudentRegistrationController.addRegistration");
+    private static final Timer DELETE_REGISTRATIONS = Metrics.timer("StudentRegistrationController.deleteRegistrations");
+    private static final Timer SUBMIT_REGISTRATIONS = Metrics.timer("StudentRegistrationController.submitRegistrations");
+    private static final Timer GET_REGISTRATION_TABLE_DATA = Metrics.timer("StudentRegistrationController.getRegistrationTableData");
+    private static final Timer CALCULATE_TOTAL_CREDITS = Metrics.timer("StudentRegistrationController.calculateTotalCredits");
+    private static final Timer GET_CATALOG_DATA = Metrics.timer("StudentRegistrationController.getCatalogData");
+    private static final Timer GET_HISTORY_DATA = Metrics.timer("StudentRegistrationController.getHistoryData");
+    
     // Các service để xử lý logic nghiệp vụ
     private final RegistrationService registrationService = new RegistrationService();
     private final CourseService courseService = new CourseService();
@@ -36,6 +54,18 @@ public class StudentRegistrationController {
     // Sinh viên đang sử dụng hệ thống
     private final Student student;
     
+    /** Số kết quả lọc danh mục giữ lại (mỗi cursor một kết quả, bỏ cái lâu không dùng nhất) */
+    private static final int CATALOG_CACHE_SIZE = 8;
+    
+    // Kết quả lọc danh mục theo cursor (LRU), chỉ truy cập trong các method synchronized
+    private final Map<String, CatalogResult> catalogCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CatalogResult> eldest) {
+            return size() > CATALOG_CACHE_SIZE;
+        }
+    };
+    private long lastCursor;
+    
     /**
      * Constructor
      * 
@@ -51,7 +81,7 @@ public class StudentRegistrationController {
      * @return Danh sách học kỳ
      */
     public List<String> getAllTerms() {
-        return termService.getAllTerms();
+        return GET_ALL_TERMS.time(() -> termService.getAllTerms());
     }
     
     /**
@@ -61,7 +91,7 @@ public class StudentRegistrationController {
      * @return true nếu đang mở, false nếu đã đóng
      */
     public boolean isTermOpen(String term) {
-        return termService.isTermOpen(term);
+        return IS_TERM_OPEN.time(() -> termService.isTermOpen(term));
     }
     
     /**
@@ -71,24 +101,16 @@ public class StudentRegistrationController {
      * @return Danh sách CourseItem (code, name, credits) có thể đăng ký
      */
     public List<CourseItem> getAvailableCourses(String term) {
-        List<CourseItem> availableCourses = new ArrayList<>();
+        return GET_AVAILABLE_COURSES.time(() -> {
+            List<CourseItem> availableCourses = new ArrayList<>();
         
-        // Duyệt tất cả học phần trong hệ thống
-        for (Course course : courseService.getAllCourses().values()) {
-            // Lấy Offering (cấu hình mở lớp) cho học phần này
-            var offering = termService.getOffering(term, course.code);
-            
-            // Kiểm tra điều kiện: có offering, đang mở, và cho phép CTĐT của sinh viên
-            boolean allow = (offering != null && offering.open &&
-                    ("Tất cả".equals(offering.allowedProgram) ||
-                            student.program.equals(offering.allowedProgram)));
-            
-            if (allow) {
+            // View dựng sẵn theo (học kỳ, CTĐT): đã lọc offering đang mở và CTĐT được phép
+            for (Course course : courseService.getAvailableCourses(term, student.program)) {
                 availableCourses.add(new CourseItem(course.code, course.name, course.credits));
             }
-        }
         
-        return availableCourses;
+            return availableCourses;
+        });
     }
     
     /**
@@ -105,6 +127,125 @@ public class StudentRegistrationController {
         }
     }
     
+    /**
+     * Một trang của danh mục học phần có thể đăng ký (kết quả của queryCatalogPage / getCatalogPage)
+     */
+    public static class CatalogPage {
+        /** Học phần của trang này (tối đa pageSize) */
+        public final List<Course> courses;
+        /** Trang hiện tại (bắt đầu từ 1) và số học phần mỗi trang */
+        public final int page, pageSize;
+        /** Tổng số học phần khớp bộ lọc và tổng số trang (0 nếu không có kết quả) */
+        public final int totalCount, totalPages;
+        /** Cursor để lấy các trang khác của cùng kết quả lọc (truyền lại cho getCatalogPage) */
+        public final String cursor;
+        
+        CatalogPage(List<Course> courses, int page, int pageSize, int totalCount, String cursor) {
+            this.courses = courses;
+            this.page = page;
+            this.pageSize = pageSize;
+            this.totalCount = totalCount;
+            this.totalPages = (totalCount + pageSize - 1) / pageSize;
+            this.cursor = cursor;
+        }
+        
+        /** Vị trí (0-based) của học phần đầu trang trong toàn bộ kết quả */
+        public int offset() {
+            return (page - 1) * pageSize;
+        }
+    }
+    
+    /**
+     * Kết quả lọc danh mục đã tính, gắn với phiên bản danh mục lúc lọc
+     */
+    private static class CatalogResult {
+        final String term, searchText;
+        final int pageSize;
+        long version;
+        List<Course> courses;
+        
+        CatalogResult(String term, String searchText, int pageSize) {
+            this.term = term;
+            this.searchText = searchText;
+            this.pageSize = pageSize;
+        }
+    }
+    
+    /**
+     * Lọc danh mục học phần sinh viên có thể đăng ký và trả về trang đầu tiên
+     * 
+     * Lọc học phần theo:
+     * 1. Từ khóa tìm kiếm - tìm trong mã HP và tên học phần (không dấu, xếp theo mức độ khớp)
+     * 2. Offering của học kỳ phải đang mở
+     * 3. CTĐT của sinh viên phải được phép đăng ký ("Tất cả" hoặc trùng CTĐT)
+     * 
+     * Kết quả lọc được giữ lại theo cursor: chuyển trang bằng getCatalogPage chỉ cắt
+     * một đoạn pageSize học phần, không lọc lại cả danh mục.
+     * 
+     * @param term Học kỳ (null = không có học phần nào)
+     * @param searchText Từ khóa tìm kiếm (rỗng hoặc null = tất cả)
+     * @param pageSize Số học phần mỗi trang (>= 1)
+     * @return Trang 1 kèm tổng số kết quả và cursor
+     */
+    public synchronized CatalogPage queryCatalogPage(String term, String searchText, int pageSize) {
+        return QUERY_CATALOG_PAGE.time(() -> {
+            String cursor = Long.toString(++lastCursor, 36);
+            CatalogResult result = new CatalogResult(term, searchText == null ? "" : searchText, Math.max(1, pageSize));
+            catalogCache.put(cursor, result);
+            return pageOf(cursor, result, 1);
+        });
+    }
+    
+    /**
+     * Lấy một trang khác của kết quả lọc đã có
+     * 
+     * Cursor còn dùng được cho tới khi học phần hoặc offering thay đổi; khi đó kết quả được
+     * lọc lại một lần (cùng học kỳ, từ khóa) rồi tiếp tục cắt trang từ kết quả mới.
+     * 
+     * @param cursor Cursor nhận từ queryCatalogPage / getCatalogPage
+     * @param page Trang cần lấy (bắt đầu từ 1, tự giới hạn trong khoảng trang hợp lệ)
+     * @return Trang yêu cầu, hoặc null nếu cursor không còn (đã bị bỏ khỏi cache) - khi đó gọi lại queryCatalogPage
+     */
+    public synchronized CatalogPage getCatalogPage(String cursor, int page) {
+        return GET_CATALOG_PAGE.time(() -> {
+            CatalogResult result = catalogCache.get(cursor);
+            if (result == null) return null;
+            return pageOf(cursor, result, page);
+        });
+    }
+    
+    /** Cắt trang từ kết quả lọc (lọc lại nếu danh mục đã đổi phiên bản) */
+    private CatalogPage pageOf(String cursor, CatalogResult result, int page) {
+        long version = courseService.getCatalogVersion();
+        if (result.courses == null || result.version != version) {
+            // Đọc phiên bản trước khi lọc: thay đổi xảy ra trong lúc lọc sẽ làm lần sau lọc lại
+            result.version = version;
+            result.courses = filterCatalog(result.term, result.searchText);
+        }
+        int total = result.courses.size();
+        int totalPages = (total + result.pageSize - 1) / result.pageSize;
+        int p = Math.max(1, Math.min(page, totalPages));
+        int from = (p - 1) * result.pageSize;
+        int to = Math.min(from + result.pageSize, total);
+        return new CatalogPage(List.copyOf(result.courses.subList(from, to)), p, result.pageSize, total, cursor);
+    }
+    
+    /** Học phần khớp từ khóa, đang mở trong học kỳ và cho phép CTĐT của sinh viên */
+    private List<Course> filterCatalog(String term, String searchText) {
+        if (term == null) return List.of();
+        
+        // View dựng sẵn theo (học kỳ, CTĐT), dùng chung với các sinh viên cùng CTĐT
+        List<Course> available = courseService.getAvailableCourses(term, student.program);
+        if (searchText.isBlank()) return available;
+        
+        // Học phần khớp từ khóa (index tìm kiếm: không dấu, xếp theo mức độ khớp)
+        List<Course> filtered = new ArrayList<>();
+        for (Course course : courseService.searchCourses(searchText)) {
+            if (available.contains(course)) filtered.add(course);
+        }
+        return filtered;
+    }
+    
     /**
      * Thêm học phần vào danh sách đăng ký tạm
      * 
@@ -113,18 +254,26 @@ public class StudentRegistrationController {
      * @return Thông báo lỗi nếu có (null nếu thành công)
      */
     public String addRegistration(String term, String courseCode) {
-        if (courseCode == null || courseCode.isEmpty()) {
-            return "Không có học phần phù hợp để đăng ký.";
-        }
+        return ADD_REGISTRATION.time(() -> {
+            if (courseCode == null || courseCode.isEmpty()) {
+                return "Không có học phần phù hợp để đăng ký.";
+            }
         
-        // Gọi service để thêm đăng ký
-        boolean success = registrationService.addRegistration(student.studentId, term, courseCode);
+            // Gọi service để thêm đăng ký (có giữ chỗ theo sĩ số)
+            Storage.AddResult result = registrationService.register(student.studentId, term, courseCode);
         
-        if (!success) {
-            return "Bạn đã đăng ký học phần này trong học kỳ " + term + ".";
-        }
+            if (result == null) {
+                return "Học phần " + courseCode + " không tồn tại.";
+            }
+            if (result == Storage.AddResult.DUPLICATE) {
+                return "Bạn đã đăng ký học phần này trong học kỳ " + term + ".";
+            }
+            if (result == Storage.AddResult.WAITLISTED) {
+                return "Học phần " + courseCode + " đã hết chỗ. Bạn đã được xếp vào danh sách chờ.";
+            }
         
-        return null; // Thành công
+            return null; // Thành công
+        });
     }
     
     /**
@@ -135,12 +284,14 @@ public class StudentRegistrationController {
      * @return Thông báo lỗi nếu có (null nếu thành công)
      */
     public String deleteRegistrations(String term, Set<String> courseCodes) {
-        if (courseCodes == null || courseCodes.isEmpty()) {
-            return "Hãy tích chọn những dòng muốn xóa.";
-        }
+        return DELETE_REGISTRATIONS.time(() -> {
+            if (courseCodes == null || courseCodes.isEmpty()) {
+                return "Hãy tích chọn những dòng muốn xóa.";
+            }
         
-        registrationService.deleteRegistrations(student.studentId, term, courseCodes);
-        return null; // Thành công
+            registrationService.deleteRegistrations(student.studentId, term, courseCodes);
+            return null; // Thành công
+        });
     }
     
     /**
@@ -150,14 +301,16 @@ public class StudentRegistrationController {
      * @return Thông báo lỗi nếu có (null nếu thành công)
      */
     public String submitRegistrations(String term) {
-        List<RegItem> regs = registrationService.getRegistrations(student.studentId, term);
+        return SUBMIT_REGISTRATIONS.time(() -> {
+            List<RegItem> regs = registrationService.getRegistrations(student.studentId, term);
         
-        if (regs.isEmpty()) {
-            return "Chưa có học phần nào để gửi.";
-        }
+            if (regs.isEmpty()) {
+                return "Chưa có học phần nào để gửi.";
+            }
         
-        registrationService.submitRegistrations(student.studentId, term);
-        return null; // Thành công
+            registrationService.submitRegistrations(student.studentId, term);
+            return null; // Thành công
+        });
     }
     
     /**
@@ -167,24 +320,26 @@ public class StudentRegistrationController {
      * @return Danh sách các mảng Object, mỗi mảng chứa thông tin 1 đăng ký
      */
     public List<Object[]> getRegistrationTableData(String term) {
-        List<Object[]> rows = new ArrayList<>();
+        return GET_REGISTRATION_TABLE_DATA.time(() -> {
+            List<Object[]> rows = new ArrayList<>();
         
-        // Lấy danh sách đăng ký từ service
-        List<RegItem> regs = registrationService.getRegistrations(student.studentId, term);
+            // Lấy danh sách đăng ký từ service
+            List<RegItem> regs = registrationService.getRegistrations(student.studentId, term);
         
-        // Chuyển đổi sang format hiển thị
-        for (RegItem item : regs) {
-            rows.add(new Object[]{
-                item.course.code,                    // Mã HP
-                item.course.name,                    // Tên học phần
-                item.date,                           // Ngày đăng ký
-                item.status,                         // Trạng thái
-                String.valueOf(item.course.credits), // Số TC
-                false                                // Chọn (checkbox)
-            });
-        }
+            // Chuyển đổi sang format hiển thị
+            for (RegItem item : regs) {
+                rows.add(new Object[]{
+                    item.course.code,                    // Mã HP
+                    item.course.name,                    // Tên học phần
+                    item.date,                           // Ngày đăng ký
+                    item.status.label,                   // Trạng thái
+                    String.valueOf(item.course.credits), // Số TC
+                    false                                // Chọn (checkbox)
+                });
+            }
         
-        return rows;
+            return rows;
+        });
     }
     
     /**
@@ -194,7 +349,7 @@ public class StudentRegistrationController {
      * @return Tổng số tín chỉ
      */
     public int calculateTotalCredits(String term) {
-        return registrationService.calculateTotalCredits(student.studentId, term);
+        return CALCULATE_TOTAL_CREDITS.time(() -> registrationService.calculateTotalCredits(student.studentId, term));
     }
     
     /**
@@ -205,37 +360,30 @@ public class StudentRegistrationController {
      * @return Danh sách các mảng Object, mỗi mảng chứa thông tin 1 học phần
      */
     public List<Object[]> getCatalogData(String term, String searchText) {
-        List<Object[]> rows = new ArrayList<>();
-        String searchLower = (searchText != null) ? searchText.toLowerCase() : "";
+        return GET_CATALOG_DATA.time(() -> {
+            List<Object[]> rows = new ArrayList<>();
         
-        // Duyệt tất cả học phần
-        for (Course course : courseService.getAllCourses().values()) {
-            var offering = termService.getOffering(term, course.code);
+            // Học phần khớp từ khóa (qua index tìm kiếm, đã xếp theo mức độ khớp)
+            for (Course course : courseService.searchCourses(searchText)) {
+                var offering = termService.getOffering(term, course.code);
             
-            // Chỉ hiển thị học phần đang mở
-            if (offering != null && offering.open) {
-                // Lọc theo từ khóa tìm kiếm
-                if (!searchLower.isEmpty()) {
-                    if (!course.code.toLowerCase().contains(searchLower) &&
-                        !course.name.toLowerCase().contains(searchLower)) {
-                        continue;
-                    }
-                }
+                // Chỉ hiển thị học phần đang mở
+                if (offering != null && offering.open) {
+                    // Thêm vào danh sách (một số field chưa có trong model, để mặc định)
+                    String prereq = "Không có"; // TODO: Thêm field prerequisites vào Course model
                 
-                // Thêm vào danh sách (một số field chưa có trong model, để mặc định)
-                String prereq = "Không có"; // TODO: Thêm field prerequisites vào Course model
-                
-                rows.add(new Object[]{
-                    course.code,                    // Mã HP
-                    course.name,                    // Tên học phần
-                    String.valueOf(course.credits), // Số tín chỉ
-                    "Công nghệ thông tin",          // Khoa/Bộ môn (TODO: Thêm vào model)
-                    prereq                          // Học phần tiên quyết
-                });
+                    rows.add(new Object[]{
+                        course.code,                    // Mã HP
+                        course.name,                    // Tên học phần
+                        String.valueOf(course.credits), // Số tín chỉ
+                        "Công nghệ thông tin",          // Khoa/Bộ môn (TODO: Thêm vào model)
+                        prereq                          // Học phần tiên quyết
+                    });
+                }
             }
-        }
         
-        return rows;
+            return rows;
+        });
     }
     
     /**
@@ -244,11 +392,11 @@ public class StudentRegistrationController {
      * @return Danh sách các mảng Object, mỗi mảng chứa thông tin 1 đăng ký trong lịch sử
      */
     public List<Object[]> getHistoryData() {
-        List<Object[]> rows = new ArrayList<>();
+        return GET_HISTORY_DATA.time(() -> {
+            List<Object[]> rows = new ArrayList<>();
         
-        // Lấy tất cả đăng ký của sinh viên từ tất cả các kỳ
-        var allRegs = Memory.regs.get(student.studentId);
-        if (allRegs != null) {
+            // Lấy tất cả đăng ký của sinh viên từ tất cả các kỳ
+            var allRegs = registrationService.getAllRegistrations(student.studentId);
             for (var entry : allRegs.entrySet()) {
                 String term = entry.getKey();
                 for (RegItem item : entry.getValue()) {
@@ -258,14 +406,14 @@ public class StudentRegistrationController {
                         item.course.name,            // Tên học phần
                         String.valueOf(item.course.credits), // Số TC
                         item.date,                   // Ngày đăng ký
-                        item.status,                 // Trạng thái
+                        item.status.label,           // Trạng thái
                         "N/A"                        // Điểm (chưa có trong hệ thống)
                     });
                 }
             }
-        }
         
-        return rows;
+            return rows;
+        });
     }
 }
 
@@ -0,0 +1,97 @@
+package university.registration.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram độ trễ (ns) không khóa, dạng log-tuyến tính (kiểu HDR)
+ *
+ * - Giá trị &lt; 32 ns: mỗi ns một ô
+ * - Mỗi khoảng [2^k, 2^(k+1)) chia 32 ô bằng nhau → sai số tương đối ≤ 1/32 (~3%) ở mọi độ lớn
+ * - Tối đa 2^40 ns (~18 phút); lớn hơn thì tính vào ô cuối
+ *
+ * Ghi một giá trị chỉ là một lần tăng ô (AtomicLongArray), max chỉ CAS khi giá trị mới lớn hơn (hiếm).
+ * Không cấp phát, không khóa. Số lần và trung bình được tính từ các ô khi đọc (trung bình lấy
+ * điểm giữa ô, sai số &lt; 2%) thay vì cộng thêm bộ đếm mỗi lần ghi: mỗi thao tác nguyên tử tốn
+ * ~10 ns, trong khi hai lần System.nanoTime() quanh method đã tốn phần lớn ngân sách 100 ns.
+ * Đọc (count, mean, percentile) duyệt ~1.200 ô, chỉ dùng khi xuất số liệu.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXP = 40;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 1) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /** Ghi một độ trễ (ns); giá trị âm tính là 0 */
+    public void record(long ns) {
+        if (ns < 0) ns = 0;
+        counts.getAndIncrement(index(ns));
+        if (ns > max.get()) max.accumulateAndGet(ns, Math::max);
+    }
+
+    /** Số lần đã ghi */
+    public long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    /** Độ trễ trung bình (ns), tính theo điểm giữa của từng ô */
+    public double mean() {
+        long n = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            n += c;
+            sum += c * ((lower(i) + upper(i)) / 2.0);
+        }
+        return n == 0 ? 0 : sum / n;
+    }
+
+    /** Độ trễ lớn nhất (ns) */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Giá trị tại phân vị p (0..1): cận trên của ô chứa phần tử thứ ceil(p * n).
+     * Đọc trong khi thread khác đang ghi thì kết quả gần đúng (không khóa).
+     */
+    public long percentile(double p) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upper(i), max.get());
+        }
+        return max.get();
+    }
+
+    private static int index(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        if (exp >= MAX_EXP) return BUCKETS - 1;
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+    }
+
+    private static long lower(int i) {
+        if (i < SUB) return i;
+        int exp = (i >>> SUB_BITS) + SUB_BITS - 1;
+        return (long) (SUB + (i & (SUB - 1))) << (exp - SUB_BITS);
+    }
+
+    private static long upper(int i) {
+        if (i < SUB) return i;
+        int exp = (i >>> SUB_BITS) + SUB_BITS - 1;
+        return ((long) (SUB + (i & (SUB - 1)) + 1) << (exp - SUB_BITS)) - 1;
+    }
+}
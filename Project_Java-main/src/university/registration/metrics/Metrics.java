@@ -0,0 +1,166 @@
+package university.registration.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sổ số liệu đo trong tiến trình: Timer (độ trễ từng method) và bộ đếm LongAdder, dùng chung toàn ứng dụng
+ *
+ * - Đo ở ranh giới controller: mọi method public của controller (Timer tên "Lớp.method",
+ *   các overload dùng chung một Timer, xem Timer.time / Timer.run). Service không đo riêng.
+ * - Đo ở ranh giới kho dữ liệu: các thao tác ghi và truy vấn của Storage (Timer "Storage.method",
+ *   xem TimedStorage) và thời gian chờ fsync của nhật ký (Timer "Journal.await").
+ *   Các số này nằm bên trong số đo của controller (lồng nhau, không cộng lại với nhau):
+ *   dùng để tách thời gian của kho / đĩa khỏi tổng của controller.
+ *   API HTTP đo theo từng route (xem ApiServer).
+ * - Ghi một lần gọi tốn hai lần System.nanoTime() và một lần ghi histogram không khóa
+ *   (xem LatencyHistogram).
+ * - Xem qua JMX (MBean "university.registration:type=Metrics", xem MetricsMXBean)
+ *   và ghi ra file định kỳ nếu đặt -Dregistration.metricsFile=... (chu kỳ
+ *   -Dregistration.metricsInterval=giây, mặc định 60; ghi thêm một lần khi tắt ứng dụng).
+ *
+ * Số liệu cộng dồn từ lúc khởi động (không reset giữa các lần ghi file).
+ */
+public final class Metrics {
+
+    static final String OBJECT_NAME = "university.registration:type=Metrics";
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static boolean started;
+
+    private Metrics() {}
+
+    /** Timer theo tên (tạo nếu chưa có); gọi một lần rồi giữ trong hằng static */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    /** Bộ đếm theo tên (tạo nếu chưa có); gọi một lần rồi giữ trong hằng static */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /** Thống kê các Timer đã có ít nhất một lần gọi, theo tên */
+    public static List<MetricsMXBean.TimerStats> timerStats() {
+        List<MetricsMXBean.TimerStats> stats = new ArrayList<>();
+        for (Timer t : new TreeMap<>(timers).values())
+            if (t.histogram().count() > 0) stats.add(MetricsMXBean.TimerStats.of(t));
+        return stats;
+    }
+
+    /** Giá trị các bộ đếm, theo tên */
+    public static Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, c) -> values.put(name, c.sum()));
+        return values;
+    }
+
+    /** Bảng số liệu dạng văn bản (nội dung file số liệu) */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Số liệu đo lúc ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()))
+                .append(" (thời gian tính bằng µs, cộng dồn từ lúc khởi động)\n");
+        sb.append(String.format(Locale.ROOT, "%-60s %12s %10s %10s %10s %10s %10s%n",
+                "method", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (MetricsMXBean.TimerStats s : timerStats()) {
+            sb.append(String.format(Locale.ROOT, "%-60s %12d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    s.getName(), s.getCount(), s.getMeanMicros(), s.getP50Micros(), s.getP99Micros(),
+                    s.getP999Micros(), s.getMaxMicros()));
+        }
+        Map<String, Long> values = counterValues();
+        if (!values.isEmpty()) {
+            sb.append("\n# Bộ đếm\n");
+            values.forEach((name, v) -> sb.append(String.format(Locale.ROOT, "%-60s %12d%n", name, v)));
+        }
+        return sb.toString();
+    }
+
+    /** File số liệu đã cấu hình (-Dregistration.metricsFile), null nếu không ghi file */
+    public static Path configuredFile() {
+        String f = System.getProperty("registration.metricsFile");
+        return f == null || f.isBlank() ? null : Path.of(f);
+    }
+
+    /**
+     * Đăng ký MBean và bật ghi file định kỳ (nếu có cấu hình). Gọi một lần khi khởi động;
+     * gọi lại không có tác dụng. Không đăng ký được MBean thì vẫn đo và ghi file bình thường.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Không đăng ký được MBean số liệu: " + e.getMessage());
+        }
+        Path file = configuredFile();
+        if (file == null) return;
+        long interval = Long.getLong("registration.metricsInterval", 60);
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> dumpQuietly(file), interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpQuietly(file), "metrics-shutdown"));
+    }
+
+    /** Ghi bảng số liệu ra file (ghi file tạm rồi đổi tên, người đọc không thấy file ghi dở) */
+    public static void dump(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, report(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void dumpQuietly(Path file) {
+        try {
+            dump(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Không ghi được file số liệu " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public List<TimerStats> getTimers() {
+            return timerStats();
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            return counterValues();
+        }
+
+        @Override
+        public String getReport() {
+            return report();
+        }
+
+        @Override
+        public void dump() {
+            Path file = configuredFile();
+            if (file != null) dumpQuietly(file);
+        }
+    }
+}
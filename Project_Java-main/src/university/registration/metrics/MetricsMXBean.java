@@ -0,0 +1,61 @@
+package university.registration.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Số liệu đo qua JMX (jconsole / VisualVM: university.registration → Metrics)
+ *
+ * - Timers: mỗi method một dòng (số lần gọi, trung bình, p50 / p99 / p99.9, max - tính bằng µs)
+ * - Counters: các bộ đếm (ví dụ số lần đăng nhập sai)
+ * - Report: cùng nội dung với file số liệu (xem Metrics.report)
+ */
+public interface MetricsMXBean {
+
+    List<TimerStats> getTimers();
+
+    Map<String, Long> getCounters();
+
+    String getReport();
+
+    /** Ghi file số liệu ngay (nếu có cấu hình registration.metricsFile) */
+    void dump();
+
+    /** Một dòng thống kê của Timer tại thời điểm đọc */
+    final class TimerStats {
+        private final String name;
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double p999Micros;
+        private final double maxMicros;
+
+        @ConstructorProperties({"name", "count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+        public TimerStats(String name, long count, double meanMicros, double p50Micros, double p99Micros,
+                          double p999Micros, double maxMicros) {
+            this.name = name;
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.p999Micros = p999Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        static TimerStats of(Timer t) {
+            LatencyHistogram h = t.histogram();
+            return new TimerStats(t.name(), h.count(), h.mean() / 1e3, h.percentile(0.5) / 1e3,
+                    h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.max() / 1e3);
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public double getMeanMicros() { return meanMicros; }
+        public double getP50Micros() { return p50Micros; }
+        public double getP99Micros() { return p99Micros; }
+        public double getP999Micros() { return p999Micros; }
+        public double getMaxMicros() { return maxMicros; }
+    }
+}
@@ -0,0 +1,56 @@
+package university.registration.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Bộ đo thời gian của một method: số lần gọi và histogram độ trễ (xem Metrics.timer)
+ *
+ * Cách dùng (giữ Timer trong hằng static, không tra tên mỗi lần gọi):
+ *   private static final Timer LOGIN = Metrics.timer("LoginController.login");
+ *
+ *   return LOGIN.time(() -> ...);      // hoặc LOGIN.run(() -> ...) với method void
+ *
+ * Lần gọi ném exception vẫn được tính.
+ */
+public final class Timer {
+
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    /** Chạy body, ghi thời gian chạy và trả về kết quả */
+    public <T> T time(Supplier<T> body) {
+        long t0 = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            record(t0);
+        }
+    }
+
+    /** Chạy body (không có kết quả) và ghi thời gian chạy */
+    public void run(Runnable body) {
+        long t0 = System.nanoTime();
+        try {
+            body.run();
+        } finally {
+            record(t0);
+        }
+    }
+
+    /** Ghi một lần gọi bắt đầu lúc startNanos (giá trị System.nanoTime() lúc vào method) */
+    public void record(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public LatencyHistogram histogram() {
+        return histogram;
+    }
+}
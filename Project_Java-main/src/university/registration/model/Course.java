@@ -4,7 +4,8 @@ package university.registration.model;
  * Lớp biểu diễn MÔN HỌC (Course) trong hệ thống đăng ký học phần
  * 
  * Mỗi đối tượng Course đại diện cho một học phần trong chương trình đào tạo,
- * chứa thông tin cơ bản: mã học phần, tên học phần và số tín chỉ.
+ * chứa thông tin cơ bản: mã học phần, tên học phần và số tín chỉ,
+ * cùng loại học phần được phân loại một lần theo mã (CourseClassifier).
  * 
  * Các thuộc tính đều là final (hằng số) để đảm bảo tính bất biến (immutable):
  * - Một khi đã tạo Course, không thể thay đổi thông tin của nó
@@ -45,6 +46,20 @@ public class Course {
      */
     public final int credits;
     
+    /**
+     * Loại học phần hiển thị cho sinh viên (ví dụ: "GDTC - Tự chọn", "Mô đun - Vi mạch", "Cơ sở ngành")
+     * 
+     * Xác định theo tiền tố mã học phần khi tạo Course (file quy tắc course-categories.rules)
+     */
+    public final String category;
+    
+    /**
+     * Nhóm học phần trên màn hình quản trị: "Bắt buộc", "Tự chọn" hoặc "Cơ sở"
+     * 
+     * Xác định cùng lúc với category
+     */
+    public final String group;
+    
     /**
      * Constructor: tạo một đối tượng Course mới
      * 
@@ -64,5 +79,10 @@ public class Course {
         
         // Gán giá trị số tín chỉ
         credits = cr;
+        
+        // Phân loại theo mã học phần (một lần, dùng lại ở mọi màn hình)
+        CourseClassifier.Category cat = CourseClassifier.standard().classify(c);
+        category = cat.name;
+        group = cat.group;
     }
 }
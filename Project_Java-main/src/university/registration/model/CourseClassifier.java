@@ -0,0 +1,193 @@
+package university.registration.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Phân loại học phần theo tiền tố mã học phần, dựng từ file quy tắc
+ *
+ * Mỗi dòng của file quy tắc: tiền tố | loại học phần | nhóm
+ * - loại học phần: hiển thị cho sinh viên ("GDTC - Tự chọn", "Mô đun - Vi mạch"...)
+ * - nhóm: Bắt buộc / Tự chọn / Cơ sở (bộ lọc và form của màn hình quản trị)
+ * - tiền tố "*" là quy tắc mặc định (bắt buộc phải có)
+ * - dòng trống và dòng bắt đầu bằng # được bỏ qua
+ * Mã học phần lấy quy tắc có tiền tố DÀI NHẤT khớp với mã (phân biệt hoa thường),
+ * nên thứ tự các dòng trong file không quan trọng.
+ *
+ * Các quy tắc được biên dịch thành trie dạng bảng: phân loại một mã chỉ là đi theo
+ * từng ký tự của mã, không phụ thuộc số quy tắc.
+ *
+ * Bộ quy tắc dùng chung (standard) đọc từ file trong system property registration.courseRules,
+ * nếu không có thì đọc course-categories.rules đi kèm lớp này. Thêm mô đun / nhóm học phần mới
+ * chỉ cần sửa file quy tắc; Course được phân loại một lần khi tạo nên cần khởi động lại ứng dụng.
+ */
+public final class CourseClassifier {
+
+    /** Loại học phần và nhóm của một quy tắc */
+    public static final class Category {
+        public final String name;
+        public final String group;
+
+        Category(String name, String group) {
+            this.name = name;
+            this.group = group;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + group + ")";
+        }
+    }
+
+    /** Tên file quy tắc mặc định (cùng package với lớp này) */
+    public static final String RULES_RESOURCE = "course-categories.rules";
+
+    /** Mã chỉ gồm ký tự ASCII; ký tự khác dừng việc so khớp */
+    private static final int ALPHABET = 128;
+
+    /** next[node * ALPHABET + c] = node con (0 = không có, nút gốc không bao giờ là con) */
+    private final int[] next;
+    /** Quy tắc kết thúc tại nút (null nếu không có) */
+    private final Category[] rules;
+    private final Category fallback;
+
+    private CourseClassifier(int[] next, Category[] rules, Category fallback) {
+        this.next = next;
+        this.rules = rules;
+        this.fallback = fallback;
+    }
+
+    /** Loại học phần của mã: quy tắc có tiền tố dài nhất khớp, hoặc quy tắc mặc định */
+    public Category classify(String code) {
+        Category best = fallback;
+        if (code == null) return best;
+        int node = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c >= ALPHABET) break;
+            node = next[node * ALPHABET + c];
+            if (node == 0) break;
+            if (rules[node] != null) best = rules[node];
+        }
+        return best;
+    }
+
+    /* ---------- bộ quy tắc dùng chung ---------- */
+
+    private static final class Standard {
+        static final CourseClassifier INSTANCE = loadStandard();
+    }
+
+    /** Bộ quy tắc dùng chung của ứng dụng (đọc lần đầu khi cần) */
+    public static CourseClassifier standard() {
+        return Standard.INSTANCE;
+    }
+
+    private static CourseClassifier loadStandard() {
+        String file = System.getProperty("registration.courseRules");
+        if (file != null && !file.isBlank()) return load(Path.of(file));
+        try (InputStream in = CourseClassifier.class.getResourceAsStream(RULES_RESOURCE)) {
+            if (in == null) {
+                throw new RuntimeException("Không tìm thấy file quy tắc phân loại học phần " + RULES_RESOURCE);
+            }
+            return parse(new InputStreamReader(in, StandardCharsets.UTF_8), RULES_RESOURCE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Đọc bộ quy tắc từ file (UTF-8) */
+    public static CourseClassifier load(Path file) {
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(r, file.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Đọc và biên dịch bộ quy tắc
+     *
+     * @param source tên nguồn, dùng trong thông báo lỗi
+     */
+    public static CourseClassifier parse(Reader reader, String source) throws IOException {
+        Map<String, Category> byPrefix = new HashMap<>();
+        Map<String, Category> interned = new HashMap<>();
+        Category fallback = null;
+
+        BufferedReader in = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] cols = line.split("\\|", -1);
+            if (cols.length != 3) {
+                throw new RuntimeException(source + ":" + lineNo + ": cần 3 cột 'tiền tố | loại | nhóm'");
+            }
+            String prefix = cols[0].strip();
+            String name = cols[1].strip();
+            String group = cols[2].strip();
+            if (prefix.isEmpty() || name.isEmpty() || group.isEmpty()) {
+                throw new RuntimeException(source + ":" + lineNo + ": tiền tố, loại và nhóm không được để trống");
+            }
+            // Cùng (loại, nhóm) dùng chung một đối tượng Category
+            Category cat = interned.computeIfAbsent(name + "|" + group, k -> new Category(name, group));
+
+            if (prefix.equals("*")) {
+                if (fallback != null) throw new RuntimeException(source + ":" + lineNo + ": quy tắc mặc định '*' bị lặp");
+                fallback = cat;
+                continue;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                if (c >= ALPHABET || Character.isWhitespace(c)) {
+                    throw new RuntimeException(source + ":" + lineNo + ": tiền tố '" + prefix + "' chứa ký tự không hợp lệ");
+                }
+            }
+            if (byPrefix.putIfAbsent(prefix, cat) != null) {
+                throw new RuntimeException(source + ":" + lineNo + ": tiền tố '" + prefix + "' bị lặp");
+            }
+        }
+        if (fallback == null) throw new RuntimeException(source + ": thiếu quy tắc mặc định '*'");
+        return compile(byPrefix, fallback);
+    }
+
+    /** Dựng trie dạng bảng từ các tiền tố */
+    private static CourseClassifier compile(Map<String, Category> byPrefix, Category fallback) {
+        int capacity = 1;
+        for (String p : byPrefix.keySet()) capacity += p.length();
+        int[] next = new int[capacity * ALPHABET];
+        List<Category> rules = new ArrayList<>(capacity);
+        rules.add(null); // nút gốc
+        for (Map.Entry<String, Category> e : byPrefix.entrySet()) {
+            String prefix = e.getKey();
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                int slot = node * ALPHABET + prefix.charAt(i);
+                if (next[slot] == 0) {
+                    next[slot] = rules.size();
+                    rules.add(null);
+                }
+                node = next[slot];
+            }
+            rules.set(node, e.getValue());
+        }
+        int nodes = rules.size();
+        return new CourseClassifier(Arrays.copyOf(next, nodes * ALPHABET),
+                rules.toArray(new Category[0]), fallback);
+    }
+}
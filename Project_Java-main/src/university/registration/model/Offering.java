@@ -1,5 +1,11 @@
 package university.registration.model;
 
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Lớp biểu diễn "đợt mở lớp" hoặc cấu hình mở lớp cho một học phần trong một học kỳ cụ thể
  * 
@@ -16,6 +22,13 @@ package university.registration.model;
  * 
  * Lưu ý: Offering không phải là immutable (có thể thay đổi open và allowedProgram)
  * vì admin cần có thể cập nhật cấu hình mở lớp theo thời gian.
+ * 
+ * Sĩ số (capacity) và danh sách chờ:
+ * - capacity = 0 nghĩa là không giới hạn (giống hành vi cũ)
+ * - Mỗi RegItem chưa bị từ chối chiếm 1 chỗ; chỗ được giữ bằng bộ đếm nguyên tử (CAS),
+ *   nên nhiều thread cùng đăng ký cũng không bao giờ vượt quá capacity
+ * - Khi hết chỗ, sinh viên được xếp vào waitlist (FIFO); Memory tự động đưa người
+ *   đứng đầu danh sách chờ vào lớp khi có chỗ trống (xóa đăng ký hoặc bị từ chối)
  */
 public class Offering {
     /**
@@ -42,6 +55,23 @@ public class Offering {
      */
     public String allowedProgram;
 
+    /**
+     * Sĩ số tối đa của lớp (0 = không giới hạn)
+     * 
+     * Có thể giảm xuống dưới số chỗ đã giữ: khi đó không nhận thêm ai
+     * cho tới khi số chỗ đã giữ giảm xuống dưới capacity.
+     */
+    public volatile int capacity;
+
+    /** Số chỗ đang được giữ (số RegItem chưa bị từ chối của học phần trong học kỳ) */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /** Danh sách chờ (FIFO) khi lớp đã đầy - chỉ đọc từ bên ngoài, thêm/bớt qua các method bên dưới */
+    public final Deque<Waiting> waitlist = new ConcurrentLinkedDeque<>();
+
+    /** MSSV đang có mặt trong waitlist (kiểm tra trùng O(1)) */
+    private final Set<String> waitingIds = ConcurrentHashMap.newKeySet();
+
     /**
      * Constructor: tạo một đối tượng Offering mới
      * 
@@ -65,4 +95,97 @@ public class Offering {
         // Gán chương trình đào tạo được phép đăng ký
         allowedProgram = ap;
     }
+
+    /**
+     * Constructor có sĩ số
+     * 
+     * @param o Trạng thái mở đăng ký
+     * @param ap Chương trình đào tạo được phép đăng ký
+     * @param cap Sĩ số tối đa (0 = không giới hạn)
+     */
+    public Offering(boolean o, String ap, int cap) {
+        this(o, ap);
+        capacity = cap;
+    }
+
+    /**
+     * Giữ 1 chỗ trong lớp (lock-free, dùng compareAndSet)
+     * 
+     * @return true nếu giữ được chỗ, false nếu lớp đã đầy
+     */
+    public boolean tryReserveSeat() {
+        while (true) {
+            int taken = reserved.get();
+            int cap = capacity;
+            if (cap > 0 && taken >= cap) return false;
+            if (reserved.compareAndSet(taken, taken + 1)) return true;
+        }
+    }
+
+    /** Giữ 1 chỗ bất kể sĩ số (PĐT duyệt lại một đăng ký đã từ chối) */
+    public void forceReserveSeat() {
+        reserved.incrementAndGet();
+    }
+
+    /** Trả lại 1 chỗ */
+    public void releaseSeat() {
+        reserved.decrementAndGet();
+    }
+
+    /** Đặt lại số chỗ đã giữ (dùng khi tạo Offering cho học phần đã có người đăng ký) */
+    public void resetSeats(int taken) {
+        reserved.set(taken);
+    }
+
+    /** Số chỗ đang được giữ */
+    public int seatsTaken() {
+        return reserved.get();
+    }
+
+    /** Lớp còn chỗ trống hay không */
+    public boolean hasFreeSeat() {
+        int cap = capacity;
+        return cap <= 0 || reserved.get() < cap;
+    }
+
+    /**
+     * Xếp sinh viên vào cuối danh sách chờ
+     * 
+     * @return false nếu sinh viên đã có trong danh sách chờ
+     */
+    public boolean enqueueWaiting(String sid, RegItem item) {
+        if (!waitingIds.add(sid)) return false;
+        waitlist.addLast(new Waiting(sid, item));
+        return true;
+    }
+
+    /** Lấy người đứng đầu danh sách chờ (null nếu trống) */
+    public Waiting pollWaiting() {
+        Waiting w = waitlist.pollFirst();
+        if (w != null) waitingIds.remove(w.studentId);
+        return w;
+    }
+
+    /** Trả người vừa lấy ra về lại đầu danh sách chờ (chưa có chỗ) */
+    public void requeueWaiting(Waiting w) {
+        if (waitingIds.add(w.studentId)) waitlist.addFirst(w);
+    }
+
+    /** Rút sinh viên khỏi danh sách chờ */
+    public void removeWaiting(String sid) {
+        if (waitingIds.remove(sid)) waitlist.removeIf(w -> w.studentId.equals(sid));
+    }
+
+    /**
+     * Một lượt chờ trong waitlist: sinh viên nào và RegItem sẽ được thêm khi có chỗ
+     */
+    public static final class Waiting {
+        public final String studentId;
+        public final RegItem item;
+
+        public Waiting(String sid, RegItem it) {
+            studentId = sid;
+            item = it;
+        }
+    }
 }
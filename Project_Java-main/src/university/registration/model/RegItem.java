@@ -6,30 +6,41 @@ package university.registration.model;
  * Mỗi RegItem đại diện cho một bản ghi đăng ký học phần của một sinh viên,
  * chứa thông tin về học phần đã đăng ký, ngày đăng ký và trạng thái đăng ký.
  * 
- * Trạng thái đăng ký (status) có thể là:
- * - "Tạm": Sinh viên đã thêm vào giỏ nhưng chưa gửi đăng ký
- * - "Đã gửi": Sinh viên đã gửi đăng ký, đang chờ PĐT duyệt
- * - "Chờ xử lý": Tương đương "Đã gửi", đang chờ PĐT xử lý
- * - "Đã duyệt": PĐT đã duyệt, sinh viên được học học phần này
- * - "Đã từ chối": PĐT đã từ chối đăng ký này
+ * Trạng thái đăng ký (status) là một RegStatus:
+ * - DRAFT ("Tạm"): Sinh viên đã thêm vào giỏ nhưng chưa gửi đăng ký
+ * - SUBMITTED ("Đã gửi"): Sinh viên đã gửi đăng ký, đang chờ PĐT duyệt
+ * - APPROVED ("Đã duyệt"): PĐT đã duyệt, sinh viên được học học phần này
+ * - REJECTED ("Đã từ chối"): PĐT đã từ chối đăng ký này
  * 
  * Cấu trúc dữ liệu trong Memory:
  *   Memory.regs = {
  *     "SV001": {                    // MSSV
  *       "20252": [                  // Học kỳ
- *         RegItem(course=CT101, date="2025-01-15", status="Đã duyệt"),
- *         RegItem(course=MA101, date="2025-01-15", status="Đã gửi")
+ *         RegItem(course=CT101, date="2025-01-15", status=APPROVED),
+ *         RegItem(course=MA101, date="2025-01-15", status=SUBMITTED)
  *       ]
  *     }
  *   }
  * 
  * Ví dụ sử dụng:
  *   Course course = new Course("CT101", "Lập trình cơ bản", 3);
- *   RegItem item = new RegItem(course, "2025-01-15", "Đã duyệt");
+ *   RegItem item = new RegItem(course, "2025-01-15", RegStatus.APPROVED);
  *   System.out.println(item.course.name);  // In ra: Lập trình cơ bản
- *   System.out.println(item.status);       // In ra: Đã duyệt
+ *   System.out.println(item.status);       // In ra: Đã duyệt (label của trạng thái)
  */
 public class RegItem {
+    /**
+     * Mã đăng ký (số 64-bit, hiển thị "DK001" qua RegRow.regCode)
+     * 
+     * 0 = chưa vào kho. Kho dữ liệu cấp mã tăng dần khi thêm đăng ký lần đầu (Storage.addReg,
+     * kể cả khi vào danh sách chờ), lưu cùng đăng ký và không bao giờ cấp lại,
+     * nên mã không đổi khi lọc bảng, khi đổi trạng thái hay sau khi khởi động lại.
+     * Không gán từ bên ngoài kho.
+     * 
+     * Duyệt / từ chối theo mã (Storage.setStatus(id, ...)) là một lần tra index chính, không duyệt đăng ký.
+     */
+    public long id;
+
     /**
      * Học phần mà sinh viên đã đăng ký
      * 
@@ -54,29 +65,26 @@ public class RegItem {
     /**
      * Trạng thái đăng ký học phần
      * 
-     * Các giá trị có thể:
-     * - "Tạm": Sinh viên đã thêm vào giỏ nhưng chưa gửi (có thể xóa)
-     * - "Đã gửi": Sinh viên đã gửi, đang chờ PĐT duyệt
-     * - "Chờ xử lý": Tương đương "Đã gửi" (được chuẩn hóa từ "Tạm" hoặc "Đã gửi")
-     * - "Đã duyệt": PĐT đã duyệt, sinh viên được học
-     * - "Đã từ chối": PĐT đã từ chối đăng ký
+     * Các giá trị và chuyển trạng thái hợp lệ: xem RegStatus
      * 
-     * Có thể thay đổi: trạng thái được cập nhật bởi sinh viên (gửi) hoặc admin (duyệt/từ chối)
+     * Có thể thay đổi: trạng thái được cập nhật bởi sinh viên (gửi) hoặc admin (duyệt/từ chối),
+     * nhưng chỉ qua Storage.setStatus (kiểm tra chuyển trạng thái, giữ / trả chỗ trong lớp, cập nhật bộ đếm),
+     * không gán trực tiếp sau khi RegItem đã được thêm vào kho
      */
-    public String status;
+    public RegStatus status;
 
     /**
      * Constructor: tạo một đối tượng RegItem mới
      * 
      * @param c Học phần (Course) mà sinh viên đăng ký - không được null
      * @param d Ngày đăng ký (định dạng "yyyy-MM-dd", ví dụ: "2025-01-15")
-     * @param s Trạng thái đăng ký ("Tạm", "Đã gửi", "Đã duyệt", "Đã từ chối", v.v.)
+     * @param s Trạng thái đăng ký (RegStatus.DRAFT, SUBMITTED, ...)
      * 
      * Ví dụ:
      *   Course course = new Course("CT101", "Lập trình cơ bản", 3);
-     *   RegItem item = new RegItem(course, "2025-01-15", "Tạm");
+     *   RegItem item = new RegItem(course, "2025-01-15", RegStatus.DRAFT);
      */
-    public RegItem(Course c, String d, String s) {
+    public RegItem(Course c, String d, RegStatus s) {
         // Gán học phần cho mục đăng ký (không thể thay đổi sau này)
         course = c;
         
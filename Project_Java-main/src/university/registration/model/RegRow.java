@@ -0,0 +1,60 @@
+package university.registration.model;
+
+/**
+ * Một dòng kết quả của truy vấn đăng ký (màn hình duyệt đăng ký của PĐT)
+ *
+ * Khác RegItem, RegRow chứa sẵn thông tin sinh viên và học kỳ nên UI không phải
+ * tra thêm Student cho từng dòng. Đây là bản chụp tại thời điểm truy vấn:
+ * muốn đổi trạng thái thì gọi Storage.setStatus theo mã đăng ký (id).
+ */
+public class RegRow {
+    /** Mã đăng ký (RegItem.id), không đổi theo bộ lọc */
+    public final long id;
+    public final String studentId;
+    public final String fullName;
+    /** Chương trình đào tạo (Khoa/Viện) của sinh viên */
+    public final String program;
+    public final String term;
+    public final String courseCode;
+    public final String courseName;
+    public final int credits;
+    /** Ngày đăng ký ("yyyy-MM-dd") */
+    public final String date;
+    /** Trạng thái gốc đang lưu, chưa chuẩn hóa để hiển thị */
+    public final RegStatus status;
+
+    public RegRow(long id, String studentId, String fullName, String program, String term,
+                  String courseCode, String courseName, int credits, String date, RegStatus status) {
+        this.id = id;
+        this.studentId = studentId;
+        this.fullName = fullName;
+        this.program = program;
+        this.term = term;
+        this.courseCode = courseCode;
+        this.courseName = courseName;
+        this.credits = credits;
+        this.date = date;
+        this.status = status;
+    }
+
+    /**
+     * Mã ĐK hiển thị của mã đăng ký: 1 -> "DK001", 1234 -> "DK1234"
+     * (giống String.format("DK%03d", id) nhưng không phải parse format cho từng dòng)
+     */
+    public static String regCode(long id) {
+        String s = Long.toString(id);
+        if (id < 10) return "DK00" + s;
+        if (id < 100) return "DK0" + s;
+        return "DK" + s;
+    }
+
+    /** Mã đăng ký từ mã ĐK hiển thị ("DK001" -> 1), -1 nếu không đúng dạng */
+    public static long regId(String code) {
+        if (code == null || !code.startsWith("DK")) return -1;
+        try {
+            return Long.parseLong(code.substring(2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package university.registration.model;
+
+/**
+ * Trạng thái của một đăng ký học phần (RegItem.status)
+ *
+ * Vòng đời hợp lệ (mọi nơi đổi trạng thái đều kiểm tra qua canMoveTo):
+ *
+ *   DRAFT (Tạm) -> SUBMITTED (Đã gửi) -> APPROVED (Đã duyệt)
+ *                                     \-> REJECTED (Đã từ chối)
+ *
+ * - Đăng ký có thể được tạo thẳng ở trạng thái Đã gửi (sinh viên gửi giỏ đăng ký)
+ * - Đã duyệt / Đã từ chối là trạng thái cuối, không đổi được nữa
+ * - Giữ nguyên trạng thái (chỉ cập nhật ngày) luôn hợp lệ
+ *
+ * label là chuỗi hiển thị và cũng là chuỗi được ghi vào file dữ liệu / nhật ký (đọc lại bằng of).
+ * Nhãn riêng của màn hình duyệt ("Chờ duyệt" / "Chờ xử lý") không phải trạng thái, xem RegQuery.statusesShownAs.
+ */
+public enum RegStatus {
+    /** Sinh viên đã thêm vào giỏ nhưng chưa gửi (có thể xóa) */
+    DRAFT("Tạm"),
+    /** Sinh viên đã gửi, đang chờ PĐT duyệt */
+    SUBMITTED("Đã gửi"),
+    /** PĐT đã duyệt, sinh viên được học */
+    APPROVED("Đã duyệt"),
+    /** PĐT đã từ chối, đăng ký không chiếm chỗ trong lớp */
+    REJECTED("Đã từ chối");
+
+    private static final RegStatus[] VALUES = values();
+
+    /** Chuỗi hiển thị / lưu trữ */
+    public final String label;
+
+    RegStatus(String label) {
+        this.label = label;
+    }
+
+    /** Đăng ký ở trạng thái này có chiếm chỗ trong lớp không (bị từ chối thì không) */
+    public boolean holdsSeat() {
+        return this != REJECTED;
+    }
+
+    /** Đang chờ PĐT xử lý (chỉ những đăng ký này mới được duyệt / từ chối) */
+    public boolean isPending() {
+        return this == SUBMITTED;
+    }
+
+    /** Có được chuyển từ trạng thái này sang next không */
+    public boolean canMoveTo(RegStatus next) {
+        if (next == this) return true;
+        switch (this) {
+            case DRAFT:     return next == SUBMITTED;
+            case SUBMITTED: return next == APPROVED || next == REJECTED;
+            default:        return false;
+        }
+    }
+
+    /** Số trạng thái (kích thước mảng đếm theo ordinal) */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /** Trạng thái theo ordinal */
+    public static RegStatus byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Đọc trạng thái từ chuỗi đã lưu: chỉ nhận đúng label của một trong bốn trạng thái,
+     * chuỗi khác thì ném RuntimeException.
+     */
+    public static RegStatus of(String label) {
+        for (RegStatus s : VALUES)
+            if (s.label.equals(label)) return s;
+        throw new RuntimeException("Trạng thái đăng ký không hợp lệ: " + label);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
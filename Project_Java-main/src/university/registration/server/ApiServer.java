@@ -0,0 +1,456 @@
+package university.registration.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import university.registration.controller.AdminController;
+import university.registration.controller.AdminController.RegistrationPage;
+import university.registration.controller.LoginController;
+import university.registration.controller.StudentRegistrationController;
+import university.registration.controller.StudentRegistrationController.CatalogPage;
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
+import university.registration.model.Course;
+import university.registration.model.RegRow;
+import university.registration.model.Student;
+import university.registration.store.Storage;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Máy chủ HTTP/JSON (không giao diện) cho các thao tác của LoginController,
+ * StudentRegistrationController và AdminController, chạy trên com.sun.net.httpserver.HttpServer
+ *
+ * - Mỗi request một luồng ảo (virtual thread): request chờ khóa / đọc file không giữ luồng hệ điều hành
+ * - Keep-alive: mọi response có độ dài cố định và body request luôn được đọc hết, nên kết nối
+ *   HTTP/1.1 được dùng lại; số kết nối rảnh được giữ nâng lên (mặc định của JDK chỉ 200) và tắt Nagle
+ *   (sun.net.httpserver.maxIdleConnections / nodelay, chỉ đặt nếu chưa cấu hình)
+ * - Mặc định chỉ nghe trên loopback (127.0.0.1); mở ra mạng phải chỉ rõ địa chỉ (start(InetSocketAddress),
+ *   App --bind)
+ * - Body request tối đa -Dregistration.maxRequestBody byte (mặc định 64KB): lớn hơn trả về 413
+ *   và đóng kết nối, không đọc phần còn lại vào bộ nhớ
+ * - Phiên: POST /api/login trả về token, các request sau gửi "Authorization: Bearer &lt;token&gt;"
+ *   (xem Sessions; hết hạn sau -Dregistration.sessionTtl phút không dùng, mặc định 30)
+ *
+ * Endpoint (tham số GET qua query string, POST qua body JSON):
+ *   POST /api/login                      {username, password} → {token, role, student}
+ *   POST /api/logout
+ *   GET  /api/health                     → {status, sessions}
+ *   GET  /api/terms                      → [{term, open}]
+ *   Sinh viên:
+ *   GET  /api/student/catalog            ?term&amp;q&amp;pageSize → trang 1 {courses, page, totalCount, totalPages, cursor}
+ *   GET  /api/student/catalog/page       ?cursor&amp;page (404 nếu cursor đã hết hạn: gọi lại /catalog)
+ *   GET  /api/student/registrations      ?term → {registrations, totalCredits}
+ *   POST /api/student/registrations      {term, courseCode}
+ *   POST /api/student/registrations/delete {term, courseCodes}
+ *   POST /api/student/submit             {term}
+ *   GET  /api/student/history
+ *   PĐT:
+ *   POST /api/admin/terms/open           {term, open}
+ *   GET  /api/admin/courses              ?term
+ *   GET  /api/admin/registrations        ?q&amp;status&amp;term&amp;dept&amp;offset&amp;pageSize
+ *                                        → {registrations, offset, pageSize, totalCount} (pageSize tối đa 200)
+ *   GET  /api/admin/pending              ?term → {pending}
+ *   POST /api/admin/approve | /reject    {regCodes} → {changed, failures}
+ *   POST /api/admin/approve-matching | /reject-matching {term, dept, courseCode, status}
+ *
+ * Thao tác trả về thông báo (null = thành công) như controller: {ok, message}.
+ * Lỗi: {error} với mã 400 (dữ liệu / quy tắc nghiệp vụ), 401 (chưa đăng nhập), 403 (sai quyền),
+ * 404, 405, 413 (body quá lớn), 500. Thời gian từng endpoint được đo trong Metrics ("ApiServer.GET /api/...").
+ */
+public final class ApiServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    /** Kích thước body request tối đa (byte) */
+    private static final int MAX_BODY = Integer.getInteger("registration.maxRequestBody", 64 * 1024);
+
+    private static final LongAdder CLIENT_ERRORS = Metrics.counter("ApiServer.status.4xx");
+    private static final LongAdder SERVER_ERRORS = Metrics.counter("ApiServer.status.5xx");
+
+    /** Ai được gọi endpoint */
+    private enum Access { PUBLIC, ANY, STUDENT, ADMIN }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Request req);
+    }
+
+    private record Route(Access access, Handler handler, Timer timer) {}
+
+    /** Lỗi trả về cho client với mã HTTP status */
+    static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+    private final Sessions sessions;
+    private final Map<String, Route> routes = new HashMap<>();
+    private final Set<String> paths = new HashSet<>();
+
+    // Controller không giữ trạng thái theo người dùng: dùng chung cho mọi request
+    private final LoginController loginController = new LoginController();
+    private final AdminController adminController = new AdminController();
+
+    private ApiServer(InetSocketAddress address) throws IOException {
+        // Đọc một lần khi tạo HttpServer đầu tiên của JVM: phải đặt trước HttpServer.create
+        setDefault("sun.net.httpserver.maxIdleConnections", "100000");
+        setDefault("sun.net.httpserver.nodelay", "true");
+
+        sessions = new Sessions(TimeUnit.MINUTES.toMillis(Long.getLong("registration.sessionTtl", 30)));
+        registerRoutes();
+
+        server = HttpServer.create(address, 4096);
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(sessions::sweep, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /** Chạy máy chủ trên port (0 = port trống bất kỳ, xem port()), chỉ nghe trên loopback */
+    public static ApiServer start(int port) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /** Chạy máy chủ trên địa chỉ cho trước (ví dụ 0.0.0.0 để nhận kết nối từ máy khác) */
+    public static ApiServer start(InetSocketAddress address) throws IOException {
+        ApiServer api = new ApiServer(address);
+        api.server.start();
+        return api;
+    }
+
+    /** Địa chỉ đang nghe */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /** Port đang nghe */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Số phiên đăng nhập đang giữ */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /** Dừng nhận kết nối mới, chờ tối đa delaySeconds cho các request đang chạy */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        sweeper.shutdownNow();
+        executor.shutdown();
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) System.setProperty(property, value);
+    }
+
+    /* ---------- endpoint ---------- */
+
+    private void registerRoutes() {
+        route("POST", "/api/login", Access.PUBLIC, this::login);
+        route("POST", "/api/logout", Access.ANY, req -> {
+            sessions.remove(req.session.token);
+            return ok(null);
+        });
+        route("GET", "/api/health", Access.PUBLIC, req -> map("status", "ok", "sessions", sessions.size()));
+        route("GET", "/api/terms", Access.ANY, req -> {
+            List<Object> terms = new ArrayList<>();
+            for (String term : adminController.getAllTerms()) {
+                terms.add(map("term", term, "open", adminController.isTermOpen(term)));
+            }
+            return terms;
+        });
+
+        // Sinh viên
+        route("GET", "/api/student/catalog", Access.STUDENT, req -> page(req.student().queryCatalogPage(
+                req.param("term"), req.param("q", ""), Math.min(200, req.intParam("pageSize", 20)))));
+        route("GET", "/api/student/catalog/page", Access.STUDENT, req -> {
+            CatalogPage page = req.student().getCatalogPage(req.param("cursor"), req.intParam("page", 1));
+            if (page == null) throw new ApiException(404, "Cursor đã hết hạn, hãy lọc lại danh mục.");
+            return page(page);
+        });
+        route("GET", "/api/student/registrations", Access.STUDENT, req -> {
+            String term = req.param("term");
+            StudentRegistrationController c = req.student();
+            return map("registrations", rows(c.getRegistrationTableData(term), "code", "name", "date", "status", "credits"),
+                    "totalCredits", c.calculateTotalCredits(term));
+        });
+        route("POST", "/api/student/registrations", Access.STUDENT, req ->
+                ok(req.student().addRegistration(req.string("term"), req.string("courseCode"))));
+        route("POST", "/api/student/registrations/delete", Access.STUDENT, req ->
+                ok(req.student().deleteRegistrations(req.string("term"), new HashSet<>(req.strings("courseCodes")))));
+        route("POST", "/api/student/submit", Access.STUDENT, req ->
+                ok(req.student().submitRegistrations(req.string("term"))));
+        route("GET", "/api/student/history", Access.STUDENT, req ->
+                rows(req.student().getHistoryData(), "term", "code", "name", "credits", "date", "status"));
+
+        // PĐT
+        route("POST", "/api/admin/terms/open", Access.ADMIN, req -> {
+            adminController.setTermOpen(req.string("term"), req.bool("open"));
+            return ok(null);
+        });
+        route("GET", "/api/admin/courses", Access.ADMIN, req -> rows(adminController.getCourseTableData(req.param("term")),
+                "code", "name", "credits", "type", "instructor", "open", "allowedProgram", "schedule", "room", "registered"));
+        route("GET", "/api/admin/registrations", Access.ADMIN, req -> page(adminController.getRegistrationApprovalPage(
+                req.param("q", ""), req.param("status", "Tất cả"), req.param("term", "Tất cả"), req.param("dept", "Tất cả"),
+                req.intParam("offset", 0), Math.min(200, req.intParam("pageSize", 50)))));
+        route("GET", "/api/admin/pending", Access.ADMIN, req ->
+                map("pending", adminController.getPendingCount(req.param("term"))));
+        route("POST", "/api/admin/approve", Access.ADMIN, req ->
+                batch(adminController.approveRegistrations(req.strings("regCodes"))));
+        route("POST", "/api/admin/reject", Access.ADMIN, req ->
+                batch(adminController.rejectRegistrations(req.strings("regCodes"))));
+        route("POST", "/api/admin/approve-matching", Access.ADMIN, req -> batch(adminController.approveMatching(
+                req.string("term", "Tất cả"), req.string("dept", "Tất cả"), req.string("courseCode", null), req.string("status", "Tất cả"))));
+        route("POST", "/api/admin/reject-matching", Access.ADMIN, req -> batch(adminController.rejectMatching(
+                req.string("term", "Tất cả"), req.string("dept", "Tất cả"), req.string("courseCode", null), req.string("status", "Tất cả"))));
+    }
+
+    private void route(String method, String path, Access access, Handler handler) {
+        routes.put(method + " " + path, new Route(access, handler, Metrics.timer("ApiServer." + method + " " + path)));
+        paths.add(path);
+    }
+
+    private Object login(Request req) {
+        LoginController.LoginResult result = loginController.login(req.string("username", ""), req.string("password", ""));
+        if (result.type == LoginController.LoginResultType.FAILED) throw new ApiException(401, result.errorMessage);
+        Sessions.Session session = sessions.create(result.student);
+        Student s = result.student;
+        return map("token", session.token,
+                "role", session.admin() ? "admin" : "student",
+                "student", s == null ? null : map("studentId", s.studentId, "fullName", s.fullName,
+                        "email", s.email, "program", s.program));
+    }
+
+    /* ---------- xử lý request ---------- */
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long t0 = System.nanoTime();
+        Route route = null;
+        try {
+            // Đọc hết body (kể cả khi không dùng) để kết nối được dùng lại cho request sau,
+            // nhưng không quá MAX_BODY byte: body lớn hơn thì trả 413 và đóng kết nối
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY + 1);
+            String path = exchange.getRequestURI().getPath();
+            route = routes.get(exchange.getRequestMethod() + " " + path);
+            int status = 200;
+            Object result;
+            try {
+                if (body.length > MAX_BODY) {
+                    exchange.getResponseHeaders().set("Connection", "close");
+                    throw new ApiException(413, "Body request quá lớn (tối đa " + MAX_BODY + " byte)");
+                }
+                if (route == null) {
+                    throw paths.contains(path)
+                            ? new ApiException(405, "Không hỗ trợ " + exchange.getRequestMethod() + " " + path)
+                            : new ApiException(404, "Không có endpoint " + path);
+                }
+                Request req = new Request(exchange, body);
+                req.session = authorize(route.access, exchange.getRequestHeaders());
+                result = route.handler.handle(req);
+            } catch (ApiException e) {
+                status = e.status;
+                result = error(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                result = error(e.getMessage());
+            } catch (RuntimeException e) {
+                // RuntimeException "trần" là lỗi quy tắc nghiệp vụ có thông báo cho người dùng (như trên giao diện);
+                // loại khác (NullPointerException, UncheckedIOException...) là lỗi máy chủ
+                if (e.getClass() == RuntimeException.class) {
+                    status = 400;
+                } else {
+                    status = 500;
+                    System.err.println("Lỗi xử lý " + exchange.getRequestMethod() + " " + path + ": " + e);
+                }
+                result = error(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+            if (status >= 500) SERVER_ERRORS.increment();
+            else if (status >= 400) CLIENT_ERRORS.increment();
+
+            byte[] out = Json.write(result).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, out.length);
+            exchange.getResponseBody().write(out);
+        } finally {
+            exchange.close();
+            if (route != null) route.timer.record(t0);
+        }
+    }
+
+    private Sessions.Session authorize(Access access, Headers headers) {
+        if (access == Access.PUBLIC) return null;
+        String auth = headers.getFirst("Authorization");
+        String token = auth != null && auth.regionMatches(true, 0, "Bearer ", 0, 7) ? auth.substring(7).trim() : null;
+        Sessions.Session session = sessions.get(token);
+        if (session == null) throw new ApiException(401, "Chưa đăng nhập hoặc phiên đã hết hạn.");
+        if (access == Access.STUDENT && session.admin()) throw new ApiException(403, "Chỉ dành cho sinh viên.");
+        if (access == Access.ADMIN && !session.admin()) throw new ApiException(403, "Chỉ dành cho Phòng Đào tạo.");
+        return session;
+    }
+
+    /** Tham số của một request: query string, body JSON (đọc khi cần), phiên đăng nhập */
+    private static final class Request {
+        final Map<String, String> query = new HashMap<>();
+        final byte[] body;
+        Sessions.Session session;
+        private Map<String, Object> json;
+
+        Request(HttpExchange exchange, byte[] body) {
+            this.body = body;
+            String raw = exchange.getRequestURI().getRawQuery();
+            if (raw != null && !raw.isEmpty()) {
+                for (String pair : raw.split("&")) {
+                    int eq = pair.indexOf('=');
+                    String key = eq < 0 ? pair : pair.substring(0, eq);
+                    String value = eq < 0 ? "" : pair.substring(eq + 1);
+                    query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        StudentRegistrationController student() {
+            return session.controller;
+        }
+
+        /** Tham số query bắt buộc */
+        String param(String name) {
+            String value = query.get(name);
+            if (value == null || value.isEmpty()) throw new ApiException(400, "Thiếu tham số " + name);
+            return value;
+        }
+
+        String param(String name, String defaultValue) {
+            String value = query.get(name);
+            return value == null || value.isEmpty() ? defaultValue : value;
+        }
+
+        int intParam(String name, int defaultValue) {
+            String value = query.get(name);
+            if (value == null || value.isEmpty()) return defaultValue;
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Tham số " + name + " phải là số nguyên");
+            }
+        }
+
+        Map<String, Object> json() {
+            if (json == null) {
+                Object parsed = body.length == 0 ? Map.of() : Json.parse(new String(body, StandardCharsets.UTF_8));
+                if (!(parsed instanceof Map)) throw new ApiException(400, "Body phải là một JSON object");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> object = (Map<String, Object>) parsed;
+                json = object;
+            }
+            return json;
+        }
+
+        /** Thuộc tính chuỗi bắt buộc của body */
+        String string(String name) {
+            String value = string(name, null);
+            if (value == null || value.isEmpty()) throw new ApiException(400, "Thiếu thuộc tính " + name);
+            return value;
+        }
+
+        String string(String name, String defaultValue) {
+            Object value = json().get(name);
+            if (value == null) return defaultValue;
+            if (!(value instanceof String s)) throw new ApiException(400, "Thuộc tính " + name + " phải là chuỗi");
+            return s;
+        }
+
+        boolean bool(String name) {
+            if (!(json().get(name) instanceof Boolean b)) throw new ApiException(400, "Thuộc tính " + name + " phải là true/false");
+            return b;
+        }
+
+        List<String> strings(String name) {
+            if (!(json().get(name) instanceof List<?> list)) throw new ApiException(400, "Thuộc tính " + name + " phải là mảng chuỗi");
+            List<String> values = new ArrayList<>(list.size());
+            for (Object item : list) {
+                if (!(item instanceof String s)) throw new ApiException(400, "Thuộc tính " + name + " phải là mảng chuỗi");
+                values.add(s);
+            }
+            return values;
+        }
+    }
+
+    /* ---------- chuyển kết quả sang JSON ---------- */
+
+    private static Map<String, Object> map(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) map.put((String) keyValues[i], keyValues[i + 1]);
+        return map;
+    }
+
+    private static Map<String, Object> error(String message) {
+        return map("error", message);
+    }
+
+    /** Kết quả dạng "thông báo lỗi, null = thành công" của controller */
+    private static Map<String, Object> ok(String message) {
+        return message == null ? map("ok", true) : map("ok", false, "message", message);
+    }
+
+    /** Dòng bảng (Object[]) của controller → object theo tên cột (bỏ các cột chỉ dùng cho UI ở cuối) */
+    private static List<Map<String, Object>> rows(List<Object[]> rows, String... columns) {
+        List<Map<String, Object>> out = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length && i < row.length; i++) item.put(columns[i], row[i]);
+            out.add(item);
+        }
+        return out;
+    }
+
+    private static Map<String, Object> page(CatalogPage page) {
+        List<Map<String, Object>> courses = new ArrayList<>(page.courses.size());
+        for (Course c : page.courses) {
+            courses.add(map("code", c.code, "name", c.name, "credits", c.credits, "category", c.category));
+        }
+        return map("courses", courses, "page", page.page, "pageSize", page.pageSize,
+                "totalCount", page.totalCount, "totalPages", page.totalPages, "cursor", page.cursor);
+    }
+
+    private static Map<String, Object> page(RegistrationPage page) {
+        return map("registrations", rows(page.rows, "regCode", "fullName", "studentId", "courseName", "credits", "date", "status", "term"),
+                "offset", page.offset, "pageSize", page.pageSize, "totalCount", page.totalCount);
+    }
+
+    private static Map<String, Object> batch(Storage.BatchResult result) {
+        Map<String, Object> failures = new LinkedHashMap<>();
+        result.failures.forEach((id, reason) -> failures.put(id > 0 ? RegRow.regCode(id) : String.valueOf(id), reason));
+        return map("changed", result.changed, "failures", failures);
+    }
+}
@@ -0,0 +1,87 @@
+package university.registration.server;
+
+import university.registration.controller.StudentRegistrationController;
+import university.registration.model.Student;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phiên đăng nhập của API: token ngẫu nhiên → tài khoản (PĐT hoặc sinh viên)
+ *
+ * - Token: 32 byte SecureRandom, base64url (client gửi lại qua "Authorization: Bearer &lt;token&gt;")
+ * - Phiên sinh viên giữ StudentRegistrationController riêng (cache cursor danh mục theo từng sinh viên,
+ *   như mỗi cửa sổ StudentRegistrationFrame)
+ * - Hết hạn sau ttlMillis không dùng (mỗi request gia hạn); phiên hết hạn bị xóa khi tra cứu
+ *   và khi dọn định kỳ (sweep)
+ */
+final class Sessions {
+
+    /** Một phiên đăng nhập */
+    static final class Session {
+        final String token;
+        /** null = phiên PĐT */
+        final Student student;
+        /** Controller của sinh viên (null với phiên PĐT) */
+        final StudentRegistrationController controller;
+        volatile long lastSeen = System.currentTimeMillis();
+
+        Session(String token, Student student) {
+            this.token = token;
+            this.student = student;
+            this.controller = student == null ? null : new StudentRegistrationController(student);
+        }
+
+        boolean admin() {
+            return student == null;
+        }
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+
+    Sessions(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /** Tạo phiên mới (student null = PĐT) */
+    Session create(Student student) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), student);
+        sessions.put(session.token, session);
+        return session;
+    }
+
+    /** Phiên còn hạn theo token (gia hạn khi tìm thấy), null nếu không có / đã hết hạn */
+    Session get(String token) {
+        if (token == null) return null;
+        Session session = sessions.get(token);
+        if (session == null) return null;
+        long now = System.currentTimeMillis();
+        if (now - session.lastSeen > ttlMillis) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastSeen = now;
+        return session;
+    }
+
+    /** Đăng xuất */
+    void remove(String token) {
+        if (token != null) sessions.remove(token);
+    }
+
+    /** Xóa các phiên đã hết hạn */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(s -> now - s.lastSeen > ttlMillis);
+    }
+
+    int size() {
+        return sessions.size();
+    }
+}
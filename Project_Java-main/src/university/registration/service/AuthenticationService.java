@@ -1,7 +1,8 @@
 package university.registration.service;
 
 import university.registration.model.Student;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 
 /**
  * Service xử lý logic đăng nhập và xác thực người dùng
@@ -13,6 +14,18 @@ import university.registration.store.Memory;
  */
 public class AuthenticationService {
     
+    /** Kho dữ liệu (mặc định theo StorageProvider) */
+    private final Storage store;
+
+    public AuthenticationService() {
+        this(StorageProvider.get());
+    }
+
+    /** Dùng một kho dữ liệu cụ thể (ví dụ để benchmark so sánh các backend) */
+    public AuthenticationService(Storage store) {
+        this.store = store;
+    }
+    
     /**
      * Xác thực tài khoản Admin (Phòng Đào Tạo)
      * 
@@ -21,7 +34,7 @@ public class AuthenticationService {
      * @return true nếu đăng nhập thành công, false nếu sai thông tin
      */
     public boolean verifyAdmin(String username, String password) {
-        return Memory.verifyAdmin(username, password);
+        return store.verifyAdmin(username, password);
     }
     
     /**
@@ -32,7 +45,7 @@ public class AuthenticationService {
      * @return true nếu đăng nhập thành công, false nếu sai thông tin
      */
     public boolean verifyStudent(String studentId, String password) {
-        return Memory.verifyStudent(studentId, password);
+        return store.verifyStudent(studentId, password);
     }
     
     /**
@@ -44,13 +57,13 @@ public class AuthenticationService {
      */
     public Student findStudentByIdentifier(String identifier) {
         // Thử tìm theo MSSV trước
-        Student student = Memory.studentsById.get(identifier);
+        Student student = store.findStudent(identifier);
         
         // Nếu không tìm thấy, thử tìm theo Email (chuyển về lowercase để so sánh)
         if (student == null) {
-            String studentId = Memory.emailIndex.get(identifier.toLowerCase());
+            String studentId = store.findStudentIdByEmail(identifier);
             if (studentId != null) {
-                student = Memory.studentsById.get(studentId);
+                student = store.findStudent(studentId);
             }
         }
         
@@ -1,10 +1,13 @@
 package university.registration.service;
 
 import university.registration.model.Course;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Service xử lý logic nghiệp vụ liên quan đến Học phần (Course)
@@ -17,13 +20,25 @@ import java.util.Map;
  */
 public class CourseService {
     
+    /** Kho dữ liệu (mặc định theo StorageProvider) */
+    private final Storage store;
+
+    public CourseService() {
+        this(StorageProvider.get());
+    }
+
+    /** Dùng một kho dữ liệu cụ thể (ví dụ để benchmark so sánh các backend) */
+    public CourseService(Storage store) {
+        this.store = store;
+    }
+    
     /**
      * Thêm học phần mới vào hệ thống
      * 
      * @param course Đối tượng Course cần thêm
      */
     public void addCourse(Course course) {
-        Memory.addCourse(course);
+        store.addCourse(course);
     }
     
     /**
@@ -36,7 +51,7 @@ public class CourseService {
      * @return true nếu có thể xóa, false nếu đã có sinh viên đăng ký
      */
     public boolean canDeleteCourse(String courseCode) {
-        return Memory.canDeleteCourse(courseCode);
+        return store.canDeleteCourse(courseCode);
     }
     
     /**
@@ -47,7 +62,7 @@ public class CourseService {
      * @param courseCode Mã học phần cần xóa
      */
     public void deleteCourse(String courseCode) {
-        Memory.deleteCourse(courseCode);
+        store.deleteCourse(courseCode);
     }
     
     /**
@@ -57,7 +72,7 @@ public class CourseService {
      * @return Đối tượng Course nếu tìm thấy, null nếu không tồn tại
      */
     public Course getCourseByCode(String courseCode) {
-        return Memory.courses.get(courseCode);
+        return store.findCourse(courseCode);
     }
     
     /**
@@ -66,7 +81,45 @@ public class CourseService {
      * @return Map chứa tất cả học phần (key: mã HP, value: Course)
      */
     public Map<String, Course> getAllCourses() {
-        return Memory.courses;
+        Map<String, Course> result = new LinkedHashMap<>();
+        for (Course c : store.courses()) result.put(c.code, c);
+        return result;
+    }
+    
+    /**
+     * Tìm học phần theo từ khóa trên mã / tên (không phân biệt hoa thường, không cần dấu),
+     * xếp theo mức độ khớp
+     * 
+     * @param searchText Từ khóa (rỗng hoặc null: tất cả học phần)
+     * @return Danh sách học phần khớp
+     */
+    public List<Course> searchCourses(String searchText) {
+        return store.searchCourses(searchText);
+    }
+    
+    /**
+     * Lấy danh sách học phần sinh viên của một CTĐT có thể đăng ký trong học kỳ
+     * (offering đang mở, cho phép "Tất cả" hoặc đúng CTĐT)
+     * 
+     * Danh sách được dựng sẵn theo (học kỳ, CTĐT) và dùng chung giữa các sinh viên,
+     * nên không được sửa.
+     * 
+     * @param term Học kỳ
+     * @param program Chương trình đào tạo của sinh viên
+     * @return Danh sách bất biến theo thứ tự danh mục
+     */
+    public List<Course> getAvailableCourses(String term, String program) {
+        return store.availableCourses(term, program);
+    }
+    
+    /**
+     * Phiên bản danh mục học phần / offering
+     * 
+     * @return Giá trị tăng mỗi khi học phần hoặc offering thay đổi
+     *         (kết quả lọc đã cache với phiên bản cũ thì cần lọc lại)
+     */
+    public long getCatalogVersion() {
+        return store.catalogVersion();
     }
     
     /**
@@ -77,7 +130,16 @@ public class CourseService {
      * @return Số lượng sinh viên đã đăng ký
      */
     public int countRegistrationsByCourse(String term, String courseCode) {
-        return Memory.countRegByCourse(term, courseCode);
+        return store.countRegByCourse(term, courseCode);
+    }
+    
+    /**
+     * Lấy danh sách sinh viên đã đăng ký một học phần, nhóm theo học kỳ
+     * 
+     * @param courseCode Mã học phần
+     * @return Map học kỳ -> tập MSSV (rỗng nếu chưa có ai đăng ký)
+     */
+    public Map<String, Set<String>> getEnrolledStudents(String courseCode) {
+        return store.enrolledStudents(courseCode);
     }
 }
-
@@ -2,11 +2,19 @@ package university.registration.service;
 
 import university.registration.model.Course;
 import university.registration.model.RegItem;
-import university.registration.store.Memory;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -21,6 +29,18 @@ import java.util.Set;
  */
 public class RegistrationService {
     
+    /** Kho dữ liệu (mặc định theo StorageProvider) */
+    private final Storage store;
+
+    public RegistrationService() {
+        this(StorageProvider.get());
+    }
+
+    /** Dùng một kho dữ liệu cụ thể (ví dụ để benchmark so sánh các backend) */
+    public RegistrationService(Storage store) {
+        this.store = store;
+    }
+    
     /**
      * Thêm học phần vào danh sách đăng ký tạm của sinh viên
      * 
@@ -35,29 +55,47 @@ public class RegistrationService {
      * @return true nếu thêm thành công, false nếu đã tồn tại hoặc không đủ điều kiện
      */
     public boolean addRegistration(String studentId, String term, String courseCode) {
+        return register(studentId, term, courseCode) == Storage.AddResult.ADDED;
+    }
+    
+    /**
+     * Đăng ký học phần, có giữ chỗ theo sĩ số lớp
+     * 
+     * Chỗ được giữ nguyên tử (CAS) trong kho dữ liệu (addReg) nên không bao giờ vượt sĩ số.
+     * Nếu lớp đã đầy, sinh viên được xếp vào danh sách chờ và sẽ tự động
+     * được thêm vào khi có chỗ trống.
+     * 
+     * @param studentId Mã số sinh viên
+     * @param term Học kỳ
+     * @param courseCode Mã học phần
+     * @return ADDED / DUPLICATE / WAITLISTED, hoặc null nếu học phần không tồn tại
+     */
+    public Storage.AddResult register(String studentId, String term, String courseCode) {
         // Lấy thông tin học phần
-        Course course = Memory.courses.get(courseCode);
+        Course course = store.findCourse(courseCode);
         if (course == null) {
-            return false; // Học phần không tồn tại
+            return null; // Học phần không tồn tại
         }
         
         // Tạo RegItem với ngày hiện tại và trạng thái "Tạm"
         String today = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
-        RegItem item = new RegItem(course, today, "Tạm");
+        RegItem item = new RegItem(course, today, RegStatus.DRAFT);
         
-        // Thêm vào Memory (Memory sẽ kiểm tra trùng)
-        return Memory.addReg(studentId, term, item);
+        // Thêm vào kho dữ liệu (kho sẽ kiểm tra trùng và giữ chỗ)
+        return store.addReg(studentId, term, item, true);
     }
     
     /**
      * Xóa các học phần đã chọn khỏi danh sách đăng ký
      * 
+     * Chỗ được trả lại sẽ tự động dành cho người đứng đầu danh sách chờ.
+     * 
      * @param studentId Mã số sinh viên
      * @param term Học kỳ
      * @param courseCodes Tập hợp mã học phần cần xóa
      */
     public void deleteRegistrations(String studentId, String term, Set<String> courseCodes) {
-        Memory.deleteByCourseCodes(studentId, term, courseCodes);
+        store.deleteRegs(studentId, term, courseCodes);
     }
     
     /**
@@ -68,7 +106,27 @@ public class RegistrationService {
      * @return Danh sách RegItem (danh sách các học phần đã đăng ký)
      */
     public List<RegItem> getRegistrations(String studentId, String term) {
-        return Memory.loadReg(studentId, term);
+        return store.loadReg(studentId, term);
+    }
+    
+    /**
+     * Lấy đăng ký của sinh viên ở tất cả học kỳ
+     * 
+     * @param studentId Mã số sinh viên
+     * @return Map<Học kỳ, Danh sách RegItem> (map rỗng nếu chưa đăng ký)
+     */
+    public Map<String, List<RegItem>> getAllRegistrations(String studentId) {
+        return store.regsOf(studentId);
+    }
+    
+    /**
+     * Truy vấn đăng ký của mọi sinh viên theo điều kiện lọc (cho các màn hình của PĐT)
+     * 
+     * @param query Điều kiện lọc (học kỳ, trạng thái, CTĐT, từ khóa)
+     * @return Các dòng kết quả, kèm thông tin sinh viên
+     */
+    public List<RegRow> queryRegistrations(RegQuery query) {
+        return store.queryRegs(query);
     }
     
     /**
@@ -78,50 +136,100 @@ public class RegistrationService {
      * @param term Học kỳ
      */
     public void submitRegistrations(String studentId, String term) {
-        List<RegItem> regs = Memory.loadReg(studentId, term);
+        List<RegItem> regs = store.loadReg(studentId, term);
         for (RegItem item : regs) {
-            if ("Tạm".equals(item.status)) {
-                item.status = "Đã gửi";
+            if (item.status == RegStatus.DRAFT) {
+                store.setStatus(studentId, term, item.course.code, RegStatus.SUBMITTED);
             }
         }
     }
     
     /**
-     * Duyệt đăng ký (chuyển trạng thái sang "Đã duyệt")
+     * Duyệt đăng ký (chuyển trạng thái từ "Đã gửi" sang "Đã duyệt")
      * 
      * @param studentId Mã số sinh viên
      * @param term Học kỳ
      * @param courseCode Mã học phần
      * @return true nếu tìm thấy và cập nhật thành công, false nếu không tìm thấy
+     * @throws RuntimeException nếu đăng ký không ở trạng thái chờ duyệt ("Đã gửi")
      */
     public boolean approveRegistration(String studentId, String term, String courseCode) {
-        List<RegItem> regs = Memory.loadReg(studentId, term);
-        for (RegItem item : regs) {
-            if (item.course.code.equals(courseCode)) {
-                item.status = "Đã duyệt";
-                return true;
-            }
-        }
-        return false;
+        return store.setStatus(studentId, term, courseCode, RegStatus.APPROVED);
     }
     
     /**
-     * Từ chối đăng ký (chuyển trạng thái sang "Đã từ chối")
+     * Từ chối đăng ký (chuyển trạng thái từ "Đã gửi" sang "Đã từ chối")
      * 
      * @param studentId Mã số sinh viên
      * @param term Học kỳ
      * @param courseCode Mã học phần
      * @return true nếu tìm thấy và cập nhật thành công, false nếu không tìm thấy
+     * @throws RuntimeException nếu đăng ký không ở trạng thái chờ duyệt ("Đã gửi")
      */
     public boolean rejectRegistration(String studentId, String term, String courseCode) {
-        List<RegItem> regs = Memory.loadReg(studentId, term);
-        for (RegItem item : regs) {
-            if (item.course.code.equals(courseCode)) {
-                item.status = "Đã từ chối";
-                return true;
-            }
-        }
-        return false;
+        return store.setStatus(studentId, term, courseCode, RegStatus.REJECTED); // trả chỗ cho danh sách chờ
+    }
+    
+    /**
+     * Duyệt đăng ký theo mã đăng ký (RegRow.id): tra thẳng index chính của kho
+     * 
+     * @param regId Mã đăng ký
+     * @return true nếu cập nhật thành công, false nếu không còn đăng ký mang mã này
+     * @throws RuntimeException nếu đăng ký không ở trạng thái chờ duyệt ("Đã gửi")
+     */
+    public boolean approveRegistration(long regId) {
+        return store.setStatus(regId, RegStatus.APPROVED);
+    }
+    
+    /**
+     * Từ chối đăng ký theo mã đăng ký (RegRow.id): tra thẳng index chính của kho
+     * 
+     * @param regId Mã đăng ký
+     * @return true nếu cập nhật thành công, false nếu không còn đăng ký mang mã này
+     * @throws RuntimeException nếu đăng ký không ở trạng thái chờ duyệt ("Đã gửi")
+     */
+    public boolean rejectRegistration(long regId) {
+        return store.setStatus(regId, RegStatus.REJECTED);
+    }
+    
+    /**
+     * Đổi trạng thái hàng loạt theo mã đăng ký (duyệt / từ chối các dòng đã chọn) trong một lượt:
+     * kho gom khóa và ghi đĩa cho cả lô; đăng ký không đổi được không làm dừng cả lô
+     * 
+     * @param regIds Các mã đăng ký
+     * @param status Trạng thái mới (APPROVED hoặc REJECTED)
+     * @return Số đăng ký đã đổi và lý do của từng mã không đổi được
+     */
+    public Storage.BatchResult decideRegistrations(Collection<Long> regIds, RegStatus status) {
+        return store.setStatuses(regIds, status);
+    }
+    
+    /**
+     * Đổi trạng thái hàng loạt mọi đăng ký khớp điều kiện lọc (học kỳ, CTĐT, học phần, trạng thái...)
+     * Không lọc theo trạng thái (query.statuses == null) thì chỉ lấy đăng ký chờ duyệt ("Đã gửi"),
+     * vì các trạng thái khác không duyệt / từ chối được.
+     * 
+     * @param query Điều kiện lọc
+     * @param status Trạng thái mới (APPROVED hoặc REJECTED)
+     * @return Số đăng ký đã đổi và lý do của từng mã không đổi được
+     */
+    public Storage.BatchResult decideMatching(RegQuery query, RegStatus status) {
+        if (query.statuses == null) query.statuses = EnumSet.of(RegStatus.SUBMITTED);
+        List<RegRow> rows = store.queryRegs(query);
+        List<Long> regIds = new ArrayList<>(rows.size());
+        for (RegRow r : rows) regIds.add(r.id);
+        return store.setStatuses(regIds, status);
+    }
+    
+    /**
+     * Đếm số đăng ký theo trạng thái (đọc bộ đếm của kho dữ liệu, O(1))
+     * 
+     * @param term Học kỳ (null = mọi học kỳ)
+     * @param status Trạng thái (null = mọi trạng thái)
+     * @return Số đăng ký
+     */
+    public long countRegistrations(String term, RegStatus status) {
+        return store.countRegs(term, status);
     }
     
     /**
@@ -132,7 +240,7 @@ public class RegistrationService {
      * @return Tổng số tín chỉ
      */
     public int calculateTotalCredits(String studentId, String term) {
-        List<RegItem> regs = Memory.loadReg(studentId, term);
+        List<RegItem> regs = store.loadReg(studentId, term);
         int total = 0;
         for (RegItem item : regs) {
             total += item.course.credits;
@@ -1,7 +1,8 @@
 package university.registration.service;
 
 import university.registration.model.Student;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 
 /**
  * Service xử lý logic nghiệp vụ liên quan đến Sinh viên
@@ -13,6 +14,18 @@ import university.registration.store.Memory;
  */
 public class StudentService {
     
+    /** Kho dữ liệu (mặc định theo StorageProvider) */
+    private final Storage store;
+
+    public StudentService() {
+        this(StorageProvider.get());
+    }
+
+    /** Dùng một kho dữ liệu cụ thể (ví dụ để benchmark so sánh các backend) */
+    public StudentService(Storage store) {
+        this.store = store;
+    }
+    
     /**
      * Thêm sinh viên mới vào hệ thống
      * 
@@ -26,8 +39,8 @@ public class StudentService {
      * @throws RuntimeException nếu vi phạm các điều kiện trên
      */
     public void addStudent(Student student, String password) {
-        // Gọi Memory để thực hiện lưu trữ (Memory sẽ kiểm tra các điều kiện)
-        Memory.addStudent(student, password);
+        // Gọi kho dữ liệu để thực hiện lưu trữ (kho sẽ kiểm tra các điều kiện)
+        store.addStudent(student, password);
     }
     
     /**
@@ -37,7 +50,7 @@ public class StudentService {
      * @return true nếu MSSV đã tồn tại, false nếu chưa có
      */
     public boolean isStudentIdExists(String studentId) {
-        return Memory.studentsById.containsKey(studentId);
+        return store.findStudent(studentId) != null;
     }
     
     /**
@@ -47,7 +60,7 @@ public class StudentService {
      * @return true nếu email đã được sử dụng, false nếu chưa có
      */
     public boolean isEmailExists(String email) {
-        return Memory.emailIndex.containsKey(email.toLowerCase());
+        return store.findStudentIdByEmail(email) != null;
     }
     
     /**
@@ -57,7 +70,7 @@ public class StudentService {
      * @return Đối tượng Student nếu tìm thấy, null nếu không tồn tại
      */
     public Student getStudentById(String studentId) {
-        return Memory.studentsById.get(studentId);
+        return store.findStudent(studentId);
     }
 }
 
@@ -2,7 +2,8 @@ package university.registration.service;
 
 import university.registration.model.Offering;
 import university.registration.model.TermSetting;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 
 import java.util.List;
 
@@ -16,6 +17,18 @@ import java.util.List;
  */
 public class TermService {
     
+    /** Kho dữ liệu (mặc định theo StorageProvider) */
+    private final Storage store;
+
+    public TermService() {
+        this(StorageProvider.get());
+    }
+
+    /** Dùng một kho dữ liệu cụ thể (ví dụ để benchmark so sánh các backend) */
+    public TermService(Storage store) {
+        this.store = store;
+    }
+    
     /**
      * Kiểm tra học kỳ có đang mở đăng ký hay không
      * 
@@ -23,7 +36,7 @@ public class TermService {
      * @return true nếu đang mở đăng ký, false nếu đã đóng
      */
     public boolean isTermOpen(String term) {
-        return Memory.isTermOpen(term);
+        return store.isTermOpen(term);
     }
     
     /**
@@ -33,7 +46,7 @@ public class TermService {
      * @param open true để mở đăng ký, false để đóng
      */
     public void setTermOpen(String term, boolean open) {
-        Memory.setTermOpen(term, open);
+        store.setTermOpen(term, open);
     }
     
     /**
@@ -42,7 +55,7 @@ public class TermService {
      * @return Danh sách học kỳ (ví dụ: ["20252", "20251", "20242"])
      */
     public List<String> getAllTerms() {
-        return Memory.loadTerms();
+        return store.terms();
     }
     
     /**
@@ -57,7 +70,7 @@ public class TermService {
      * @return Đối tượng Offering nếu có, null nếu chưa có cấu hình
      */
     public Offering getOffering(String term, String courseCode) {
-        return Memory.getOffering(term, courseCode);
+        return store.getOffering(term, courseCode);
     }
     
     /**
@@ -69,7 +82,19 @@ public class TermService {
      * @param allowedProgram Chương trình đào tạo được phép đăng ký (hoặc "Tất cả")
      */
     public void setOffering(String term, String courseCode, boolean open, String allowedProgram) {
-        Memory.setOffering(term, courseCode, open, allowedProgram);
+        store.setOffering(term, courseCode, open, allowedProgram);
+    }
+    
+    /**
+     * Đặt sĩ số tối đa cho một học phần trong học kỳ
+     * 
+     * Tăng sĩ số sẽ tự động đưa sinh viên trong danh sách chờ vào lớp.
+     * 
+     * @param term Học kỳ
+     * @param courseCode Mã học phần
+     * @param capacity Sĩ số tối đa (0 = không giới hạn)
+     */
+    public void setCapacity(String term, String courseCode, int capacity) {
+        store.setCapacity(term, courseCode, capacity);
     }
 }
-
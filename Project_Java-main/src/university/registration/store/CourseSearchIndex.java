@@ -0,0 +1,276 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index tìm kiếm học phần theo mã và tên (n-gram), bỏ dấu tiếng Việt
+ *
+ * - Khóa tìm kiếm của mỗi học phần = fold(mã) + " " + fold(tên), trong đó fold bỏ dấu,
+ *   đổi đ -> d, viết thường và gộp khoảng trắng: "Giải tích I" -> "giai tich i"
+ * - Mỗi bigram / trigram của khóa có một danh sách số hiệu học phần (tăng dần)
+ * - Từ khóa được tách thành các từ; học phần khớp khi khóa chứa MỌI từ.
+ *   Ứng viên lấy từ danh sách ngắn nhất trong các n-gram của từ khóa, rồi mới so chuỗi,
+ *   nên không phải duyệt cả danh mục cho mỗi lần gõ phím
+ * - Kết quả xếp theo mức độ khớp (trùng mã > mã bắt đầu bằng từ khóa > tên bắt đầu bằng
+ *   từ khóa > khớp đầu từ > khớp giữa từ), cùng mức thì theo thứ tự thêm vào danh mục
+ *
+ * Cập nhật từng học phần khi thêm / sửa / xóa (put, remove), không dựng lại cả index.
+ * Số hiệu của một mã học phần giữ nguyên khi sửa, nên thứ tự trùng với LinkedHashMap courses.
+ * Xóa để lại ô null; khi ô null vượt 1/4 danh sách thì dồn lại (compact) và đánh số lại,
+ * giữ nguyên thứ tự, để từ khóa rỗng không phải duyệt qua các học phần đã xóa.
+ */
+final class CourseSearchIndex {
+
+    /** Một học phần trong index */
+    private static final class Entry {
+        final Course course;
+        final String key;
+        final int codeLength;
+
+        Entry(Course course) {
+            this.course = course;
+            String code = fold(course.code);
+            this.key = code + ' ' + fold(course.name);
+            this.codeLength = code.length();
+        }
+    }
+
+    /** Danh sách số hiệu tăng dần */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int at = size > 0 && ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0 && at < size) return; // đã có
+            if (at < 0) at = -at - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    /** Theo số hiệu; null = học phần đã xóa */
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    /** Số ô null trong entries */
+    private int removed;
+
+    /** Dồn entries khi số ô null vượt ngưỡng này và vượt 1/4 danh sách */
+    private static final int COMPACT_MIN = 64;
+
+    /** Thêm học phần mới hoặc cập nhật học phần đã có (cùng mã) */
+    void put(Course course) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.get(course.code);
+            if (ord == null) {
+                ord = entries.size();
+                entries.add(null);
+                ordinals.put(course.code, ord);
+            } else {
+                unindex(ord);
+            }
+            Entry e = new Entry(course);
+            entries.set(ord, e);
+            for (String gram : grams(e.key)) postings.computeIfAbsent(gram, g -> new Postings()).add(ord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Xóa học phần khỏi index */
+    void remove(String code) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.remove(code);
+            if (ord == null) return;
+            unindex(ord);
+            entries.set(ord, null);
+            removed++;
+            if (removed >= COMPACT_MIN && removed * 4 > entries.size()) compactLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Dựng lại index từ danh mục (theo thứ tự duyệt) */
+    void rebuild(Iterable<Course> courses) {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+            for (Course c : courses) {
+                int ord = entries.size();
+                Entry e = new Entry(c);
+                entries.add(e);
+                ordinals.put(c.code, ord);
+                for (String gram : grams(e.key)) postings.computeIfAbsent(gram, g -> new Postings()).add(ord);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm học phần theo từ khóa (không dấu, không phân biệt hoa/thường), xếp theo mức độ khớp.
+     * Từ khóa rỗng: trả về mọi học phần theo thứ tự danh mục.
+     */
+    List<Course> search(String text) {
+        String query = text == null ? "" : fold(text);
+        lock.readLock().lock();
+        try {
+            List<Course> result = new ArrayList<>();
+            if (query.isEmpty()) {
+                for (Entry e : entries) if (e != null) result.add(e.course);
+                return result;
+            }
+            String[] words = query.split(" ");
+
+            // Ứng viên: danh sách ngắn nhất trong các n-gram của từ khóa (null = mọi học phần)
+            Postings candidates = null;
+            for (String w : words) {
+                for (String gram : queryGrams(w)) {
+                    Postings p = postings.get(gram);
+                    if (p == null) return result; // không học phần nào chứa n-gram này
+                    if (candidates == null || p.size < candidates.size) candidates = p;
+                }
+            }
+
+            List<long[]> ranked = new ArrayList<>();
+            int n = candidates == null ? entries.size() : candidates.size;
+            for (int i = 0; i < n; i++) {
+                int ord = candidates == null ? i : candidates.ids[i];
+                Entry e = entries.get(ord);
+                if (e == null) continue;
+                int rank = rank(e, query, words);
+                if (rank >= 0) ranked.add(new long[]{rank, ord});
+            }
+            ranked.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            for (long[] r : ranked) result.add(entries.get((int) r[1]).course);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt, đổi đ/Đ thành d, viết thường, gộp khoảng trắng liên tiếp.
+     * Ví dụ: "  Giải  Tích " -> "giai tich"
+     */
+    static String fold(String s) {
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true; // bỏ khoảng trắng đầu chuỗi
+        for (int i = 0; i < decomposed.length(); i++) {
+            char ch = decomposed.charAt(i);
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) continue;
+            if (Character.isWhitespace(ch)) {
+                if (!space) sb.append(' ');
+                space = true;
+                continue;
+            }
+            sb.append(ch == 'đ' || ch == 'Đ' ? 'd' : Character.toLowerCase(ch));
+            space = false;
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    /* ---------- nội bộ ---------- */
+
+    /**
+     * Mức độ khớp (nhỏ hơn = khớp hơn), -1 nếu không khớp:
+     * 0 trùng mã, 1 mã bắt đầu bằng từ khóa, 2 tên bắt đầu bằng từ khóa,
+     * 3 mọi từ khớp đầu một từ trong khóa, 4 khớp giữa từ
+     */
+    private static int rank(Entry e, String query, String[] words) {
+        String key = e.key;
+        for (String w : words) if (!key.contains(w)) return -1;
+        if (query.length() == e.codeLength && key.startsWith(query)) return 0;
+        if (query.length() <= e.codeLength && key.startsWith(query)) return 1;
+        if (key.startsWith(query, e.codeLength + 1)) return 2;
+        for (String w : words) if (!key.startsWith(w) && !key.contains(" " + w)) return 4;
+        return 3;
+    }
+
+    /** Bigram và trigram (không trùng) của khóa */
+    private static Set<String> grams(String key) {
+        Set<String> grams = new HashSet<>();
+        for (int len = 2; len <= 3; len++)
+            for (int i = 0; i + len <= key.length(); i++) grams.add(key.substring(i, i + len));
+        return grams;
+    }
+
+    /** N-gram dùng để tra một từ của từ khóa: trigram nếu đủ dài, từ 2 ký tự thì chính nó */
+    private static List<String> queryGrams(String word) {
+        if (word.length() < 2) return List.of();
+        if (word.length() == 2) return List.of(word);
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= word.length(); i++) grams.add(word.substring(i, i + 3));
+        return grams;
+    }
+
+    private void unindex(int ord) {
+        Entry old = entries.get(ord);
+        if (old == null) return;
+        for (String gram : grams(old.key)) {
+            Postings p = postings.get(gram);
+            if (p == null) continue;
+            p.remove(ord);
+            if (p.size == 0) postings.remove(gram);
+        }
+    }
+
+    /** Bỏ các ô null, đánh số lại học phần còn lại theo thứ tự cũ (danh sách số hiệu vẫn tăng dần) */
+    private void compactLocked() {
+        int[] remap = new int[entries.size()];
+        int next = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry e = entries.get(i);
+            remap[i] = e == null ? -1 : next;
+            if (e != null) entries.set(next++, e);
+        }
+        entries.subList(next, entries.size()).clear();
+        for (Postings p : postings.values())
+            for (int i = 0; i < p.size; i++) p.ids[i] = remap[p.ids[i]];
+        for (Map.Entry<String, Integer> o : ordinals.entrySet()) o.setValue(remap[o.getValue()]);
+        removed = 0;
+    }
+
+    private void clearLocked() {
+        ordinals.clear();
+        entries.clear();
+        postings.clear();
+        removed = 0;
+    }
+}
@@ -0,0 +1,370 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+/**
+ * Sinh bộ dữ liệu tổng hợp cỡ lớn thay cho dữ liệu demo (Memory.seedDemo)
+ *
+ * Cùng một Spec (kể cả seed) luôn cho đúng cùng một bộ dữ liệu - cùng sinh viên, học phần, offering,
+ * đăng ký, trạng thái và mã đăng ký - bất kể số lõi CPU, nên mọi lần đo hiệu năng bắt đầu từ một trạng thái.
+ *
+ * Các bước:
+ * 1. Danh mục (tuần tự, nhỏ): tài khoản PĐT, CTĐT, học kỳ (mới nhất đứng đầu, chỉ kỳ mới nhất mở đăng ký),
+ *    học phần theo các nhóm mã giống dữ liệu demo (PE, MIL, FL, SSH, MI, ET, ...), offering theo học kỳ
+ *    (kỳ mới nhất mở mọi học phần, kỳ cũ mở khoảng 85%; một phần học phần chỉ dành cho một CTĐT)
+ * 2. Sinh viên và đăng ký (song song, mỗi sinh viên một SplittableRandom tính từ (seed, chỉ số)):
+ *    học phần chọn theo độ phổ biến lệch (Zipf) trong các học phần sinh viên được đăng ký,
+ *    kỳ cũ hầu hết "Đã duyệt", kỳ mới nhất trộn "Tạm" / "Đã gửi" / "Đã duyệt" / "Đã từ chối"
+ * 3. Mã đăng ký cấp tuần tự theo thứ tự sinh viên; sĩ số lớp kỳ mới nhất tính từ số người giữ chỗ
+ *    (các học phần phổ biến nhất vừa đủ chỗ - lớp đầy, còn lại dư chỗ), nên không có ai vượt sĩ số
+ * 4. Đặt thẳng vào Memory rồi dựng lại bộ đếm và index một lượt (Memory.rebuildDerived), như khi nạp snapshot
+ *
+ * Không sinh danh sách chờ. Mọi sinh viên sinh ra có mật khẩu PASSWORD; sinh viên demo SV001 vẫn được thêm
+ * (không có đăng ký) để đăng nhập như dữ liệu demo.
+ */
+public final class DataGenerator {
+
+    /** Mật khẩu của mọi sinh viên sinh ra */
+    public static final String PASSWORD = "sv123";
+
+    /**
+     * Kích thước bộ dữ liệu, đọc từ chuỗi "students=100000,regs=20,seed=7" (xem parse)
+     * - students: số sinh viên
+     * - courses: số học phần
+     * - terms: số học kỳ (tính lùi từ 20252)
+     * - programs: số CTĐT
+     * - regs: số đăng ký trung bình của một sinh viên (cộng mọi học kỳ)
+     * - seed: hạt giống ngẫu nhiên
+     */
+    public static final class Spec {
+        public int students = 10_000;
+        public int courses = 400;
+        public int terms = 4;
+        public int programs = 12;
+        public int regs = 20;
+        public long seed = 42;
+
+        /** Đọc "khóa=giá trị" cách nhau bởi dấu phẩy; khóa không có thì giữ mặc định */
+        public static Spec parse(String text) {
+            Spec spec = new Spec();
+            if (text == null || text.isBlank()) return spec;
+            for (String part : text.split(",")) {
+                String[] kv = part.split("=", 2);
+                if (kv.length != 2) throw new RuntimeException("Tham số sinh dữ liệu không hợp lệ: " + part);
+                String key = kv[0].trim(), value = kv[1].trim().replace("_", "");
+                try {
+                    switch (key) {
+                        case "students": spec.students = Integer.parseInt(value); break;
+                        case "courses": spec.courses = Integer.parseInt(value); break;
+                        case "terms": spec.terms = Integer.parseInt(value); break;
+                        case "programs": spec.programs = Integer.parseInt(value); break;
+                        case "regs": spec.regs = Integer.parseInt(value); break;
+                        case "seed": spec.seed = Long.parseLong(value); break;
+                        default: throw new RuntimeException("Không có tham số sinh dữ liệu: " + key);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException("Giá trị không hợp lệ cho " + key + ": " + kv[1]);
+                }
+            }
+            if (spec.students < 0 || spec.courses < 1 || spec.terms < 1 || spec.programs < 1 || spec.regs < 0)
+                throw new RuntimeException("Kích thước bộ dữ liệu không hợp lệ: " + spec);
+            return spec;
+        }
+
+        @Override
+        public String toString() {
+            return "students=" + students + ",courses=" + courses + ",terms=" + terms
+                    + ",programs=" + programs + ",regs=" + regs + ",seed=" + seed;
+        }
+    }
+
+    /** MSSV của sinh viên thứ i (0, 1, ...): "SV000001", "SV000002", ... */
+    public static String studentId(int i) {
+        return "SV" + pad(i + 1);
+    }
+
+    /** Email của sinh viên thứ i */
+    public static String email(int i) {
+        return "sv" + pad(i + 1) + "@university.edu";
+    }
+
+    /** Mã học kỳ thứ i tính lùi từ 20252: 20252, 20251, 20242, 20241, ... */
+    public static String term(int i) {
+        return String.valueOf((2025 - i / 2) * 10 + (2 - i % 2));
+    }
+
+    /* ---------- danh mục ---------- */
+
+    private static final String[] PROGRAM_NAMES = {
+            "Kỹ thuật Điện tử - Viễn thông", "Công nghệ Thông tin", "Kỹ thuật Cơ khí", "Kỹ thuật Điện",
+            "Kỹ thuật Hóa học", "Kỹ thuật Y sinh", "Toán - Tin", "Kỹ thuật Hàng không",
+            "Khoa học Máy tính", "Kỹ thuật Ô tô", "Quản trị Kinh doanh", "Vật lý Kỹ thuật"
+    };
+
+    /** Nhóm mã học phần (cùng tiền tố với dữ liệu demo để bộ phân loại học phần nhận ra) và tên gốc */
+    private static final String[][] COURSE_GROUPS = {
+            {"PE", "Bóng chuyền", "Bóng đá", "Bóng rổ", "Cầu lông", "Bơi lội", "Taekwondo"},
+            {"MIL", "Quân sự chung", "Công tác quốc phòng", "Kỹ thuật chiến đấu"},
+            {"FL", "Tiếng Anh cơ sở", "Tiếng Anh chuyên ngành", "Tiếng Nhật", "Tiếng Pháp"},
+            {"SSH", "Triết học", "Kinh tế chính trị", "Lịch sử Đảng", "Tư tưởng Hồ Chí Minh"},
+            {"MI", "Giải tích", "Đại số", "Xác suất thống kê", "Phương pháp tính", "Tối ưu hóa"},
+            {"PH", "Vật lý đại cương", "Vật lý điện tử", "Quang học"},
+            {"IT", "Tin học đại cương", "Lập trình hướng đối tượng", "Cơ sở dữ liệu", "Mạng máy tính", "Hệ điều hành"},
+            {"ET", "Lý thuyết mạch", "Điện tử số", "Tín hiệu và hệ thống", "Thông tin số", "Xử lý tín hiệu số",
+                    "Kỹ thuật vi xử lý", "Anten và truyền sóng", "Thiết kế VLSI", "Hệ thống nhúng"},
+            {"EM", "Quản trị học", "Pháp luật đại cương", "Kinh tế học"},
+            {"ME", "Cơ học kỹ thuật", "Vẽ kỹ thuật", "Sức bền vật liệu", "Nguyên lý máy"},
+    };
+    /** Tỉ lệ học phần của từng nhóm trong danh mục (cùng thứ tự COURSE_GROUPS) */
+    private static final int[] GROUP_WEIGHTS = {6, 2, 5, 4, 10, 6, 20, 25, 8, 14};
+    private static final int[] CREDITS = {1, 2, 2, 2, 3, 3, 3, 3, 3, 4, 4};
+
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ",
+            "Võ", "Đặng", "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+    private static final String[] MIDDLE = {"Văn", "Thị", "Hữu", "Đức", "Minh", "Ngọc", "Thanh", "Quang",
+            "Thu", "Gia", "Hoài", "Xuân"};
+    private static final String[] GIVEN = {"An", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hải", "Hạnh", "Hiếu",
+            "Hòa", "Hùng", "Huy", "Khánh", "Lan", "Linh", "Long", "Mai", "Minh", "Nam", "Ngân", "Nhung",
+            "Phong", "Phúc", "Quân", "Sơn", "Tâm", "Thảo", "Trang", "Trung", "Tú", "Tuấn", "Vy"};
+    private static final String[] CITIES = {"Hà Nội", "Hải Phòng", "Nam Định", "Thái Bình", "Nghệ An",
+            "Thanh Hóa", "Bắc Ninh", "Hải Dương", "Quảng Ninh", "Đà Nẵng", "TP. Hồ Chí Minh"};
+
+    private DataGenerator() {}
+
+    /**
+     * Xóa dữ liệu hiện tại trong Memory và sinh bộ dữ liệu theo spec.
+     * Không ghi nhật ký (gọi trước Journal.start, xem Memory.initGenerated).
+     */
+    public static void generate(Spec spec) {
+        Memory.clear();
+        Memory.adminPasswords.put("pdt", "pdt123");
+
+        SplittableRandom rnd = new SplittableRandom(spec.seed);
+        List<String> programs = programs(spec.programs);
+        Memory.programs.addAll(programs);
+
+        String[] terms = new String[spec.terms];
+        for (int t = 0; t < terms.length; t++) {
+            terms[t] = term(t);
+            Memory.termSettings.put(terms[t], new TermSetting(t == 0)); // chỉ kỳ mới nhất mở đăng ký
+        }
+        Memory.terms.addAll(Arrays.asList(terms));
+
+        Course[] courses = courses(spec.courses, rnd);
+        for (Course c : courses) Memory.courses.put(c.code, c);
+
+        // Độ phổ biến: hoán vị ngẫu nhiên của hạng, trọng số 1 / hạng^0.8
+        int[] rank = new int[courses.length];
+        for (int i = 0; i < rank.length; i++) rank[i] = i;
+        for (int i = rank.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1), tmp = rank[i];
+            rank[i] = rank[j];
+            rank[j] = tmp;
+        }
+
+        Offering[][] offered = new Offering[terms.length][courses.length];
+        for (int t = 0; t < terms.length; t++) {
+            var byCode = new ConcurrentHashMap<String, Offering>();
+            for (int c = 0; c < courses.length; c++) {
+                if (t > 0 && rnd.nextInt(100) >= 85) continue;
+                String allowed = rnd.nextInt(100) < 15 ? programs.get(rnd.nextInt(programs.size())) : "Tất cả";
+                offered[t][c] = new Offering(true, allowed);
+                byCode.put(courses[c].code, offered[t][c]);
+            }
+            Memory.offerings.put(terms[t], byCode);
+        }
+        Choices[][] choices = new Choices[terms.length][programs.size()];
+        for (int t = 0; t < terms.length; t++)
+            for (int p = 0; p < programs.size(); p++)
+                choices[t][p] = new Choices(offered[t], programs.get(p), rank);
+
+        String[][] dates = new String[terms.length][];
+        for (int t = 0; t < terms.length; t++) dates[t] = dates(terms[t]);
+
+        // Sinh viên và đăng ký: song song, mỗi sinh viên một luồng ngẫu nhiên riêng
+        Plan[] plans = new Plan[spec.students];
+        IntStream.range(0, spec.students).parallel().forEach(i ->
+                plans[i] = plan(i, spec, programs, terms.length, courses, choices, dates));
+
+        // Mã đăng ký theo thứ tự sinh viên / học kỳ; đếm người giữ chỗ kỳ mới nhất
+        long nextId = 1;
+        int[] holders = new int[courses.length];
+        for (Plan plan : plans) {
+            for (int t = 0; t < plan.items.length; t++) {
+                for (int k = 0; k < plan.items[t].length; k++) {
+                    RegItem it = plan.items[t][k];
+                    it.id = nextId++;
+                    if (t == 0 && it.status.holdsSeat()) holders[plan.courses[t][k]]++;
+                }
+            }
+        }
+        Memory.advanceRegId(nextId);
+
+        // Sĩ số kỳ mới nhất: 5% học phần phổ biến nhất vừa đủ chỗ, còn lại dư ~25% (bội số của 10, tối thiểu 30)
+        for (int c = 0; c < courses.length; c++) {
+            if (offered[0][c] == null) continue;
+            int h = holders[c];
+            offered[0][c].capacity = rank[c] < Math.max(1, courses.length / 20) && h > 0
+                    ? h : Math.max(30, (h + h / 4 + 9) / 10 * 10);
+        }
+
+        // Đặt vào Memory theo thứ tự sinh viên (thứ tự duyệt regs không phụ thuộc số luồng)
+        for (Plan plan : plans) {
+            Memory.addStudent(plan.student, PASSWORD);
+            var byTerm = new ConcurrentHashMap<String, List<RegItem>>();
+            for (int t = 0; t < terms.length; t++)
+                if (plan.items[t].length > 0) byTerm.put(terms[t], new CopyOnWriteArrayList<>(plan.items[t]));
+            if (!byTerm.isEmpty()) Memory.regs.put(plan.student.studentId, byTerm);
+        }
+        Memory.addStudent(new Student("SV001", "Sinh Viên Mặc Định", "2004-01-01", "Hà Nội",
+                "sv001@university.edu", programs.get(0)), "sv123");
+        Memory.rebuildDerived();
+    }
+
+    /** Đăng ký dự kiến của một sinh viên: items[học kỳ] (0 = kỳ mới nhất) */
+    private static final class Plan {
+        final Student student;
+        final RegItem[][] items;
+        final int[][] courses; // chỉ số học phần, cùng vị trí với items
+
+        Plan(Student student, RegItem[][] items, int[][] courses) {
+            this.student = student;
+            this.items = items;
+            this.courses = courses;
+        }
+    }
+
+    /**
+     * Các học phần một CTĐT đăng ký được trong một học kỳ, kèm trọng số tích lũy theo độ phổ biến
+     * (chọn bằng tìm kiếm nhị phân)
+     */
+    private static final class Choices {
+        final int[] courses;
+        final double[] cumulative;
+
+        Choices(Offering[] offered, String program, int[] rank) {
+            List<Integer> ok = new ArrayList<>();
+            for (int c = 0; c < offered.length; c++) {
+                Offering off = offered[c];
+                if (off != null && ("Tất cả".equals(off.allowedProgram) || program.equals(off.allowedProgram))) ok.add(c);
+            }
+            courses = ok.stream().mapToInt(Integer::intValue).toArray();
+            cumulative = new double[courses.length];
+            double sum = 0;
+            for (int i = 0; i < courses.length; i++) {
+                sum += 1 / Math.pow(rank[courses[i]] + 1, 0.8);
+                cumulative[i] = sum;
+            }
+        }
+
+        int pick(SplittableRandom rnd) {
+            int i = Arrays.binarySearch(cumulative, rnd.nextDouble() * cumulative[cumulative.length - 1]);
+            return courses[Math.min(i < 0 ? -i - 1 : i, courses.length - 1)];
+        }
+    }
+
+    private static Plan plan(int i, Spec spec, List<String> programs, int termCount, Course[] courses,
+                             Choices[][] choices, String[][] dates) {
+        SplittableRandom rnd = new SplittableRandom(mix(spec.seed, i));
+        // CTĐT lệch: các CTĐT đầu danh sách đông sinh viên hơn
+        int p = Math.min(programs.size() - 1, (int) (programs.size() * Math.pow(rnd.nextDouble(), 1.5)));
+        String name = FAMILY[rnd.nextInt(FAMILY.length)] + " " + MIDDLE[rnd.nextInt(MIDDLE.length)] + " "
+                + GIVEN[rnd.nextInt(GIVEN.length)];
+        String dob = String.format(Locale.ROOT, "%d-%02d-%02d", 2000 + rnd.nextInt(7), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28));
+        Student student = new Student(studentId(i), name, dob, CITIES[rnd.nextInt(CITIES.length)], email(i), programs.get(p));
+
+        RegItem[][] items = new RegItem[termCount][];
+        int[][] idx = new int[termCount][];
+        double perTerm = (double) spec.regs / termCount;
+        for (int t = 0; t < termCount; t++) {
+            Choices ch = choices[t][p];
+            int n = (int) perTerm + (rnd.nextDouble() < perTerm - (int) perTerm ? 1 : 0);
+            if (n >= 2) n += rnd.nextInt(5) - 2; // dao động ±2 quanh trung bình
+            n = Math.min(n, ch.courses.length);
+            LinkedHashSet<Integer> picked = new LinkedHashSet<>();
+            for (int tries = 0; picked.size() < n && tries < n * 20; tries++) picked.add(ch.pick(rnd));
+            items[t] = new RegItem[picked.size()];
+            idx[t] = new int[picked.size()];
+            int k = 0;
+            for (int c : picked) {
+                items[t][k] = new RegItem(courses[c], dates[t][rnd.nextInt(dates[t].length)], status(t, rnd));
+                idx[t][k++] = c;
+            }
+        }
+        return new Plan(student, items, idx);
+    }
+
+    /** Kỳ cũ: 93% "Đã duyệt", còn lại "Đã từ chối"; kỳ mới nhất: 10% Tạm, 50% Đã gửi, 35% Đã duyệt, 5% Đã từ chối */
+    private static RegStatus status(int term, SplittableRandom rnd) {
+        int r = rnd.nextInt(100);
+        if (term > 0) return r < 93 ? RegStatus.APPROVED : RegStatus.REJECTED;
+        if (r < 10) return RegStatus.DRAFT;
+        if (r < 60) return RegStatus.SUBMITTED;
+        if (r < 95) return RegStatus.APPROVED;
+        return RegStatus.REJECTED;
+    }
+
+    private static List<String> programs(int n) {
+        List<String> programs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            programs.add(PROGRAM_NAMES[i % PROGRAM_NAMES.length] + " " + (2021 + i / PROGRAM_NAMES.length));
+        return programs;
+    }
+
+    private static Course[] courses(int n, SplittableRandom rnd) {
+        int total = 0;
+        for (int w : GROUP_WEIGHTS) total += w;
+        Course[] courses = new Course[n];
+        int[] next = new int[COURSE_GROUPS.length];
+        for (int i = 0; i < n; i++) {
+            int r = rnd.nextInt(total), g = 0;
+            while (r >= GROUP_WEIGHTS[g]) r -= GROUP_WEIGHTS[g++];
+            String[] group = COURSE_GROUPS[g];
+            int k = next[g]++;
+            String base = group[1 + k % (group.length - 1)];
+            int level = k / (group.length - 1) + 1;
+            // Mã: tiền tố + 4 chữ số (1000 + thứ tự trong nhóm), không trùng
+            courses[i] = new Course(group[0] + (1000 + k), base + " " + level, CREDITS[rnd.nextInt(CREDITS.length)]);
+        }
+        return courses;
+    }
+
+    /** 30 ngày đăng ký của học kỳ (dùng chung String cho mọi đăng ký cùng ngày) */
+    private static String[] dates(String term) {
+        int year = Integer.parseInt(term.substring(0, 4));
+        boolean first = term.endsWith("1");
+        String[] dates = new String[30];
+        for (int d = 0; d < dates.length; d++)
+            dates[d] = first ? String.format(Locale.ROOT, "%d-07-%02d", year, d + 1)
+                    : String.format(Locale.ROOT, "%d-12-%02d", year, d + 1);
+        return dates;
+    }
+
+    private static String pad(int n) {
+        String s = Integer.toString(n);
+        return s.length() >= 6 ? s : "000000".substring(s.length()) + s;
+    }
+
+    /** Hạt giống riêng cho sinh viên i (SplitMix64), không phụ thuộc thứ tự chạy */
+    private static long mix(long seed, long i) {
+        long z = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,1059 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Backend lưu sinh viên và đăng ký trong file, đọc/ghi qua bộ đệm trang (PageCache)
+ *
+ * Bố cục thư mục:
+ * - records.dat: các bản ghi nối tiếp nhau [int độ dài][byte loại][UTF khóa][dữ liệu]
+ *     + loại STUDENT, khóa = MSSV
+ *     + loại REGS, khóa = MSSV + '\t' + học kỳ, dữ liệu = danh sách RegItem (kèm mã đăng ký) của học kỳ đó
+ *   Cập nhật một danh sách đăng ký = ghi bản ghi mới ở cuối file; index trỏ sang bản mới
+ *   (bản cũ thành rác, chưa có bước nén file)
+ * - catalog.bin: dữ liệu nhỏ giữ trong heap (tài khoản PĐT, CTĐT, học phần, học kỳ, offering,
+ *   danh sách chờ, mã đăng ký cấp tiếp theo), ghi lại khi flush()
+ *
+ * Trong heap: catalog, index (MSSV, học kỳ) -> vị trí bản ghi, index mã đăng ký -> (MSSV, học kỳ), index email,
+ * bộ đếm đăng ký theo (học kỳ, học phần), theo (học kỳ, trạng thái), index phụ của queryRegs (khi đã dùng)
+ * và các trang "nóng" của PageCache (registration.pageCacheMB, mặc định 64MB).
+ * Chỉ nội dung đăng ký (RegItem) và thông tin sinh viên nằm ngoài heap; index mã đăng ký và index phụ
+ * vẫn tốn heap theo số đăng ký, nên heap vẫn phải chứa được các index đó.
+ *
+ * Khi mở thư mục trống, dữ liệu hiện có trong Memory được chép sang (để so sánh 2 backend
+ * trên cùng một bộ dữ liệu). Khi mở lại, index được dựng bằng cách quét records.dat.
+ *
+ * Độ bền: KHÔNG bền. Thay đổi nằm trong bộ đệm cho tới khi flush() (gọi khi tắt ứng dụng),
+ * không có nhật ký như MemoryStorage: tiến trình dừng đột ngột thì mất mọi thay đổi từ lần flush() trước
+ * (trang bị đẩy khỏi bộ đệm có thể đã xuống đĩa, catalog.bin thì chưa, nên file có thể lệch nhau).
+ * Dùng để thử nghiệm / so sánh backend, không dùng làm kho chính.
+ *
+ * Đồng thời: hàm chỉ đọc chạy song song dưới read lock, hàm thay đổi giữ write lock (xem lock);
+ * countRegs đọc bộ đếm không khóa; forEachReg không giữ khóa trong lúc gọi visitor (như Memory,
+ * thấy thay đổi xảy ra trong lúc duyệt hoặc không).
+ */
+public class FileStorage implements Storage {
+
+    static final byte STUDENT = 1;
+    static final byte REGS = 2;
+
+    private final Path dir;
+    private final PageCache file;
+
+    /* ---------- catalog (trong heap) ---------- */
+    private final Map<String, String> adminPasswords = new HashMap<>();
+    private final List<String> programs = new ArrayList<>();
+    private final Map<String, Course> courses = new LinkedHashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, TermSetting> termSettings = new HashMap<>();
+    private final Map<String, Map<String, Offering>> offerings = new HashMap<>();
+    /** Tăng khi học phần / offering thay đổi (xem Storage.catalogVersion) */
+    private long catalogVersion;
+
+    /* ---------- index (trong heap) ---------- */
+    private final Map<String, Long> studentPos = new HashMap<>();
+    private final Map<String, String> emailIndex = new HashMap<>();
+    private final Map<String, Map<String, Long>> regPos = new HashMap<>();
+    private final Map<String, Map<String, Integer>> enrollCounts = new HashMap<>();
+    private final StatusCounters statusCounts = new StatusCounters();
+    /** Mã đăng ký -> (MSSV, học kỳ); RegItem đọc lại từ bản ghi của MSSV / học kỳ đó */
+    private final RegIdIndex regIds = new RegIdIndex();
+    private final CourseSearchIndex courseSearch = new CourseSearchIndex();
+    /** Học phần có thể đăng ký theo (học kỳ, CTĐT), dựng lại khi đọc sau thay đổi */
+    private final OfferingView offeringView = new OfferingView(() -> new ArrayList<>(courses.values()), this::getOffering);
+    /** Index phụ cho queryRegs: dựng khi có truy vấn đầu tiên (null = chưa dựng) */
+    private volatile RegIndex regIndex;
+
+    /**
+     * Khóa của kho: hàm chỉ đọc giữ read lock (chạy song song với nhau), hàm thay đổi dữ liệu giữ write lock.
+     * Các map trong heap là HashMap nên chỉ được sửa khi giữ write lock; PageCache có khóa riêng.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileStorage(Path dir, int cachePages) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        this.file = new PageCache(dir.resolve("records.dat"), cachePages);
+    }
+
+    /**
+     * Mở (hoặc tạo) kho trong thư mục dir.
+     * Thư mục trống thì chép dữ liệu hiện có trong Memory sang.
+     */
+    public static FileStorage open(Path dir) {
+        int cacheMb = Integer.getInteger("registration.pageCacheMB", 64);
+        return open(dir, Math.max(16, (int) ((long) cacheMb * 1024 * 1024 / PageCache.PAGE_SIZE)));
+    }
+
+    /** Mở kho với số trang bộ đệm cho trước (benchmark dùng để ép dữ liệu không vừa bộ đệm) */
+    public static FileStorage open(Path dir, int cachePages) {
+        try {
+            FileStorage fs = new FileStorage(dir, cachePages);
+            if (Files.exists(dir.resolve("catalog.bin"))) {
+                fs.loadCatalog();
+                fs.scanRecords();
+            } else {
+                fs.importFromMemory();
+                fs.flush();
+            }
+            return fs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không mở được kho dữ liệu " + dir, e);
+        }
+    }
+
+    /* ---------- tài khoản ---------- */
+
+    @Override
+    public boolean verifyAdmin(String username, String password) {
+        lock.readLock().lock();
+        try {
+            return password.equals(adminPasswords.get(username));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean verifyStudent(String studentId, String password) {
+        lock.readLock().lock();
+        try {
+            Student s = findStudent(studentId);
+            return s != null && Objects.equals(s.password, password);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ---------- sinh viên ---------- */
+
+    @Override
+    public Student findStudent(String studentId) {
+        lock.readLock().lock();
+        try {
+            Long pos = studentPos.get(studentId);
+            if (pos == null) return null;
+            try {
+                DataInputStream in = readRecord(pos);
+                Student s = new Student(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                s.password = in.readBoolean() ? in.readUTF() : null;
+                return s;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String findStudentIdByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            return emailIndex.get(email.toLowerCase(Locale.ROOT));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addStudent(Student s, String password) {
+        lock.writeLock().lock();
+        try {
+            // Cùng các quy tắc với Memory.addStudent
+            if (studentPos.containsKey(s.studentId))
+                throw new RuntimeException("Mỗi MSSV chỉ có 1 tài khoản!");
+            if (s.email == null || s.email.isBlank())
+                throw new RuntimeException("Email không được để trống!");
+            if (s.program == null || s.program.isBlank())
+                throw new RuntimeException("Vui lòng chọn chương trình học!");
+            String key = s.email.toLowerCase(Locale.ROOT);
+            if (emailIndex.containsKey(key))
+                throw new RuntimeException("Email đã được dùng bởi MSSV: " + emailIndex.get(key));
+
+            s.password = password;
+            studentPos.put(s.studentId, writeRecord(STUDENT, s.studentId, out -> {
+                out.writeUTF(s.studentId);
+                out.writeUTF(s.fullName);
+                out.writeUTF(s.dob);
+                out.writeUTF(s.address);
+                out.writeUTF(s.email);
+                out.writeUTF(s.program);
+                out.writeBoolean(password != null);
+                if (password != null) out.writeUTF(password);
+            }));
+            emailIndex.put(key, s.studentId);
+            if (regIndex != null) regIndex.studentChanged(s);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int studentCount() {
+        lock.readLock().lock();
+        try {
+            return studentPos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> programs() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(programs);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ---------- học phần ---------- */
+
+    @Override
+    public Collection<Course> courses() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(courses.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Course findCourse(String code) {
+        lock.readLock().lock();
+        try {
+            return courses.get(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Course> searchCourses(String text) {
+        lock.readLock().lock();
+        try {
+            return courseSearch.search(text);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Course> availableCourses(String term, String program) {
+        lock.readLock().lock();
+        try {
+            return offeringView.get(term, program);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long catalogVersion() {
+        lock.readLock().lock();
+        try {
+            return catalogVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addCourse(Course course) {
+        lock.writeLock().lock();
+        try {
+            courses.put(course.code, course);
+            courseSearch.put(course);
+            offeringView.coursesChanged();
+            catalogVersion++;
+            if (regIndex != null) regIndex.courseChanged(course);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean canDeleteCourse(String code) {
+        lock.readLock().lock();
+        try {
+            for (var byCode : enrollCounts.values())
+                if (byCode.getOrDefault(code, 0) > 0) return false;
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteCourse(String code) {
+        lock.writeLock().lock();
+        try {
+            courses.remove(code);
+            courseSearch.remove(code);
+            for (var m : offerings.values()) m.remove(code);
+            for (var m : enrollCounts.values()) m.remove(code);
+            offeringView.coursesChanged();
+            catalogVersion++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Không có index ngược (tốn heap theo số đăng ký) nên phải quét toàn bộ file (forEachReg tự khóa) */
+    @Override
+    public Map<String, Set<String>> enrolledStudents(String code) {
+        Map<String, Set<String>> result = new TreeMap<>();
+        forEachReg((sid, term, item) -> {
+            if (item.course.code.equals(code)) result.computeIfAbsent(term, t -> new TreeSet<>()).add(sid);
+        });
+        return result;
+    }
+
+    @Override
+    public int countRegByCourse(String term, String code) {
+        lock.readLock().lock();
+        try {
+            return enrollCounts.getOrDefault(term, Map.of()).getOrDefault(code, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countRegs(String term, RegStatus status) {
+        return statusCounts.count(term, status); // không khóa: bộ đếm là AtomicLongArray
+    }
+
+    /* ---------- học kỳ ---------- */
+
+    @Override
+    public List<String> terms() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(terms);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TermSetting termSetting(String term) {
+        lock.readLock().lock();
+        try {
+            return termSettings.get(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isTermOpen(String term) {
+        lock.readLock().lock();
+        try {
+            TermSetting t = termSettings.get(term);
+            return t != null && t.registrationOpen;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setTermOpen(String term, boolean open) {
+        lock.writeLock().lock();
+        try {
+            termSettings.computeIfAbsent(term, t -> new TermSetting(open)).registrationOpen = open;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putTerm(String term, TermSetting setting) {
+        lock.writeLock().lock();
+        try {
+            if (!terms.contains(term)) terms.add(term);
+            termSettings.put(term, setting);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteTerm(String term) {
+        lock.writeLock().lock();
+        try {
+            terms.remove(term);
+            termSettings.remove(term);
+            offerings.remove(term);
+            offeringView.termRemoved(term);
+            catalogVersion++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Khóa bản ghi chứa mã học kỳ nên các danh sách đăng ký của học kỳ được ghi lại với khóa mới */
+    @Override
+    public void renameTerm(String oldTerm, String newTerm) {
+        lock.writeLock().lock();
+        try {
+            int index = terms.indexOf(oldTerm);
+            if (oldTerm.equals(newTerm) || index < 0) return;
+            terms.set(index, newTerm);
+            var setting = termSettings.remove(oldTerm);
+            if (setting != null) termSettings.put(newTerm, setting);
+            var offs = offerings.remove(oldTerm);
+            if (offs != null) offerings.put(newTerm, offs);
+            offeringView.termRemoved(oldTerm);
+            offeringView.termRemoved(newTerm);
+            catalogVersion++;
+            var counts = enrollCounts.remove(oldTerm);
+            if (counts != null) enrollCounts.put(newTerm, counts);
+            statusCounts.renameTerm(oldTerm, newTerm);
+            for (var e : regPos.entrySet()) {
+                Long pos = e.getValue().remove(oldTerm);
+                if (pos == null) continue;
+                List<RegItem> list = readRegs(pos);
+                e.getValue().put(newTerm, writeRegs(e.getKey(), newTerm, list));
+                for (RegItem it : list) regIds.setTerm(it.id, newTerm);
+            }
+            if (regIndex != null) regIndex.renameTerm(oldTerm, newTerm);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ---------- offering ---------- */
+
+    @Override
+    public Offering getOffering(String term, String code) {
+        lock.readLock().lock();
+        try {
+            var byCode = offerings.get(term);
+            return byCode == null ? null : byCode.get(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setOffering(String term, String code, boolean open, String allowedProgram) {
+        lock.writeLock().lock();
+        try {
+            Offering off = offering(term, code);
+            if (off.open == open && Objects.equals(off.allowedProgram, allowedProgram)) return;
+            off.open = open;
+            off.allowedProgram = allowedProgram;
+            offeringView.offeringChanged(term);
+            catalogVersion++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void setCapacity(String term, String code, int capacity) {
+        lock.writeLock().lock();
+        try {
+            offering(term, code).capacity = Math.max(0, capacity);
+            catalogVersion++;
+            promoteWaiting(term, code);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Lấy hoặc tạo Offering (đóng), số chỗ đã giữ tính từ các đăng ký hiện có */
+    private Offering offering(String term, String code) {
+        return offerings.computeIfAbsent(term, t -> new HashMap<>()).computeIfAbsent(code, c -> {
+            Offering off = new Offering(false, "Tất cả");
+            int taken = 0;
+            for (var byTerm : regPos.values()) {
+                Long pos = byTerm.get(term);
+                if (pos == null) continue;
+                for (RegItem it : readRegs(pos))
+                    if (it.course.code.equals(code) && it.status.holdsSeat()) taken++;
+            }
+            off.resetSeats(taken);
+            return off;
+        });
+    }
+
+    /* ---------- đăng ký ---------- */
+
+    @Override
+    public List<RegItem> loadReg(String studentId, String term) {
+        lock.readLock().lock();
+        try {
+            Long pos = regPos.getOrDefault(studentId, Map.of()).get(term);
+            return pos == null ? new ArrayList<>() : readRegs(pos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, List<RegItem>> regsOf(String studentId) {
+        lock.readLock().lock();
+        try {
+            Map<String, List<RegItem>> result = new LinkedHashMap<>();
+            regPos.getOrDefault(studentId, Map.of()).forEach((term, pos) -> result.put(term, readRegs(pos)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public AddResult addReg(String studentId, String term, RegItem item, boolean waitIfFull) {
+        lock.writeLock().lock();
+        try {
+            List<RegItem> list = loadReg(studentId, term);
+            String code = item.course.code;
+            if (list.stream().anyMatch(x -> x.course.code.equals(code)))
+                return AddResult.DUPLICATE;
+            Offering off = getOffering(term, code);
+            if (off != null && item.status.holdsSeat() && !off.tryReserveSeat()) {
+                if (!waitIfFull) return AddResult.FULL;
+                if (item.id == 0) item.id = regIds.allocate();
+                off.enqueueWaiting(studentId, item);
+                return AddResult.WAITLISTED;
+            }
+            if (item.id == 0) item.id = regIds.allocate();
+            list.add(item);
+            putRegs(studentId, term, list);
+            regIds.put(item.id, studentId, term, null);
+            enrollCounts.computeIfAbsent(term, t -> new HashMap<>()).merge(code, 1, Integer::sum);
+            statusCounts.add(term, item.status, 1);
+            if (regIndex != null) regIndex.put(studentId, term, item);
+            return AddResult.ADDED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteRegs(String studentId, String term, Set<String> codes) {
+        lock.writeLock().lock();
+        try {
+            List<RegItem> list = loadReg(studentId, term);
+            List<String> freed = new ArrayList<>();
+            boolean changed = list.removeIf(it -> {
+                if (!codes.contains(it.course.code)) return false;
+                enrollCounts.computeIfAbsent(term, t -> new HashMap<>()).merge(it.course.code, -1, Integer::sum);
+                statusCounts.add(term, it.status, -1);
+                regIds.remove(it.id);
+                if (regIndex != null) regIndex.remove(studentId, term, it.course.code);
+                if (it.status.holdsSeat()) freed.add(it.course.code);
+                return true;
+            });
+            if (changed) putRegs(studentId, term, list);
+            for (String code : freed) {
+                Offering off = getOffering(term, code);
+                if (off != null) off.releaseSeat();
+                promoteWaiting(term, code);
+            }
+            for (String code : codes) {
+                Offering off = getOffering(term, code);
+                if (off != null) off.removeWaiting(studentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean setStatus(String studentId, String term, String code, RegStatus status, String date) {
+        lock.writeLock().lock();
+        try {
+            List<RegItem> list = loadReg(studentId, term);
+            for (RegItem it : list) {
+                if (!it.course.code.equals(code)) continue;
+                if (!it.status.canMoveTo(status)) throw new RuntimeException(illegalMove(it, status));
+                boolean before = it.status.holdsSeat(), after = status.holdsSeat();
+                statusCounts.move(term, it.status, status);
+                it.status = status;
+                if (date != null) it.date = date;
+                putRegs(studentId, term, list);
+                if (regIndex != null) regIndex.put(studentId, term, it);
+                Offering off = getOffering(term, code);
+                if (off != null && !before && after) off.forceReserveSeat();
+                if (off != null && before && !after) {
+                    off.releaseSeat();
+                    promoteWaiting(term, code);
+                }
+                return true;
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Tra index chính lấy (MSSV, học kỳ), rồi đổi trạng thái trong danh sách đăng ký đó */
+    @Override
+    public boolean setStatus(long regId, RegStatus status, String date) {
+        lock.writeLock().lock();
+        try {
+            RegIdIndex.Entry e = regIds.get(regId);
+            RegItem it = findItem(e, regId);
+            return it != null && setStatus(e.studentId, e.term, it.course.code, status, date);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gom các mã theo (MSSV, học kỳ): mỗi danh sách đăng ký chỉ được đọc và ghi lại thành một bản ghi
+     * cho cả lô, thay vì một bản ghi mới cho mỗi đăng ký như khi gọi setStatus lần lượt
+     */
+    @Override
+    public BatchResult setStatuses(Collection<Long> ids, RegStatus status) {
+        lock.writeLock().lock();
+        try {
+            BatchResult result = new BatchResult();
+            Map<String, Map<String, Set<Long>>> groups = new LinkedHashMap<>();
+            for (long id : ids) {
+                RegIdIndex.Entry e = regIds.get(id);
+                if (e == null) result.fail(id, "Không tìm thấy đăng ký");
+                else groups.computeIfAbsent(e.studentId, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(e.term, k -> new LinkedHashSet<>()).add(id);
+            }
+
+            Map<String, Set<String>> freed = new LinkedHashMap<>(); // học kỳ -> học phần có chỗ được trả
+            groups.forEach((sid, byTerm) -> byTerm.forEach((term, wanted) -> {
+                List<RegItem> list = loadReg(sid, term);
+                boolean changed = false;
+                for (RegItem it : list) {
+                    if (!wanted.remove(it.id)) continue;
+                    if (!it.status.canMoveTo(status)) {
+                        result.fail(it.id, illegalMove(it, status));
+                        continue;
+                    }
+                    boolean before = it.status.holdsSeat(), after = status.holdsSeat();
+                    statusCounts.move(term, it.status, status);
+                    it.status = status;
+                    if (regIndex != null) regIndex.put(sid, term, it);
+                    Offering off = getOffering(term, it.course.code);
+                    if (off != null && !before && after) off.forceReserveSeat();
+                    if (off != null && before && !after) {
+                        off.releaseSeat();
+                        freed.computeIfAbsent(term, k -> new HashSet<>()).add(it.course.code);
+                    }
+                    changed = true;
+                    result.changed++;
+                }
+                for (long id : wanted) result.fail(id, "Không tìm thấy đăng ký");
+                if (changed) putRegs(sid, term, list);
+            }));
+            freed.forEach((term, codes) -> {
+                for (String code : codes) promoteWaiting(term, code);
+            });
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public RegRow findReg(long regId) {
+        lock.readLock().lock();
+        try {
+            RegIdIndex.Entry e = regIds.get(regId);
+            RegItem it = findItem(e, regId);
+            if (it == null) return null;
+            Student s = findStudent(e.studentId);
+            return new RegRow(it.id, e.studentId, s == null ? null : s.fullName, s == null ? null : s.program,
+                    e.term, it.course.code, it.course.name, it.course.credits, it.date, it.status);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String illegalMove(RegItem it, RegStatus status) {
+        return "Không thể chuyển đăng ký " + it.course.code
+                + " từ \"" + it.status + "\" sang \"" + status + "\"";
+    }
+
+    /** RegItem có mã regId trong bản ghi đăng ký của (MSSV, học kỳ) lấy từ index chính, null nếu không có */
+    private RegItem findItem(RegIdIndex.Entry e, long regId) {
+        if (e == null) return null;
+        for (RegItem it : loadReg(e.studentId, e.term))
+            if (it.id == regId) return it;
+        return null;
+    }
+
+    @Override
+    public void forEachReg(RegVisitor visitor) {
+        // Không giữ khóa khi gọi visitor (visitor có thể gọi setStatus): duyệt trên bản copy danh sách MSSV,
+        // đăng ký của từng MSSV được đọc dưới read lock (regsOf) rồi mới gửi cho visitor
+        List<String> sids;
+        lock.readLock().lock();
+        try {
+            sids = new ArrayList<>(regPos.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (String sid : sids) {
+            regsOf(sid).forEach((term, items) -> {
+                for (RegItem it : items) visitor.visit(sid, term, it);
+            });
+        }
+    }
+
+    /**
+     * Index phụ tốn heap theo số đăng ký (vài chục byte mỗi đăng ký) nên chỉ dựng
+     * khi màn hình duyệt truy vấn lần đầu, sau đó được cập nhật theo từng thay đổi.
+     */
+    @Override
+    public List<RegRow> queryRegs(RegQuery query) {
+        RegIndex index = regIndex;
+        if (index == null) {
+            lock.writeLock().lock();
+            try {
+                if (regIndex == null) {
+                    index = new RegIndex(this::findStudent);
+                    index.rebuild(this::forEachReg);
+                    regIndex = index;
+                }
+                index = regIndex;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return index.query(query); // RegIndex có khóa riêng
+    }
+
+    /** Đưa người chờ vào lớp cho tới khi hết chỗ hoặc hết người chờ */
+    private void promoteWaiting(String term, String code) {
+        Offering off = getOffering(term, code);
+        if (off == null) return;
+        while (off.hasFreeSeat()) {
+            Offering.Waiting w = off.pollWaiting();
+            if (w == null) return;
+            addReg(w.studentId, term, w.item, false);
+        }
+    }
+
+    /** Ghi trang dirty và catalog xuống đĩa */
+    @Override
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            file.flush();
+            try {
+                saveCatalog();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Không ghi được catalog " + dir, e);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Flush rồi đóng file */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            flush();
+            file.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Thống kê bộ đệm trang */
+    public String cacheStats() {
+        lock.readLock().lock();
+        try {
+            return file.stats();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ---------- bản ghi ---------- */
+
+    @FunctionalInterface
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /** Ghi nối một bản ghi vào cuối file, trả về vị trí */
+    private long writeRecord(byte type, String key, Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // chỗ cho độ dài
+            out.writeByte(type);
+            out.writeUTF(key);
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] b = bytes.toByteArray();
+        int len = b.length - 4;
+        b[0] = (byte) (len >>> 24);
+        b[1] = (byte) (len >>> 16);
+        b[2] = (byte) (len >>> 8);
+        b[3] = (byte) len;
+        return file.append(b);
+    }
+
+    /** Đọc bản ghi tại pos, trả về stream đã bỏ qua loại và khóa */
+    private DataInputStream readRecord(long pos) throws IOException {
+        DataInputStream in = openRecord(pos);
+        in.readByte();
+        in.readUTF();
+        return in;
+    }
+
+    /** Đọc bản ghi tại pos, trả về stream bắt đầu từ byte loại */
+    private DataInputStream openRecord(long pos) throws IOException {
+        byte[] head = new byte[4];
+        file.read(pos, head, 0, 4);
+        int len = ((head[0] & 0xff) << 24) | ((head[1] & 0xff) << 16) | ((head[2] & 0xff) << 8) | (head[3] & 0xff);
+        byte[] body = new byte[len];
+        file.read(pos + 4, body, 0, len);
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+
+    /** Danh sách đăng ký tại pos */
+    private List<RegItem> readRegs(long pos) {
+        try {
+            DataInputStream in = openRecord(pos);
+            in.readByte();
+            in.readUTF();
+            int n = in.readInt();
+            List<RegItem> list = new ArrayList<>(n + 1);
+            for (int i = 0; i < n; i++) {
+                long id = in.readLong();
+                Course c = courses.get(in.readUTF());
+                String date = in.readUTF();
+                RegStatus status = RegStatus.of(in.readUTF());
+                if (c == null) continue;
+                RegItem it = new RegItem(c, date, status);
+                it.id = id;
+                list.add(it);
+            }
+            return list;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeRegs(String sid, String term, List<RegItem> list) {
+        return writeRecord(REGS, sid + '\t' + term, out -> {
+            out.writeInt(list.size());
+            for (RegItem it : list) {
+                out.writeLong(it.id);
+                out.writeUTF(it.course.code);
+                out.writeUTF(it.date);
+                out.writeUTF(it.status.label);
+            }
+        });
+    }
+
+    private void putRegs(String sid, String term, List<RegItem> list) {
+        regPos.computeIfAbsent(sid, k -> new HashMap<>()).put(term, writeRegs(sid, term, list));
+    }
+
+    /** Dựng index (kể cả index mã đăng ký) và bộ đếm bằng cách quét records.dat (bản ghi sau đè bản ghi trước) */
+    private void scanRecords() throws IOException {
+        long pos = 0, end = file.size();
+        byte[] head = new byte[4];
+        while (pos + 4 <= end) {
+            file.read(pos, head, 0, 4);
+            int len = ((head[0] & 0xff) << 24) | ((head[1] & 0xff) << 16) | ((head[2] & 0xff) << 8) | (head[3] & 0xff);
+            if (len <= 0 || pos + 4 + len > end) break; // phần đuôi ghi dở
+            byte[] body = new byte[len];
+            file.read(pos + 4, body, 0, len);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            byte type = in.readByte();
+            String key = in.readUTF();
+            if (type == STUDENT) {
+                studentPos.put(key, pos);
+                for (int i = 0; i < 4; i++) in.readUTF();
+                emailIndex.put(in.readUTF().toLowerCase(Locale.ROOT), key);
+            } else if (type == REGS) {
+                int tab = key.indexOf('\t');
+                regPos.computeIfAbsent(key.substring(0, tab), k -> new HashMap<>()).put(key.substring(tab + 1), pos);
+            }
+            pos += 4 + len;
+        }
+        for (var s : regPos.entrySet()) {
+            for (var t : s.getValue().entrySet()) {
+                var counts = enrollCounts.computeIfAbsent(t.getKey(), k -> new HashMap<>());
+                for (RegItem it : readRegs(t.getValue())) {
+                    counts.merge(it.course.code, 1, Integer::sum);
+                    statusCounts.add(t.getKey(), it.status, 1);
+                    regIds.put(it.id, s.getKey(), t.getKey(), null);
+                }
+            }
+        }
+    }
+
+    /* ---------- catalog ---------- */
+
+    /** Chép toàn bộ dữ liệu đang có trong Memory sang kho này */
+    private void importFromMemory() {
+        adminPasswords.putAll(Memory.adminPasswords);
+        programs.addAll(Memory.programs);
+        synchronized (Memory.courses) {
+            courses.putAll(Memory.courses);
+        }
+        courseSearch.rebuild(courses.values());
+        terms.addAll(Memory.terms);
+        termSettings.putAll(Memory.termSettings);
+        for (Student s : Memory.studentsById.values()) addStudent(s, s.password);
+        for (var s : Memory.regs.entrySet()) {
+            for (var t : s.getValue().entrySet()) {
+                List<RegItem> list = new ArrayList<>();
+                for (RegItem it : t.getValue()) {
+                    RegItem copy = new RegItem(it.course, it.date, it.status);
+                    copy.id = it.id; // giữ nguyên mã đăng ký
+                    list.add(copy);
+                    regIds.put(copy.id, s.getKey(), t.getKey(), null);
+                }
+                if (list.isEmpty()) continue;
+                putRegs(s.getKey(), t.getKey(), list);
+                var counts = enrollCounts.computeIfAbsent(t.getKey(), k -> new HashMap<>());
+                for (RegItem it : list) {
+                    counts.merge(it.course.code, 1, Integer::sum);
+                    statusCounts.add(t.getKey(), it.status, 1);
+                }
+            }
+        }
+        regIds.advanceTo(Memory.nextRegId());
+        Memory.offerings.forEach((term, byCode) -> byCode.forEach((code, o) -> {
+            Offering copy = new Offering(o.open, o.allowedProgram, o.capacity);
+            copy.resetSeats(o.seatsTaken());
+            for (Offering.Waiting w : o.waitlist) copy.enqueueWaiting(w.studentId, w.item);
+            offerings.computeIfAbsent(term, t -> new HashMap<>()).put(code, copy);
+        }));
+    }
+
+    private void saveCatalog() throws IOException {
+        Path target = dir.resolve("catalog.bin");
+        Path tmp = dir.resolve("catalog.bin.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeLong(regIds.nextId());
+            out.writeInt(adminPasswords.size());
+            for (var e : adminPasswords.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeUTF(e.getValue());
+            }
+            out.writeInt(programs.size());
+            for (String p : programs) out.writeUTF(p);
+            out.writeInt(courses.size());
+            for (Course c : courses.values()) {
+                out.writeUTF(c.code);
+                out.writeUTF(c.name);
+                out.writeInt(c.credits);
+            }
+            out.writeInt(terms.size());
+            for (String t : terms) out.writeUTF(t);
+            out.writeInt(termSettings.size());
+            for (var e : termSettings.entrySet()) {
+                out.writeUTF(e.getKey());
+                Journal.writeTermSetting(out, e.getValue());
+            }
+            int count = 0;
+            for (var byCode : offerings.values()) count += byCode.size();
+            out.writeInt(count);
+            for (var t : offerings.entrySet()) {
+                for (var e : t.getValue().entrySet()) {
+                    Offering o = e.getValue();
+                    out.writeUTF(t.getKey());
+                    out.writeUTF(e.getKey());
+                    out.writeBoolean(o.open);
+                    out.writeUTF(o.allowedProgram);
+                    out.writeInt(o.capacity);
+                    out.writeInt(o.seatsTaken());
+                    List<Offering.Waiting> waiting = new ArrayList<>(o.waitlist);
+                    out.writeInt(waiting.size());
+                    for (Offering.Waiting w : waiting) {
+                        out.writeUTF(w.studentId);
+                        out.writeLong(w.item.id);
+                        out.writeUTF(w.item.course.code);
+                        out.writeUTF(w.item.date);
+                        out.writeUTF(w.item.status.label);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadCatalog() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve("catalog.bin"))))) {
+            regIds.advanceTo(in.readLong());
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) adminPasswords.put(in.readUTF(), in.readUTF());
+            n = in.readInt();
+            for (int i = 0; i < n; i++) programs.add(in.readUTF());
+            n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                Course c = new Course(in.readUTF(), in.readUTF(), in.readInt());
+                courses.put(c.code, c);
+            }
+            courseSearch.rebuild(courses.values());
+            n = in.readInt();
+            for (int i = 0; i < n; i++) terms.add(in.readUTF());
+            n = in.readInt();
+            for (int i = 0; i < n; i++) termSettings.put(in.readUTF(), Journal.readTermSetting(in));
+            n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String term = in.readUTF(), code = in.readUTF();
+                Offering o = new Offering(in.readBoolean(), in.readUTF(), in.readInt());
+                o.resetSeats(in.readInt());
+                int waiting = in.readInt();
+                for (int j = 0; j < waiting; j++) {
+                    String sid = in.readUTF();
+                    long id = in.readLong();
+                    Course c = courses.get(in.readUTF());
+                    RegItem item = new RegItem(c, in.readUTF(), RegStatus.of(in.readUTF()));
+                    if (c == null) continue;
+                    item.id = id;
+                    regIds.reserve(id);
+                    o.enqueueWaiting(sid, item);
+                }
+                offerings.computeIfAbsent(term, t -> new HashMap<>()).put(code, o);
+            }
+        }
+    }
+}
@@ -0,0 +1,646 @@
+package university.registration.store;
+
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Nhật ký ghi trước (write-ahead log) cho mọi thay đổi trong Memory
+ *
+ * Mỗi thay đổi (thêm sinh viên, đăng ký, xóa đăng ký, đổi trạng thái, offering, học kỳ...)
+ * được Memory ghi thành một bản ghi nhị phân nối vào cuối file nhật ký:
+ *
+ *   [int độ dài payload][int CRC32 của payload][payload = 1 byte loại + dữ liệu]
+ *
+ * Group commit:
+ * - Các thread chỉ nối bản ghi vào bộ đệm chung rồi chờ (await) tới khi bản ghi được fsync
+ * - Một thread nền (journal-flusher) lấy cả lô trong bộ đệm, ghi một lần và fsync một lần
+ * - Trong lúc đang fsync, các bản ghi mới dồn vào lô sau → nhiều thao tác dùng chung 1 lần fsync
+ *
+ * Snapshot và giới hạn thời gian khôi phục:
+ * - Nhật ký chia thành các đoạn journal-<gen>.log
+ * - Khi đoạn hiện tại vượt ngưỡng (registration.snapshotBytes, mặc định 64MB), hệ thống mở
+ *   đoạn mới rồi ghi snapshot toàn bộ dữ liệu (Snapshot), sau đó xóa các đoạn cũ
+ * - Snapshot được ghi trong khi hệ thống vẫn chạy ("fuzzy"): các bản ghi đều idempotent
+ *   nên replay lại một bản ghi đã có trong snapshot không làm sai dữ liệu
+ *
+ * Lỗi ghi đĩa: thao tác đang chờ nhận UncheckedIOException, và từ đó Memory chỉ còn đọc được
+ * (checkWritable) - thay đổi đã áp dụng vào bộ nhớ nhưng chưa ghi được sẽ mất khi khởi động lại,
+ * nên không cho ghi thêm thay đổi nào dựa trên nó.
+ *
+ * Các khóa dùng ReentrantLock (không dùng synchronized / Object.wait): luồng ảo chờ fsync
+ * nhả carrier thread thay vì bị ghim vào nó (JDK 21).
+ *
+ * Khởi động (Memory.init): nạp snapshot.bin (nếu có), replay các đoạn nhật ký mới hơn,
+ * bỏ phần đuôi bị ghi dở (CRC sai / thiếu byte) do tắt máy đột ngột.
+ *
+ * Cấu hình (System property):
+ * - registration.dataDir: thư mục dữ liệu (không đặt = không ghi nhật ký)
+ * - registration.fsync: true/false (mặc định true)
+ * - registration.snapshotBytes: ngưỡng kích thước đoạn nhật ký để snapshot
+ */
+public final class Journal {
+
+    /* ---------- loại bản ghi ---------- */
+    static final byte ADD_STUDENT = 1;
+    static final byte ADD_REG = 2;
+    static final byte DELETE_REGS = 3;
+    static final byte SET_STATUS = 4;
+    static final byte SET_OFFERING = 5;
+    static final byte SET_CAPACITY = 6;
+    static final byte SET_TERM_OPEN = 7;
+    static final byte PUT_TERM = 8;
+    static final byte DELETE_TERM = 9;
+    static final byte RENAME_TERM = 10;
+    static final byte ADD_COURSE = 11;
+    static final byte DELETE_COURSE = 12;
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    /** Ghi một bản ghi ra DataOutputStream */
+    @FunctionalInterface
+    interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /* ---------- trạng thái ---------- */
+
+    /** true khi đang ghi nhật ký (sau Journal.start) */
+    private static volatile boolean recording;
+    /** true khi đang replay (Memory không ghi nhật ký, không tự đưa người chờ vào lớp) */
+    private static volatile boolean replaying;
+
+    private static Path dir;
+    private static boolean fsync = true;
+    private static long snapshotBytes = 64L << 20;
+
+    /** Khóa cho bộ đệm và số thứ tự bản ghi */
+    private static final ReentrantLock mon = new ReentrantLock();
+    /** Báo cho journal-flusher: bộ đệm có bản ghi mới */
+    private static final Condition appended = mon.newCondition();
+    /** Báo cho các thread đang await: durableSeq tăng hoặc có lỗi */
+    private static final Condition durable = mon.newCondition();
+    private static ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private static long appendedSeq;
+    private static long durableSeq;
+    /** Lỗi ghi đĩa đầu tiên (khác null = nhật ký đã hỏng, Memory chỉ đọc) */
+    private static volatile IOException failure;
+    /** Thời gian chờ ghi đĩa (fsync) của mỗi thao tác ghi, xem await */
+    private static final Timer AWAIT = Metrics.timer("Journal.await");
+
+    /** Khóa cho file đang ghi (flush và xoay đoạn) */
+    private static final ReentrantLock io = new ReentrantLock();
+    private static FileChannel channel;
+    private static long generation;
+    private static long segmentBytes;
+
+    /** Khóa cho cờ snapshotRunning (mỗi lúc chỉ một snapshot) */
+    private static final ReentrantLock snap = new ReentrantLock();
+    /** Báo cho thread đang chờ trong snapshot(): snapshot đang chạy đã xong */
+    private static final Condition snapshotDone = snap.newCondition();
+    private static boolean snapshotRunning;
+    private static Thread flusher;
+
+    private Journal() {}
+
+    /** Thư mục dữ liệu theo cấu hình, null nếu không bật lưu trữ */
+    public static Path configuredDir() {
+        String d = System.getProperty("registration.dataDir");
+        return d == null || d.isBlank() ? null : Path.of(d);
+    }
+
+    /**
+     * Thư mục đã có dữ liệu từ lần chạy trước hay chưa.
+     * Snapshot đầu tiên được ghi ngay khi bật nhật ký, nên không có snapshot = chưa có dữ liệu.
+     */
+    public static boolean hasData(Path dataDir) {
+        return Files.exists(dataDir.resolve(SNAPSHOT_FILE));
+    }
+
+    static boolean isReplaying() {
+        return replaying;
+    }
+
+    /* ---------- khôi phục ---------- */
+
+    /**
+     * Khôi phục dữ liệu: nạp snapshot rồi replay các đoạn nhật ký mới hơn snapshot.
+     */
+    public static void recover(Path dataDir) {
+        replaying = true;
+        try {
+            long startGen = 0;
+            Path snap = dataDir.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snap)) startGen = Snapshot.read(snap);
+            for (long gen : segments(dataDir)) {
+                if (gen < startGen) continue;
+                replaySegment(segmentPath(dataDir, gen));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không khôi phục được dữ liệu từ " + dataDir, e);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /** Replay một đoạn nhật ký; phần đuôi hỏng (ghi dở) bị cắt bỏ */
+    private static void replaySegment(Path file) throws IOException {
+        byte[] all = Files.readAllBytes(file);
+        ByteBuffer buf = ByteBuffer.wrap(all);
+        int valid = 0;
+        while (buf.remaining() >= 8) {
+            int len = buf.getInt();
+            int crc = buf.getInt();
+            if (len <= 0 || len > buf.remaining()) break;
+            CRC32 c = new CRC32();
+            c.update(all, buf.position(), len);
+            if ((int) c.getValue() != crc) break;
+            apply(new DataInputStream(new ByteArrayInputStream(all, buf.position(), len)));
+            buf.position(buf.position() + len);
+            valid = buf.position();
+        }
+        if (valid < all.length) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(valid);
+            }
+        }
+    }
+
+    /** Áp dụng một bản ghi vào Memory */
+    private static void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_STUDENT -> {
+                Student s = new Student(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                String pass = in.readUTF();
+                if (!Memory.studentsById.containsKey(s.studentId)) Memory.addStudent(s, pass);
+            }
+            case ADD_REG -> {
+                String sid = in.readUTF(), term = in.readUTF(), code = in.readUTF();
+                String date = in.readUTF(), status = in.readUTF();
+                boolean waitlisted = in.readBoolean();
+                long id = in.readLong();
+                Course c = Memory.courses.get(code);
+                if (c != null) {
+                    RegItem item = new RegItem(c, date, RegStatus.of(status));
+                    item.id = id;
+                    Memory.restoreReg(sid, term, item, waitlisted);
+                }
+            }
+            case DELETE_REGS -> {
+                String sid = in.readUTF(), term = in.readUTF();
+                int n = in.readInt();
+                Set<String> codes = new HashSet<>();
+                for (int i = 0; i < n; i++) codes.add(in.readUTF());
+                Memory.deleteByCourseCodes(sid, term, codes);
+            }
+            case SET_STATUS -> {
+                String sid = in.readUTF(), term = in.readUTF(), code = in.readUTF();
+                String status = in.readUTF(), date = in.readUTF();
+                for (RegItem it : Memory.loadReg(sid, term)) {
+                    if (it.course.code.equals(code)) {
+                        it.date = date;
+                        Memory.setStatus(sid, term, it, RegStatus.of(status));
+                        break;
+                    }
+                }
+            }
+            case SET_OFFERING -> Memory.setOffering(in.readUTF(), in.readUTF(), in.readBoolean(), in.readUTF());
+            case SET_CAPACITY -> Memory.setCapacity(in.readUTF(), in.readUTF(), in.readInt());
+            case SET_TERM_OPEN -> Memory.setTermOpen(in.readUTF(), in.readBoolean());
+            case PUT_TERM -> {
+                String term = in.readUTF();
+                Memory.putTerm(term, readTermSetting(in));
+            }
+            case DELETE_TERM -> Memory.deleteTerm(in.readUTF());
+            case RENAME_TERM -> Memory.renameTerm(in.readUTF(), in.readUTF());
+            case ADD_COURSE -> Memory.addCourse(new Course(in.readUTF(), in.readUTF(), in.readInt()));
+            case DELETE_COURSE -> Memory.deleteCourse(in.readUTF());
+            default -> throw new IOException("Loại bản ghi không hợp lệ: " + type);
+        }
+    }
+
+    /* ---------- bật ghi nhật ký ---------- */
+
+    /**
+     * Bật ghi nhật ký vào thư mục dữ liệu.
+     * Nếu chưa có snapshot (lần chạy đầu) thì ghi snapshot ngay để dữ liệu seed cũng bền vững.
+     */
+    public static synchronized void start(Path dataDir) {
+        if (recording) return;
+        try {
+            Files.createDirectories(dataDir);
+            dir = dataDir;
+            fsync = !"false".equalsIgnoreCase(System.getProperty("registration.fsync"));
+            snapshotBytes = Long.getLong("registration.snapshotBytes", snapshotBytes);
+            List<Long> gens = segments(dataDir);
+            // Ghi tiếp vào đoạn cuối (phần đuôi hỏng đã được cắt khi khôi phục)
+            openSegment(gens.isEmpty() ? 1 : gens.get(gens.size() - 1));
+            recording = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không mở được nhật ký trong " + dataDir, e);
+        }
+        flusher = new Thread(Journal::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Journal::close, "journal-shutdown"));
+        if (!Files.exists(dataDir.resolve(SNAPSHOT_FILE))) snapshot();
+    }
+
+    /** Ghi nốt bộ đệm và đóng file (gọi khi tắt ứng dụng) */
+    public static void close() {
+        if (!recording) return;
+        long seq;
+        mon.lock();
+        try {
+            seq = appendedSeq;
+        } finally {
+            mon.unlock();
+        }
+        try {
+            await(seq);
+        } catch (UncheckedIOException ignored) {
+            // đang tắt ứng dụng: lỗi đã được báo cho thao tác gặp lỗi
+        }
+        recording = false;
+        io.lock();
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // đang tắt ứng dụng
+        } finally {
+            io.unlock();
+        }
+    }
+
+    /* ---------- ghi bản ghi (Memory gọi) ---------- */
+
+    /**
+     * Ném UncheckedIOException nếu nhật ký đã gặp lỗi ghi đĩa.
+     * Memory gọi trước khi áp dụng một thay đổi: sau lỗi, kho chỉ còn đọc được.
+     */
+    static void checkWritable() {
+        IOException f = failure;
+        if (f != null && recording) throw new UncheckedIOException("Ghi nhật ký thất bại, dữ liệu chỉ đọc", f);
+    }
+
+    /**
+     * Nối một bản ghi vào bộ đệm.
+     *
+     * @return số thứ tự bản ghi (truyền cho await), 0 nếu không ghi nhật ký
+     */
+    static long append(byte type, Body body) {
+        if (!recording || replaying) return 0;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        mon.lock();
+        try {
+            writeInt(pending, payload.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(payload, 0, payload.length);
+            appended.signal();
+            return ++appendedSeq;
+        } finally {
+            mon.unlock();
+        }
+    }
+
+    /**
+     * Chờ tới khi bản ghi seq đã được ghi xuống đĩa.
+     * Không gọi khi đang giữ khóa của Memory (để các thread khác vẫn nối bản ghi được).
+     * Bị ngắt (interrupt) trong lúc chờ thì ném UncheckedIOException (giữ cờ interrupt):
+     * bản ghi chưa chắc đã xuống đĩa nên không được coi là đã lưu.
+     */
+    static void await(long seq) {
+        if (seq == 0) return;
+        long t0 = System.nanoTime();
+        mon.lock();
+        try {
+            while (durableSeq < seq && failure == null) {
+                try {
+                    durable.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException("Bị ngắt khi chờ ghi nhật ký",
+                            new InterruptedIOException("bản ghi " + seq + " chưa được ghi xuống đĩa"));
+                }
+            }
+            if (failure != null)
+                throw new UncheckedIOException("Ghi nhật ký thất bại", failure);
+        } finally {
+            mon.unlock();
+            AWAIT.record(t0);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    /** Vòng lặp của thread nền: mỗi vòng ghi + fsync cả lô đang chờ */
+    private static void flushLoop() {
+        while (true) {
+            byte[] batch;
+            long upto;
+            mon.lock();
+            try {
+                while (pending.size() == 0) {
+                    try {
+                        appended.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                batch = pending.toByteArray();
+                pending.reset();
+                upto = appendedSeq;
+            } finally {
+                mon.unlock();
+            }
+            boolean needSnapshot;
+            io.lock();
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(batch);
+                while (buf.hasRemaining()) channel.write(buf);
+                if (fsync) channel.force(false);
+                segmentBytes += batch.length;
+                needSnapshot = segmentBytes >= snapshotBytes;
+            } catch (IOException e) {
+                fail(e);
+                return;
+            } finally {
+                io.unlock();
+            }
+            mon.lock();
+            try {
+                durableSeq = upto;
+                durable.signalAll();
+            } finally {
+                mon.unlock();
+            }
+            if (needSnapshot) snapshotAsync();
+        }
+    }
+
+    /* ---------- snapshot ---------- */
+
+    /** Chụp snapshot trên thread nền (mỗi lúc chỉ một snapshot) */
+    static void snapshotAsync() {
+        snap.lock();
+        try {
+            if (snapshotRunning) return;
+            snapshotRunning = true;
+        } finally {
+            snap.unlock();
+        }
+        Thread t = new Thread(() -> {
+            try {
+                doSnapshot();
+            } finally {
+                snapshotFinished();
+            }
+        }, "journal-snapshot");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Chụp snapshot ngay trên thread hiện tại (snapshot nền đang chạy thì ngủ chờ nó xong trước) */
+    public static void snapshot() {
+        snap.lock();
+        try {
+            while (snapshotRunning) snapshotDone.awaitUninterruptibly();
+            snapshotRunning = true;
+        } finally {
+            snap.unlock();
+        }
+        try {
+            doSnapshot();
+        } finally {
+            snapshotFinished();
+        }
+    }
+
+    private static void snapshotFinished() {
+        snap.lock();
+        try {
+            snapshotRunning = false;
+            snapshotDone.signalAll();
+        } finally {
+            snap.unlock();
+        }
+    }
+
+    /**
+     * Xoay sang đoạn nhật ký mới, ghi snapshot (ghi vào file tạm rồi đổi tên),
+     * sau đó xóa các đoạn cũ hơn đoạn mới.
+     */
+    private static void doSnapshot() {
+        try {
+            long startGen;
+            io.lock();
+            try {
+                startGen = generation + 1;
+                if (fsync) channel.force(false);
+                channel.close();
+                openSegment(startGen);
+            } finally {
+                io.unlock();
+            }
+            Snapshot.write(dir.resolve(SNAPSHOT_FILE), startGen);
+            for (long gen : segments(dir))
+                if (gen < startGen) Files.deleteIfExists(segmentPath(dir, gen));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Ghi nhận lỗi ghi đĩa (lỗi đầu tiên được giữ) và đánh thức mọi thread đang chờ */
+    private static void fail(IOException e) {
+        mon.lock();
+        try {
+            if (failure == null) failure = e;
+            durable.signalAll();
+        } finally {
+            mon.unlock();
+        }
+    }
+
+    private static void openSegment(long gen) throws IOException {
+        generation = gen;
+        channel = FileChannel.open(segmentPath(dir, gen),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = channel.size();
+    }
+
+    private static Path segmentPath(Path dataDir, long gen) {
+        return dataDir.resolve(String.format("journal-%08d.log", gen));
+    }
+
+    /** Các số thứ tự đoạn nhật ký đang có, tăng dần */
+    private static List<Long> segments(Path dataDir) {
+        List<Long> gens = new ArrayList<>();
+        if (!Files.isDirectory(dataDir)) return gens;
+        try (Stream<Path> files = Files.list(dataDir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.matches("journal-\\d+\\.log"))
+                    .forEach(n -> gens.add(Long.parseLong(n.substring(8, n.length() - 4))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        gens.sort(null);
+        return gens;
+    }
+
+    /* ---------- mã hóa từng loại bản ghi ---------- */
+
+    static long logAddStudent(Student s) {
+        return append(ADD_STUDENT, out -> {
+            out.writeUTF(s.studentId);
+            out.writeUTF(s.fullName);
+            out.writeUTF(s.dob);
+            out.writeUTF(s.address);
+            out.writeUTF(s.email);
+            out.writeUTF(s.program);
+            out.writeUTF(s.password);
+        });
+    }
+
+    static long logAddReg(String sid, String term, RegItem item, boolean waitlisted) {
+        return append(ADD_REG, out -> {
+            out.writeUTF(sid);
+            out.writeUTF(term);
+            out.writeUTF(item.course.code);
+            out.writeUTF(item.date);
+            out.writeUTF(item.status.label);
+            out.writeBoolean(waitlisted);
+            out.writeLong(item.id);
+        });
+    }
+
+    static long logDeleteRegs(String sid, String term, Set<String> codes) {
+        return append(DELETE_REGS, out -> {
+            out.writeUTF(sid);
+            out.writeUTF(term);
+            out.writeInt(codes.size());
+            for (String c : codes) out.writeUTF(c);
+        });
+    }
+
+    static long logSetStatus(String sid, String term, RegItem item) {
+        return append(SET_STATUS, out -> {
+            out.writeUTF(sid);
+            out.writeUTF(term);
+            out.writeUTF(item.course.code);
+            out.writeUTF(item.status.label);
+            out.writeUTF(item.date);
+        });
+    }
+
+    static long logSetOffering(String term, String code, boolean open, String allowedProgram) {
+        return append(SET_OFFERING, out -> {
+            out.writeUTF(term);
+            out.writeUTF(code);
+            out.writeBoolean(open);
+            out.writeUTF(allowedProgram);
+        });
+    }
+
+    static long logSetCapacity(String term, String code, int capacity) {
+        return append(SET_CAPACITY, out -> {
+            out.writeUTF(term);
+            out.writeUTF(code);
+            out.writeInt(capacity);
+        });
+    }
+
+    static long logSetTermOpen(String term, boolean open) {
+        return append(SET_TERM_OPEN, out -> {
+            out.writeUTF(term);
+            out.writeBoolean(open);
+        });
+    }
+
+    static long logPutTerm(String term, TermSetting setting) {
+        return append(PUT_TERM, out -> {
+            out.writeUTF(term);
+            writeTermSetting(out, setting);
+        });
+    }
+
+    static long logDeleteTerm(String term) {
+        return append(DELETE_TERM, out -> out.writeUTF(term));
+    }
+
+    static long logRenameTerm(String oldTerm, String newTerm) {
+        return append(RENAME_TERM, out -> {
+            out.writeUTF(oldTerm);
+            out.writeUTF(newTerm);
+        });
+    }
+
+    static long logAddCourse(Course c) {
+        return append(ADD_COURSE, out -> {
+            out.writeUTF(c.code);
+            out.writeUTF(c.name);
+            out.writeInt(c.credits);
+        });
+    }
+
+    static long logDeleteCourse(String code) {
+        return append(DELETE_COURSE, out -> out.writeUTF(code));
+    }
+
+    /** Ghi TermSetting (ngày = epoch millis, -1 nếu null) */
+    static void writeTermSetting(DataOutputStream out, TermSetting t) throws IOException {
+        out.writeBoolean(t.registrationOpen);
+        out.writeUTF(t.termName == null ? "" : t.termName);
+        out.writeUTF(t.academicYear == null ? "" : t.academicYear);
+        out.writeLong(t.startDate == null ? -1 : t.startDate.getTime());
+        out.writeLong(t.endDate == null ? -1 : t.endDate.getTime());
+    }
+
+    static TermSetting readTermSetting(DataInputStream in) throws IOException {
+        boolean open = in.readBoolean();
+        String name = in.readUTF(), year = in.readUTF();
+        long start = in.readLong(), end = in.readLong();
+        return new TermSetting(open, name, year,
+                start < 0 ? null : new Date(start), end < 0 ? null : new Date(end));
+    }
+}
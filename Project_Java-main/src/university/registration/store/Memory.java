@@ -2,8 +2,17 @@ package university.registration.store;
 
 import university.registration.model.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Lớp Memory - Lưu trữ dữ liệu trong bộ nhớ (In-Memory Storage)
@@ -12,9 +21,10 @@ import java.util.*;
  * Tất cả dữ liệu được lưu trữ trong bộ nhớ (RAM) dưới dạng các Map và List.
  * 
  * LƯU Ý QUAN TRỌNG:
- * - Đây là hệ thống demo, dữ liệu chỉ tồn tại trong bộ nhớ
- * - Khi tắt ứng dụng, tất cả dữ liệu sẽ bị mất (không lưu vào database)
- * - Trong hệ thống thực tế, cần thay thế bằng database (MySQL, PostgreSQL, v.v.)
+ * - Dữ liệu làm việc nằm trong bộ nhớ (RAM)
+ * - Nếu đặt thư mục dữ liệu (-Dregistration.dataDir=...), mọi thay đổi được ghi vào
+ *   nhật ký (Journal) trước khi trả về, và được khôi phục lại khi khởi động (xem Journal)
+ * - Nếu không đặt thư mục dữ liệu, khi tắt ứng dụng tất cả dữ liệu sẽ bị mất
  * 
  * Cấu trúc dữ liệu:
  * - adminPasswords: Lưu tài khoản admin (PĐT)
@@ -30,6 +40,17 @@ import java.util.*;
  * Tất cả các biến đều là static final để:
  * - Chỉ có một instance duy nhất trong toàn bộ ứng dụng (Singleton pattern)
  * - Không thể thay đổi tham chiếu (nhưng có thể thêm/sửa/xóa phần tử bên trong)
+ * 
+ * Thread-safety (nhiều phiên làm việc dùng chung một Memory):
+ * - Các Map dùng ConcurrentHashMap, các List dùng CopyOnWriteArrayList
+ *   → đọc/duyệt không cần khóa, không bị ConcurrentModificationException
+ * - Thao tác ghi trên đăng ký của một sinh viên (addReg, deleteByCourseCodes)
+ *   được khóa theo "stripe" của MSSV: hai sinh viên khác nhau gần như không tranh chấp,
+ *   còn cùng một sinh viên thì "kiểm tra trùng rồi thêm" là một thao tác nguyên tử
+ *
+ * Ghi nhật ký: thay đổi được áp dụng trong khóa rồi mới chờ ghi đĩa (Journal.await) sau khi nhả khóa.
+ * Nếu nhật ký gặp lỗi ghi đĩa, thao tác đang chờ nhận lỗi và mọi thao tác ghi sau đó bị từ chối
+ * (Journal.checkWritable) - bộ nhớ không tiếp tục khác với những gì đã ghi trên đĩa.
  */
 public class Memory {
     /**
@@ -44,7 +65,7 @@ public class Memory {
      * Lưu ý: Trong hệ thống thực tế, mật khẩu nên được hash (băm) trước khi lưu,
      * không nên lưu plain text như trong code này.
      */
-    public static final Map<String, String> adminPasswords = new HashMap<>();
+    public static final Map<String, String> adminPasswords = new ConcurrentHashMap<>();
     
     /**
      * Danh sách sinh viên tra cứu theo MSSV: Map<MSSV, Student>
@@ -56,7 +77,7 @@ public class Memory {
      *   studentsById.put("SV001", student);
      *   Student s = studentsById.get("SV001");  // Lấy sinh viên có MSSV = "SV001"
      */
-    public static final Map<String, Student> studentsById = new HashMap<>();
+    public static final Map<String, Student> studentsById = new ConcurrentHashMap<>();
     
     /**
      * Index email để tra cứu sinh viên theo email: Map<email_lowercase, MSSV>
@@ -75,7 +96,7 @@ public class Memory {
      * - Kiểm tra email đã được sử dụng chưa (khi tạo tài khoản mới)
      * - Tìm sinh viên theo email (khi đăng nhập bằng email)
      */
-    public static final Map<String, String> emailIndex = new HashMap<>();
+    public static final Map<String, String> emailIndex = new ConcurrentHashMap<>();
     
     /**
      * Danh sách học phần master (không phụ thuộc học kỳ): Map<courseCode, Course>
@@ -83,7 +104,9 @@ public class Memory {
      * Đây là danh sách tất cả học phần có trong hệ thống, không phụ thuộc vào học kỳ.
      * Mỗi học phần chỉ được định nghĩa một lần, sau đó có thể được mở lớp ở nhiều học kỳ khác nhau.
      * 
-     * Dùng LinkedHashMap để giữ thứ tự thêm vào (khi duyệt sẽ theo thứ tự đã thêm).
+     * Dùng LinkedHashMap để giữ thứ tự thêm vào (khi duyệt sẽ theo thứ tự đã thêm),
+     * bọc bởi Collections.synchronizedMap để get/put an toàn giữa các thread.
+     * Danh mục học phần chỉ do PĐT sửa (rất ít ghi), nên không cần cấu trúc lock-free.
      * 
      * Ví dụ:
      *   courses.put("CT101", new Course("CT101", "Lập trình cơ bản", 3));
@@ -92,7 +115,7 @@ public class Memory {
      * Lưu ý: Để mở lớp cho một học phần trong một học kỳ cụ thể,
      * cần tạo Offering trong Map offerings (không phải trong courses này).
      */
-    public static final Map<String, Course> courses = new LinkedHashMap<>();
+    public static final Map<String, Course> courses = Collections.synchronizedMap(new LinkedHashMap<>());
     
     /**
      * Danh sách học kỳ: List<String>
@@ -108,7 +131,7 @@ public class Memory {
      *   terms.add("20252");  // Học kỳ 2 năm 2025
      *   terms.add("20251");  // Học kỳ 1 năm 2025
      */
-    public static final List<String> terms = new ArrayList<>();
+    public static final List<String> terms = new CopyOnWriteArrayList<>();
     
     /**
      * Danh sách chương trình đào tạo (CTĐT): List<String>
@@ -125,7 +148,7 @@ public class Memory {
      * - Lọc danh sách sinh viên theo khoa/viện trong màn hình duyệt đăng ký
      * - Kiểm tra quyền đăng ký học phần (một số học phần chỉ dành cho CTĐT cụ thể)
      */
-    public static final List<String> programs = new ArrayList<>();
+    public static final List<String> programs = new CopyOnWriteArrayList<>();
 
     /**
      * Đăng ký học phần của sinh viên: Map<MSSV, Map<Học kỳ, List<RegItem>>>
@@ -139,11 +162,11 @@ public class Memory {
      *   regs = {
      *     "SV001": {                    // Sinh viên có MSSV = "SV001"
      *       "20252": [                  // Học kỳ "20252"
-     *         RegItem(course=CT101, date="2025-01-15", status="Đã duyệt"),
-     *         RegItem(course=MA101, date="2025-01-15", status="Đã gửi")
+     *         RegItem(course=CT101, date="2025-01-15", status=APPROVED),
+     *         RegItem(course=MA101, date="2025-01-15", status=SUBMITTED)
      *       ],
      *       "20251": [                  // Học kỳ "20251"
-     *         RegItem(course=CT102, date="2024-09-01", status="Đã duyệt")
+     *         RegItem(course=CT102, date="2024-09-01", status=APPROVED)
      *       ]
      *     }
      *   }
@@ -151,7 +174,7 @@ public class Memory {
      * Mỗi RegItem đại diện cho một học phần mà sinh viên đã đăng ký,
      * chứa thông tin: học phần, ngày đăng ký, trạng thái đăng ký.
      */
-    public static final Map<String, Map<String, List<RegItem>>> regs = new HashMap<>();
+    public static final Map<String, Map<String, List<RegItem>>> regs = new ConcurrentHashMap<>();
 
     /**
      * Cấu hình học kỳ: Map<Học kỳ, TermSetting>
@@ -171,7 +194,7 @@ public class Memory {
      * - Sinh viên không thể đăng ký học phần mới
      * - Các đăng ký đã gửi vẫn có thể được duyệt/từ chối bởi admin
      */
-    public static final Map<String, TermSetting> termSettings = new HashMap<>();
+    public static final Map<String, TermSetting> termSettings = new ConcurrentHashMap<>();
 
     /**
      * Cấu hình mở lớp (Offering) theo học kỳ: Map<Học kỳ, Map<Mã học phần, Offering>>
@@ -195,13 +218,172 @@ public class Memory {
      * Lưu ý: Một học phần có thể có Offering ở nhiều học kỳ khác nhau,
      * mỗi học kỳ có cấu hình riêng (có thể mở ở kỳ này nhưng đóng ở kỳ khác).
      */
-    public static final Map<String, Map<String, Offering>> offerings = new HashMap<>();
+    public static final Map<String, Map<String, Offering>> offerings = new ConcurrentHashMap<>();
+
+    /**
+     * Bộ đếm số đăng ký theo học kỳ và học phần: Map<Học kỳ, Map<Mã học phần, số đăng ký>>
+     * 
+     * Được cập nhật ngay trong addReg / deleteByCourseCodes / renameTerm,
+     * nhờ vậy countRegByCourse chỉ là một lần tra cứu O(1) thay vì duyệt toàn bộ regs.
+     * 
+     * Đếm tất cả RegItem của học phần (mọi trạng thái), giống cách đếm cũ.
+     * Đổi trạng thái (Tạm -> Đã gửi -> Đã duyệt/Đã từ chối) không làm thay đổi số đếm
+     * (số đếm theo trạng thái nằm ở statusCounts).
+     * 
+     * Không sửa trực tiếp map này từ bên ngoài Memory.
+     */
+    private static final Map<String, Map<String, AtomicInteger>> enrollCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Bộ đếm số đăng ký theo học kỳ và trạng thái (xem StatusCounters, countRegs)
+     * 
+     * Được cập nhật cùng lúc với enrollCounts, và thêm trong setStatus khi đăng ký đổi trạng thái.
+     */
+    private static final StatusCounters statusCounts = new StatusCounters();
+
+    /**
+     * Index ngược từ học phần đến sinh viên: Map<Mã học phần, Map<Học kỳ, Set<MSSV>>>
+     * 
+     * Mỗi cặp (MSSV, học kỳ) có RegItem của học phần sẽ nằm trong index này.
+     * Học kỳ / học phần không còn ai đăng ký sẽ bị xóa khỏi map, nên
+     * canDeleteCourse chỉ cần kiểm tra containsKey (O(1)).
+     * 
+     * Được cập nhật cùng lúc với enrollCounts trong addReg / deleteByCourseCodes / renameTerm.
+     */
+    private static final Map<String, Map<String, Set<String>>> courseIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Index phụ cho truy vấn duyệt đăng ký: các đăng ký theo học kỳ / trạng thái / CTĐT
+     * và khóa tìm kiếm viết thường tính sẵn (xem RegIndex, queryRegs).
+     * 
+     * Được cập nhật cùng lúc với enrollCounts, courseIndex (và khi đổi trạng thái,
+     * thêm sinh viên, thêm học phần).
+     */
+    private static final RegIndex regIndex = new RegIndex(studentsById::get);
+
+    /**
+     * Sau khi nạp snapshot / sinh dữ liệu, courseIndex và regIndex được dựng lại trên luồng nền (xem Loader):
+     * nạp xong là sinh viên dùng được ngay, chỉ thao tác đọc hai index này phải chờ dựng xong (awaitIndexes).
+     */
+    private static volatile CompletableFuture<Void> indexesReady = CompletableFuture.completedFuture(null);
+
+    /**
+     * Index chính: mã đăng ký (RegItem.id) -> (MSSV, học kỳ, RegItem), xem RegIdIndex, findReg.
+     * 
+     * Mã được cấp trong addReg (hoặc lấy lại từ nhật ký / snapshot khi khôi phục),
+     * được cập nhật cùng lúc với enrollCounts trong addReg / deleteByCourseCodes / renameTerm.
+     */
+    private static final RegIdIndex regIds = new RegIdIndex();
 
     /**
-     * Hàm khởi tạo dữ liệu demo ban đầu cho hệ thống.
+     * Index tìm kiếm học phần theo mã / tên (n-gram, bỏ dấu), cập nhật trong addCourse / deleteCourse
+     */
+    private static final CourseSearchIndex courseSearch = new CourseSearchIndex();
+
+    /**
+     * Phiên bản danh mục: tăng mỗi khi học phần hoặc offering thay đổi
+     * (addCourse, deleteCourse, setOffering, setCapacity, đổi / xóa học kỳ, nạp snapshot).
+     * Kết quả lọc danh mục được cache theo phiên bản này (xem catalogVersion).
+     */
+    private static final AtomicLong catalogVersion = new AtomicLong();
+
+    /**
+     * View dựng sẵn các học phần có thể đăng ký theo (học kỳ, CTĐT), dùng chung cho mọi sinh viên
+     * (xem OfferingView, availableCourses). Bị đánh dấu cũ trong setOffering / addCourse / deleteCourse
+     * / đổi, xóa học kỳ và dựng lại ở lần đọc kế tiếp.
+     */
+    private static final OfferingView offeringView = new OfferingView(
+            () -> {
+                synchronized (courses) {
+                    return new ArrayList<>(courses.values());
+                }
+            },
+            (term, code) -> {
+                var byCode = offerings.get(term);
+                return byCode == null ? null : byCode.get(code);
+            });
+
+    /**
+     * Khóa theo stripe cho đăng ký của sinh viên: MSSV -> regLocks[hash % REG_STRIPES]
+     * 
+     * Mọi thao tác ghi vào regs của một sinh viên (cùng với enrollCounts, courseIndex)
+     * phải giữ khóa của MSSV đó. Số stripe cố định nên không tốn bộ nhớ theo số sinh viên.
+     * Dùng ReentrantLock thay vì synchronized: virtual thread chờ khóa của RegIndex trong khi giữ
+     * khóa stripe sẽ nhả carrier thread; với synchronized (JDK 21) thread bị ghim vào carrier
+     * và khi mọi carrier đều bị ghim thì người đang giữ khóa RegIndex không được chạy tiếp (treo).
+     * Stripe trùng với phần (shard) của RegIndex: giữ khóa stripe i thì chỉ ghi vào phần i của index.
+     */
+    private static final int REG_STRIPES = RegIndex.SHARDS;
+    private static final ReentrantLock[] regLocks = new ReentrantLock[REG_STRIPES];
+    static {
+        for (int i = 0; i < REG_STRIPES; i++) regLocks[i] = new ReentrantLock();
+    }
+
+    /** Khóa cho "kiểm tra trùng MSSV / email rồi thêm" trong addStudent */
+    private static final ReentrantLock studentLock = new ReentrantLock();
+
+    /**
+     * Hàm khởi tạo dữ liệu ban đầu cho hệ thống.
      * Được gọi một lần khi chương trình khởi động.
+     * 
+     * - Có thư mục dữ liệu và đã có dữ liệu cũ: khôi phục từ snapshot + replay nhật ký
+     * - Ngược lại: tạo dữ liệu demo (seedDemo)
+     * Sau đó, nếu có thư mục dữ liệu thì bật ghi nhật ký cho mọi thay đổi tiếp theo.
      */
     public static void init() {
+        Path dataDir = Journal.configuredDir();
+        if (dataDir != null && Journal.hasData(dataDir)) {
+            Journal.recover(dataDir);
+        } else {
+            seedDemo();
+        }
+        if (dataDir != null) Journal.start(dataDir);
+    }
+
+    /**
+     * Khởi tạo dữ liệu từ một file snapshot (thay cho dữ liệu demo),
+     * dùng để nạp nhanh một bộ dữ liệu lớn có sẵn.
+     * Nếu có thư mục dữ liệu thì bật nhật ký và chụp ngay snapshot vào thư mục đó,
+     * để lần khởi động sau khôi phục đúng bộ dữ liệu vừa nạp.
+     */
+    public static void initFromSnapshot(Path file) {
+        try {
+            Snapshot.read(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đọc được snapshot " + file, e);
+        }
+        Path dataDir = Journal.configuredDir();
+        if (dataDir != null) {
+            Journal.start(dataDir);
+            Journal.snapshot();
+        }
+    }
+
+    /**
+     * Khởi tạo bằng bộ dữ liệu tổng hợp (thay cho dữ liệu demo), xem DataGenerator.
+     * Cùng spec luôn cho cùng một bộ dữ liệu. Nếu có thư mục dữ liệu thì bật nhật ký
+     * và chụp ngay snapshot, giống initFromSnapshot.
+     */
+    public static void initGenerated(DataGenerator.Spec spec) {
+        DataGenerator.generate(spec);
+        Path dataDir = Journal.configuredDir();
+        if (dataDir != null) {
+            Journal.start(dataDir);
+            Journal.snapshot();
+        }
+    }
+
+    /** Ghi toàn bộ dữ liệu hiện tại ra một file snapshot (xem Snapshot) */
+    public static void saveSnapshot(Path file) {
+        try {
+            Snapshot.write(file, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không ghi được snapshot " + file, e);
+        }
+    }
+
+    /** Dữ liệu demo: tài khoản PĐT, CTĐT, học kỳ, học phần, offering và 1 sinh viên mẫu */
+    static void seedDemo() {
         // Tài khoản PĐT mặc định: username=pdt, password=pdt123
         adminPasswords.put("pdt", "pdt123");
 
@@ -392,7 +574,36 @@ public class Memory {
 
     /** Thêm một môn học mới vào danh sách courses */
     public static void addCourse(Course c){
+        Journal.checkWritable();
         courses.put(c.code,c); // key là mã học phần
+        regIndex.courseChanged(c);
+        courseSearch.put(c);
+        offeringView.coursesChanged();
+        catalogVersion.incrementAndGet();
+        Journal.await(Journal.logAddCourse(c));
+    }
+
+    /**
+     * Tìm học phần theo mã / tên: không phân biệt hoa thường, không cần gõ dấu
+     * ("giai tich" tìm được "Giải tích"), xếp theo mức độ khớp.
+     * Từ khóa rỗng thì trả về tất cả học phần theo thứ tự danh mục.
+     */
+    public static List<Course> searchCourses(String text){
+        return courseSearch.search(text);
+    }
+
+    /**
+     * Học phần sinh viên thuộc CTĐT program có thể đăng ký trong học kỳ term
+     * (offering đang mở, cho phép "Tất cả" hoặc đúng CTĐT), theo thứ tự danh mục.
+     * Trả về danh sách bất biến dùng chung (không copy), contains theo mã học phần O(1).
+     */
+    public static List<Course> availableCourses(String term, String program){
+        return offeringView.get(term, program);
+    }
+
+    /** Phiên bản danh mục hiện tại: khác giá trị cũ nghĩa là học phần / offering đã thay đổi */
+    public static long catalogVersion(){
+        return catalogVersion.get();
     }
 
     /** Kiểm tra tài khoản PĐT: đúng user và password hay không */
@@ -409,31 +620,52 @@ public class Memory {
     /**
      * Thêm sinh viên mới vào hệ thống.
      * Có kiểm tra trùng MSSV, email trống, CTĐT trống, email đã dùng chưa.
+     * Kiểm tra và thêm chạy trong studentLock; chờ ghi đĩa sau khi nhả khóa (group commit).
      */
     public static void addStudent(Student s,String pass){
-        // Mỗi MSSV chỉ được có 1 tài khoản
-        if(studentsById.containsKey(s.studentId))
-            throw new RuntimeException("Mỗi MSSV chỉ có 1 tài khoản!");
+        Journal.checkWritable();
+        long seq;
+        studentLock.lock();
+        try {
+            // Mỗi MSSV chỉ được có 1 tài khoản
+            if(studentsById.containsKey(s.studentId))
+                throw new RuntimeException("Mỗi MSSV chỉ có 1 tài khoản!");
 
-        // Bắt buộc phải có email
-        if(s.email == null || s.email.isBlank())
-            throw new RuntimeException("Email không được để trống!");
+            // Bắt buộc phải có email
+            if(s.email == null || s.email.isBlank())
+                throw new RuntimeException("Email không được để trống!");
 
-        // Bắt buộc phải chọn chương trình học
-        if(s.program == null || s.program.isBlank())
-            throw new RuntimeException("Vui lòng chọn chương trình học!");
+            // Bắt buộc phải chọn chương trình học
+            if(s.program == null || s.program.isBlank())
+                throw new RuntimeException("Vui lòng chọn chương trình học!");
 
-        // Dùng email lowercase làm key để tránh phân biệt hoa/thường
-        String key = s.email.toLowerCase(Locale.ROOT);
+            // Dùng email lowercase làm key để tránh phân biệt hoa/thường
+            String key = s.email.toLowerCase(Locale.ROOT);
 
-        // Kiểm tra email đã được sử dụng bởi MSSV khác chưa
-        if(emailIndex.containsKey(key))
-            throw new RuntimeException("Email đã được dùng bởi MSSV: " + emailIndex.get(key));
+            // Kiểm tra email đã được sử dụng bởi MSSV khác chưa
+            if(emailIndex.containsKey(key))
+                throw new RuntimeException("Email đã được dùng bởi MSSV: " + emailIndex.get(key));
 
-        // Nếu mọi thứ hợp lệ, gán mật khẩu và lưu vào 2 map
+            // Nếu mọi thứ hợp lệ, gán mật khẩu và lưu vào 2 map
+            s.password = pass;
+            studentsById.put(s.studentId, s); // lưu student
+            regIndex.studentChanged(s);
+            emailIndex.put(key, s.studentId); // index email -> MSSV
+            seq = Journal.logAddStudent(s);
+        } finally {
+            studentLock.unlock();
+        }
+        Journal.await(seq);
+    }
+
+    /**
+     * Đặt sinh viên đọc từ snapshot (dữ liệu đã kiểm tra khi thêm): không kiểm tra, không ghi nhật ký,
+     * không cập nhật regIndex (được dựng lại sau khi nạp, xem Loader)
+     */
+    static void loadStudent(Student s, String pass){
         s.password = pass;
-        studentsById.put(s.studentId, s); // lưu student
-        emailIndex.put(key, s.studentId); // index email -> MSSV
+        studentsById.put(s.studentId, s);
+        emailIndex.put(s.email.toLowerCase(Locale.ROOT), s.studentId);
     }
 
     /** Trả về bản copy danh sách học kỳ (để UI dùng mà không sửa list gốc) */
@@ -444,35 +676,489 @@ public class Memory {
     /**
      * Lấy danh sách đăng ký của một sinh viên trong một học kỳ.
      * Nếu chưa có, sẽ tự tạo list trống rồi trả về.
+     * List trả về là CopyOnWriteArrayList: duyệt an toàn dù thread khác đang thêm/xóa,
+     * nhưng muốn thêm/xóa đăng ký thì phải gọi addReg / deleteByCourseCodes.
      */
     public static List<RegItem> loadReg(String sid,String term){
-        // computeIfAbsent: nếu chưa có key thì tạo mới
+        // computeIfAbsent của ConcurrentHashMap là nguyên tử: không bao giờ tạo 2 list cho cùng key
         return regs
-                .computeIfAbsent(sid, k -> new HashMap<>())      // map term -> list
-                .computeIfAbsent(term, k -> new ArrayList<>());  // list RegItem cho term
+                .computeIfAbsent(sid, k -> new ConcurrentHashMap<>())        // map term -> list
+                .computeIfAbsent(term, k -> new CopyOnWriteArrayList<>());   // list RegItem cho term
     }
 
     /**
      * Thêm một RegItem (môn đăng ký) cho sinh viên trong học kỳ.
-     * Trả về true nếu thêm được, false nếu đã tồn tại môn đó (tránh trùng môn).
+     * Trả về true nếu thêm được, false nếu đã tồn tại môn đó (tránh trùng môn)
+     * hoặc lớp đã đầy.
+     * "Kiểm tra trùng rồi thêm" chạy trong khóa của MSSV nên là nguyên tử.
      */
     public static boolean addReg(String sid,String term,RegItem item){
-        var list = loadReg(sid,term); // lấy (hoặc tạo) list đăng ký hiện tại
-        // Không cho đăng ký trùng cùng một course code
-        if(list.stream().anyMatch(x -> x.course.code.equals(item.course.code)))
-            return false;
-        list.add(item);
-        return true;
+        return addReg(sid, term, item, false) == Storage.AddResult.ADDED;
+    }
+
+    /**
+     * Thêm một RegItem, giữ chỗ theo sĩ số của Offering.
+     * Nếu lớp đầy và waitIfFull = true thì xếp sinh viên vào danh sách chờ
+     * (mỗi sinh viên chỉ chờ 1 lần cho mỗi lớp).
+     */
+    public static Storage.AddResult addReg(String sid,String term,RegItem item,boolean waitIfFull){
+        Journal.checkWritable();
+        String code = item.course.code;
+        Offering off = getOffering(term, code);
+        Storage.AddResult result;
+        long seq;
+        ReentrantLock lock = regLock(sid);
+        lock.lock();
+        try {
+            var list = loadReg(sid,term); // lấy (hoặc tạo) list đăng ký hiện tại
+            // Không cho đăng ký trùng cùng một course code
+            if(list.stream().anyMatch(x -> x.course.code.equals(code)))
+                return Storage.AddResult.DUPLICATE;
+            // Giữ chỗ (CAS) - RegItem đã bị từ chối thì không chiếm chỗ
+            if (off != null && item.status.holdsSeat() && !off.tryReserveSeat()) {
+                if (!waitIfFull) return Storage.AddResult.FULL;
+                if (item.id == 0) item.id = regIds.allocate(); // người chờ được vào lớp vẫn giữ mã này
+                off.enqueueWaiting(sid, item);
+                result = Storage.AddResult.WAITLISTED;
+            } else {
+                if (item.id == 0) item.id = regIds.allocate();
+                list.add(item);
+                regIds.put(item.id, sid, term, item);
+                enrollCounter(term, code).incrementAndGet(); // +1 cho bộ đếm
+                statusCounts.add(term, item.status, 1);
+                indexAdd(code, term, sid);                   // thêm vào index ngược
+                regIndex.put(sid, term, item);
+                result = Storage.AddResult.ADDED;
+            }
+            seq = Journal.logAddReg(sid, term, item, result == Storage.AddResult.WAITLISTED);
+        } finally {
+            lock.unlock();
+        }
+        Journal.await(seq); // chờ ghi đĩa sau khi nhả khóa (group commit)
+        return result;
+    }
+
+    /**
+     * Khôi phục một RegItem từ nhật ký / snapshot: kết quả (vào lớp hay vào danh sách chờ)
+     * đã được quyết định lúc ghi, nên ở đây không kiểm tra sĩ số nữa.
+     */
+    static void restoreReg(String sid,String term,RegItem item,boolean waitlisted){
+        Offering off = getOffering(term, item.course.code);
+        regIds.reserve(item.id);
+        if (waitlisted) {
+            // Bản ghi cũ hơn snapshot: sinh viên đã được đưa vào lớp thì không xếp chờ lại
+            boolean enrolled = loadReg(sid,term).stream().anyMatch(x -> x.course.code.equals(item.course.code));
+            if (off != null && !enrolled) off.enqueueWaiting(sid, item);
+            return;
+        }
+        if (off != null) off.removeWaiting(sid);
+        ReentrantLock lock = regLock(sid);
+        lock.lock();
+        try {
+            var list = loadReg(sid,term);
+            if(list.stream().anyMatch(x -> x.course.code.equals(item.course.code)))
+                return;
+            list.add(item);
+            regIds.put(item.id, sid, term, item);
+            enrollCounter(term, item.course.code).incrementAndGet();
+            statusCounts.add(term, item.status, 1);
+            indexAdd(item.course.code, term, sid);
+            regIndex.put(sid, term, item);
+            if (off != null && item.status.holdsSeat()) off.forceReserveSeat();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ dữ liệu dẫn xuất từ regs (dùng sau khi sinh dữ liệu, trước khi có phiên làm việc nào):
+     * duyệt regs một lượt qua Loader. Snapshot không gọi hàm này mà đưa từng đăng ký vào Loader ngay khi đọc.
+     */
+    static void rebuildDerived(){
+        Loader loader = new Loader();
+        for (var s : regs.entrySet())
+            for (var t : s.getValue().entrySet())
+                for (RegItem it : t.getValue()) loader.add(s.getKey(), t.getKey(), it);
+        loader.finish();
+    }
+
+    /**
+     * Dựng dữ liệu dẫn xuất trong cùng lượt đặt đăng ký vào regs (Snapshot.readBody, rebuildDerived):
+     * - add: index chính regIds và bộ đếm theo (học kỳ, môn) / (học kỳ, trạng thái) đếm trong map cục bộ
+     * - finish: ghi enrollCounts, statusCounts,
+     *   số chỗ đã giữ của các Offering, dựng lại courseSearch rồi mới dựng courseIndex và regIndex trên luồng nền
+     *   (xem rebuildIndexes): nạp xong là sinh viên dùng được ngay, chỉ thao tác đọc hai index này phải chờ.
+     */
+    static final class Loader {
+        /** Học kỳ -> môn -> {số đăng ký, số đăng ký đang giữ chỗ} */
+        private final Map<String, Map<String, int[]>> byTerm = new HashMap<>();
+        /** Học kỳ -> số đăng ký theo ordinal của RegStatus */
+        private final Map<String, long[]> byStatus = new HashMap<>();
+        private String lastTerm;
+        private Map<String, int[]> lastCodes;
+        private long[] lastStatus;
+
+        Loader(){
+            awaitIndexes();
+        }
+
+        /** Một đăng ký vừa được đặt vào regs */
+        void add(String sid, String term, RegItem it){
+            if (!term.equals(lastTerm)) {
+                lastTerm = term;
+                lastCodes = byTerm.computeIfAbsent(term, k -> new HashMap<>());
+                lastStatus = byStatus.computeIfAbsent(term, k -> new long[RegStatus.count()]);
+            }
+            regIds.put(it.id, sid, term, it);
+            int[] c = lastCodes.computeIfAbsent(it.course.code, k -> new int[2]);
+            c[0]++;
+            if (it.status.holdsSeat()) c[1]++;
+            lastStatus[it.status.ordinal()]++;
+        }
+
+        void finish(){
+            enrollCounts.clear();
+            byTerm.forEach((term, byCode) -> {
+                Map<String, AtomicInteger> counts = new ConcurrentHashMap<>(byCode.size() * 2);
+                byCode.forEach((code, c) -> counts.put(code, new AtomicInteger(c[0])));
+                enrollCounts.put(term, counts);
+            });
+            statusCounts.clear();
+            byStatus.forEach((term, counts) -> {
+                for (RegStatus st : RegStatus.values())
+                    if (counts[st.ordinal()] != 0) statusCounts.add(term, st, counts[st.ordinal()]);
+            });
+            offerings.forEach((term, byCode) -> byCode.forEach((code, off) -> {
+                int[] c = byTerm.getOrDefault(term, Map.of()).get(code);
+                off.resetSeats(c == null ? 0 : c[1]);
+            }));
+            synchronized (courses) {
+                courseSearch.rebuild(courses.values()); // snapshot nạp courses trực tiếp, không qua addCourse
+            }
+            offeringView.clear();
+            catalogVersion.incrementAndGet();
+            indexesReady = CompletableFuture.runAsync(Memory::rebuildIndexes, task -> {
+                Thread t = new Thread(task, "index-rebuild");
+                t.setDaemon(true);
+                t.start();
+            });
+        }
+    }
+
+    /**
+     * Dựng lại courseIndex và regIndex từ regs, mỗi lần một stripe: giữ khóa stripe regLocks[i]
+     * (cũng là phần i của RegIndex) nên thao tác ghi đồng thời chỉ phải chờ khi chạm đúng stripe đang dựng;
+     * thay đổi trên stripe khác hoặc đã có trong regs khi dựng, hoặc được ghi vào index sau khi dựng xong.
+     */
+    private static void rebuildIndexes(){
+        courseIndex.clear();
+        for (int i = 0; i < REG_STRIPES; i++) {
+            int stripe = i;
+            regLocks[i].lock();
+            try {
+                regIndex.rebuildShard(stripe, visitor -> {
+                    for (var s : regs.entrySet()) {
+                        if (stripe(s.getKey()) != stripe) continue;
+                        for (var t : s.getValue().entrySet()) {
+                            for (RegItem it : t.getValue()) {
+                                visitor.visit(s.getKey(), t.getKey(), it);
+                                indexAdd(it.course.code, t.getKey(), s.getKey());
+                            }
+                        }
+                    }
+                });
+            } finally {
+                regLocks[i].unlock();
+            }
+        }
+    }
+
+    /** Chờ các index dựng trên luồng nền sau khi nạp dữ liệu (courseIndex, regIndex) dựng xong */
+    public static void awaitIndexes(){
+        indexesReady.join();
+    }
+
+    /**
+     * Truy vấn đăng ký cho màn hình duyệt: giao các index phụ theo học kỳ / trạng thái / CTĐT,
+     * rồi lọc từ khóa trên khóa tìm kiếm tính sẵn. Không duyệt toàn bộ regs.
+     * Ngay sau khi nạp dữ liệu thì chờ regIndex dựng xong trên luồng nền.
+     */
+    public static List<RegRow> queryRegs(RegQuery query){
+        awaitIndexes();
+        return regIndex.query(query);
     }
 
     /**
      * Xóa các RegItem theo tập mã học phần (codes)
      * cho 1 sinh viên trong 1 học kỳ.
+     * Chỗ được trả lại sẽ dành cho người đứng đầu danh sách chờ.
      */
     public static void deleteByCourseCodes(String sid,String term,Set<String> codes){
-        var list = loadReg(sid,term);
-        // removeIf: xóa các phần tử có course.code nằm trong tập codes
-        list.removeIf(it -> codes.contains(it.course.code));
+        Journal.checkWritable();
+        Set<String> freed = new HashSet<>();
+        long seq;
+        ReentrantLock lock = regLock(sid);
+        lock.lock();
+        try {
+            var list = loadReg(sid,term);
+            // removeIf: xóa các phần tử có course.code nằm trong tập codes
+            list.removeIf(it -> {
+                if (!codes.contains(it.course.code)) return false;
+                enrollCounter(term, it.course.code).decrementAndGet(); // -1 cho bộ đếm
+                statusCounts.add(term, it.status, -1);
+                regIds.remove(it.id);                                   // xóa khỏi index chính
+                indexRemove(it.course.code, term, sid);                 // xóa khỏi index ngược
+                regIndex.remove(sid, term, it.course.code);
+                if (it.status.holdsSeat()) freed.add(it.course.code);
+                return true;
+            });
+            for (String code : freed) {
+                Offering off = getOffering(term, code);
+                if (off != null) off.releaseSeat();
+            }
+            seq = Journal.logDeleteRegs(sid, term, codes);
+        } finally {
+            lock.unlock();
+        }
+        Journal.await(seq);
+        // Đưa người chờ vào lớp SAU khi nhả khóa (tránh giữ 2 khóa sinh viên cùng lúc)
+        for (String code : freed) promoteWaiting(term, code);
+        // Sinh viên tự xóa môn thì cũng rút khỏi danh sách chờ của các môn đó
+        for (String code : codes) {
+            Offering off = getOffering(term, code);
+            if (off != null) off.removeWaiting(sid);
+        }
+    }
+
+    /**
+     * Đổi trạng thái một RegItem của sinh viên, KHÔNG kiểm tra chuyển trạng thái
+     * (dùng khi replay nhật ký - bản ghi đã được kiểm tra lúc ghi).
+     * Mọi thay đổi trạng thái đi qua đây để số chỗ của lớp và bộ đếm trạng thái luôn đúng:
+     * bị từ chối thì trả chỗ (và đưa người chờ vào), duyệt lại thì giữ chỗ.
+     */
+    static void setStatus(String sid,String term,RegItem item,RegStatus status){
+        changeStatus(sid, term, item, status, null, false);
+    }
+
+    /**
+     * Đổi trạng thái đăng ký theo mã học phần (date = null thì giữ nguyên ngày đăng ký).
+     * Trả về false nếu sinh viên không đăng ký môn này trong học kỳ.
+     * Ném RuntimeException nếu không được chuyển từ trạng thái hiện tại sang status (xem RegStatus.canMoveTo).
+     */
+    public static boolean setStatus(String sid,String term,String code,RegStatus status,String date){
+        for (RegItem it : loadReg(sid, term)) {
+            if (it.course.code.equals(code))
+                return changeStatus(sid, term, it, status, date, true);
+        }
+        return false;
+    }
+
+    /**
+     * Đổi trạng thái đăng ký theo mã đăng ký (RegItem.id): một lần tra index chính,
+     * không tìm theo học phần trong danh sách đăng ký.
+     * Trả về false nếu không có đăng ký mang mã này (chưa từng có hoặc đã bị xóa).
+     * Ném RuntimeException nếu bước chuyển trạng thái không hợp lệ (như setStatus theo mã học phần).
+     */
+    public static boolean setStatus(long id,RegStatus status,String date){
+        RegIdIndex.Entry e = regIds.get(id);
+        return e != null && changeStatus(e.studentId, e.term, e.item, status, date, true);
+    }
+
+    /**
+     * Đăng ký có mã id (tra index chính, O(1)), null nếu không có.
+     * Trả về bản chụp kèm thông tin sinh viên như một dòng của queryRegs.
+     */
+    public static RegRow findReg(long id){
+        RegIdIndex.Entry e = regIds.get(id);
+        if (e == null) return null;
+        RegItem it = e.item;
+        Student s = studentsById.get(e.studentId);
+        return new RegRow(it.id, e.studentId, s == null ? null : s.fullName, s == null ? null : s.program,
+                e.term, it.course.code, it.course.name, it.course.credits, it.date, it.status);
+    }
+
+    /** Mã đăng ký sẽ được cấp tiếp theo (lưu vào snapshot) */
+    static long nextRegId(){
+        return regIds.nextId();
+    }
+
+    /** Mã đăng ký cấp sau không nhỏ hơn nextId (đọc từ snapshot) */
+    static void advanceRegId(long nextId){
+        regIds.advanceTo(nextId);
+    }
+
+    /**
+     * Đổi trạng thái trong khóa của MSSV (checked: kiểm tra chuyển trạng thái trong cùng khóa).
+     * Trả về false nếu đăng ký đã bị xóa trước khi lấy được khóa.
+     */
+    private static boolean changeStatus(String sid,String term,RegItem item,RegStatus status,String date,boolean checked){
+        Journal.checkWritable();
+        boolean freed;
+        long seq;
+        ReentrantLock lock = regLock(sid);
+        lock.lock();
+        try {
+            if (checked) {
+                RegIdIndex.Entry current = regIds.get(item.id);
+                if (current == null || current.item != item) return false;
+                term = current.term; // đọc lại trong khóa: renameTerm đổi học kỳ của đăng ký trong cùng khóa
+                if (!item.status.canMoveTo(status)) throw new RuntimeException(illegalMove(item, status));
+            }
+            freed = applyStatus(sid, term, item, status, date);
+            seq = Journal.logSetStatus(sid, term, item);
+        } finally {
+            lock.unlock();
+        }
+        Journal.await(seq);
+        if (freed) promoteWaiting(term, item.course.code);
+        return true;
+    }
+
+    /**
+     * Đổi trạng thái hàng loạt theo mã đăng ký (duyệt / từ chối cả trang kết quả lọc)
+     * - Gom các mã theo stripe khóa của MSSV: mỗi stripe chỉ lấy khóa một lần cho cả lô
+     * - Mỗi đăng ký vẫn ghi một bản ghi SET_STATUS, nhưng chỉ chờ ghi đĩa (await) một lần ở cuối
+     * - Chỗ được trả (từ chối đăng ký đã duyệt) nhường cho danh sách chờ sau khi nhả mọi khóa,
+     *   mỗi (học kỳ, học phần) một lần
+     * Đăng ký không còn hoặc bước chuyển không hợp lệ được ghi vào failures, không làm dừng cả lô.
+     */
+    public static Storage.BatchResult setStatuses(Collection<Long> ids,RegStatus status){
+        Journal.checkWritable();
+        Storage.BatchResult result = new Storage.BatchResult();
+        List<List<RegIdIndex.Entry>> byStripe = new ArrayList<>(REG_STRIPES);
+        for (int i = 0; i < REG_STRIPES; i++) byStripe.add(new ArrayList<>());
+        for (long id : ids) {
+            RegIdIndex.Entry e = regIds.get(id);
+            if (e == null) result.fail(id, "Không tìm thấy đăng ký");
+            else byStripe.get(stripe(e.studentId)).add(e);
+        }
+
+        long seq = 0;
+        Map<String, Set<String>> freed = new LinkedHashMap<>(); // học kỳ -> học phần có chỗ được trả
+        for (int i = 0; i < REG_STRIPES; i++) {
+            List<RegIdIndex.Entry> entries = byStripe.get(i);
+            if (entries.isEmpty()) continue;
+            ReentrantLock lock = regLocks[i];
+            lock.lock();
+            try {
+                for (RegIdIndex.Entry e : entries) {
+                    RegItem item = e.item;
+                    RegIdIndex.Entry current = regIds.get(item.id);
+                    if (current == null || current.item != item) {
+                        result.fail(item.id, "Đăng ký đã bị xóa");
+                        continue;
+                    }
+                    if (!item.status.canMoveTo(status)) {
+                        result.fail(item.id, illegalMove(item, status));
+                        continue;
+                    }
+                    String term = current.term;
+                    if (applyStatus(e.studentId, term, item, status, null))
+                        freed.computeIfAbsent(term, t -> new HashSet<>()).add(item.course.code);
+                    seq = Journal.logSetStatus(e.studentId, term, item);
+                    result.changed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        Journal.await(seq);
+        freed.forEach((term, codes) -> {
+            for (String code : codes) promoteWaiting(term, code);
+        });
+        return result;
+    }
+
+    /**
+     * Đổi trạng thái, bộ đếm, số chỗ của lớp và index phụ (nơi gọi giữ khóa của MSSV).
+     * Trả về true nếu đăng ký vừa trả chỗ (nơi gọi đưa người chờ vào sau khi nhả khóa).
+     */
+    private static boolean applyStatus(String sid,String term,RegItem item,RegStatus status,String date){
+        if (date != null) item.date = date;
+        boolean before = item.status.holdsSeat(), after = status.holdsSeat();
+        statusCounts.move(term, item.status, status);
+        item.status = status;
+        regIndex.put(sid, term, item);
+        Offering off = getOffering(term, item.course.code);
+        if (off != null && !before && after) off.forceReserveSeat();
+        if (off != null && before && !after) {
+            off.releaseSeat();
+            return true;
+        }
+        return false;
+    }
+
+    private static String illegalMove(RegItem item,RegStatus status){
+        return "Không thể chuyển đăng ký " + item.course.code
+                + " từ \"" + item.status + "\" sang \"" + status + "\"";
+    }
+
+    /**
+     * Đưa sinh viên trong danh sách chờ vào lớp cho tới khi hết chỗ hoặc hết người chờ.
+     * Người đã đăng ký môn đó bằng cách khác (trùng) thì bỏ qua.
+     */
+    static void promoteWaiting(String term,String code){
+        Offering off = getOffering(term, code);
+        if (off == null || Journal.isReplaying()) return; // khi replay, việc đưa vào lớp đã có trong nhật ký
+        while (off.hasFreeSeat()) {
+            Offering.Waiting w = off.pollWaiting();
+            if (w == null) return;
+            if (addReg(w.studentId, term, w.item, false) == Storage.AddResult.FULL) {
+                off.requeueWaiting(w); // thread khác vừa lấy mất chỗ - giữ nguyên vị trí
+                return;
+            }
+        }
+    }
+
+    /** Khóa (stripe) dùng cho các thao tác ghi trên đăng ký của một MSSV */
+    private static ReentrantLock regLock(String sid){
+        return regLocks[stripe(sid)];
+    }
+
+    private static int stripe(String sid){
+        return RegIndex.shard(sid);
+    }
+
+    /**
+     * Đổi mã học kỳ cho toàn bộ dữ liệu theo học kỳ: terms, termSettings, offerings,
+     * regs của từng sinh viên, bộ đếm đăng ký và index ngược.
+     */
+    public static void renameTerm(String oldTerm, String newTerm){
+        if (oldTerm.equals(newTerm) || !terms.contains(oldTerm)) return;
+        Journal.checkWritable();
+        awaitIndexes(); // đổi tên trong courseIndex / regIndex, không chạy song song với lần dựng lại
+        int index = terms.indexOf(oldTerm);
+        if (index >= 0) terms.set(index, newTerm);
+        var setting = termSettings.remove(oldTerm);
+        if (setting != null) termSettings.put(newTerm, setting);
+        var offs = offerings.remove(oldTerm);
+        if (offs != null) offerings.put(newTerm, offs);
+        offeringView.termRemoved(oldTerm);
+        offeringView.termRemoved(newTerm);
+        catalogVersion.incrementAndGet();
+        for (var e : regs.entrySet()) {
+            ReentrantLock lock = regLock(e.getKey());
+            lock.lock();
+            try {
+                var byTerm = e.getValue();
+                var list = byTerm.remove(oldTerm);
+                if (list != null) {
+                    byTerm.put(newTerm, list);
+                    for (RegItem it : list) regIds.setTerm(it.id, newTerm);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        var counts = enrollCounts.remove(oldTerm);
+        if (counts != null) enrollCounts.put(newTerm, counts);
+        statusCounts.renameTerm(oldTerm, newTerm);
+        for (var byTerm : courseIndex.values()) {
+            var sids = byTerm.remove(oldTerm);
+            if (sids != null) byTerm.put(newTerm, sids);
+        }
+        regIndex.renameTerm(oldTerm, newTerm);
+        Journal.await(Journal.logRenameTerm(oldTerm, newTerm));
     }
 
     /* ---------- term setting ---------- */
@@ -487,10 +1173,37 @@ public class Memory {
 
     /** Đặt trạng thái mở/đóng cho một học kỳ */
     public static void setTermOpen(String term, boolean open){
+        Journal.checkWritable();
         // Nếu term chưa có TermSetting thì tạo mới; sau đó cập nhật registrationOpen
         termSettings
                 .computeIfAbsent(term, t -> new TermSetting(open))
                 .registrationOpen = open;
+        Journal.await(Journal.logSetTermOpen(term, open));
+    }
+
+    /**
+     * Thêm học kỳ mới hoặc cập nhật cấu hình của học kỳ đã có.
+     * Học kỳ mới được thêm vào cuối danh sách terms.
+     */
+    public static void putTerm(String term, TermSetting setting){
+        Journal.checkWritable();
+        if (!terms.contains(term)) terms.add(term);
+        termSettings.put(term, setting);
+        Journal.await(Journal.logPutTerm(term, setting));
+    }
+
+    /**
+     * Xóa học kỳ: khỏi terms, termSettings và offerings.
+     * (Nơi gọi cần kiểm tra trước là không còn sinh viên đăng ký trong học kỳ)
+     */
+    public static void deleteTerm(String term){
+        Journal.checkWritable();
+        terms.remove(term);
+        termSettings.remove(term);
+        offerings.remove(term);
+        offeringView.termRemoved(term);
+        catalogVersion.incrementAndGet();
+        Journal.await(Journal.logDeleteTerm(term));
     }
 
     /* ---------- offerings per term ---------- */
@@ -501,7 +1214,7 @@ public class Memory {
      */
     public static Offering getOffering(String term, String code){
         return offerings
-                .computeIfAbsent(term, t -> new HashMap<>())
+                .computeIfAbsent(term, t -> new ConcurrentHashMap<>())
                 .get(code);
     }
 
@@ -510,28 +1223,78 @@ public class Memory {
      * Nếu chưa có map cho term thì tạo mới rồi put vào.
      */
     public static void setOffering(String term, String code, boolean open, String allowedProgram){
-        offerings
-                .computeIfAbsent(term, t -> new HashMap<>())
-                .put(code, new Offering(open, allowedProgram));
+        Journal.checkWritable();
+        var byCode = offerings.computeIfAbsent(term, t -> new ConcurrentHashMap<>());
+        // Sửa tại chỗ nếu đã có, để không mất số chỗ đã giữ và danh sách chờ
+        Offering off = byCode.computeIfAbsent(code, c -> newOffering(term, c));
+        boolean changed = off.open != open || !Objects.equals(off.allowedProgram, allowedProgram);
+        off.open = open;
+        off.allowedProgram = allowedProgram;
+        if (changed) {
+            // Chỉ view của học kỳ này phải dựng lại
+            offeringView.offeringChanged(term);
+            catalogVersion.incrementAndGet();
+        }
+        Journal.await(Journal.logSetOffering(term, code, open, allowedProgram));
+    }
+
+    /**
+     * Đặt sĩ số cho học phần trong học kỳ (0 = không giới hạn).
+     * Nếu tăng sĩ số thì người trong danh sách chờ được đưa vào lớp ngay.
+     */
+    public static void setCapacity(String term, String code, int capacity){
+        Journal.checkWritable();
+        Offering off = offerings
+                .computeIfAbsent(term, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(code, c -> newOffering(term, c));
+        off.capacity = Math.max(0, capacity);
+        catalogVersion.incrementAndGet();
+        Journal.await(Journal.logSetCapacity(term, code, off.capacity));
+        promoteWaiting(term, code);
+    }
+
+    /** Tạo Offering đóng, số chỗ đã giữ = số đăng ký hiện có chưa bị từ chối */
+    private static Offering newOffering(String term, String code){
+        Offering off = new Offering(false, "Tất cả");
+        int taken = 0;
+        awaitIndexes();
+        var byTerm = courseIndex.get(code);
+        Set<String> sids = byTerm == null ? null : byTerm.get(term);
+        if (sids != null) {
+            for (String sid : sids)
+                for (RegItem it : loadReg(sid, term))
+                    if (it.course.code.equals(code) && it.status.holdsSeat()) taken++;
+        }
+        off.resetSeats(taken);
+        return off;
     }
 
     /* ---------- Thống kê & xóa học phần ---------- */
 
     /**
      * Đếm số lượng đăng ký của một môn (courseCode) trong một học kỳ.
-     * Duyệt qua tất cả sinh viên, đếm các RegItem trùng courseCode.
+     * Đọc từ bộ đếm enrollCounts (O(1)), không duyệt regs.
      */
     public static int countRegByCourse(String term, String courseCode){
-        int cnt = 0;
-        // byTerm: map term -> list RegItem của 1 sinh viên
-        for (var byTerm : regs.values()) {
-            var list = byTerm.get(term); // lấy list RegItem của học kỳ cần đếm
-            if (list == null) continue;  // sinh viên này chưa đăng ký kỳ đó
-            // Tăng biến đếm nếu RegItem có course.code khớp courseCode
-            for (RegItem it : list)
-                if (it.course.code.equals(courseCode)) cnt++;
-        }
-        return cnt;
+        var byCode = enrollCounts.get(term);
+        if (byCode == null) return 0;
+        AtomicInteger cnt = byCode.get(courseCode);
+        return cnt == null ? 0 : cnt.get();
+    }
+
+    /**
+     * Số đăng ký ở trạng thái status trong học kỳ (term = null: mọi học kỳ, status = null: mọi trạng thái).
+     * Đọc từ bộ đếm statusCounts (O(1)), không duyệt regs.
+     */
+    public static long countRegs(String term, RegStatus status){
+        return statusCounts.count(term, status);
+    }
+
+    /** Lấy (hoặc tạo) bộ đếm đăng ký của một môn trong một học kỳ */
+    private static AtomicInteger enrollCounter(String term, String courseCode){
+        return enrollCounts
+                .computeIfAbsent(term, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(courseCode, c -> new AtomicInteger());
     }
 
     /**
@@ -539,14 +1302,42 @@ public class Memory {
      * Không cho xóa nếu bất kỳ sinh viên nào đã đăng ký môn đó ở bất kỳ kỳ nào.
      */
     public static boolean canDeleteCourse(String courseCode){
-        // byStudent: map term -> list RegItem cho từng sinh viên
-        for (var byStudent : regs.values()) {
-            for (var list : byStudent.values()) {
-                for (RegItem it : list)
-                    if (it.course.code.equals(courseCode)) return false; // có người đăng ký rồi
-            }
-        }
-        return true; // không ai đăng ký, có thể xóa
+        // Index ngược chỉ giữ những học phần còn ít nhất 1 đăng ký
+        awaitIndexes();
+        return !courseIndex.containsKey(courseCode);
+    }
+
+    /**
+     * Danh sách sinh viên đã đăng ký một môn, nhóm theo học kỳ: Map<Học kỳ, Set<MSSV>>.
+     * Trả về bản copy (map rỗng nếu chưa ai đăng ký).
+     */
+    public static Map<String, Set<String>> enrolledStudents(String courseCode){
+        Map<String, Set<String>> result = new TreeMap<>();
+        awaitIndexes();
+        var byTerm = courseIndex.get(courseCode);
+        if (byTerm != null)
+            byTerm.forEach((term, sids) -> result.put(term, new TreeSet<>(sids)));
+        return result;
+    }
+
+    /** Thêm cặp (MSSV, học kỳ) vào index ngược của một môn */
+    private static void indexAdd(String courseCode, String term, String sid){
+        courseIndex.compute(courseCode, (c, byTerm) -> {
+            if (byTerm == null) byTerm = new ConcurrentHashMap<>();
+            byTerm.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(sid);
+            return byTerm;
+        });
+    }
+
+    /** Xóa cặp (MSSV, học kỳ) khỏi index ngược; dọn luôn các nhánh rỗng */
+    private static void indexRemove(String courseCode, String term, String sid){
+        courseIndex.computeIfPresent(courseCode, (c, byTerm) -> {
+            byTerm.computeIfPresent(term, (t, sids) -> {
+                sids.remove(sid);
+                return sids.isEmpty() ? null : sids;
+            });
+            return byTerm.isEmpty() ? null : byTerm;
+        });
     }
 
     /**
@@ -556,9 +1347,40 @@ public class Memory {
      *  (KHÔNG đụng đến regs, nên cần đảm bảo canDeleteCourse trước khi gọi)
      */
     public static void deleteCourse(String courseCode){
+        Journal.checkWritable();
         courses.remove(courseCode);         // xóa trong danh sách môn
+        courseSearch.remove(courseCode);    // xóa khỏi index tìm kiếm
         for (var m : offerings.values())    // m: map courseCode -> Offering
             m.remove(courseCode);           // xóa offering của môn đó trong từng kỳ
+        for (var m : enrollCounts.values()) // bộ đếm (đều = 0 nếu đã qua canDeleteCourse)
+            m.remove(courseCode);
+        offeringView.coursesChanged();
+        catalogVersion.incrementAndGet();
+        Journal.await(Journal.logDeleteCourse(courseCode));
+    }
+
+    /**
+     * Xóa sạch toàn bộ dữ liệu trong bộ nhớ (dùng trước khi nạp snapshot).
+     */
+    static void clear(){
+        awaitIndexes(); // không để lần dựng index cũ chạy song song với dữ liệu mới
+        adminPasswords.clear();
+        studentsById.clear();
+        emailIndex.clear();
+        courses.clear();
+        terms.clear();
+        programs.clear();
+        regs.clear();
+        termSettings.clear();
+        offerings.clear();
+        enrollCounts.clear();
+        statusCounts.clear();
+        courseIndex.clear();
+        regIds.clear();
+        regIndex.clear();
+        courseSearch.clear();
+        offeringView.clear();
+        catalogVersion.incrementAndGet();
     }
 
     /** Trả về ngày hiện tại dạng chuỗi "yyyy-MM-dd" (ví dụ: 2025-11-19) */
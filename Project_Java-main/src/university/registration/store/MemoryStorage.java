@@ -0,0 +1,221 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Backend mặc định: dữ liệu nằm trong RAM (Memory), ghi nhật ký qua Journal
+ *
+ * Chỉ chuyển tiếp sang các hàm static của Memory, không giữ trạng thái riêng.
+ * loadReg trả về list "sống" của Memory (CopyOnWriteArrayList), duyệt an toàn khi thread khác ghi.
+ */
+public class MemoryStorage implements Storage {
+
+    @Override
+    public boolean verifyAdmin(String username, String password) {
+        return Memory.verifyAdmin(username, password);
+    }
+
+    @Override
+    public boolean verifyStudent(String studentId, String password) {
+        return Memory.verifyStudent(studentId, password);
+    }
+
+    @Override
+    public Student findStudent(String studentId) {
+        return Memory.studentsById.get(studentId);
+    }
+
+    @Override
+    public String findStudentIdByEmail(String email) {
+        return Memory.emailIndex.get(email.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void addStudent(Student student, String password) {
+        Memory.addStudent(student, password);
+    }
+
+    @Override
+    public int studentCount() {
+        return Memory.studentsById.size();
+    }
+
+    @Override
+    public List<String> programs() {
+        return new ArrayList<>(Memory.programs);
+    }
+
+    @Override
+    public Collection<Course> courses() {
+        synchronized (Memory.courses) {
+            return new ArrayList<>(Memory.courses.values());
+        }
+    }
+
+    @Override
+    public Course findCourse(String code) {
+        return Memory.courses.get(code);
+    }
+
+    @Override
+    public List<Course> searchCourses(String text) {
+        return Memory.searchCourses(text);
+    }
+
+    @Override
+    public List<Course> availableCourses(String term, String program) {
+        return Memory.availableCourses(term, program);
+    }
+
+    @Override
+    public long catalogVersion() {
+        return Memory.catalogVersion();
+    }
+
+    @Override
+    public void addCourse(Course course) {
+        Memory.addCourse(course);
+    }
+
+    @Override
+    public boolean canDeleteCourse(String code) {
+        return Memory.canDeleteCourse(code);
+    }
+
+    @Override
+    public void deleteCourse(String code) {
+        Memory.deleteCourse(code);
+    }
+
+    @Override
+    public Map<String, Set<String>> enrolledStudents(String code) {
+        return Memory.enrolledStudents(code);
+    }
+
+    @Override
+    public int countRegByCourse(String term, String code) {
+        return Memory.countRegByCourse(term, code);
+    }
+
+    @Override
+    public long countRegs(String term, RegStatus status) {
+        return Memory.countRegs(term, status);
+    }
+
+    @Override
+    public List<String> terms() {
+        return Memory.loadTerms();
+    }
+
+    @Override
+    public TermSetting termSetting(String term) {
+        return Memory.termSettings.get(term);
+    }
+
+    @Override
+    public boolean isTermOpen(String term) {
+        return Memory.isTermOpen(term);
+    }
+
+    @Override
+    public void setTermOpen(String term, boolean open) {
+        Memory.setTermOpen(term, open);
+    }
+
+    @Override
+    public void putTerm(String term, TermSetting setting) {
+        Memory.putTerm(term, setting);
+    }
+
+    @Override
+    public void deleteTerm(String term) {
+        Memory.deleteTerm(term);
+    }
+
+    @Override
+    public void renameTerm(String oldTerm, String newTerm) {
+        Memory.renameTerm(oldTerm, newTerm);
+    }
+
+    @Override
+    public Offering getOffering(String term, String code) {
+        return Memory.getOffering(term, code);
+    }
+
+    @Override
+    public void setOffering(String term, String code, boolean open, String allowedProgram) {
+        Memory.setOffering(term, code, open, allowedProgram);
+    }
+
+    @Override
+    public void setCapacity(String term, String code, int capacity) {
+        Memory.setCapacity(term, code, capacity);
+    }
+
+    @Override
+    public List<RegItem> loadReg(String studentId, String term) {
+        return Memory.loadReg(studentId, term);
+    }
+
+    @Override
+    public Map<String, List<RegItem>> regsOf(String studentId) {
+        Map<String, List<RegItem>> byTerm = Memory.regs.get(studentId);
+        return byTerm == null ? Map.of() : byTerm;
+    }
+
+    @Override
+    public AddResult addReg(String studentId, String term, RegItem item, boolean waitIfFull) {
+        return Memory.addReg(studentId, term, item, waitIfFull);
+    }
+
+    @Override
+    public void deleteRegs(String studentId, String term, Set<String> codes) {
+        Memory.deleteByCourseCodes(studentId, term, codes);
+    }
+
+    @Override
+    public boolean setStatus(String studentId, String term, String code, RegStatus status, String date) {
+        return Memory.setStatus(studentId, term, code, status, date);
+    }
+
+    @Override
+    public boolean setStatus(long regId, RegStatus status, String date) {
+        return Memory.setStatus(regId, status, date);
+    }
+
+    @Override
+    public BatchResult setStatuses(Collection<Long> regIds, RegStatus status) {
+        return Memory.setStatuses(regIds, status);
+    }
+
+    @Override
+    public RegRow findReg(long regId) {
+        return Memory.findReg(regId);
+    }
+
+    @Override
+    public void forEachReg(RegVisitor visitor) {
+        for (var s : Memory.regs.entrySet())
+            for (var t : s.getValue().entrySet())
+                for (RegItem it : t.getValue())
+                    visitor.visit(s.getKey(), t.getKey(), it);
+    }
+
+    @Override
+    public List<RegRow> queryRegs(RegQuery query) {
+        return Memory.queryRegs(query);
+    }
+}
@@ -0,0 +1,137 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * View dựng sẵn: học phần sinh viên của một CTĐT có thể đăng ký trong một học kỳ
+ * (offering đang mở và allowedProgram = "Tất cả" hoặc đúng CTĐT), theo thứ tự danh mục
+ *
+ * - Mỗi cặp (học kỳ, CTĐT) có một danh sách bất biến, dùng chung cho mọi phiên đăng nhập:
+ *   lấy danh sách chỉ là đọc một con trỏ, không xét lại offering của từng học phần
+ * - Mỗi học kỳ có số phiên bản riêng, tăng khi offering của học kỳ đó thay đổi;
+ *   thêm / sửa / xóa học phần tăng phiên bản chung. Danh sách có phiên bản cũ được
+ *   dựng lại ở lần đọc kế tiếp (một luồng dựng, các luồng khác cùng cặp chờ và dùng chung kết quả),
+ *   nên đổi offering học kỳ này không làm mất view của học kỳ khác
+ */
+final class OfferingView {
+
+    /** Danh sách bất biến, contains theo mã học phần O(1) */
+    static final class CourseList extends AbstractList<Course> implements RandomAccess {
+        private final Course[] courses;
+        private final Set<String> codes;
+
+        CourseList(Course[] courses) {
+            this.courses = courses;
+            this.codes = new HashSet<>(courses.length * 2);
+            for (Course c : courses) codes.add(c.code);
+        }
+
+        @Override
+        public Course get(int index) {
+            return courses[index];
+        }
+
+        @Override
+        public int size() {
+            return courses.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Course c && codes.contains(c.code);
+        }
+    }
+
+    private static final class Entry {
+        final long termVersion, courseVersion;
+        final CourseList courses;
+
+        Entry(long termVersion, long courseVersion, CourseList courses) {
+            this.termVersion = termVersion;
+            this.courseVersion = courseVersion;
+            this.courses = courses;
+        }
+    }
+
+    private final Supplier<Collection<Course>> catalog;
+    private final BiFunction<String, String, Offering> offering;
+    private final AtomicLong courseVersion = new AtomicLong();
+    private final Map<String, AtomicLong> termVersions = new ConcurrentHashMap<>();
+    /** Học kỳ -> CTĐT -> danh sách đã dựng */
+    private final Map<String, Map<String, Entry>> views = new ConcurrentHashMap<>();
+
+    /**
+     * @param catalog  bản copy danh mục học phần theo thứ tự thêm vào
+     * @param offering tra Offering theo (học kỳ, mã học phần), null nếu chưa có
+     */
+    OfferingView(Supplier<Collection<Course>> catalog, BiFunction<String, String, Offering> offering) {
+        this.catalog = catalog;
+        this.offering = offering;
+    }
+
+    /** Học phần có thể đăng ký của CTĐT trong học kỳ (danh sách bất biến, dùng chung) */
+    CourseList get(String term, String program) {
+        long tv = termVersion(term).get();
+        long cv = courseVersion.get();
+        var byProgram = views.computeIfAbsent(term, t -> new ConcurrentHashMap<>());
+        Entry e = byProgram.get(program);
+        if (e != null && e.termVersion == tv && e.courseVersion == cv) return e.courses;
+        return byProgram.compute(program, (p, old) ->
+                old != null && old.termVersion == tv && old.courseVersion == cv
+                        ? old
+                        : new Entry(tv, cv, build(term, p))).courses;
+    }
+
+    /** Offering của học kỳ thay đổi (mở / đóng / đổi CTĐT được phép) */
+    void offeringChanged(String term) {
+        termVersion(term).incrementAndGet();
+    }
+
+    /** Học phần được thêm / sửa / xóa */
+    void coursesChanged() {
+        courseVersion.incrementAndGet();
+    }
+
+    /** Học kỳ bị xóa hoặc đổi mã: bỏ view của học kỳ */
+    void termRemoved(String term) {
+        termVersion(term).incrementAndGet();
+        views.remove(term);
+    }
+
+    void clear() {
+        views.clear();
+        courseVersion.incrementAndGet();
+        termVersions.values().forEach(AtomicLong::incrementAndGet);
+    }
+
+    private AtomicLong termVersion(String term) {
+        return termVersions.computeIfAbsent(term, t -> new AtomicLong());
+    }
+
+    /** Dựng danh sách: phiên bản đã đọc trước khi dựng, thay đổi trong lúc dựng sẽ dựng lại lần sau */
+    private CourseList build(String term, String program) {
+        Collection<Course> all = catalog.get();
+        Course[] eligible = new Course[all.size()];
+        int n = 0;
+        for (Course c : all) {
+            Offering off = offering.apply(term, c.code);
+            if (off != null && off.open && ("Tất cả".equals(off.allowedProgram) || program.equals(off.allowedProgram))) {
+                eligible[n++] = c;
+            }
+        }
+        return new CourseList(n == eligible.length ? eligible : Arrays.copyOf(eligible, n));
+    }
+}
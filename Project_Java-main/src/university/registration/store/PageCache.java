@@ -0,0 +1,157 @@
+package university.registration.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bộ đệm trang (page cache) cho một file dữ liệu, dùng bởi FileStorage
+ *
+ * - File được chia thành các trang cố định PAGE_SIZE byte
+ * - Giữ tối đa maxPages trang trong heap, thay thế theo LRU (LinkedHashMap accessOrder)
+ * - Ghi vào trang trong bộ đệm (đánh dấu dirty); trang dirty được ghi xuống file
+ *   khi bị đẩy khỏi bộ đệm hoặc khi flush()
+ *
+ * Nhờ vậy heap chỉ cần chứa các trang "nóng", còn toàn bộ dữ liệu có thể lớn hơn heap.
+ * Mọi hàm đều synchronized (một khóa cho cả file).
+ */
+final class PageCache implements AutoCloseable {
+
+    static final int PAGE_SIZE = 8192;
+
+    /** Một trang trong bộ đệm */
+    private static final class Page {
+        final byte[] data = new byte[PAGE_SIZE];
+        boolean dirty;
+    }
+
+    private final FileChannel channel;
+    private final Map<Long, Page> pages;
+    /** Kích thước logic của file (byte cuối cùng đã ghi + 1) */
+    private long size;
+
+    private long hits;
+    private long misses;
+
+    PageCache(Path file, int maxPages) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = channel.size();
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Page> eldest) {
+                if (size() <= maxPages) return false;
+                writeBack(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    /** Đọc len byte bắt đầu từ vị trí pos */
+    synchronized void read(long pos, byte[] dst, int off, int len) {
+        while (len > 0) {
+            Page p = page(pos / PAGE_SIZE);
+            int inPage = (int) (pos % PAGE_SIZE);
+            int n = Math.min(len, PAGE_SIZE - inPage);
+            System.arraycopy(p.data, inPage, dst, off, n);
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Ghi len byte vào vị trí pos (có thể vượt cuối file) */
+    synchronized void write(long pos, byte[] src, int off, int len) {
+        size = Math.max(size, pos + len);
+        while (len > 0) {
+            Page p = page(pos / PAGE_SIZE);
+            int inPage = (int) (pos % PAGE_SIZE);
+            int n = Math.min(len, PAGE_SIZE - inPage);
+            System.arraycopy(src, off, p.data, inPage, n);
+            p.dirty = true;
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Ghi nối vào cuối file, trả về vị trí đã ghi */
+    synchronized long append(byte[] src) {
+        long pos = size;
+        write(pos, src, 0, src.length);
+        return pos;
+    }
+
+    /** Ghi mọi trang dirty xuống file và fsync */
+    synchronized void flush() {
+        for (var e : pages.entrySet()) writeBack(e.getKey(), e.getValue());
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Tỉ lệ đọc trúng bộ đệm (để so sánh khi benchmark) */
+    synchronized String stats() {
+        long total = hits + misses;
+        return String.format("%d trang trong bộ đệm, trúng %.1f%% (%d/%d)",
+                pages.size(), total == 0 ? 0.0 : hits * 100.0 / total, hits, total);
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Lấy trang trong bộ đệm, đọc từ file nếu chưa có */
+    private Page page(long no) {
+        Page p = pages.get(no);
+        if (p != null) {
+            hits++;
+            return p;
+        }
+        misses++;
+        p = new Page();
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(p.data);
+            long pos = no * PAGE_SIZE;
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, pos + buf.position());
+                if (n < 0) break; // quá cuối file: phần còn lại là 0
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pages.put(no, p);
+        return p;
+    }
+
+    private void writeBack(long no, Page p) {
+        if (!p.dirty) return;
+        long pos = no * PAGE_SIZE;
+        int len = (int) Math.min(PAGE_SIZE, size - pos);
+        if (len <= 0) return;
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(p.data, 0, len);
+            while (buf.hasRemaining()) channel.write(buf, pos + buf.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        p.dirty = false;
+    }
+}
@@ -0,0 +1,124 @@
+package university.registration.store;
+
+import university.registration.model.RegItem;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Index chính của đăng ký: mã đăng ký (RegItem.id) -> (MSSV, học kỳ, RegItem)
+ *
+ * Mã đăng ký được cấp tăng dần từ 1 (allocate) khi đăng ký vào kho lần đầu và không bao giờ dùng lại
+ * (kể cả sau khi xóa), nên index là một mảng chia trang đánh số thẳng theo mã:
+ * tra cứu O(1), không băm, không boxing Long. Mã của đăng ký đã xóa để lại một ô trống.
+ *
+ * Đọc không khóa (mảng trang volatile + AtomicReferenceArray). Ghi put / remove / setTerm do nơi gọi
+ * giữ khóa của MSSV (Memory) hoặc khóa của kho (FileStorage); chỉ việc thêm trang là synchronized.
+ *
+ * Mã tiếp theo (nextId) phải được lưu cùng dữ liệu (snapshot, catalog) và nâng lên khi khôi phục
+ * đăng ký có sẵn mã (reserve), để mã đã cấp không bị cấp lại cho đăng ký khác.
+ */
+final class RegIdIndex {
+
+    /** Một đăng ký trong index */
+    static final class Entry {
+        final String studentId;
+        /** Học kỳ (đổi khi đổi mã học kỳ) */
+        volatile String term;
+        /** RegItem đang nằm trong kho; null với FileStorage (đăng ký nằm trong file, đọc lại theo MSSV / học kỳ) */
+        final RegItem item;
+
+        Entry(String studentId, String term, RegItem item) {
+            this.studentId = studentId;
+            this.term = term;
+            this.item = item;
+        }
+    }
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final AtomicLong next = new AtomicLong(1);
+    private volatile AtomicReferenceArray<Entry>[] pages = newPages(0);
+
+    /** Cấp mã mới */
+    long allocate() {
+        return next.getAndIncrement();
+    }
+
+    /** Mã id đã được dùng (khôi phục từ dữ liệu đã lưu): các mã cấp sau đều lớn hơn id */
+    void reserve(long id) {
+        advanceTo(id + 1);
+    }
+
+    /** Mã cấp tiếp theo không nhỏ hơn nextId (đọc từ dữ liệu đã lưu) */
+    void advanceTo(long nextId) {
+        next.accumulateAndGet(nextId, Math::max);
+    }
+
+    /** Mã sẽ được cấp tiếp theo (ghi cùng dữ liệu để lần mở sau tiếp tục từ đây) */
+    long nextId() {
+        return next.get();
+    }
+
+    /** Thêm (hoặc thay) đăng ký có mã id */
+    void put(long id, String studentId, String term, RegItem item) {
+        reserve(id);
+        page(id).set((int) (id & (PAGE_SIZE - 1)), new Entry(studentId, term, item));
+    }
+
+    /** Đăng ký có mã id, null nếu không có (chưa cấp, đã xóa hoặc đang trong danh sách chờ) */
+    Entry get(long id) {
+        if (id <= 0) return null;
+        long p = id >>> PAGE_BITS;
+        AtomicReferenceArray<Entry>[] current = pages;
+        if (p >= current.length) return null;
+        AtomicReferenceArray<Entry> page = current[(int) p];
+        return page == null ? null : page.get((int) (id & (PAGE_SIZE - 1)));
+    }
+
+    /** Xóa đăng ký có mã id (không có thì bỏ qua) */
+    void remove(long id) {
+        if (get(id) != null) pages[(int) (id >>> PAGE_BITS)].set((int) (id & (PAGE_SIZE - 1)), null);
+    }
+
+    /** Đăng ký có mã id được chuyển sang học kỳ term (đổi mã học kỳ) */
+    void setTerm(long id, String term) {
+        Entry e = get(id);
+        if (e != null) e.term = term;
+    }
+
+    /** Xóa sạch index và bắt đầu cấp mã lại từ 1 */
+    synchronized void clear() {
+        pages = newPages(0);
+        next.set(1);
+    }
+
+    /** Trang chứa mã id, tạo mới nếu chưa có */
+    private AtomicReferenceArray<Entry> page(long id) {
+        long p = id >>> PAGE_BITS;
+        if (id <= 0 || p > Integer.MAX_VALUE - 8) throw new RuntimeException("Mã đăng ký không hợp lệ: " + id);
+        AtomicReferenceArray<Entry>[] current = pages;
+        if (p < current.length && current[(int) p] != null) return current[(int) p];
+        synchronized (this) {
+            current = pages;
+            if (p >= current.length) {
+                current = Arrays.copyOf(current, (int) Math.max(p + 1, current.length * 2L));
+            } else if (current[(int) p] != null) {
+                return current[(int) p];
+            } else {
+                current = current.clone();
+            }
+            current[(int) p] = new AtomicReferenceArray<>(PAGE_SIZE);
+            pages = current;
+            return current[(int) p];
+        }
+    }
+
+    /** Mảng trang rỗng (Java không cho tạo mảng kiểu generic trực tiếp) */
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Entry>[] newPages(int n) {
+        return (AtomicReferenceArray<Entry>[]) new AtomicReferenceArray<?>[n];
+    }
+}
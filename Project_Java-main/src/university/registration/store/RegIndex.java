@@ -0,0 +1,662 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Index phụ cho truy vấn đăng ký (màn hình duyệt đăng ký của PĐT)
+ *
+ * Mỗi đăng ký (MSSV, học kỳ, học phần) là một "dòng" có số hiệu r. Dữ liệu dòng lưu theo cột
+ * (mảng int: sinh viên, học phần, học kỳ, trạng thái; mảng long: mã đăng ký) để 1 triệu dòng chỉ tốn vài chục MB.
+ * Sinh viên, học phần, học kỳ, CTĐT được đánh số qua từ điển (Dict); trạng thái dùng ordinal của RegStatus.
+ *
+ * Index phụ: BitSet các dòng theo học kỳ, theo trạng thái và theo CTĐT.
+ * Truy vấn = giao các BitSet (vài micro giây cho 1 triệu dòng), rồi mới duyệt các dòng còn lại.
+ *
+ * Tìm kiếm theo từ khóa dùng khóa tìm kiếm viết thường tính sẵn cho từng sinh viên
+ * (họ tên + MSSV) và từng học phần (tên + mã): mỗi truy vấn chỉ so khớp một lần cho mỗi
+ * sinh viên / học phần, không phải toLowerCase 4 chuỗi cho mỗi đăng ký.
+ *
+ * Kết quả truy vấn (Result) cũng lưu theo cột: mã đăng ký, số hiệu sinh viên / học phần / học kỳ / trạng thái
+ * của các dòng khớp; RegRow chỉ được tạo khi đọc phần tử (bảng chỉ đọc các dòng đang hiển thị).
+ *
+ * Chia phần (shard) theo MSSV: SHARDS phần độc lập, mỗi phần có từ điển, cột, index phụ và
+ * ReentrantReadWriteLock riêng. Số phần và hàm băm giống stripe khóa của Memory, nên thao tác ghi
+ * đang giữ khóa stripe i chỉ chạm vào phần i - ghi của hai sinh viên khác stripe không chờ nhau.
+ * Truy vấn lấy read lock của từng phần lần lượt: một thao tác ghi chỉ phải chờ phần của nó được
+ * duyệt (1/SHARDS số dòng), không chờ cả truy vấn. Kết quả = các phần nối tiếp nhau
+ * (theo thứ tự phần, trong mỗi phần theo số hiệu dòng).
+ *
+ * Backend phải gọi put / remove / renameTerm / studentChanged / courseChanged SAU mỗi thay đổi
+ * dữ liệu gốc. Ghi dùng write lock của phần, truy vấn dùng read lock.
+ * Đăng ký của MSSV chưa có thông tin sinh viên vẫn được giữ nhưng không trả về khi truy vấn.
+ */
+final class RegIndex {
+
+    /** Số phần (bằng số stripe khóa của Memory) */
+    static final int SHARDS = 64;
+
+    /** Ký tự ngăn cách các phần trong khóa tìm kiếm (người dùng không gõ được) */
+    private static final char SEP = '\u0001';
+
+    /** Từ điển chuỗi <-> số hiệu */
+    private static final class Dict {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+
+        /** Số hiệu của s, tạo mới nếu chưa có */
+        int id(String s) {
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            ids.put(s, names.size());
+            names.add(s);
+            return names.size() - 1;
+        }
+
+        /** Số hiệu của s, -1 nếu chưa có */
+        int find(String s) {
+            Integer id = ids.get(s);
+            return id == null ? -1 : id;
+        }
+
+        String name(int id) {
+            return names.get(id);
+        }
+
+        int size() {
+            return names.size();
+        }
+    }
+
+    private final Shard[] shards = new Shard[SHARDS];
+
+    /** @param students tra thông tin sinh viên theo MSSV (null nếu không có) */
+    RegIndex(Function<String, Student> students) {
+        for (int i = 0; i < SHARDS; i++) shards[i] = new Shard(students);
+    }
+
+    /** Phần chứa đăng ký của MSSV (cùng công thức với stripe khóa của Memory) */
+    static int shard(String sid) {
+        return (sid.hashCode() & 0x7fffffff) % SHARDS;
+    }
+
+    private Shard shardOf(String sid) {
+        return shards[shard(sid)];
+    }
+
+    /** Dựng lại toàn bộ index từ nguồn dữ liệu (giữ write lock của mọi phần trong lúc dựng) */
+    void rebuild(Consumer<Storage.RegVisitor> source) {
+        for (Shard sh : shards) sh.lock.writeLock().lock();
+        try {
+            for (Shard sh : shards) sh.reset();
+            source.accept(new Storage.RegVisitor() {
+                String lastSid;
+                Shard shard;
+
+                @Override
+                public void visit(String sid, String term, RegItem item) {
+                    if (sid != lastSid) {
+                        shard = shardOf(sid);
+                        lastSid = sid;
+                    }
+                    shard.rebuildRow(sid, term, item);
+                }
+            });
+        } finally {
+            for (Shard sh : shards) sh.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dựng lại một phần, chỉ giữ write lock của phần đó: source gửi đăng ký của mọi MSSV thuộc phần shard
+     * (đăng ký của MSSV khác bị bỏ qua). Ghi và dựng các phần khác vẫn chạy song song.
+     * Nơi gọi cập nhật dữ liệu gốc trước rồi mới gọi put / remove, nên thay đổi xảy ra trong lúc dựng
+     * hoặc đã có trong nguồn, hoặc được áp dụng sau khi phần dựng xong.
+     */
+    void rebuildShard(int shard, Consumer<Storage.RegVisitor> source) {
+        Shard sh = shards[shard];
+        sh.lock.writeLock().lock();
+        try {
+            sh.reset();
+            source.accept((sid, term, item) -> {
+                if (shard(sid) == shard) sh.rebuildRow(sid, term, item);
+            });
+        } finally {
+            sh.lock.writeLock().unlock();
+        }
+    }
+
+    /** Xóa sạch index */
+    void clear() {
+        for (Shard sh : shards) sh.clear();
+    }
+
+    /** Thêm đăng ký, hoặc cập nhật trạng thái / ngày nếu đã có */
+    void put(String sid, String term, RegItem item) {
+        shardOf(sid).put(sid, term, item);
+    }
+
+    /** Xóa đăng ký (không có thì bỏ qua) */
+    void remove(String sid, String term, String code) {
+        shardOf(sid).remove(sid, term, code);
+    }
+
+    /** Chuyển mọi đăng ký của học kỳ cũ sang mã học kỳ mới */
+    void renameTerm(String oldTerm, String newTerm) {
+        for (Shard sh : shards) sh.renameTerm(oldTerm, newTerm);
+    }
+
+    /** Cập nhật thông tin sinh viên (gọi sau khi thêm / sửa sinh viên) */
+    void studentChanged(Student st) {
+        shardOf(st.studentId).studentChanged(st);
+    }
+
+    /** Cập nhật tên / số tín chỉ học phần (gọi sau khi thêm hoặc thay thế học phần) */
+    void courseChanged(Course course) {
+        for (Shard sh : shards) sh.courseChanged(course);
+    }
+
+    /** Số đăng ký đang có trong index */
+    int size() {
+        int n = 0;
+        for (Shard sh : shards) n += sh.size();
+        return n;
+    }
+
+    /**
+     * Truy vấn đăng ký theo điều kiện lọc: từng phần được duyệt dưới read lock của riêng nó.
+     * Kết quả là bản chụp (thêm / xóa / đổi trạng thái sau đó không làm đổi kết quả),
+     * RegRow của từng phần tử được tạo khi đọc (xem Shard.Result).
+     */
+    List<RegRow> query(RegQuery q) {
+        List<Shard.Result> parts = new ArrayList<>();
+        for (Shard sh : shards) {
+            Shard.Result r = sh.query(q);
+            if (r != null && !r.isEmpty()) parts.add(r);
+        }
+        return new Joined(parts);
+    }
+
+    /** Các kết quả của từng phần nối tiếp nhau, truy cập ngẫu nhiên theo chỉ số */
+    private static final class Joined extends AbstractList<RegRow> implements RandomAccess {
+        private final List<Shard.Result> parts;
+        /** starts[i] = chỉ số đầu tiên của phần i, starts[parts.size()] = tổng số dòng (không có phần rỗng) */
+        private final int[] starts;
+
+        Joined(List<Shard.Result> parts) {
+            this.parts = parts;
+            starts = new int[parts.size() + 1];
+            for (int i = 0; i < parts.size(); i++) starts[i + 1] = starts[i] + parts.get(i).size();
+        }
+
+        @Override
+        public RegRow get(int i) {
+            if (i < 0 || i >= size()) throw new IndexOutOfBoundsException(i);
+            int p = Arrays.binarySearch(starts, i); // các phần đều khác rỗng nên starts tăng ngặt
+            if (p < 0) p = -p - 2;
+            return parts.get(p).get(i - starts[p]);
+        }
+
+        @Override
+        public int size() {
+            return starts[parts.size()];
+        }
+    }
+
+    /** Một phần của index (các MSSV có cùng shard(sid)) */
+    private static final class Shard {
+        private final Function<String, Student> students;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Dict studentIds, courseCodes, termNames, programNames;
+
+        /* theo sinh viên */
+        private String[] stuName;
+        private String[] stuKey;
+        /** CTĐT của sinh viên, -1 nếu chưa có thông tin sinh viên */
+        private int[] stuProgram;
+        /** Các dòng của sinh viên (stuRowCount[s] phần tử đầu có nghĩa) */
+        private int[][] stuRows;
+        private int[] stuRowCount;
+
+        /* theo học phần */
+        private String[] courseName;
+        private int[] courseCredits;
+        private String[] courseKey;
+
+        /* theo dòng */
+        private int[] rowStudent, rowCourse, rowTerm, rowStatus;
+        /** Mã đăng ký (RegItem.id) của dòng */
+        private long[] rowId;
+        private String[] rowDate;
+        private int rowLimit;
+        private BitSet alive;
+        /** Các số hiệu dòng đã xóa, dùng lại khi thêm dòng mới */
+        private int[] free;
+        private int freeCount;
+
+        /* index phụ (byStatus theo ordinal của RegStatus) */
+        private List<BitSet> byTerm, byStatus, byProgram;
+
+        /* số hiệu của lần thêm trước khi dựng lại (xem rebuild, rebuildShard) */
+        private String lastSid, lastTerm;
+        private int lastS, lastT;
+
+        Shard(Function<String, Student> students) {
+            this.students = students;
+            reset();
+        }
+
+        /**
+         * Thêm đăng ký khi dựng lại (nơi gọi giữ write lock, phần vừa reset).
+         * Nguồn không có đăng ký trùng (MSSV, học kỳ, học phần) nên không cần tìm dòng cũ;
+         * các đăng ký liên tiếp thường cùng MSSV và học kỳ nên nhớ số hiệu của lần trước
+         * (so sánh tham chiếu chuỗi là đủ cho trường hợp này).
+         */
+        void rebuildRow(String sid, String term, RegItem item) {
+            if (sid != lastSid) {
+                lastS = student(sid);
+                lastSid = sid;
+            }
+            if (term != lastTerm) {
+                lastT = term(term);
+                lastTerm = term;
+            }
+            addRow(item.id, lastS, lastT, course(item.course), item.status.ordinal(), item.date);
+        }
+
+        void clear() {
+            lock.writeLock().lock();
+            try {
+                reset();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Thêm đăng ký, hoặc cập nhật trạng thái / ngày nếu đã có */
+        void put(String sid, String term, RegItem item) {
+            lock.writeLock().lock();
+            try {
+                putLocked(sid, term, item);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Xóa đăng ký (không có thì bỏ qua) */
+        void remove(String sid, String term, String code) {
+            lock.writeLock().lock();
+            try {
+                int s = studentIds.find(sid), t = termNames.find(term), c = courseCodes.find(code);
+                if (s < 0 || t < 0 || c < 0) return;
+                int r = findRow(s, t, c);
+                if (r < 0) return;
+                alive.clear(r);
+                byTerm.get(t).clear(r);
+                byStatus.get(rowStatus[r]).clear(r);
+                if (stuProgram[s] >= 0) byProgram.get(stuProgram[s]).clear(r);
+                removeStudentRow(s, r);
+                rowDate[r] = null;
+                if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+                free[freeCount++] = r;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Chuyển mọi đăng ký của học kỳ cũ sang mã học kỳ mới */
+        void renameTerm(String oldTerm, String newTerm) {
+            lock.writeLock().lock();
+            try {
+                int o = termNames.find(oldTerm);
+                if (o < 0 || oldTerm.equals(newTerm)) return;
+                int n = term(newTerm);
+                BitSet rows = byTerm.get(o);
+                for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) rowTerm[r] = n;
+                byTerm.get(n).or(rows);
+                rows.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Cập nhật thông tin sinh viên (gọi sau khi thêm / sửa sinh viên) */
+        void studentChanged(Student st) {
+            lock.writeLock().lock();
+            try {
+                int s = studentIds.find(st.studentId);
+                if (s < 0) return; // chưa có đăng ký: thông tin được tra khi thêm dòng đầu tiên
+                int oldProgram = stuProgram[s];
+                setStudentInfo(s, st);
+                int newProgram = stuProgram[s];
+                if (oldProgram == newProgram) return;
+                for (int i = 0; i < stuRowCount[s]; i++) {
+                    int r = stuRows[s][i];
+                    if (oldProgram >= 0) byProgram.get(oldProgram).clear(r);
+                    byProgram.get(newProgram).set(r);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Cập nhật tên / số tín chỉ học phần (gọi sau khi thêm hoặc thay thế học phần) */
+        void courseChanged(Course course) {
+            lock.writeLock().lock();
+            try {
+                int c = courseCodes.find(course.code);
+                if (c >= 0) setCourseInfo(c, course);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return alive.cardinality();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /** Các dòng của phần này khớp điều kiện lọc, theo thứ tự số hiệu dòng (null nếu không có) */
+        Result query(RegQuery q) {
+            lock.readLock().lock();
+            try {
+                BitSet rows;
+                if (q.term != null) {
+                    int t = termNames.find(q.term);
+                    if (t < 0) return null;
+                    rows = (BitSet) byTerm.get(t).clone();
+                } else {
+                    rows = (BitSet) alive.clone();
+                }
+                if (q.statuses != null) {
+                    BitSet any = new BitSet();
+                    for (RegStatus status : q.statuses) any.or(byStatus.get(status.ordinal()));
+                    rows.and(any);
+                }
+                if (q.program != null) {
+                    int p = programNames.find(q.program);
+                    if (p < 0) return null;
+                    rows.and(byProgram.get(p));
+                }
+                int course = -1;
+                if (q.courseCode != null) {
+                    course = courseCodes.find(q.courseCode);
+                    if (course < 0) return null;
+                }
+
+                // Từ khóa: so khớp một lần cho mỗi sinh viên và mỗi học phần
+                boolean[] stuHit = null, courseHit = null;
+                if (q.text != null && !q.text.isEmpty()) {
+                    String needle = q.text.toLowerCase();
+                    stuHit = new boolean[studentIds.size()];
+                    for (int s = 0; s < stuHit.length; s++)
+                        stuHit[s] = stuKey[s] != null && stuKey[s].contains(needle);
+                    courseHit = new boolean[courseCodes.size()];
+                    for (int c = 0; c < courseHit.length; c++)
+                        courseHit[c] = courseKey[c].contains(needle);
+                }
+
+                Result result = new Result(stuHit == null ? rows.cardinality() : 16);
+                for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+                    int s = rowStudent[r], c = rowCourse[r];
+                    if (stuProgram[s] < 0) continue; // không có thông tin sinh viên
+                    if (course >= 0 && c != course) continue;
+                    if (stuHit != null && !stuHit[s] && !courseHit[c]) continue;
+                    result.add(rowId[r], s, c, rowTerm[r], rowStatus[r], stuProgram[s], rowDate[r]);
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Kết quả truy vấn lưu theo cột (vài mảng int thay cho một RegRow mỗi dòng)
+         *
+         * Giữ tham chiếu tới từ điển và thông tin sinh viên / học phần lúc truy vấn: số hiệu trong
+         * từ điển không bao giờ đổi nghĩa (reset tạo từ điển mới), nên kết quả vẫn đúng sau khi
+         * index bị thay đổi hoặc dựng lại. get(i) tạo RegRow dưới read lock, mỗi lần gọi một đối tượng mới.
+         */
+        final class Result extends AbstractList<RegRow> implements RandomAccess {
+            private final Dict sids = studentIds, codes = courseCodes, terms = termNames, programs = programNames;
+            private final String[] names = stuName, courses = courseName;
+            private final int[] credits = courseCredits;
+            private long[] id;
+            private int[] student, course, term, status, program;
+            private String[] date;
+            private int size;
+
+            Result(int capacity) {
+                capacity = Math.max(capacity, 16);
+                id = new long[capacity];
+                student = new int[capacity];
+                course = new int[capacity];
+                term = new int[capacity];
+                status = new int[capacity];
+                program = new int[capacity];
+                date = new String[capacity];
+            }
+
+            void add(long regId, int s, int c, int t, int st, int p, String d) {
+                if (size == student.length) {
+                    int n = size * 2;
+                    id = Arrays.copyOf(id, n);
+                    student = Arrays.copyOf(student, n);
+                    course = Arrays.copyOf(course, n);
+                    term = Arrays.copyOf(term, n);
+                    status = Arrays.copyOf(status, n);
+                    program = Arrays.copyOf(program, n);
+                    date = Arrays.copyOf(date, n);
+                }
+                id[size] = regId;
+                student[size] = s;
+                course[size] = c;
+                term[size] = t;
+                status[size] = st;
+                program[size] = p;
+                date[size] = d;
+                size++;
+            }
+
+            @Override
+            public RegRow get(int i) {
+                if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+                lock.readLock().lock(); // từ điển có thể đang được thêm tên mới
+                try {
+                    int s = student[i], c = course[i];
+                    return new RegRow(id[i], sids.name(s), names[s], programs.name(program[i]), terms.name(term[i]),
+                            codes.name(c), courses[c], credits[c], date[i], RegStatus.byOrdinal(status[i]));
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+
+        /* ---------- nội bộ (gọi khi đang giữ write lock) ---------- */
+
+        void reset() {
+            lastSid = lastTerm = null;
+            studentIds = new Dict();
+            courseCodes = new Dict();
+            termNames = new Dict();
+            programNames = new Dict();
+            stuName = new String[64];
+            stuKey = new String[64];
+            stuProgram = new int[64];
+            stuRows = new int[64][];
+            stuRowCount = new int[64];
+            courseName = new String[64];
+            courseCredits = new int[64];
+            courseKey = new String[64];
+            rowStudent = new int[1024];
+            rowCourse = new int[1024];
+            rowTerm = new int[1024];
+            rowStatus = new int[1024];
+            rowId = new long[1024];
+            rowDate = new String[1024];
+            rowLimit = 0;
+            alive = new BitSet();
+            free = new int[64];
+            freeCount = 0;
+            byTerm = new ArrayList<>();
+            byStatus = new ArrayList<>();
+            for (int i = 0; i < RegStatus.count(); i++) byStatus.add(new BitSet());
+            byProgram = new ArrayList<>();
+        }
+
+        private void putLocked(String sid, String term, RegItem item) {
+            int s = student(sid), t = term(term), c = course(item.course), st = item.status.ordinal();
+            int r = findRow(s, t, c);
+            if (r < 0) {
+                addRow(item.id, s, t, c, st, item.date);
+                return;
+            }
+            rowId[r] = item.id;
+            byStatus.get(rowStatus[r]).clear(r);
+            rowStatus[r] = st;
+            byStatus.get(st).set(r);
+            rowDate[r] = item.date;
+        }
+
+        /** Thêm dòng mới (nơi gọi đã biết dòng (s, t, c) chưa có) */
+        private void addRow(long id, int s, int t, int c, int st, String date) {
+            int r = newRow();
+            rowId[r] = id;
+            rowStudent[r] = s;
+            rowCourse[r] = c;
+            rowTerm[r] = t;
+            rowStatus[r] = st;
+            rowDate[r] = date;
+            alive.set(r);
+            byTerm.get(t).set(r);
+            byStatus.get(st).set(r);
+            if (stuProgram[s] >= 0) byProgram.get(stuProgram[s]).set(r);
+            addStudentRow(s, r);
+        }
+
+        /** Dòng (s, t, c) đang có, -1 nếu không có (mỗi sinh viên chỉ có vài chục dòng) */
+        private int findRow(int s, int t, int c) {
+            int[] rows = stuRows[s];
+            for (int i = 0; i < stuRowCount[s]; i++) {
+                int r = rows[i];
+                if (rowTerm[r] == t && rowCourse[r] == c) return r;
+            }
+            return -1;
+        }
+
+        private int newRow() {
+            if (freeCount > 0) return free[--freeCount];
+            if (rowLimit == rowStudent.length) {
+                int n = rowLimit * 2;
+                rowStudent = Arrays.copyOf(rowStudent, n);
+                rowCourse = Arrays.copyOf(rowCourse, n);
+                rowTerm = Arrays.copyOf(rowTerm, n);
+                rowStatus = Arrays.copyOf(rowStatus, n);
+                rowId = Arrays.copyOf(rowId, n);
+                rowDate = Arrays.copyOf(rowDate, n);
+            }
+            return rowLimit++;
+        }
+
+        private void addStudentRow(int s, int r) {
+            int[] rows = stuRows[s];
+            if (rows == null) rows = stuRows[s] = new int[4];
+            else if (stuRowCount[s] == rows.length) rows = stuRows[s] = Arrays.copyOf(rows, rows.length * 2);
+            rows[stuRowCount[s]++] = r;
+        }
+
+        private void removeStudentRow(int s, int r) {
+            int[] rows = stuRows[s];
+            for (int i = 0; i < stuRowCount[s]; i++) {
+                if (rows[i] == r) {
+                    rows[i] = rows[--stuRowCount[s]];
+                    return;
+                }
+            }
+        }
+
+        private int student(String sid) {
+            int s = studentIds.find(sid);
+            if (s >= 0) return s;
+            s = studentIds.id(sid);
+            if (s == stuName.length) {
+                int n = s * 2;
+                stuName = Arrays.copyOf(stuName, n);
+                stuKey = Arrays.copyOf(stuKey, n);
+                stuProgram = Arrays.copyOf(stuProgram, n);
+                stuRows = Arrays.copyOf(stuRows, n);
+                stuRowCount = Arrays.copyOf(stuRowCount, n);
+            }
+            stuProgram[s] = -1;
+            Student st = students.apply(sid);
+            if (st != null) setStudentInfo(s, st);
+            return s;
+        }
+
+        private void setStudentInfo(int s, Student st) {
+            stuName[s] = st.fullName;
+            stuKey[s] = (st.fullName + SEP + st.studentId).toLowerCase();
+            stuProgram[s] = program(st.program == null ? "" : st.program);
+        }
+
+        private int course(Course course) {
+            int c = courseCodes.find(course.code);
+            if (c >= 0) return c;
+            c = courseCodes.id(course.code);
+            if (c == courseName.length) {
+                int n = c * 2;
+                courseName = Arrays.copyOf(courseName, n);
+                courseCredits = Arrays.copyOf(courseCredits, n);
+                courseKey = Arrays.copyOf(courseKey, n);
+            }
+            setCourseInfo(c, course);
+            return c;
+        }
+
+        private void setCourseInfo(int c, Course course) {
+            courseName[c] = course.name;
+            courseCredits[c] = course.credits;
+            courseKey[c] = (course.name + SEP + course.code).toLowerCase();
+        }
+
+        private int term(String term) {
+            return idWithBits(termNames, byTerm, term);
+        }
+
+        private int program(String program) {
+            return idWithBits(programNames, byProgram, program);
+        }
+
+        /** Số hiệu trong từ điển, kèm BitSet index phụ tương ứng */
+        private static int idWithBits(Dict dict, List<BitSet> bits, String value) {
+            int id = dict.id(value);
+            if (id == bits.size()) bits.add(new BitSet());
+            return id;
+        }
+    }
+}
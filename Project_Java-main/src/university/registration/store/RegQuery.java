@@ -0,0 +1,61 @@
+package university.registration.store;
+
+import university.registration.model.RegStatus;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Điều kiện lọc đăng ký cho Storage.queryRegs
+ *
+ * Mỗi trường null nghĩa là không lọc theo trường đó.
+ * - term: mã học kỳ
+ * - statuses: tập trạng thái được chấp nhận (xem statusesShownAs)
+ * - program: chương trình đào tạo (Khoa/Viện) của sinh viên
+ * - courseCode: mã học phần
+ * - text: từ khóa, khớp không phân biệt hoa/thường với họ tên, MSSV,
+ *   tên học phần hoặc mã học phần
+ */
+public class RegQuery {
+    public String term;
+    public Set<RegStatus> statuses;
+    public String program;
+    public String courseCode;
+    public String text;
+
+    /**
+     * Tạo điều kiện lọc từ các ô lọc trên màn hình duyệt ("Tất cả" hoặc null = không lọc).
+     *
+     * @param pendingLabel nhãn mà màn hình dùng cho đăng ký chờ duyệt
+     *                     ("Chờ duyệt" hoặc "Chờ xử lý"); "Đã gửi" được hiển thị bằng nhãn này
+     */
+    public static RegQuery fromFilters(String searchText, String shownStatus, String term,
+                                       String program, String pendingLabel) {
+        RegQuery q = new RegQuery();
+        q.text = searchText == null || searchText.isEmpty() ? null : searchText;
+        q.term = isAll(term) ? null : term;
+        q.program = isAll(program) ? null : program;
+        q.statuses = isAll(shownStatus) ? null : statusesShownAs(shownStatus, pendingLabel);
+        return q;
+    }
+
+    /**
+     * Các trạng thái được hiển thị thành shownStatus trên màn hình.
+     * Ví dụ với pendingLabel = "Chờ duyệt": "Chờ duyệt" -> {SUBMITTED}, "Đã từ chối" -> {REJECTED}
+     * ("Đã gửi" luôn hiển thị bằng pendingLabel nên lọc theo "Đã gửi" không ra dòng nào)
+     */
+    public static Set<RegStatus> statusesShownAs(String shownStatus, String pendingLabel) {
+        if (shownStatus.equals(pendingLabel)) return EnumSet.of(RegStatus.SUBMITTED);
+        if (RegStatus.SUBMITTED.label.equals(shownStatus)) return EnumSet.noneOf(RegStatus.class);
+        return EnumSet.of(RegStatus.of(shownStatus));
+    }
+
+    /** Nhãn hiển thị của trạng thái trên màn hình duyệt (Đã gửi -> pendingLabel) */
+    public static String shownAs(RegStatus status, String pendingLabel) {
+        return status.isPending() ? pendingLabel : status.label;
+    }
+
+    private static boolean isAll(String value) {
+        return value == null || value.equals("Tất cả");
+    }
+}
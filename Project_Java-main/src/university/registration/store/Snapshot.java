@@ -0,0 +1,398 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Ảnh chụp (snapshot) toàn bộ dữ liệu của Memory ra một file nhị phân gọn
+ *
+ * Bố cục file (big-endian):
+ * - Header: magic "QLHP", version, startGen (đoạn nhật ký đầu tiên cần replay sau snapshot),
+ *   mã đăng ký cấp tiếp theo
+ * - Bảng chuỗi (string pool): mỗi chuỗi khác nhau chỉ ghi một lần [int độ dài][UTF-8],
+ *   phần còn lại của file chỉ tham chiếu chuỗi bằng chỉ số int (-1 = null)
+ * - Tài khoản PĐT, CTĐT, học phần (giữ thứ tự), học kỳ, TermSetting
+ * - Offering theo học kỳ (học phần tham chiếu theo chỉ số trong bảng học phần)
+ * - Sinh viên (kèm mật khẩu), đăng ký theo sinh viên/học kỳ (kèm mã đăng ký)
+ * - Danh sách chờ của từng offering (giữ thứ tự)
+ *
+ * Khi nạp:
+ * - File được map vào bộ nhớ (FileChannel.map) và đọc thẳng từ MappedByteBuffer
+ * - Mọi RegItem của cùng một học phần dùng chung một đối tượng Course,
+ *   mọi ngày/trạng thái giống nhau dùng chung một String (nhờ bảng chuỗi)
+ * - Số chỗ đã giữ, bộ đếm đăng ký và index chính được dựng ngay trong lượt đọc đăng ký (Memory.Loader),
+ *   index ngược và index duyệt đăng ký dựng trên luồng nền; không lưu trong file
+ * - Sinh viên được đặt thẳng vào Memory (loadStudent), không qua kiểm tra / nhật ký của addStudent
+ *
+ * Giới hạn: file snapshot tối đa 2GB (một lần map).
+ */
+final class Snapshot {
+
+    static final int MAGIC = 0x514C4850; // "QLHP"
+    static final int VERSION = 3;
+
+    private Snapshot() {}
+
+    /* ---------- ghi ---------- */
+
+    /** Bảng chuỗi dùng khi ghi: chuỗi -> chỉ số */
+    private static final class StringPool {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int id(String s) {
+            if (s == null) return -1;
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = values.size();
+                ids.put(s, id);
+                values.add(s);
+            }
+            return id;
+        }
+    }
+
+    /** Ghi snapshot vào file tạm, fsync rồi đổi tên đè lên file cũ (nguyên tử) */
+    static void write(Path file, long startGen) throws IOException {
+        StringPool pool = new StringPool();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            writeBody(out, pool);
+        }
+        // Đọc sau khi ghi đăng ký: lớn hơn mọi mã đã ghi (mã cấp trong lúc chụp nằm trong nhật ký)
+        long nextRegId = Memory.nextRegId();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(startGen);
+            out.writeLong(nextRegId);
+            out.writeInt(pool.values.size());
+            for (String s : pool.values) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(b.length);
+                out.write(b);
+            }
+            body.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeBody(DataOutputStream out, StringPool pool) throws IOException {
+        // Tài khoản PĐT
+        Map<String, String> admins = new LinkedHashMap<>(Memory.adminPasswords);
+        out.writeInt(admins.size());
+        for (var e : admins.entrySet()) {
+            out.writeInt(pool.id(e.getKey()));
+            out.writeInt(pool.id(e.getValue()));
+        }
+
+        // CTĐT
+        List<String> programs = new ArrayList<>(Memory.programs);
+        out.writeInt(programs.size());
+        for (String p : programs) out.writeInt(pool.id(p));
+
+        // Học phần (copy trong khóa của synchronizedMap để giữ thứ tự)
+        List<Course> courses;
+        synchronized (Memory.courses) {
+            courses = new ArrayList<>(Memory.courses.values());
+        }
+        Map<String, Integer> courseIds = new HashMap<>();
+        out.writeInt(courses.size());
+        for (Course c : courses) {
+            courseIds.put(c.code, courseIds.size());
+            out.writeInt(pool.id(c.code));
+            out.writeInt(pool.id(c.name));
+            out.writeInt(c.credits);
+        }
+
+        // Học kỳ và cấu hình
+        List<String> terms = new ArrayList<>(Memory.terms);
+        out.writeInt(terms.size());
+        for (String t : terms) out.writeInt(pool.id(t));
+        var settings = new LinkedHashMap<>(Memory.termSettings);
+        out.writeInt(settings.size());
+        for (var e : settings.entrySet()) {
+            TermSetting t = e.getValue();
+            out.writeInt(pool.id(e.getKey()));
+            out.writeBoolean(t.registrationOpen);
+            out.writeInt(pool.id(t.termName));
+            out.writeInt(pool.id(t.academicYear));
+            out.writeLong(t.startDate == null ? Long.MIN_VALUE : t.startDate.getTime());
+            out.writeLong(t.endDate == null ? Long.MIN_VALUE : t.endDate.getTime());
+        }
+
+        // Offering (bỏ qua offering của học phần vừa bị xóa trong lúc chụp)
+        var offerings = new LinkedHashMap<>(Memory.offerings);
+        out.writeInt(offerings.size());
+        for (var t : offerings.entrySet()) {
+            List<Map.Entry<String, Offering>> byCode = new ArrayList<>();
+            for (var e : t.getValue().entrySet())
+                if (courseIds.containsKey(e.getKey())) byCode.add(e);
+            out.writeInt(pool.id(t.getKey()));
+            out.writeInt(byCode.size());
+            for (var e : byCode) {
+                Offering o = e.getValue();
+                out.writeInt(courseIds.get(e.getKey()));
+                out.writeBoolean(o.open);
+                out.writeInt(pool.id(o.allowedProgram));
+                out.writeInt(o.capacity);
+            }
+        }
+
+        // Sinh viên
+        List<Student> students = new ArrayList<>(Memory.studentsById.values());
+        out.writeInt(students.size());
+        for (Student s : students) {
+            out.writeInt(pool.id(s.studentId));
+            out.writeInt(pool.id(s.fullName));
+            out.writeInt(pool.id(s.dob));
+            out.writeInt(pool.id(s.address));
+            out.writeInt(pool.id(s.email));
+            out.writeInt(pool.id(s.program));
+            out.writeInt(pool.id(s.password));
+        }
+
+        // Đăng ký: MSSV -> học kỳ -> danh sách RegItem
+        var regs = new ArrayList<>(Memory.regs.entrySet());
+        out.writeInt(regs.size());
+        for (var s : regs) {
+            var byTerm = new ArrayList<>(s.getValue().entrySet());
+            out.writeInt(pool.id(s.getKey()));
+            out.writeInt(byTerm.size());
+            for (var t : byTerm) {
+                List<RegItem> items = new ArrayList<>(t.getValue());
+                out.writeInt(pool.id(t.getKey()));
+                out.writeInt(items.size());
+                for (RegItem it : items) writeItem(out, pool, courseIds, it);
+            }
+        }
+
+        // Danh sách chờ: [học kỳ][số người][MSSV + RegItem]...
+        List<Object[]> groups = new ArrayList<>();
+        for (var t : offerings.entrySet()) {
+            for (Offering o : t.getValue().values()) {
+                List<Offering.Waiting> waiting = new ArrayList<>(o.waitlist);
+                if (!waiting.isEmpty()) groups.add(new Object[]{t.getKey(), waiting});
+            }
+        }
+        out.writeInt(groups.size());
+        for (Object[] g : groups) {
+            @SuppressWarnings("unchecked")
+            List<Offering.Waiting> waiting = (List<Offering.Waiting>) g[1];
+            out.writeInt(pool.id((String) g[0]));
+            out.writeInt(waiting.size());
+            for (Offering.Waiting w : waiting) {
+                out.writeInt(pool.id(w.studentId));
+                writeItem(out, pool, courseIds, w.item);
+            }
+        }
+    }
+
+    private static void writeItem(DataOutputStream out, StringPool pool, Map<String, Integer> courseIds,
+                                  RegItem it) throws IOException {
+        Integer course = courseIds.get(it.course.code);
+        out.writeInt(course == null ? -1 : course);
+        out.writeInt(pool.id(it.date));
+        out.writeInt(pool.id(it.status.label));
+        out.writeLong(it.id);
+    }
+
+    /* ---------- đọc ---------- */
+
+    /** Trạng thái khi đọc: buffer đã map, bảng chuỗi và bảng học phần */
+    private static final class Reader {
+        final ByteBuffer buf;
+        String[] strings;
+        /** Trạng thái đã đọc theo số hiệu chuỗi (mỗi chuỗi trạng thái chỉ phải so khớp một lần) */
+        RegStatus[] statuses;
+        Course[] courses;
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        String str() {
+            int id = buf.getInt();
+            return id < 0 ? null : strings[id];
+        }
+
+        Date date() {
+            long millis = buf.getLong();
+            return millis == Long.MIN_VALUE ? null : new Date(millis);
+        }
+
+        /** RegItem dùng chung Course; null nếu học phần đã bị xóa lúc chụp */
+        RegItem item() {
+            int course = buf.getInt();
+            String date = str();
+            RegStatus status = status(buf.getInt());
+            long id = buf.getLong();
+            if (course < 0) return null;
+            RegItem it = new RegItem(courses[course], date, status);
+            it.id = id;
+            return it;
+        }
+
+        RegStatus status(int id) {
+            if (statuses == null) statuses = new RegStatus[strings.length];
+            RegStatus s = statuses[id];
+            if (s == null) s = statuses[id] = RegStatus.of(strings[id]);
+            return s;
+        }
+    }
+
+    /**
+     * Xóa dữ liệu hiện tại trong Memory và nạp lại từ snapshot.
+     *
+     * @return startGen: chỉ cần replay các đoạn nhật ký từ số này trở đi
+     */
+    static long read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            try {
+                if (mapped.getInt() != MAGIC) throw new IOException("File snapshot không hợp lệ: " + file);
+                int version = mapped.getInt();
+                if (version != VERSION)
+                    throw new IOException("Không hỗ trợ snapshot phiên bản " + version);
+                long startGen = mapped.getLong();
+                long nextRegId = mapped.getLong();
+                Reader r = new Reader(mapped);
+                readStrings(r);
+                Memory.clear();
+                Memory.advanceRegId(nextRegId);
+                readBody(r);
+                return startGen;
+            } catch (BufferUnderflowException e) {
+                throw new IOException("File snapshot bị cắt cụt: " + file, e);
+            }
+        }
+    }
+
+    private static void readStrings(Reader r) {
+        ByteBuffer buf = r.buf;
+        int n = buf.getInt();
+        r.strings = new String[n];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < n; i++) {
+            int len = buf.getInt();
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(scratch, 0, len);
+            r.strings[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void readBody(Reader r) {
+        ByteBuffer buf = r.buf;
+
+        int n = buf.getInt();
+        for (int i = 0; i < n; i++) Memory.adminPasswords.put(r.str(), r.str());
+
+        n = buf.getInt();
+        List<String> programs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) programs.add(r.str());
+        Memory.programs.addAll(programs);
+
+        n = buf.getInt();
+        r.courses = new Course[n];
+        for (int i = 0; i < n; i++) {
+            r.courses[i] = new Course(r.str(), r.str(), buf.getInt());
+            Memory.courses.put(r.courses[i].code, r.courses[i]);
+        }
+
+        n = buf.getInt();
+        List<String> terms = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) terms.add(r.str());
+        Memory.terms.addAll(terms);
+        n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            String term = r.str();
+            boolean open = buf.get() != 0;
+            String name = r.str(), year = r.str();
+            Memory.termSettings.put(term, new TermSetting(open, name, year, r.date(), r.date()));
+        }
+
+        n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            var byCode = Memory.offerings.computeIfAbsent(r.str(), t -> new ConcurrentHashMap<>());
+            int m = buf.getInt();
+            for (int j = 0; j < m; j++) {
+                Course c = r.courses[buf.getInt()];
+                boolean open = buf.get() != 0;
+                String program = r.str();
+                byCode.put(c.code, new Offering(open, program, buf.getInt()));
+            }
+        }
+
+        n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            Student s = new Student(r.str(), r.str(), r.str(), r.str(), r.str(), r.str());
+            Memory.loadStudent(s, r.str());
+        }
+
+        // Đăng ký được đặt thẳng vào regs; bộ đếm, index chính và số chỗ dựng ngay trong lượt đọc (Memory.Loader)
+        Memory.Loader loader = new Memory.Loader();
+        n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            String sid = r.str();
+            int termCount = buf.getInt();
+            var byTerm = Memory.regs.computeIfAbsent(sid, k -> new ConcurrentHashMap<>());
+            for (int j = 0; j < termCount; j++) {
+                String term = r.str();
+                int m = buf.getInt();
+                List<RegItem> items = new ArrayList<>(m);
+                for (int k = 0; k < m; k++) {
+                    RegItem it = r.item();
+                    if (it != null) {
+                        items.add(it);
+                        loader.add(sid, term, it);
+                    }
+                }
+                byTerm.put(term, new CopyOnWriteArrayList<>(items));
+            }
+        }
+        loader.finish();
+
+        n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            String term = r.str();
+            int m = buf.getInt();
+            for (int j = 0; j < m; j++) {
+                String sid = r.str();
+                RegItem it = r.item();
+                if (it != null) Memory.restoreReg(sid, term, it, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package university.registration.store;
+
+import university.registration.model.RegStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bộ đếm số đăng ký theo học kỳ và trạng thái: Map<Học kỳ, AtomicLongArray[ordinal của RegStatus]>
+ *
+ * Backend cập nhật bộ đếm ngay khi thêm / xóa / đổi trạng thái đăng ký (add, move),
+ * nên các con số trên màn hình tổng quan ("Chờ duyệt: N") là một lần đọc O(1), không duyệt regs.
+ * Không khóa: mỗi ô đếm là một phần tử của AtomicLongArray, cập nhật bằng getAndAdd.
+ *
+ * Giữa hai thao tác add / move của cùng một thay đổi, thread khác có thể đọc được số đếm trung gian
+ * (ví dụ tổng theo trạng thái lệch 1 trong chốc lát); từng ô đếm luôn đúng sau khi thay đổi xong.
+ */
+final class StatusCounters {
+
+    private final Map<String, AtomicLongArray> byTerm = new ConcurrentHashMap<>();
+
+    /** Cộng delta (+1 khi thêm, -1 khi xóa, cả số đếm của một học kỳ khi nạp snapshot) vào ô (học kỳ, trạng thái) */
+    void add(String term, RegStatus status, long delta) {
+        counters(term).getAndAdd(status.ordinal(), delta);
+    }
+
+    /** Một đăng ký của học kỳ chuyển từ trạng thái from sang to */
+    void move(String term, RegStatus from, RegStatus to) {
+        if (from == to) return;
+        AtomicLongArray c = counters(term);
+        c.getAndIncrement(to.ordinal());
+        c.getAndDecrement(from.ordinal());
+    }
+
+    /**
+     * Số đăng ký ở trạng thái status trong học kỳ (term = null: mọi học kỳ,
+     * status = null: mọi trạng thái)
+     */
+    long count(String term, RegStatus status) {
+        if (term != null) return sum(byTerm.get(term), status);
+        long total = 0;
+        for (AtomicLongArray c : byTerm.values()) total += sum(c, status);
+        return total;
+    }
+
+    /** Chuyển bộ đếm của học kỳ cũ sang mã học kỳ mới */
+    void renameTerm(String oldTerm, String newTerm) {
+        AtomicLongArray c = byTerm.remove(oldTerm);
+        if (c != null) byTerm.put(newTerm, c);
+    }
+
+    /** Đặt lại toàn bộ về 0 (trước khi dựng lại từ dữ liệu gốc) */
+    void clear() {
+        byTerm.clear();
+    }
+
+    private AtomicLongArray counters(String term) {
+        return byTerm.computeIfAbsent(term, t -> new AtomicLongArray(RegStatus.count()));
+    }
+
+    private static long sum(AtomicLongArray c, RegStatus status) {
+        if (c == null) return 0;
+        if (status != null) return c.get(status.ordinal());
+        long total = 0;
+        for (int i = 0; i < c.length(); i++) total += c.get(i);
+        return total;
+    }
+}
@@ -0,0 +1,245 @@
+package university.registration.store;
+
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Giao diện kho dữ liệu (storage SPI) mà tầng Service và UI sử dụng
+ *
+ * Mọi thao tác đọc/ghi dữ liệu đều đi qua interface này thay vì gọi thẳng Memory,
+ * để có thể thay backend mà không sửa Service/UI:
+ * - MemoryStorage: dữ liệu trong RAM (Memory + Journal) - mặc định
+ * - FileStorage: sinh viên và đăng ký nằm trong file, đọc qua bộ đệm trang (PageCache);
+ *   chỉ bền sau flush(), các index theo đăng ký vẫn nằm trong heap (xem FileStorage)
+ *
+ * Chọn backend bằng StorageProvider (System property registration.storage = memory | file).
+ *
+ * Quy ước:
+ * - RegItem trả về từ loadReg/regsOf chỉ để đọc: FileStorage trả về bản sao,
+ *   muốn đổi trạng thái thì gọi setStatus theo mã đăng ký (RegItem.id) hoặc mã học phần
+ * - Mỗi đăng ký được kho cấp một mã (RegItem.id) khi thêm lần đầu; mã không đổi và không bị cấp lại
+ * - Các thao tác ghi đều an toàn khi nhiều thread gọi cùng lúc
+ */
+public interface Storage {
+
+    /** Duyệt từng đăng ký trong kho (dùng cho các màn hình quét toàn bộ) */
+    @FunctionalInterface
+    interface RegVisitor {
+        void visit(String studentId, String term, RegItem item);
+    }
+
+    /**
+     * Kết quả đổi trạng thái hàng loạt (setStatuses): số đăng ký đã đổi
+     * và lý do của từng đăng ký không đổi được, theo thứ tự xử lý
+     */
+    final class BatchResult {
+        public int changed;
+        /** Mã đăng ký -> lý do không đổi được trạng thái */
+        public final Map<Long, String> failures = new LinkedHashMap<>();
+
+        public void fail(long regId, String reason) {
+            failures.put(regId, reason);
+        }
+    }
+
+    /**
+     * Kết quả của một lượt thêm đăng ký (addReg)
+     * - ADDED: đã thêm (và đã giữ chỗ nếu lớp có sĩ số)
+     * - DUPLICATE: sinh viên đã đăng ký môn này trong học kỳ
+     * - FULL: lớp đã đầy, không thêm
+     * - WAITLISTED: lớp đã đầy, đã xếp vào danh sách chờ
+     */
+    enum AddResult { ADDED, DUPLICATE, FULL, WAITLISTED }
+
+    /* ---------- tài khoản ---------- */
+
+    /** Kiểm tra tài khoản PĐT */
+    boolean verifyAdmin(String username, String password);
+
+    /** Kiểm tra đăng nhập sinh viên theo MSSV */
+    boolean verifyStudent(String studentId, String password);
+
+    /* ---------- sinh viên ---------- */
+
+    /** Tìm sinh viên theo MSSV (null nếu không có) */
+    Student findStudent(String studentId);
+
+    /** Tìm MSSV theo email, không phân biệt hoa/thường (null nếu không có) */
+    String findStudentIdByEmail(String email);
+
+    /** Thêm sinh viên mới (ném RuntimeException nếu trùng MSSV/email hoặc thiếu thông tin) */
+    void addStudent(Student student, String password);
+
+    /** Số sinh viên trong kho */
+    int studentCount();
+
+    /** Danh sách chương trình đào tạo */
+    List<String> programs();
+
+    /* ---------- học phần ---------- */
+
+    /** Tất cả học phần, theo thứ tự thêm vào (bản copy) */
+    Collection<Course> courses();
+
+    /** Tìm học phần theo mã (null nếu không có) */
+    Course findCourse(String code);
+
+    /**
+     * Tìm học phần theo từ khóa trên mã / tên, không phân biệt hoa thường và dấu tiếng Việt,
+     * xếp theo mức độ khớp. Từ khóa rỗng: tất cả học phần theo thứ tự thêm vào.
+     */
+    List<Course> searchCourses(String text);
+
+    /**
+     * Học phần sinh viên thuộc CTĐT program có thể đăng ký trong học kỳ term
+     * (offering đang mở, cho phép "Tất cả" hoặc đúng CTĐT), theo thứ tự danh mục.
+     * Danh sách bất biến, dùng chung giữa các phiên (không được sửa); contains theo mã O(1).
+     */
+    List<Course> availableCourses(String term, String program);
+
+    /**
+     * Phiên bản danh mục: tăng mỗi khi học phần hoặc offering thay đổi.
+     * Dùng để biết kết quả lọc danh mục đã cache còn dùng được không.
+     */
+    long catalogVersion();
+
+    /** Thêm hoặc thay thế học phần */
+    void addCourse(Course course);
+
+    /** Học phần chưa có ai đăng ký ở bất kỳ học kỳ nào thì mới được xóa */
+    boolean canDeleteCourse(String code);
+
+    /** Xóa học phần và các offering của nó */
+    void deleteCourse(String code);
+
+    /** Sinh viên đã đăng ký một học phần, nhóm theo học kỳ */
+    Map<String, Set<String>> enrolledStudents(String code);
+
+    /** Số đăng ký của một học phần trong một học kỳ */
+    int countRegByCourse(String term, String code);
+
+    /**
+     * Số đăng ký ở trạng thái status trong học kỳ (term = null: mọi học kỳ, status = null: mọi trạng thái).
+     * Đọc từ bộ đếm cập nhật theo từng thay đổi (O(1)), không khóa, không duyệt đăng ký.
+     */
+    long countRegs(String term, RegStatus status);
+
+    /* ---------- học kỳ ---------- */
+
+    /** Danh sách học kỳ (bản copy) */
+    List<String> terms();
+
+    /** Cấu hình học kỳ (null nếu chưa có) */
+    TermSetting termSetting(String term);
+
+    boolean isTermOpen(String term);
+
+    void setTermOpen(String term, boolean open);
+
+    /** Thêm học kỳ mới hoặc cập nhật cấu hình học kỳ đã có */
+    void putTerm(String term, TermSetting setting);
+
+    /** Xóa học kỳ cùng cấu hình và offering của học kỳ đó */
+    void deleteTerm(String term);
+
+    /** Đổi mã học kỳ cho toàn bộ dữ liệu theo học kỳ */
+    void renameTerm(String oldTerm, String newTerm);
+
+    /* ---------- offering ---------- */
+
+    Offering getOffering(String term, String code);
+
+    void setOffering(String term, String code, boolean open, String allowedProgram);
+
+    /** Đặt sĩ số (0 = không giới hạn); tăng sĩ số thì người chờ được đưa vào lớp */
+    void setCapacity(String term, String code, int capacity);
+
+    /* ---------- đăng ký ---------- */
+
+    /** Đăng ký của sinh viên trong một học kỳ (list rỗng nếu chưa có) */
+    List<RegItem> loadReg(String studentId, String term);
+
+    /** Đăng ký của sinh viên ở mọi học kỳ: Map<Học kỳ, List<RegItem>> (map rỗng nếu chưa có) */
+    Map<String, List<RegItem>> regsOf(String studentId);
+
+    /** Thêm đăng ký, giữ chỗ theo sĩ số; lớp đầy và waitIfFull thì xếp vào danh sách chờ */
+    AddResult addReg(String studentId, String term, RegItem item, boolean waitIfFull);
+
+    /** Xóa các đăng ký theo mã học phần; chỗ trống được nhường cho danh sách chờ */
+    void deleteRegs(String studentId, String term, Set<String> codes);
+
+    /**
+     * Đổi trạng thái đăng ký theo mã học phần.
+     * Chỉ cho phép các bước chuyển trong RegStatus.canMoveTo, ngược lại ném RuntimeException
+     * (ví dụ duyệt lại một đăng ký đã bị từ chối).
+     *
+     * @param date ngày đăng ký mới (null = giữ nguyên)
+     * @return false nếu sinh viên không đăng ký học phần này trong học kỳ
+     */
+    boolean setStatus(String studentId, String term, String code, RegStatus status, String date);
+
+    /** Đổi trạng thái, giữ nguyên ngày đăng ký */
+    default boolean setStatus(String studentId, String term, String code, RegStatus status) {
+        return setStatus(studentId, term, code, status, null);
+    }
+
+    /**
+     * Đổi trạng thái đăng ký theo mã đăng ký (RegItem.id / RegRow.id): tra index chính,
+     * không tìm theo tên / mã học phần. Bước chuyển không hợp lệ thì ném RuntimeException như trên.
+     *
+     * @param date ngày đăng ký mới (null = giữ nguyên)
+     * @return false nếu không có đăng ký mang mã này (đã bị xóa)
+     */
+    boolean setStatus(long regId, RegStatus status, String date);
+
+    /** Đổi trạng thái theo mã đăng ký, giữ nguyên ngày đăng ký */
+    default boolean setStatus(long regId, RegStatus status) {
+        return setStatus(regId, status, null);
+    }
+
+    /**
+     * Đổi trạng thái hàng loạt theo mã đăng ký (duyệt / từ chối cả trang kết quả lọc) trong một lượt.
+     * Đăng ký không còn hoặc không được chuyển sang status không làm dừng cả lô:
+     * lý do được ghi vào BatchResult.failures, các đăng ký còn lại vẫn được đổi.
+     * Mặc định gọi setStatus cho từng mã; các backend gộp khóa / ghi đĩa cho cả lô.
+     */
+    default BatchResult setStatuses(Collection<Long> regIds, RegStatus status) {
+        BatchResult result = new BatchResult();
+        for (long id : regIds) {
+            try {
+                if (setStatus(id, status)) result.changed++;
+                else result.fail(id, "Không tìm thấy đăng ký");
+            } catch (RuntimeException ex) {
+                result.fail(id, ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /** Đăng ký theo mã đăng ký (bản chụp kèm thông tin sinh viên), null nếu không có */
+    RegRow findReg(long regId);
+
+    /** Duyệt mọi đăng ký trong kho; visitor được phép gọi setStatus */
+    void forEachReg(RegVisitor visitor);
+
+    /**
+     * Truy vấn đăng ký theo điều kiện lọc (màn hình duyệt đăng ký), dùng index phụ
+     * thay vì duyệt toàn bộ. Bỏ qua đăng ký của MSSV không có thông tin sinh viên.
+     * Danh sách trả về chỉ đọc; RegRow được tạo khi đọc từng phần tử (mỗi lần get một đối tượng mới).
+     */
+    List<RegRow> queryRegs(RegQuery query);
+
+    /** Ghi các thay đổi còn trong bộ đệm xuống đĩa (no-op với backend không có bộ đệm) */
+    default void flush() {}
+}
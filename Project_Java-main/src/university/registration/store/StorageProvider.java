@@ -0,0 +1,60 @@
+package university.registration.store;
+
+import java.nio.file.Path;
+
+/**
+ * Chọn backend Storage cho toàn ứng dụng
+ *
+ * System property:
+ * - registration.storage = memory (mặc định) | file
+ * - registration.storageDir: thư mục của FileStorage
+ *   (mặc định: thư mục con "file-store" trong registration.dataDir, hoặc "file-store")
+ *
+ * Backend được tạo lần đầu khi gọi get(), sau Memory.init() (FileStorage chép dữ liệu
+ * từ Memory khi thư mục còn trống). Benchmark có thể đổi backend bằng set().
+ * Backend tạo qua create() được bọc trong TimedStorage (đo thời gian ở ranh giới kho, xem Metrics).
+ */
+public final class StorageProvider {
+
+    private static volatile Storage current;
+
+    private StorageProvider() {}
+
+    /** Backend đang dùng (tạo theo cấu hình nếu chưa có) */
+    public static Storage get() {
+        Storage s = current;
+        if (s == null) {
+            synchronized (StorageProvider.class) {
+                s = current;
+                if (s == null) current = s = create(System.getProperty("registration.storage", "memory"));
+            }
+        }
+        return s;
+    }
+
+    /** Thay backend (dùng cho benchmark so sánh các backend) */
+    public static void set(Storage storage) {
+        current = storage;
+    }
+
+    /** Tạo backend theo tên: "memory" hoặc "file" */
+    public static Storage create(String kind) {
+        switch (kind) {
+            case "memory":
+                return new TimedStorage(new MemoryStorage());
+            case "file":
+                FileStorage fs = FileStorage.open(storageDir());
+                Runtime.getRuntime().addShutdownHook(new Thread(fs::close, "file-storage-shutdown"));
+                return new TimedStorage(fs);
+            default:
+                throw new IllegalArgumentException("Không hỗ trợ registration.storage=" + kind);
+        }
+    }
+
+    private static Path storageDir() {
+        String d = System.getProperty("registration.storageDir");
+        if (d != null && !d.isBlank()) return Path.of(d);
+        Path dataDir = Journal.configuredDir();
+        return dataDir == null ? Path.of("file-store") : dataDir.resolve("file-store");
+    }
+}
@@ -0,0 +1,254 @@
+package university.registration.store;
+
+import university.registration.metrics.Metrics;
+import university.registration.metrics.Timer;
+import university.registration.model.Course;
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.model.TermSetting;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bọc một backend Storage để đo thời gian ở ranh giới kho dữ liệu (xem Metrics)
+ *
+ * Đo các thao tác ghi và các thao tác đọc phải khóa / quét (Timer tên "Storage.method",
+ * các overload dùng chung một Timer). Tra cứu O(1) (findStudent, getOffering, ...) chỉ chuyển tiếp.
+ * Đo ở lớp bọc chứ không trong từng backend: lời gọi lồng bên trong backend
+ * (FileStorage.promoteWaiting gọi addReg, ...) không bị tính thêm lần nữa.
+ */
+final class TimedStorage implements Storage {
+
+    private static final Timer ADD_STUDENT = Metrics.timer("Storage.addStudent");
+    private static final Timer ADD_COURSE = Metrics.timer("Storage.addCourse");
+    private static final Timer DELETE_COURSE = Metrics.timer("Storage.deleteCourse");
+    private static final Timer ENROLLED_STUDENTS = Metrics.timer("Storage.enrolledStudents");
+    private static final Timer SET_TERM_OPEN = Metrics.timer("Storage.setTermOpen");
+    private static final Timer PUT_TERM = Metrics.timer("Storage.putTerm");
+    private static final Timer DELETE_TERM = Metrics.timer("Storage.deleteTerm");
+    private static final Timer RENAME_TERM = Metrics.timer("Storage.renameTerm");
+    private static final Timer SET_OFFERING = Metrics.timer("Storage.setOffering");
+    private static final Timer SET_CAPACITY = Metrics.timer("Storage.setCapacity");
+    private static final Timer ADD_REG = Metrics.timer("Storage.addReg");
+    private static final Timer DELETE_REGS = Metrics.timer("Storage.deleteRegs");
+    private static final Timer SET_STATUS = Metrics.timer("Storage.setStatus");
+    private static final Timer SET_STATUSES = Metrics.timer("Storage.setStatuses");
+    private static final Timer FOR_EACH_REG = Metrics.timer("Storage.forEachReg");
+    private static final Timer QUERY_REGS = Metrics.timer("Storage.queryRegs");
+    private static final Timer FLUSH = Metrics.timer("Storage.flush");
+
+    private final Storage delegate;
+
+    TimedStorage(Storage delegate) {
+        this.delegate = delegate;
+    }
+
+    /* ---------- tài khoản ---------- */
+
+    @Override
+    public boolean verifyAdmin(String username, String password) {
+        return delegate.verifyAdmin(username, password);
+    }
+
+    @Override
+    public boolean verifyStudent(String studentId, String password) {
+        return delegate.verifyStudent(studentId, password);
+    }
+
+    @Override
+    public Student findStudent(String studentId) {
+        return delegate.findStudent(studentId);
+    }
+
+    @Override
+    public String findStudentIdByEmail(String email) {
+        return delegate.findStudentIdByEmail(email);
+    }
+
+    @Override
+    public void addStudent(Student student, String password) {
+        ADD_STUDENT.run(() -> delegate.addStudent(student, password));
+    }
+
+    @Override
+    public int studentCount() {
+        return delegate.studentCount();
+    }
+
+    @Override
+    public List<String> programs() {
+        return delegate.programs();
+    }
+
+    /* ---------- học phần ---------- */
+
+    @Override
+    public Collection<Course> courses() {
+        return delegate.courses();
+    }
+
+    @Override
+    public Course findCourse(String code) {
+        return delegate.findCourse(code);
+    }
+
+    @Override
+    public List<Course> searchCourses(String text) {
+        return delegate.searchCourses(text);
+    }
+
+    @Override
+    public List<Course> availableCourses(String term, String program) {
+        return delegate.availableCourses(term, program);
+    }
+
+    @Override
+    public long catalogVersion() {
+        return delegate.catalogVersion();
+    }
+
+    @Override
+    public void addCourse(Course course) {
+        ADD_COURSE.run(() -> delegate.addCourse(course));
+    }
+
+    @Override
+    public boolean canDeleteCourse(String code) {
+        return delegate.canDeleteCourse(code);
+    }
+
+    @Override
+    public void deleteCourse(String code) {
+        DELETE_COURSE.run(() -> delegate.deleteCourse(code));
+    }
+
+    @Override
+    public Map<String, Set<String>> enrolledStudents(String code) {
+        return ENROLLED_STUDENTS.time(() -> delegate.enrolledStudents(code));
+    }
+
+    @Override
+    public int countRegByCourse(String term, String code) {
+        return delegate.countRegByCourse(term, code);
+    }
+
+    @Override
+    public long countRegs(String term, RegStatus status) {
+        return delegate.countRegs(term, status);
+    }
+
+    /* ---------- học kỳ, offering ---------- */
+
+    @Override
+    public List<String> terms() {
+        return delegate.terms();
+    }
+
+    @Override
+    public TermSetting termSetting(String term) {
+        return delegate.termSetting(term);
+    }
+
+    @Override
+    public boolean isTermOpen(String term) {
+        return delegate.isTermOpen(term);
+    }
+
+    @Override
+    public void setTermOpen(String term, boolean open) {
+        SET_TERM_OPEN.run(() -> delegate.setTermOpen(term, open));
+    }
+
+    @Override
+    public void putTerm(String term, TermSetting setting) {
+        PUT_TERM.run(() -> delegate.putTerm(term, setting));
+    }
+
+    @Override
+    public void deleteTerm(String term) {
+        DELETE_TERM.run(() -> delegate.deleteTerm(term));
+    }
+
+    @Override
+    public void renameTerm(String oldTerm, String newTerm) {
+        RENAME_TERM.run(() -> delegate.renameTerm(oldTerm, newTerm));
+    }
+
+    @Override
+    public Offering getOffering(String term, String code) {
+        return delegate.getOffering(term, code);
+    }
+
+    @Override
+    public void setOffering(String term, String code, boolean open, String allowedProgram) {
+        SET_OFFERING.run(() -> delegate.setOffering(term, code, open, allowedProgram));
+    }
+
+    @Override
+    public void setCapacity(String term, String code, int capacity) {
+        SET_CAPACITY.run(() -> delegate.setCapacity(term, code, capacity));
+    }
+
+    /* ---------- đăng ký ---------- */
+
+    @Override
+    public List<RegItem> loadReg(String studentId, String term) {
+        return delegate.loadReg(studentId, term);
+    }
+
+    @Override
+    public Map<String, List<RegItem>> regsOf(String studentId) {
+        return delegate.regsOf(studentId);
+    }
+
+    @Override
+    public AddResult addReg(String studentId, String term, RegItem item, boolean waitIfFull) {
+        return ADD_REG.time(() -> delegate.addReg(studentId, term, item, waitIfFull));
+    }
+
+    @Override
+    public void deleteRegs(String studentId, String term, Set<String> codes) {
+        DELETE_REGS.run(() -> delegate.deleteRegs(studentId, term, codes));
+    }
+
+    @Override
+    public boolean setStatus(String studentId, String term, String code, RegStatus status, String date) {
+        return SET_STATUS.time(() -> delegate.setStatus(studentId, term, code, status, date));
+    }
+
+    @Override
+    public boolean setStatus(long regId, RegStatus status, String date) {
+        return SET_STATUS.time(() -> delegate.setStatus(regId, status, date));
+    }
+
+    @Override
+    public BatchResult setStatuses(Collection<Long> regIds, RegStatus status) {
+        return SET_STATUSES.time(() -> delegate.setStatuses(regIds, status));
+    }
+
+    @Override
+    public RegRow findReg(long regId) {
+        return delegate.findReg(regId);
+    }
+
+    @Override
+    public void forEachReg(RegVisitor visitor) {
+        FOR_EACH_REG.run(() -> delegate.forEachReg(visitor));
+    }
+
+    @Override
+    public List<RegRow> queryRegs(RegQuery query) {
+        return QUERY_REGS.time(() -> delegate.queryRegs(query));
+    }
+
+    @Override
+    public void flush() {
+        FLUSH.run(delegate::flush);
+    }
+}
@@ -1,11 +1,15 @@
 package university.registration.ui;
 
+import university.registration.controller.AsyncAdminController;
 import university.registration.model.Course;
 import university.registration.model.Offering;
-import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
 import university.registration.model.Student;
 import university.registration.model.TermSetting;
-import university.registration.store.Memory;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 import university.registration.ui.components.CardPanel;
 import university.registration.ui.components.PlaceholderTextField;
 import java.text.SimpleDateFormat;
@@ -60,6 +64,13 @@ import java.util.List;
  */
 public class AdminFrame extends JFrame {
 
+    /**
+     * Kho dữ liệu (Memory hoặc file, chọn qua StorageProvider)
+     */
+    private final Storage store = StorageProvider.get();
+    // Thao tác hàng loạt chạy trên luồng nền (có tiến độ, hủy được)
+    private final AsyncAdminController adminController = new AsyncAdminController();
+
     /**
      * CardLayout để chuyển đổi giữa các panel (màn hình) khác nhau
      * 
@@ -122,15 +133,27 @@ public class AdminFrame extends JFrame {
     JTable courseTable;
     
     /**
-     * Model dữ liệu cho bảng học phần (courseTable)
+     * Model dữ liệu cho bảng học phần (courseTable): danh sách học phần đã lọc,
+     * các ô (loại, thời gian mở, trạng thái, số lượng đăng ký) được tính khi hiển thị
+     */
+    ListTableModel<Course> courseModel;
+    
+    /**
+     * Học kỳ và thời gian mở của lần lọc đang hiển thị trên bảng học phần
      */
-    DefaultTableModel courseModel;
+    CourseRows courseRowsShown = new CourseRows(null, "-", List.of());
     
     /**
      * TextField tìm kiếm học phần (theo mã hoặc tên)
      */
     JTextField searchCourseField = new JTextField();
     
+    /**
+     * Luồng lọc bảng học phần: gõ phím được gom lại, lọc trên luồng nền (xem SearchPipeline)
+     */
+    final SearchPipeline<String[], CourseRows> courseSearch = new SearchPipeline<>(
+            this::courseFilters, this::courseRows, this::showCourseRows);
+    
     /**
      * ComboBox lọc học phần theo trạng thái mở/đóng
      * 
@@ -169,21 +192,37 @@ public class AdminFrame extends JFrame {
     JTable approvalTable;
     
     /**
-     * Model dữ liệu cho bảng duyệt đăng ký (approvalTable)
+     * Model dữ liệu cho bảng duyệt đăng ký (approvalTable): bọc trực tiếp kết quả queryRegs,
+     * RegRow của dòng chỉ được tạo khi dòng được hiển thị / đọc
      */
-    DefaultTableModel approvalModel;
+    ListTableModel<RegRow> approvalModel;
     
     /**
      * TextField tìm kiếm đăng ký (theo tên/MSSV sinh viên, mã/tên học phần)
      */
     JTextField searchApprovalField = new JTextField();
     
+    /**
+     * Luồng lọc bảng duyệt đăng ký (truy vấn queryRegs chạy trên luồng nền)
+     */
+    final SearchPipeline<RegQuery, List<RegRow>> approvalSearch = new SearchPipeline<>(
+            this::approvalQuery, store::queryRegs, rows -> {
+                approvalModel.setRows(rows);
+                updatePendingCount();
+            });
+
+    /**
+     * Số đăng ký chờ duyệt của học kỳ đang lọc (đọc bộ đếm trạng thái của kho, không duyệt đăng ký)
+     */
+    final JLabel lbPendingCount = new JLabel();
+    
     /**
      * ComboBox lọc đăng ký theo trạng thái
      * 
-     * Các giá trị: "Tất cả", "Chờ duyệt", "Đã duyệt", "Từ chối"
+     * Các giá trị: "Tất cả", "Chờ duyệt" (Đã gửi), "Tạm", "Đã duyệt", "Đã từ chối"
      */
-    JComboBox<String> cbApprovalStatus = new JComboBox<>(new String[]{"Tất cả", "Chờ duyệt", "Đã duyệt", "Từ chối"});
+    JComboBox<String> cbApprovalStatus = new JComboBox<>(new String[]{
+            "Tất cả", "Chờ duyệt", RegStatus.DRAFT.label, RegStatus.APPROVED.label, RegStatus.REJECTED.label});
     
     /**
      * ComboBox lọc đăng ký theo học kỳ
@@ -218,6 +257,12 @@ public class AdminFrame extends JFrame {
      */
     JTextField searchSettingsField = new JTextField();
     
+    /**
+     * Luồng lọc bảng cài đặt học phần
+     */
+    final SearchPipeline<String[], List<Object[]>> settingsSearch = new SearchPipeline<>(
+            this::settingsFilters, this::settingsRows, rows -> SearchPipeline.setRows(settingsCourseModel, rows));
+    
     /**
      * ComboBox lọc học phần theo loại
      * 
@@ -258,6 +303,13 @@ public class AdminFrame extends JFrame {
      */
     JTextField searchTermField = new JTextField();
     
+    /**
+     * Luồng lọc bảng cài đặt kỳ học
+     */
+    final SearchPipeline<String, List<Object[]>> termSearch = new SearchPipeline<>(
+            () -> searchTermField.getText().toLowerCase().trim(), this::termRows,
+            rows -> SearchPipeline.setRows(termSettingsModel, rows));
+    
     /**
      * ComboBox lọc học kỳ theo năm học
      * 
@@ -668,11 +720,8 @@ public class AdminFrame extends JFrame {
                 BorderFactory.createEmptyBorder(8, 12, 8, 12)
         ));
         searchCourseField.setToolTipText("Tìm theo mã hoặc tên học phần...");
-        searchCourseField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { refreshCourseTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { refreshCourseTable(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { refreshCourseTable(); }
-        });
+        // Gõ phím: lọc trên luồng nền sau khi ngừng gõ (không chặn EDT)
+        courseSearch.attach(searchCourseField);
         
         // Trạng thái
         JLabel lbStatus = new JLabel("Trạng thái:");
@@ -719,15 +768,10 @@ public class AdminFrame extends JFrame {
         filterCard.add(filterPanel, BorderLayout.CENTER);
         
         // ========== TABLE SECTION ==========
-        courseModel = new DefaultTableModel(new Object[]{
+        courseModel = new ListTableModel<>(new String[]{
                 "Mã học phần", "Tên học phần", "Loại học phần", "Thời gian mở",
                 "Trạng thái", "Số lượng đăng ký", "Hành động"
-        }, 0) {
-            @Override
-            public boolean isCellEditable(int r, int c) {
-                return false;
-            }
-        };
+        }, this::courseCell);
 
         courseTable = new JTable(courseModel) {
             @Override
@@ -844,7 +888,7 @@ public class AdminFrame extends JFrame {
      * Màu sắc cột "Trạng thái":
      * - Xanh lá: Đã duyệt
      * - Đỏ: Đã từ chối
-     * - Vàng: Chờ duyệt (Tạm, Đã gửi)
+     * - Vàng: Chờ duyệt (Đã gửi), Tạm (chưa gửi - không duyệt / từ chối được)
      * 
      * @return Panel chứa giao diện duyệt đăng ký học phần
      */
@@ -877,11 +921,8 @@ public class AdminFrame extends JFrame {
                 BorderFactory.createEmptyBorder(8, 12, 8, 12)
         ));
         searchApprovalField.setToolTipText("Tìm theo Mã/Tên Sinh viên, Mã/Tên Học phần...");
-        searchApprovalField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { filterApprovalTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterApprovalTable(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterApprovalTable(); }
-        });
+        // Gõ phím: lọc trên luồng nền sau khi ngừng gõ (không chặn EDT)
+        approvalSearch.attach(searchApprovalField);
         
         // Trạng thái
         JLabel lbStatus = new JLabel("Trạng thái:");
@@ -906,7 +947,7 @@ public class AdminFrame extends JFrame {
         lbDept.setForeground(new Color(55, 65, 81));
         cbDeptApproval.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         cbDeptApproval.setPreferredSize(new Dimension(200, 36));
-        for (String p : Memory.programs) cbDeptApproval.addItem(p);
+        for (String p : store.programs()) cbDeptApproval.addItem(p);
         cbDeptApproval.addActionListener(e -> filterApprovalTable());
         
         filterPanel.add(lbSearch);
@@ -966,6 +1007,10 @@ public class AdminFrame extends JFrame {
             }
         });
         
+        lbPendingCount.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        lbPendingCount.setForeground(new Color(161, 98, 7));
+        
+        buttonPanel.add(lbPendingCount);
         buttonPanel.add(btnApproveAll);
         buttonPanel.add(btnRejectAll);
         
@@ -975,15 +1020,10 @@ public class AdminFrame extends JFrame {
         filterCard.add(mainFilterPanel, BorderLayout.CENTER);
 
         // ========== TABLE SECTION ==========
-        approvalModel = new DefaultTableModel(new Object[]{
+        approvalModel = new ListTableModel<>(new String[]{
                 "Mã đăng ký", "Tên sinh viên", "Mã SV", "Khoa/Viện", "Mã học phần", "Tên học phần",
                 "Trạng thái", "Hành động"
-        }, 0) {
-            @Override
-            public boolean isCellEditable(int r, int c) {
-                return false;
-            }
-        };
+        }, this::approvalCell);
 
         approvalTable = new JTable(approvalModel) {
             @Override
@@ -993,13 +1033,12 @@ public class AdminFrame extends JFrame {
                     c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(248, 250, 252));
                 }
                 if (column == 6) { // Trạng thái ở cột 6
-                    String status = (String) getValueAt(row, column);
-                    if ("Đã duyệt".equals(status)) {
+                    RegStatus status = approvalModel.rowAt(row).status;
+                    if (status == RegStatus.APPROVED) {
                         c.setBackground(new Color(220, 255, 220));
-                    } else if ("Từ chối".equals(status) || "Đã từ chối".equals(status)) {
+                    } else if (status == RegStatus.REJECTED) {
                         c.setBackground(new Color(255, 220, 220));
-                    } else if ("Chờ duyệt".equals(status) || "Chờ xử lý".equals(status) || 
-                               "Đã gửi".equals(status) || "Tạm".equals(status)) {
+                    } else {
                         c.setBackground(new Color(255, 255, 220));
                     }
                 }
@@ -1042,11 +1081,8 @@ public class AdminFrame extends JFrame {
                 panel.setBackground(isSelected ? table.getSelectionBackground() : 
                     (row % 2 == 0 ? Color.WHITE : new Color(248, 250, 252)));
 
-                String status = (String) table.getValueAt(row, 6); // Trạng thái ở cột 6
-                boolean canApprove = "Chờ duyệt".equals(status) || "Chờ xử lý".equals(status) || 
-                                    "Đã gửi".equals(status) || "Tạm".equals(status);
-                
-                if (canApprove) {
+                // Chỉ đăng ký đã gửi (chờ duyệt) mới có nút Duyệt / Từ chối
+                if (approvalModel.rowAt(row).status.isPending()) {
                     JButton btnApprove = new JButton("Duyệt");
                     btnApprove.setFont(new Font("Segoe UI", Font.BOLD, 12));
                     btnApprove.setBackground(new Color(34, 197, 94));
@@ -1172,11 +1208,8 @@ public class AdminFrame extends JFrame {
                 BorderFactory.createEmptyBorder(8, 12, 8, 12)
         ));
         searchSettingsField.setToolTipText("Tìm theo mã hoặc tên học phần...");
-        searchSettingsField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { refreshSettingsCourseTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { refreshSettingsCourseTable(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { refreshSettingsCourseTable(); }
-        });
+        // Gõ phím: lọc trên luồng nền sau khi ngừng gõ (không chặn EDT)
+        settingsSearch.attach(searchSettingsField);
         
         // Loại học phần
         JLabel lbType = new JLabel("Loại học phần:");
@@ -1400,7 +1433,7 @@ public class AdminFrame extends JFrame {
     /**
      * Load danh sách học kỳ vào combobox "Quản lý học phần"
      * 
-     * Lấy danh sách học kỳ từ Memory.loadTerms() và thêm vào cbTermCourse.
+     * Lấy danh sách học kỳ từ store.terms() và thêm vào cbTermCourse.
      * Tự động chọn học kỳ đầu tiên nếu có.
      * 
      * Được gọi khi:
@@ -1409,7 +1442,7 @@ public class AdminFrame extends JFrame {
      */
     void loadTerms() {
         cbTermCourse.removeAllItems();
-        for (String t : Memory.loadTerms()) {
+        for (String t : store.terms()) {
             cbTermCourse.addItem(t);
         }
         if (cbTermCourse.getItemCount() > 0) {
@@ -1431,7 +1464,7 @@ public class AdminFrame extends JFrame {
         String selected = (String) cbTermApproval.getSelectedItem();
         cbTermApproval.removeAllItems();
         cbTermApproval.addItem("Tất cả");
-        for (String t : Memory.loadTerms()) {
+        for (String t : store.terms()) {
             cbTermApproval.addItem(t);
         }
         // Giữ lại lựa chọn cũ nếu có thể
@@ -1448,93 +1481,121 @@ public class AdminFrame extends JFrame {
     /**
      * Refresh (làm mới) bảng danh sách học phần trong tab "Quản lý học phần"
      * 
-     * Phương thức này:
-     * 1. Xóa tất cả dữ liệu cũ trong bảng
-     * 2. Lấy học kỳ đã chọn
-     * 3. Lọc học phần theo:
+     * Chạy ngay một lượt của courseSearch (SearchPipeline.runNow, trên EDT) và hủy lượt
+     * đang chờ của ô tìm kiếm để kết quả cũ không ghi đè:
+     * 1. courseFilters: chụp học kỳ đã chọn, từ khóa, filter trạng thái và thời gian mở
+     * 2. courseRows: lọc học phần theo:
      *    - Học kỳ đã chọn
      *    - Từ khóa tìm kiếm (mã hoặc tên học phần)
      *    - Trạng thái mở/đóng (nếu đã chọn filter)
-     * 4. Với mỗi học phần, lấy thông tin:
+     * 3. Thay danh sách của bảng bằng kết quả lọc (một sự kiện)
+     * 4. Thông tin từng dòng được lấy khi dòng được hiển thị (courseCell):
      *    - Thông tin cơ bản (mã, tên, loại)
-     *    - Offering (trạng thái mở/đóng, CTĐT được phép)
+     *    - Offering (trạng thái mở/đóng)
      *    - Số lượng sinh viên đã đăng ký
-     * 5. Thêm vào bảng
      * 
      * Được gọi khi:
      * - Thay đổi học kỳ
-     * - Thay đổi từ khóa tìm kiếm
      * - Thay đổi filter trạng thái
      * - Sau khi tạo/sửa/xóa học phần
      * - Sau khi cập nhật Offering
+     * 
+     * Gõ phím trong ô tìm kiếm không gọi trực tiếp mà qua courseSearch.request()
+     * (gom các lần gõ, lọc trên luồng nền).
      */
     void refreshCourseTable() {
-        courseModel.setRowCount(0);
-        
-        String term = (String) cbTermCourse.getSelectedItem();
-        if (term == null) return;
+        courseSearch.runNow();
+    }
+
+    /**
+     * Chụp giá trị các ô lọc của bảng học phần (trên EDT):
+     * {học kỳ, từ khóa, trạng thái, thời gian mở đăng ký}
+     */
+    private String[] courseFilters() {
+        // Thời gian mở (có thể lấy từ RegistrationPeriod hoặc Offering)
+        String openRange = "-";
+        Date startDate = (Date) spRegStartDate.getValue();
+        Date endDate = (Date) spRegEndDate.getValue();
+        if (startDate != null && endDate != null) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+            openRange = sdf.format(startDate) + " đến " + sdf.format(endDate);
+        }
+        return new String[]{
+                (String) cbTermCourse.getSelectedItem(),
+                searchCourseField.getText().trim(),
+                (String) cbCourseStatus.getSelectedItem(),
+                openRange
+        };
+    }
+
+    /**
+     * Kết quả lọc bảng học phần: các học phần khớp bộ lọc, cùng học kỳ và thời gian mở
+     * dùng để tính các ô còn lại khi hiển thị (courseCell)
+     */
+    static final class CourseRows {
+        final String term;
+        final String openRange;
+        final List<Course> courses;
         
-        String searchText = searchCourseField.getText().toLowerCase().trim();
-        String selectedStatus = (String) cbCourseStatus.getSelectedItem();
+        CourseRows(String term, String openRange, List<Course> courses) {
+            this.term = term;
+            this.openRange = openRange;
+            this.courses = courses;
+        }
+    }
+
+    /**
+     * Lọc học phần theo bộ lọc (không đụng tới component Swing, chạy được trên luồng nền)
+     * 
+     * Chỉ xét offering khi lọc theo trạng thái; loại, thời gian mở, số lượng đăng ký
+     * được tính khi dòng được hiển thị.
+     */
+    private CourseRows courseRows(String[] filters) {
+        String term = filters[0], searchText = filters[1], selectedStatus = filters[2], openRange = filters[3];
+        if (term == null) return new CourseRows(null, openRange, List.of());
         
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        // Filter by search: index tìm kiếm (không dấu, xếp theo mức độ khớp)
+        List<Course> found = store.searchCourses(searchText);
+        if (selectedStatus == null || selectedStatus.equals("Tất cả")) {
+            return new CourseRows(term, openRange, found);
+        }
         
-        for (Course c : Memory.courses.values()) {
-            Offering off = Memory.getOffering(term, c.code);
-            
-            // Filter by search
-            if (!searchText.isEmpty()) {
-                if (!c.code.toLowerCase().contains(searchText) && 
-                    !c.name.toLowerCase().contains(searchText)) {
-                    continue;
-                }
-            }
-            
-            // Filter by status
+        // Filter by status
+        List<Course> courses = new ArrayList<>();
+        for (Course c : found) {
+            Offering off = store.getOffering(term, c.code);
             String status = (off != null && off.open) ? "Đang mở" : "Đóng";
-            if (selectedStatus != null && !selectedStatus.equals("Tất cả")) {
-                if (!selectedStatus.equals(status)) continue;
-            }
-            
-            // Thời gian mở (có thể lấy từ RegistrationPeriod hoặc Offering)
-            String timeRange = "-";
-            if (off != null && off.open) {
-                Date startDate = (Date) spRegStartDate.getValue();
-                Date endDate = (Date) spRegEndDate.getValue();
-                if (startDate != null && endDate != null) {
-                    timeRange = sdf.format(startDate) + " đến " + sdf.format(endDate);
-                }
-            }
-            
-            // Loại học phần (có thể xác định từ mã học phần)
-            String type = getCourseType(c.code);
-            
-            // Số lượng đăng ký
-            int regCount = Memory.countRegByCourse(term, c.code);
-            
-            courseModel.addRow(new Object[]{
-                    c.code,
-                    c.name,
-                    type,
-                    timeRange,
-                    status,
-                    String.valueOf(regCount),
-                    ""
-            });
+            if (selectedStatus.equals(status)) courses.add(c);
         }
+        return new CourseRows(term, openRange, courses);
     }
 
     /**
-     * Xác định loại học phần dựa trên mã học phần
+     * Đưa kết quả lọc lên bảng học phần (một sự kiện)
      */
-    private String getCourseType(String code) {
-        if (code == null || code.isEmpty()) return "Tự chọn";
-        
-        if (code.startsWith("CT")) return "Tự chọn";
-        if (code.startsWith("MA") || code.startsWith("PH") || code.startsWith("IT")) return "Cơ sở";
-        if (code.startsWith("PE") || code.startsWith("MIL") || code.startsWith("SSH")) return "Bắt buộc";
-        
-        return "Tự chọn";
+    private void showCourseRows(CourseRows rows) {
+        courseRowsShown = rows;
+        courseModel.setRows(rows.courses);
+    }
+
+    /**
+     * Giá trị ô của bảng học phần, tính khi dòng được hiển thị
+     */
+    private Object courseCell(Course c, int index, int column) {
+        switch (column) {
+            case 0: return c.code;
+            case 1: return c.name;
+            case 2: return c.group; // Loại học phần (phân loại theo mã)
+            case 3:
+            case 4: {
+                Offering off = store.getOffering(courseRowsShown.term, c.code);
+                boolean open = off != null && off.open;
+                if (column == 3) return open ? courseRowsShown.openRange : "-";
+                return open ? "Đang mở" : "Đóng";
+            }
+            case 5: return String.valueOf(store.countRegByCourse(courseRowsShown.term, c.code)); // Số lượng đăng ký
+            default: return "";
+        }
     }
 
     /**
@@ -1545,13 +1606,13 @@ public class AdminFrame extends JFrame {
         String term = (String) cbTermCourse.getSelectedItem();
         if (term == null || courseCode == null) return;
         
-        Offering off = Memory.getOffering(term, courseCode);
+        Offering off = store.getOffering(term, courseCode);
         if (off == null) {
             // Tạo mới offering
-            Memory.setOffering(term, courseCode, true, "Tất cả");
+            store.setOffering(term, courseCode, true, "Tất cả");
         } else {
             // Toggle trạng thái
-            Memory.setOffering(term, courseCode, !off.open, off.allowedProgram);
+            store.setOffering(term, courseCode, !off.open, off.allowedProgram);
         }
         
         refreshCourseTable();
@@ -2060,7 +2121,7 @@ public class AdminFrame extends JFrame {
         }
 
         Course course = new Course(code, name, credits);
-        Memory.addCourse(course);
+        store.addCourse(course);
         
         // Tạo offering nếu có thời gian mở
         Date startDate = (Date) spCourseStartDate.getValue();
@@ -2072,7 +2133,7 @@ public class AdminFrame extends JFrame {
                 JOptionPane.showMessageDialog(this, "Ngày bắt đầu phải trước ngày kết thúc!");
                 return false;
             }
-            Memory.setOffering(term, code, true, "Tất cả");
+            store.setOffering(term, code, true, "Tất cả");
         }
 
         JOptionPane.showMessageDialog(this, "Đã tạo học phần thành công!");
@@ -2104,7 +2165,7 @@ public class AdminFrame extends JFrame {
         termCode = termCode.trim();
         
         // Kiểm tra học kỳ đã tồn tại chưa
-        if (Memory.terms.contains(termCode)) {
+        if (store.terms().contains(termCode)) {
             JOptionPane.showMessageDialog(this, 
                     "Học kỳ " + termCode + " đã tồn tại. Vui lòng nhập mã học kỳ khác.",
                     "Lỗi",
@@ -2135,12 +2196,9 @@ public class AdminFrame extends JFrame {
             // Bỏ qua nếu có lỗi
         }
         
-        // Thêm học kỳ vào danh sách
-        Memory.terms.add(termCode);
-        
-        // Tạo TermSetting với đầy đủ thông tin
+        // Thêm học kỳ vào danh sách, kèm TermSetting với đầy đủ thông tin
         TermSetting setting = new TermSetting(registrationOpen, termName, academicYear, startDate, endDate);
-        Memory.termSettings.put(termCode, setting);
+        store.putTerm(termCode, setting);
         
         JOptionPane.showMessageDialog(this, 
                 "Đã tạo học kỳ " + termCode + " thành công!",
@@ -2152,81 +2210,82 @@ public class AdminFrame extends JFrame {
     /**
      * Filter (lọc) bảng duyệt đăng ký học phần
      * 
-     * Phương thức này lọc và hiển thị đăng ký theo các tiêu chí:
+     * Chạy ngay một lượt của approvalSearch (SearchPipeline.runNow, trên EDT) và hủy lượt
+     * đang chờ của ô tìm kiếm để kết quả cũ không ghi đè. Lượt lọc theo các tiêu chí:
      * 1. Từ khóa tìm kiếm: tìm trong tên/MSSV sinh viên, mã/tên học phần
-     * 2. Trạng thái: "Tất cả", "Chờ duyệt", "Đã duyệt", "Đã từ chối"
-     *    (chuẩn hóa: "Tạm" và "Đã gửi" → "Chờ duyệt")
+     * 2. Trạng thái: "Tất cả", "Chờ duyệt", "Tạm", "Đã duyệt", "Đã từ chối"
+     *    (chuẩn hóa: "Đã gửi" → "Chờ duyệt")
      * 3. Học kỳ: "Tất cả" hoặc học kỳ cụ thể
      * 4. Khoa/Viện: "Tất cả" hoặc CTĐT cụ thể
      * 
-     * Duyệt qua tất cả đăng ký trong Memory.regs:
-     * - Với mỗi sinh viên
-     * - Với mỗi học kỳ của sinh viên đó
-     * - Với mỗi RegItem (đăng ký học phần)
-     * - Áp dụng các filter và thêm vào bảng nếu phù hợp
+     * Lọc bằng store.queryRegs: giao các index phụ theo học kỳ / trạng thái / Khoa-Viện,
+     * rồi so từ khóa với khóa tìm kiếm tính sẵn của sinh viên và học phần
+     * (không duyệt toàn bộ đăng ký mỗi lần gõ phím). Bảng bọc thẳng kết quả truy vấn,
+     * ô của dòng chỉ được tính khi hiển thị (approvalCell).
      * 
      * Được gọi khi:
-     * - Thay đổi từ khóa tìm kiếm (real-time)
      * - Thay đổi filter trạng thái
      * - Thay đổi filter học kỳ
      * - Thay đổi filter khoa/viện
      * - Sau khi duyệt/từ chối đăng ký (để cập nhật trạng thái)
+     * 
+     * Gõ phím trong ô tìm kiếm không gọi trực tiếp mà qua approvalSearch.request()
+     * (gom các lần gõ, lọc trên luồng nền).
      */
-        void filterApprovalTable() {
+    void filterApprovalTable() {
+        approvalSearch.runNow();
+    }
+
+    /**
+     * Chụp bộ lọc của bảng duyệt đăng ký thành RegQuery (trên EDT)
+     */
+    private RegQuery approvalQuery() {
         String searchText = searchApprovalField.getText().toLowerCase();
         String selectedStatus = (String) cbApprovalStatus.getSelectedItem();
         String selectedTerm = (String) cbTermApproval.getSelectedItem();
         String selectedDept = (String) cbDeptApproval.getSelectedItem();
+        return RegQuery.fromFilters(searchText, selectedStatus, selectedTerm, selectedDept, "Chờ duyệt");
+    }
 
-            approvalModel.setRowCount(0);
-            int regCount = 0;
-
-            for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-                String studentId = studentEntry.getKey();
-                Student student = Memory.studentsById.get(studentId);
-                if (student == null) continue;
-
-                if (selectedDept != null && !selectedDept.equals("Tất cả")) {
-                    if (!selectedDept.equals(student.program)) continue;
-                }
-
-                Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-                for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                    String term = termEntry.getKey();
-                    
-                    if (selectedTerm != null && !selectedTerm.equals("Tất cả")) {
-                        if (!selectedTerm.equals(term)) continue;
-                    }
-
-                    List<RegItem> regItems = termEntry.getValue();
-                    for (RegItem item : regItems) {
-                        String status = item.status;
-                        if ("Tạm".equals(status) || "Đã gửi".equals(status)) {
-                        status = "Chờ duyệt";
-                        }
-
-                        if (selectedStatus != null && !selectedStatus.equals("Tất cả")) {
-                            if (!selectedStatus.equals(status)) continue;
-                        }
+    /**
+     * Giá trị ô của bảng duyệt đăng ký, tính khi dòng được hiển thị
+     */
+    private Object approvalCell(RegRow r, int index, int column) {
+        switch (column) {
+            case 0: return RegRow.regCode(r.id);
+            case 1: return r.fullName;
+            case 2: return r.studentId;
+            case 3: return r.program;
+            case 4: return r.courseCode;
+            case 5: return r.courseName;
+            case 6: return RegQuery.shownAs(r.status, "Chờ duyệt");
+            default: return "";
+        }
+    }
 
-                        if (!searchText.isEmpty()) {
-                            if (!student.fullName.toLowerCase().contains(searchText) &&
-                                !studentId.toLowerCase().contains(searchText) &&
-                                !item.course.name.toLowerCase().contains(searchText) &&
-                                !item.course.code.toLowerCase().contains(searchText)) {
-                                continue;
-                            }
-                        }
+    /**
+     * Cập nhật nhãn "Chờ duyệt: N" theo học kỳ đang lọc
+     * 
+     * Đọc bộ đếm trạng thái của kho (store.countRegs) - O(1), không phụ thuộc số đăng ký.
+     */
+    void updatePendingCount() {
+        String selectedTerm = (String) cbTermApproval.getSelectedItem();
+        String term = selectedTerm != null && !selectedTerm.equals("Tất cả") ? selectedTerm : null;
+        lbPendingCount.setText("Chờ duyệt: " + store.countRegs(term, RegStatus.SUBMITTED));
+    }
 
-                        regCount++;
-                        String regCode = "DK" + String.format("%03d", regCount);
-                        
-                        approvalModel.addRow(new Object[]{
-                            regCode, student.fullName, studentId, student.program, item.course.code, item.course.name,
-                            status, ""
-                    });
-                }
-            }
+    /**
+     * Đổi trạng thái đăng ký của một dòng (Đã gửi -> Đã duyệt / Đã từ chối)
+     * 
+     * Tra theo mã đăng ký của dòng (index chính của kho, O(1)), không tìm lại theo học phần.
+     * Dòng là bản chụp lúc lọc: nếu đăng ký đã bị xóa hoặc đã được xử lý ở nơi khác
+     * (kho từ chối bước chuyển trạng thái không hợp lệ) thì trả về false.
+     */
+    private boolean decide(RegRow r, RegStatus status) {
+        try {
+            return store.setStatus(r.id, status);
+        } catch (RuntimeException ex) {
+            return false;
         }
     }
 
@@ -2234,52 +2293,19 @@ public class AdminFrame extends JFrame {
      * Duyệt đăng ký học phần tại dòng được chỉ định trong bảng
      * 
      * Phương thức này:
-     * 1. Lấy thông tin từ bảng: MSSV, mã học phần
-     * 2. Xác định học kỳ:
-     *    - Nếu filter học kỳ đã chọn cụ thể: dùng học kỳ đó
-     *    - Nếu filter = "Tất cả": tìm học kỳ từ dữ liệu (duyệt qua Memory.regs)
-     * 3. Tìm RegItem tương ứng trong Memory
-     * 4. Cập nhật trạng thái thành "Đã duyệt"
-     * 5. Refresh bảng để hiển thị thay đổi
-     * 6. Hiển thị thông báo thành công
+     * 1. Lấy đăng ký của dòng (mã đăng ký) từ kết quả lọc
+     * 2. Cập nhật trạng thái thành "Đã duyệt" (chỉ đăng ký "Đã gửi" mới duyệt được)
+     * 3. Refresh bảng để hiển thị thay đổi
+     * 4. Hiển thị thông báo kết quả
      * 
      * @param row Số dòng trong bảng (0-based index) của đăng ký cần duyệt
      */
     void approveRegistration(int row) {
-        String studentId = (String) approvalModel.getValueAt(row, 2);
-        String courseCode = (String) approvalModel.getValueAt(row, 4); // Mã học phần ở cột 4 (sau Khoa/Viện)
-        String selectedTerm = (String) cbTermApproval.getSelectedItem();
-        String term = selectedTerm != null && !selectedTerm.equals("Tất cả") ? selectedTerm : null;
-        
-        if (term == null) {
-            // Tìm term từ dữ liệu
-            for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-                if (studentEntry.getKey().equals(studentId)) {
-                    Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-                    for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                        List<RegItem> regItems = termEntry.getValue();
-                        for (RegItem item : regItems) {
-                            if (item.course.code.equals(courseCode)) {
-                                item.status = "Đã duyệt";
-                                filterApprovalTable();
-                                JOptionPane.showMessageDialog(this, "Đã duyệt đăng ký thành công!");
-                                return;
-                            }
-                        }
-                    }
-                }
-            }
-                    } else {
-            List<RegItem> regs = Memory.loadReg(studentId, term);
-            for (RegItem item : regs) {
-                if (item.course.code.equals(courseCode)) {
-                    item.status = "Đã duyệt";
-                    filterApprovalTable();
-                    JOptionPane.showMessageDialog(this, "Đã duyệt đăng ký thành công!");
-                    return;
-                }
-            }
-        }
+        RegRow r = approvalModel.rowAt(row);
+        boolean ok = decide(r, RegStatus.APPROVED);
+        filterApprovalTable();
+        JOptionPane.showMessageDialog(this, ok ? "Đã duyệt đăng ký thành công!"
+                : "Không duyệt được: đăng ký không còn ở trạng thái chờ duyệt.");
     }
 
     /**
@@ -2288,12 +2314,8 @@ public class AdminFrame extends JFrame {
      * Phương thức này:
      * 1. Hiển thị dialog yêu cầu nhập lý do từ chối
      * 2. Nếu người dùng hủy (không nhập lý do): dừng lại
-     * 3. Lấy thông tin từ bảng: MSSV, mã học phần
-     * 4. Xác định học kỳ (tương tự approveRegistration)
-     * 5. Tìm RegItem tương ứng trong Memory
-     * 6. Cập nhật trạng thái thành "Đã từ chối" (hoặc "Từ chối")
-     * 7. Refresh bảng để hiển thị thay đổi
-     * 8. Hiển thị thông báo thành công
+     * 3. Cập nhật trạng thái đăng ký của dòng thành "Đã từ chối" (trả chỗ cho danh sách chờ)
+     * 4. Refresh bảng và hiển thị thông báo kết quả
      * 
      * Lưu ý: Lý do từ chối được nhập nhưng không được lưu vào RegItem
      * (có thể cần thêm field reason vào RegItem model trong tương lai).
@@ -2301,72 +2323,44 @@ public class AdminFrame extends JFrame {
      * @param row Số dòng trong bảng (0-based index) của đăng ký cần từ chối
      */
     void rejectRegistration(int row) {
-            String studentId = (String) approvalModel.getValueAt(row, 2);
-        String courseCode = (String) approvalModel.getValueAt(row, 4); // Mã học phần ở cột 4 (sau Khoa/Viện)
-        String selectedTerm = (String) cbTermApproval.getSelectedItem();
-        String term = selectedTerm != null && !selectedTerm.equals("Tất cả") ? selectedTerm : null;
+        RegRow r = approvalModel.rowAt(row);
         
         // Hiển thị dialog nhập lý do từ chối
         String reason = JOptionPane.showInputDialog(this, "Nhập lý do từ chối:", "Từ chối đăng ký", 
                 JOptionPane.QUESTION_MESSAGE);
         if (reason == null) return; // User cancelled
         
-        if (term == null) {
-            // Tìm term từ dữ liệu
-            for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-                if (studentEntry.getKey().equals(studentId)) {
-                    Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-                    for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                        List<RegItem> regItems = termEntry.getValue();
-                        for (RegItem item : regItems) {
-                            if (item.course.code.equals(courseCode)) {
-                                item.status = "Từ chối";
-                                filterApprovalTable();
-                                JOptionPane.showMessageDialog(this, "Đã từ chối đăng ký!");
-                                return;
-                            }
-                        }
-                    }
-                }
-            }
-        } else {
-            List<RegItem> regs = Memory.loadReg(studentId, term);
-            for (RegItem item : regs) {
-                if (item.course.code.equals(courseCode)) {
-                    item.status = "Từ chối";
-                    filterApprovalTable();
-                    JOptionPane.showMessageDialog(this, "Đã từ chối đăng ký!");
-                    return;
-                }
-            }
-        }
+        boolean ok = decide(r, RegStatus.REJECTED);
+        filterApprovalTable();
+        JOptionPane.showMessageDialog(this, ok ? "Đã từ chối đăng ký!"
+                : "Không từ chối được: đăng ký không còn ở trạng thái chờ duyệt.");
     }
 
     /**
-     * Duyệt tất cả các đăng ký đang hiển thị trong bảng (hàng loạt)
+     * Duyệt hàng loạt các đăng ký chờ duyệt trong bảng
      * 
      * Phương thức này:
-     * 1. Kiểm tra có đăng ký nào trong bảng không
+     * 1. Lấy mã đăng ký của các dòng đang chọn (không chọn dòng nào = mọi dòng đang hiển thị),
+     *    chỉ giữ các đăng ký đang chờ duyệt ("Đã gửi")
      * 2. Hiển thị dialog xác nhận (số lượng đăng ký sẽ được duyệt)
-     * 3. Nếu người dùng xác nhận:
-     *    - Duyệt qua tất cả các dòng trong bảng
-     *    - Với mỗi dòng, gọi approveRegistration() để duyệt
-     *    - Đếm số lượng đăng ký đã duyệt thành công
-     * 4. Hiển thị thông báo kết quả (số lượng đã duyệt)
+     * 3. Nếu người dùng xác nhận: đổi trạng thái trên luồng nền qua AsyncAdminController
+     *    (mỗi lô BATCH_SIZE đăng ký một lần gom khóa / ghi đĩa), hộp thoại tiến độ có nút "Hủy"
+     * 4. Refresh bảng một lần (kể cả khi hủy giữa chừng) và hiển thị kết quả
+     *    (số lượng đã duyệt, lý do của các đăng ký không duyệt được)
      * 
      * Lưu ý: Chỉ duyệt các đăng ký đang hiển thị trong bảng (đã được filter).
      * Các đăng ký không hiển thị (do filter) sẽ không được duyệt.
      */
     void approveAll() {
-        int rowCount = approvalModel.getRowCount();
-        if (rowCount == 0) {
-            JOptionPane.showMessageDialog(this, "Không có đăng ký nào để duyệt.");
+        List<Long> ids = pendingTargets();
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Không có đăng ký chờ duyệt nào để duyệt.");
             return;
         }
         
         // Xác nhận
         int confirm = JOptionPane.showConfirmDialog(this,
-                "Bạn có chắc muốn duyệt tất cả " + rowCount + " đăng ký đang hiển thị?",
+                "Bạn có chắc muốn duyệt " + ids.size() + " đăng ký chờ duyệt " + targetLabel() + "?",
                 "Xác nhận duyệt tất cả",
                 JOptionPane.YES_NO_OPTION,
                 JOptionPane.QUESTION_MESSAGE);
@@ -2375,90 +2369,38 @@ public class AdminFrame extends JFrame {
             return;
         }
         
-        int approvedCount = 0;
-        String selectedTerm = (String) cbTermApproval.getSelectedItem();
-        
-        // Duyệt tất cả các dòng trong bảng
-        for (int row = 0; row < rowCount; row++) {
-            String studentId = (String) approvalModel.getValueAt(row, 2);
-            String courseCode = (String) approvalModel.getValueAt(row, 4); // Mã học phần ở cột 4
-            String status = (String) approvalModel.getValueAt(row, 5);
-            
-            // Chỉ duyệt các đăng ký đang ở trạng thái chờ duyệt
-            if ("Chờ duyệt".equals(status) || "Chờ xử lý".equals(status) || 
-                "Đã gửi".equals(status) || "Tạm".equals(status)) {
-                
-                String term = selectedTerm != null && !selectedTerm.equals("Tất cả") ? selectedTerm : null;
-                
-                if (term == null) {
-                    // Tìm term từ dữ liệu
-                    for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-                        if (studentEntry.getKey().equals(studentId)) {
-                            Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-                            for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                                List<RegItem> regItems = termEntry.getValue();
-                                for (RegItem item : regItems) {
-                                    if (item.course.code.equals(courseCode) && 
-                                        ("Chờ duyệt".equals(item.status) || "Chờ xử lý".equals(item.status) || 
-                                         "Đã gửi".equals(item.status) || "Tạm".equals(item.status))) {
-                                        item.status = "Đã duyệt";
-                                        approvedCount++;
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                } else {
-            List<RegItem> regs = Memory.loadReg(studentId, term);
-            for (RegItem item : regs) {
-                        if (item.course.code.equals(courseCode) && 
-                            ("Chờ duyệt".equals(item.status) || "Chờ xử lý".equals(item.status) || 
-                             "Đã gửi".equals(item.status) || "Tạm".equals(item.status))) {
-                            item.status = "Đã duyệt";
-                            approvedCount++;
-                    break;
-                        }
-                    }
-                }
-                }
-            }
-
-            filterApprovalTable();
-        JOptionPane.showMessageDialog(this, 
-                "Đã duyệt thành công " + approvedCount + " đăng ký!", 
-                "Thành công", 
-                JOptionPane.INFORMATION_MESSAGE);
+        List<String> regCodes = ids.stream().map(RegRow::regCode).toList();
+        AsyncUi.run(this, "Đang duyệt " + ids.size() + " đăng ký...",
+                progress -> adminController.approveRegistrations(regCodes, progress),
+                result -> showBatchResult("Đã duyệt thành công " + result.changed + " đăng ký!", result),
+                this::filterApprovalTable);
     }
 
     /**
-     * Từ chối tất cả các đăng ký đang hiển thị trong bảng (hàng loạt)
+     * Từ chối hàng loạt các đăng ký chờ duyệt trong bảng
      * 
      * Phương thức này:
-     * 1. Kiểm tra có đăng ký nào trong bảng không
+     * 1. Lấy mã đăng ký chờ duyệt của các dòng đang chọn (không chọn dòng nào = mọi dòng đang hiển thị)
      * 2. Hiển thị dialog yêu cầu nhập lý do từ chối (cho tất cả đăng ký)
      * 3. Nếu người dùng hủy hoặc không nhập lý do: dừng lại
      * 4. Hiển thị dialog xác nhận (số lượng đăng ký sẽ bị từ chối)
-     * 5. Nếu người dùng xác nhận:
-     *    - Duyệt qua tất cả các dòng trong bảng
-     *    - Với mỗi dòng, tìm RegItem và cập nhật trạng thái thành "Đã từ chối"
-     *    - Chỉ từ chối các đăng ký có trạng thái "Chờ duyệt" (Tạm, Đã gửi)
-     *    - Đếm số lượng đăng ký đã từ chối thành công
-     * 6. Refresh bảng và hiển thị thông báo kết quả
+     * 5. Nếu người dùng xác nhận: đổi trạng thái thành "Đã từ chối" trên luồng nền qua
+     *    AsyncAdminController (theo lô, chỗ được trả cho danh sách chờ sau mỗi lô), có tiến độ và nút "Hủy"
+     * 6. Refresh bảng một lần (kể cả khi hủy giữa chừng) và hiển thị kết quả
      * 
      * Lưu ý: Chỉ từ chối các đăng ký đang hiển thị trong bảng (đã được filter).
      * Các đăng ký đã duyệt sẽ không bị từ chối.
      */
     void rejectAll() {
-        int rowCount = approvalModel.getRowCount();
-        if (rowCount == 0) {
-            JOptionPane.showMessageDialog(this, "Không có đăng ký nào để từ chối.");
+        List<Long> ids = pendingTargets();
+        if (ids.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Không có đăng ký chờ duyệt nào để từ chối.");
             return;
         }
         
         // Hiển thị dialog nhập lý do từ chối
         String reason = JOptionPane.showInputDialog(this, 
-                "Nhập lý do từ chối cho tất cả " + rowCount + " đăng ký:", 
+                "Nhập lý do từ chối cho " + ids.size() + " đăng ký:", 
                 "Từ chối tất cả", 
                 JOptionPane.QUESTION_MESSAGE);
         
@@ -2468,7 +2410,7 @@ public class AdminFrame extends JFrame {
         
         // Xác nhận
         int confirm = JOptionPane.showConfirmDialog(this,
-                "Bạn có chắc muốn từ chối tất cả " + rowCount + " đăng ký đang hiển thị?",
+                "Bạn có chắc muốn từ chối " + ids.size() + " đăng ký chờ duyệt " + targetLabel() + "?",
                 "Xác nhận từ chối tất cả",
                 JOptionPane.YES_NO_OPTION,
                 JOptionPane.WARNING_MESSAGE);
@@ -2477,101 +2419,98 @@ public class AdminFrame extends JFrame {
             return;
         }
         
-        int rejectedCount = 0;
-        String selectedTerm = (String) cbTermApproval.getSelectedItem();
-        
-        // Từ chối tất cả các dòng trong bảng
-        for (int row = 0; row < rowCount; row++) {
-            String studentId = (String) approvalModel.getValueAt(row, 2);
-            String courseCode = (String) approvalModel.getValueAt(row, 4); // Mã học phần ở cột 4
-            String status = (String) approvalModel.getValueAt(row, 6); // Trạng thái ở cột 6
-            
-            // Chỉ từ chối các đăng ký đang ở trạng thái chờ duyệt
-            if ("Chờ duyệt".equals(status) || "Chờ xử lý".equals(status) || 
-                "Đã gửi".equals(status) || "Tạm".equals(status)) {
-                
-                String term = selectedTerm != null && !selectedTerm.equals("Tất cả") ? selectedTerm : null;
-                
-                if (term == null) {
-                    // Tìm term từ dữ liệu
-                    for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-                        if (studentEntry.getKey().equals(studentId)) {
-                            Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-                            for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                                List<RegItem> regItems = termEntry.getValue();
-                                for (RegItem item : regItems) {
-                                    if (item.course.code.equals(courseCode) && 
-                                        ("Chờ duyệt".equals(item.status) || "Chờ xử lý".equals(item.status) || 
-                                         "Đã gửi".equals(item.status) || "Tạm".equals(item.status))) {
-                                        item.status = "Từ chối";
-                                        rejectedCount++;
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    List<RegItem> regs = Memory.loadReg(studentId, term);
-                    for (RegItem item : regs) {
-                        if (item.course.code.equals(courseCode) && 
-                            ("Chờ duyệt".equals(item.status) || "Chờ xử lý".equals(item.status) || 
-                             "Đã gửi".equals(item.status) || "Tạm".equals(item.status))) {
-                            item.status = "Từ chối";
-                            rejectedCount++;
-                            break;
-                        }
-                    }
-                }
+        List<String> regCodes = ids.stream().map(RegRow::regCode).toList();
+        AsyncUi.run(this, "Đang từ chối " + ids.size() + " đăng ký...",
+                progress -> adminController.rejectRegistrations(regCodes, progress),
+                result -> showBatchResult("Đã từ chối " + result.changed + " đăng ký!", result),
+                this::filterApprovalTable);
+    }
+
+    /** Mã đăng ký chờ duyệt của các dòng đang chọn, hoặc của mọi dòng đang hiển thị nếu không chọn dòng nào */
+    private List<Long> pendingTargets() {
+        List<Long> ids = new ArrayList<>();
+        int[] selected = approvalTable.getSelectedRows();
+        if (selected.length > 0) {
+            for (int viewRow : selected) {
+                RegRow r = approvalModel.rowAt(approvalTable.convertRowIndexToModel(viewRow));
+                if (r.status.isPending()) ids.add(r.id);
+            }
+        } else {
+            for (RegRow r : approvalModel.getRows()) {
+                if (r.status.isPending()) ids.add(r.id);
             }
         }
-        
-        filterApprovalTable();
-        JOptionPane.showMessageDialog(this, 
-                "Đã từ chối " + rejectedCount + " đăng ký!", 
-                "Hoàn thành", 
-                JOptionPane.INFORMATION_MESSAGE);
+        return ids;
+    }
+
+    private String targetLabel() {
+        return approvalTable.getSelectedRowCount() > 0 ? "đang chọn" : "đang hiển thị";
+    }
+
+    /** Thông báo kết quả thao tác hàng loạt, kèm lý do của tối đa 10 đăng ký không đổi được trạng thái */
+    private void showBatchResult(String doneMessage, Storage.BatchResult result) {
+        if (result.failures.isEmpty()) {
+            JOptionPane.showMessageDialog(this, doneMessage, "Thành công", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        StringBuilder msg = new StringBuilder(doneMessage)
+                .append("\n").append(result.failures.size()).append(" đăng ký không đổi được trạng thái:");
+        int shown = 0;
+        for (Map.Entry<Long, String> f : result.failures.entrySet()) {
+            if (shown++ == 10) {
+                msg.append("\n...");
+                break;
+            }
+            msg.append("\n").append(RegRow.regCode(f.getKey())).append(": ").append(f.getValue());
+        }
+        JOptionPane.showMessageDialog(this, msg.toString(), "Hoàn thành", JOptionPane.WARNING_MESSAGE);
     }
 
     /**
      * Refresh (làm mới) bảng danh sách học phần trong tab "Cài đặt học phần"
      * 
-     * Phương thức này:
-     * 1. Xóa tất cả dữ liệu cũ trong bảng
-     * 2. Lấy từ khóa tìm kiếm và filter loại học phần
-     * 3. Duyệt qua tất cả học phần trong Memory.courses
-     * 4. Lọc học phần theo:
-     *    - Từ khóa tìm kiếm (mã hoặc tên học phần)
-     *    - Loại học phần (Bắt buộc, Tự chọn, Cơ sở) - xác định bằng getCourseType()
-     * 5. Thêm vào bảng với các cột: Mã HP, Tên học phần, Số TC, Loại, Hành động
+     * Chạy ngay một lượt của settingsSearch (SearchPipeline.runNow, trên EDT) và hủy lượt
+     * đang chờ của ô tìm kiếm để kết quả cũ không ghi đè:
+     * 1. settingsFilters: chụp từ khóa và filter loại học phần
+     * 2. settingsRows: lấy học phần từ index tìm kiếm (store.searchCourses), lọc theo
+     *    loại (Bắt buộc, Tự chọn, Cơ sở) - Course.group
+     * 3. Thay toàn bộ dòng của bảng bằng kết quả (một sự kiện) với các cột:
+     *    Mã HP, Tên học phần, Số TC, Loại, Hành động
      * 
      * Được gọi khi:
-     * - Thay đổi từ khóa tìm kiếm (real-time)
      * - Thay đổi filter loại học phần
      * - Sau khi thêm/sửa/xóa học phần
+     * 
+     * Gõ phím trong ô tìm kiếm không gọi trực tiếp mà qua settingsSearch.request()
+     * (gom các lần gõ, lọc trên luồng nền).
      */
     void refreshSettingsCourseTable() {
-        settingsCourseModel.setRowCount(0);
-        
-        String searchText = searchSettingsField.getText().toLowerCase().trim();
-        String selectedType = (String) cbSettingsType.getSelectedItem();
+        settingsSearch.runNow();
+    }
+
+    /**
+     * Chụp giá trị các ô lọc của bảng cài đặt học phần (trên EDT): {từ khóa, loại học phần}
+     */
+    private String[] settingsFilters() {
+        return new String[]{searchSettingsField.getText().trim(), (String) cbSettingsType.getSelectedItem()};
+    }
+
+    /**
+     * Dòng của bảng cài đặt học phần theo bộ lọc (chạy được trên luồng nền)
+     */
+    private List<Object[]> settingsRows(String[] filters) {
+        String searchText = filters[0], selectedType = filters[1];
+        List<Object[]> rows = new ArrayList<>();
         
-        for (Course c : Memory.courses.values()) {
-            // Filter by search
-            if (!searchText.isEmpty()) {
-                if (!c.code.toLowerCase().contains(searchText) && 
-                    !c.name.toLowerCase().contains(searchText)) {
-                    continue;
-                }
-            }
-            
+        // Filter by search: index tìm kiếm (không dấu, xếp theo mức độ khớp)
+        for (Course c : store.searchCourses(searchText)) {
             // Filter by type
-            String type = getCourseType(c.code);
+            String type = c.group;
             if (selectedType != null && !selectedType.equals("Tất cả")) {
                 if (!selectedType.equals(type)) continue;
             }
             
-            settingsCourseModel.addRow(new Object[]{
+            rows.add(new Object[]{
                     c.code,
                     c.name,
                     String.valueOf(c.credits),
@@ -2579,6 +2518,7 @@ public class AdminFrame extends JFrame {
                     ""
             });
         }
+        return rows;
     }
 
     /**
@@ -2607,7 +2547,7 @@ public class AdminFrame extends JFrame {
         }
 
         // Kiểm tra mã học phần đã tồn tại chưa
-        if (Memory.courses.containsKey(code)) {
+        if ((store.findCourse(code) != null)) {
             JOptionPane.showMessageDialog(this, 
                     "Mã học phần " + code + " đã tồn tại. Vui lòng nhập mã khác.",
                     "Lỗi",
@@ -2616,7 +2556,7 @@ public class AdminFrame extends JFrame {
         }
 
         Course course = new Course(code, name, credits);
-        Memory.addCourse(course);
+        store.addCourse(course);
         
         JOptionPane.showMessageDialog(this, "Đã thêm học phần thành công!");
         clearSettingsForm();
@@ -2650,7 +2590,7 @@ public class AdminFrame extends JFrame {
             return;
         }
 
-        Course existingCourse = Memory.courses.get(code);
+        Course existingCourse = store.findCourse(code);
         if (existingCourse == null) {
             JOptionPane.showMessageDialog(this, 
                     "Không tìm thấy học phần với mã " + code + ". Vui lòng kiểm tra lại.",
@@ -2661,7 +2601,7 @@ public class AdminFrame extends JFrame {
 
         // Vì Course có các field final, không thể sửa trực tiếp
         // Cần xóa và tạo lại
-        if (!Memory.canDeleteCourse(code)) {
+        if (!store.canDeleteCourse(code)) {
             JOptionPane.showMessageDialog(this, 
                     "Không thể cập nhật học phần " + code + " vì đã có sinh viên đăng ký.",
                     "Lỗi",
@@ -2670,11 +2610,11 @@ public class AdminFrame extends JFrame {
         }
 
         // Xóa học phần cũ
-        Memory.deleteCourse(code);
+        store.deleteCourse(code);
         
         // Tạo học phần mới
         Course newCourse = new Course(code, name, credits);
-        Memory.addCourse(newCourse);
+        store.addCourse(newCourse);
         
         JOptionPane.showMessageDialog(this, "Đã cập nhật học phần thành công!");
         clearSettingsForm();
@@ -2692,7 +2632,7 @@ public class AdminFrame extends JFrame {
             return;
         }
 
-        Course course = Memory.courses.get(code);
+        Course course = store.findCourse(code);
         if (course == null) {
             JOptionPane.showMessageDialog(this, 
                     "Không tìm thấy học phần với mã " + code + ".",
@@ -2701,7 +2641,7 @@ public class AdminFrame extends JFrame {
             return;
         }
 
-        if (!Memory.canDeleteCourse(code)) {
+        if (!store.canDeleteCourse(code)) {
             JOptionPane.showMessageDialog(this, 
                     "Không thể xóa học phần " + code + " vì đã có sinh viên đăng ký.",
                     "Lỗi",
@@ -2716,7 +2656,7 @@ public class AdminFrame extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            Memory.deleteCourse(code);
+            store.deleteCourse(code);
             JOptionPane.showMessageDialog(this, "Đã xóa học phần thành công!");
             clearSettingsForm();
             refreshSettingsCourseTable();
@@ -2741,15 +2681,15 @@ public class AdminFrame extends JFrame {
         if (row < 0 || row >= settingsCourseModel.getRowCount()) return;
         
         String code = (String) settingsCourseModel.getValueAt(row, 0);
-        Course course = Memory.courses.get(code);
+        Course course = store.findCourse(code);
         
         if (course != null) {
             tfSettingsCode.setText(course.code);
             tfSettingsName.setText(course.name);
             spSettingsCredits.setValue(course.credits);
             
-            // Set loại học phần dựa trên mã
-            String type = getCourseType(course.code);
+            // Set loại học phần (nhóm đã phân loại theo mã)
+            String type = course.group;
             for (int i = 0; i < cbSettingsTypeForm.getItemCount(); i++) {
                 if (type.equals(cbSettingsTypeForm.getItemAt(i))) {
                     cbSettingsTypeForm.setSelectedIndex(i);
@@ -2825,11 +2765,8 @@ public class AdminFrame extends JFrame {
                 BorderFactory.createEmptyBorder(8, 12, 8, 12)
         ));
         searchTermField.setToolTipText("Nhập tên học kỳ...");
-        searchTermField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { refreshTermSettingsTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { refreshTermSettingsTable(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { refreshTermSettingsTable(); }
-        });
+        // Gõ phím: lọc trên luồng nền sau khi ngừng gõ (không chặn EDT)
+        termSearch.attach(searchTermField);
         
         // Nút Lọc
         JButton btnFilter = new JButton("Lọc");
@@ -3027,14 +2964,13 @@ public class AdminFrame extends JFrame {
     }
     
     /**
-     * Lấy danh sách kỳ học đã lọc
+     * Lấy danh sách kỳ học đã lọc theo từ khóa (đã viết thường; rỗng = tất cả)
      */
-    List<String> getFilteredTerms() {
+    List<String> getFilteredTerms(String searchText) {
         List<String> filtered = new ArrayList<>();
-        String searchText = searchTermField.getText().toLowerCase().trim();
         
-        for (String term : Memory.loadTerms()) {
-            TermSetting setting = Memory.termSettings.get(term);
+        for (String term : store.terms()) {
+            TermSetting setting = store.termSetting(term);
             if (setting == null) setting = new TermSetting(true);
             
             // Filter by search
@@ -3056,8 +2992,8 @@ public class AdminFrame extends JFrame {
      */
     void updateAcademicYearComboBox() {
         Set<String> years = new TreeSet<>(Collections.reverseOrder());
-        for (String term : Memory.loadTerms()) {
-            TermSetting setting = Memory.termSettings.get(term);
+        for (String term : store.terms()) {
+            TermSetting setting = store.termSetting(term);
             if (setting != null && setting.academicYear != null && !setting.academicYear.isEmpty()) {
                 years.add(setting.academicYear);
             }
@@ -3082,14 +3018,11 @@ public class AdminFrame extends JFrame {
     /**
      * Refresh (làm mới) bảng danh sách học kỳ trong tab "Cài đặt kỳ học"
      * 
-     * Phương thức này:
-     * 1. Xóa tất cả dữ liệu cũ trong bảng
-     * 2. Lấy danh sách học kỳ đã được lọc (getFilteredTerms)
-     * 3. Với mỗi học kỳ:
-     *    - Lấy TermSetting từ Memory (tạo mới nếu chưa có)
-     *    - Lấy thông tin: tên học kỳ, năm học, ngày bắt đầu/kết thúc
-     *    - Xác định trạng thái đăng ký (Mở/Đóng) và trạng thái hoạt động
-     *    - Thêm vào bảng
+     * Chạy ngay một lượt của termSearch (SearchPipeline.runNow, trên EDT) và hủy lượt
+     * đang chờ của ô tìm kiếm để kết quả cũ không ghi đè:
+     * 1. Chụp từ khóa tìm kiếm (viết thường)
+     * 2. termRows: lọc học kỳ (getFilteredTerms), dựng dòng từ TermSetting của từng học kỳ
+     * 3. Thay toàn bộ dòng của bảng bằng kết quả (một sự kiện)
      * 
      * Các cột trong bảng:
      * - Mã học kỳ, Tên học kỳ, Năm học, Thời gian (ngày bắt đầu - ngày kết thúc),
@@ -3097,22 +3030,31 @@ public class AdminFrame extends JFrame {
      * 
      * Được gọi khi:
      * - Thay đổi filter (năm học, trạng thái)
-     * - Thay đổi từ khóa tìm kiếm
      * - Sau khi thêm/sửa/xóa học kỳ
      * - Sau khi mở/đóng đăng ký cho học kỳ
+     * 
+     * Gõ phím trong ô tìm kiếm không gọi trực tiếp mà qua termSearch.request()
+     * (gom các lần gõ, lọc trên luồng nền).
      */
     void refreshTermSettingsTable() {
-        termSettingsModel.setRowCount(0);
-        List<String> filtered = getFilteredTerms();
+        termSearch.runNow();
+    }
+
+    /**
+     * Dòng của bảng cài đặt kỳ học theo từ khóa (đã viết thường, chạy được trên luồng nền)
+     */
+    private List<Object[]> termRows(String searchText) {
+        List<Object[]> rows = new ArrayList<>();
+        List<String> filtered = getFilteredTerms(searchText);
         
         // Hiển thị tất cả kết quả (không phân trang)
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         for (int i = 0; i < filtered.size(); i++) {
             String term = filtered.get(i);
-            TermSetting setting = Memory.termSettings.get(term);
+            TermSetting setting = store.termSetting(term);
             if (setting == null) {
                 setting = new TermSetting(true);
-                Memory.termSettings.put(term, setting);
+                store.putTerm(term, setting);
             }
             
             // Tên học kỳ
@@ -3136,7 +3078,7 @@ public class AdminFrame extends JFrame {
             // Trạng thái
             String status = setting.isActive() ? "Đang hoạt động" : "Đã kết thúc";
             
-            termSettingsModel.addRow(new Object[]{
+            rows.add(new Object[]{
                     term,
                     termName,
                     academicYear,
@@ -3145,6 +3087,7 @@ public class AdminFrame extends JFrame {
                     ""
             });
         }
+        return rows;
     }
     
     
@@ -3153,12 +3096,9 @@ public class AdminFrame extends JFrame {
      */
     int countStudentsInTerm(String term) {
         Set<String> studentIds = new HashSet<>();
-        for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-            Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-            if (termRegs.containsKey(term) && !termRegs.get(term).isEmpty()) {
-                studentIds.add(studentEntry.getKey());
-            }
-        }
+        store.forEachReg((studentId, t, item) -> {
+            if (t.equals(term)) studentIds.add(studentId);
+        });
         return studentIds.size();
     }
     
@@ -3193,11 +3133,7 @@ public class AdminFrame extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            Memory.terms.remove(termCode);
-            Memory.termSettings.remove(termCode);
-            if (Memory.offerings.containsKey(termCode)) {
-                Memory.offerings.remove(termCode);
-            }
+            store.deleteTerm(termCode);
             JOptionPane.showMessageDialog(this, "Đã xóa học kỳ thành công!");
             refreshTermSettingsTable();
             loadTerms();
@@ -3296,7 +3232,7 @@ public class AdminFrame extends JFrame {
         contentPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
         
         // Lấy thông tin hiện tại
-        TermSetting currentSetting = Memory.termSettings.get(oldTermCode);
+        TermSetting currentSetting = store.termSetting(oldTermCode);
         if (currentSetting == null) {
             currentSetting = new TermSetting(true);
         }
@@ -3588,7 +3524,7 @@ public class AdminFrame extends JFrame {
         }
         
         // Kiểm tra học kỳ mới đã tồn tại chưa (trừ học kỳ hiện tại)
-        if (!oldTermCode.equals(newTermCode) && Memory.terms.contains(newTermCode)) {
+        if (!oldTermCode.equals(newTermCode) && store.terms().contains(newTermCode)) {
             JOptionPane.showMessageDialog(this, 
                     "Học kỳ " + newTermCode + " đã tồn tại. Vui lòng nhập mã học kỳ khác.",
                     "Lỗi",
@@ -3596,16 +3532,13 @@ public class AdminFrame extends JFrame {
             return false;
         }
         
-        // Cập nhật mã học kỳ trong danh sách (nếu thay đổi)
+        // Đổi mã học kỳ cho terms, termSettings, offerings, regs và bộ đếm (nếu thay đổi)
         if (!oldTermCode.equals(newTermCode)) {
-            int index = Memory.terms.indexOf(oldTermCode);
-            if (index >= 0) {
-                Memory.terms.set(index, newTermCode);
-            }
+            store.renameTerm(oldTermCode, newTermCode);
         }
         
         // Cập nhật termSettings với thông tin mới
-        TermSetting setting = Memory.termSettings.get(oldTermCode);
+        TermSetting setting = store.termSetting(newTermCode);
         if (setting == null) {
             setting = new TermSetting(true);
         }
@@ -3616,28 +3549,7 @@ public class AdminFrame extends JFrame {
         setting.academicYear = academicYear;
         setting.startDate = startDate;
         setting.endDate = endDate;
-        
-        // Nếu mã học kỳ thay đổi, cần di chuyển setting
-        if (!oldTermCode.equals(newTermCode)) {
-            Memory.termSettings.remove(oldTermCode);
-            Memory.termSettings.put(newTermCode, setting);
-        }
-        
-        // Cập nhật offerings (nếu mã học kỳ thay đổi)
-        if (!oldTermCode.equals(newTermCode)) {
-            if (Memory.offerings.containsKey(oldTermCode)) {
-                Map<String, Offering> offerings = Memory.offerings.remove(oldTermCode);
-                Memory.offerings.put(newTermCode, offerings);
-            }
-            
-            // Cập nhật regs (đăng ký của sinh viên)
-            for (Map<String, List<RegItem>> termRegs : Memory.regs.values()) {
-                if (termRegs.containsKey(oldTermCode)) {
-                    List<RegItem> regItems = termRegs.remove(oldTermCode);
-                    termRegs.put(newTermCode, regItems);
-                }
-            }
-        }
+        store.putTerm(newTermCode, setting);
         
         JOptionPane.showMessageDialog(this, 
                 "Đã cập nhật học kỳ thành công!",
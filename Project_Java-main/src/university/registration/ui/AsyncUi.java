@@ -0,0 +1,194 @@
+package university.registration.ui;
+
+import university.registration.controller.AsyncTasks;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Áp dụng kết quả của lời gọi controller bất đồng bộ (Async*Controller) lên giao diện
+ *
+ * - onEdt: chạy callback trên EDT khi lời gọi xong (bị hủy thì bỏ qua)
+ * - run: thao tác người dùng phải chờ (đăng nhập, duyệt hàng loạt...):
+ *   1. Ngay lập tức: con trỏ chờ, chặn chuột trên cửa sổ (tránh bấm lại nút khi đang chạy)
+ *   2. Sau DIALOG_DELAY_MS ms nếu chưa xong: hộp thoại tiến độ (thanh chạy liên tục, hoặc
+ *      "đã xử lý / tổng" nếu lời gọi báo tiến độ qua AsyncTasks.progress) với nút "Hủy"
+ *   3. Xong: đóng hộp thoại, bỏ chặn, rồi áp dụng kết quả trên EDT; lỗi thì hiện thông báo lỗi
+ *
+ * EDT chỉ chờ trong vòng lặp sự kiện của hộp thoại, không bị chặn (giao diện vẫn vẽ lại được).
+ * Gọi các method của lớp này trên EDT.
+ */
+public final class AsyncUi {
+
+    /** Thời gian chờ trước khi hiện hộp thoại tiến độ (ms): thao tác nhanh chỉ đổi con trỏ chuột */
+    public static final int DIALOG_DELAY_MS = 400;
+
+    private AsyncUi() {}
+
+    /**
+     * Khi task xong: onSuccess(kết quả) hoặc onError(lỗi) trên EDT; task bị hủy thì không gọi gì.
+     * onError null = hiện thông báo lỗi chung.
+     */
+    public static <T> void onEdt(CompletableFuture<T> task, Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+        task.whenComplete((result, ex) -> SwingUtilities.invokeLater(() -> {
+            Throwable cause = unwrap(ex);
+            if (cause instanceof CancellationException) return;
+            if (cause == null) onSuccess.accept(result);
+            else if (onError != null) onError.accept(cause);
+            else showError(null, cause);
+        }));
+    }
+
+    /** Chờ task (đã bắt đầu) với con trỏ chờ / hộp thoại tiến độ, xong thì onSuccess trên EDT */
+    public static <T> void run(Component owner, String message, CompletableFuture<T> task, Consumer<? super T> onSuccess) {
+        run(owner, message, progress -> task, onSuccess, null);
+    }
+
+    /**
+     * Bắt đầu task bằng start(progress) và chờ với con trỏ chờ / hộp thoại tiến độ
+     *
+     * @param owner Thành phần trong cửa sổ bị chặn khi chờ (hộp thoại tiến độ hiện trên cửa sổ này)
+     * @param message Nội dung hộp thoại (ví dụ "Đang duyệt 5.000 đăng ký...")
+     * @param start Bắt đầu lời gọi bất đồng bộ, truyền progress cho các method có báo tiến độ
+     * @param onSuccess Áp dụng kết quả (EDT), không gọi khi lỗi hoặc bị hủy
+     * @param onDone Chạy sau cùng trong mọi trường hợp, kể cả bị hủy (EDT, trước onSuccess; null = không có)
+     */
+    public static <T> void run(Component owner, String message,
+                               Function<AsyncTasks.Progress, CompletableFuture<T>> start,
+                               Consumer<? super T> onSuccess, Runnable onDone) {
+        Window window = owner == null ? null : SwingUtilities.getWindowAncestor(owner);
+        if (window == null && owner instanceof Window w) window = w;
+        Blocker blocker = new Blocker(window);
+        ProgressDialog dialog = new ProgressDialog(window, message);
+
+        CompletableFuture<T> task = start.apply(dialog::update);
+        dialog.task = task;
+
+        Timer show = new Timer(DIALOG_DELAY_MS, e -> {
+            if (!task.isDone()) dialog.setVisible(true); // chờ trong vòng lặp của hộp thoại tới khi dispose
+        });
+        show.setRepeats(false);
+        show.start();
+
+        task.whenComplete((result, ex) -> SwingUtilities.invokeLater(() -> {
+            show.stop();
+            dialog.dispose();
+            blocker.release();
+            if (onDone != null) onDone.run();
+            Throwable cause = unwrap(ex);
+            if (cause instanceof CancellationException) return;
+            if (cause == null) onSuccess.accept(result);
+            else showError(owner, cause);
+        }));
+    }
+
+    /** Thông báo lỗi của lời gọi bất đồng bộ (thông điệp của exception, như khi gọi đồng bộ) */
+    public static void showError(Component owner, Throwable ex) {
+        String message = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+        JOptionPane.showMessageDialog(owner, message, "Lỗi", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /** Con trỏ chờ + chặn chuột trên cửa sổ (qua glass pane) cho tới khi release */
+    private static final class Blocker {
+        private final RootPaneContainer container;
+        private final Component previous;
+
+        Blocker(Window window) {
+            container = window instanceof RootPaneContainer c ? c : null;
+            if (container == null) {
+                previous = null;
+                return;
+            }
+            previous = container.getGlassPane();
+            JPanel glass = new JPanel();
+            glass.setOpaque(false);
+            glass.addMouseListener(new MouseAdapter() {}); // nuốt sự kiện chuột
+            glass.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            container.setGlassPane(glass);
+            glass.setVisible(true);
+        }
+
+        void release() {
+            if (container == null) return;
+            container.getGlassPane().setVisible(false);
+            container.setGlassPane(previous);
+        }
+    }
+
+    /** Hộp thoại tiến độ: thanh chạy liên tục cho tới khi lời gọi báo tiến độ, nút "Hủy" hủy lời gọi */
+    private static final class ProgressDialog extends JDialog {
+        private final JProgressBar bar = new JProgressBar(0, 1000);
+        private final AtomicLong done = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        CompletableFuture<?> task;
+
+        ProgressDialog(Window owner, String message) {
+            super(owner, "Đang xử lý", ModalityType.DOCUMENT_MODAL);
+            setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    cancel();
+                }
+            });
+
+            JPanel content = new JPanel(new BorderLayout(0, 12));
+            content.setBorder(new EmptyBorder(20, 24, 16, 24));
+            JLabel label = new JLabel(message);
+            label.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+            content.add(label, BorderLayout.NORTH);
+
+            bar.setIndeterminate(true);
+            bar.setPreferredSize(new Dimension(320, 18));
+            content.add(bar, BorderLayout.CENTER);
+
+            JButton btnCancel = new JButton("Hủy");
+            btnCancel.addActionListener(e -> cancel());
+            JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+            buttons.add(btnCancel);
+            content.add(buttons, BorderLayout.SOUTH);
+
+            setContentPane(content);
+            pack();
+            setResizable(false);
+            setLocationRelativeTo(owner);
+        }
+
+        /** Gọi từ luồng nền: gom các lần báo liên tiếp thành một lần cập nhật trên EDT */
+        void update(long doneCount, long totalCount) {
+            done.set(doneCount);
+            total.set(totalCount);
+            if (scheduled.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    scheduled.set(false);
+                    long d = done.get(), t = total.get();
+                    if (t <= 0) return;
+                    bar.setIndeterminate(false);
+                    bar.setValue((int) (Math.min(d, t) * 1000 / t));
+                    bar.setStringPainted(true);
+                    bar.setString(String.format("%,d / %,d", d, t));
+                });
+            }
+        }
+
+        private void cancel() {
+            if (task != null) task.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package university.registration.ui;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Model của giỏ đăng ký (danh sách học phần sinh viên đã chọn trong một học kỳ)
+ *
+ * - Thêm / xóa học phần phát sự kiện cho đúng dòng bị thay đổi (fireIntervalAdded / Removed),
+ *   JList chỉ vẽ lại phần thay đổi thay vì dựng lại cả giỏ
+ * - Giữ sẵn các tổng tín chỉ, cập nhật theo từng thay đổi: đọc tổng là O(1),
+ *   không duyệt lại đăng ký của học kỳ (loadReg) ở mỗi lần vẽ bảng / giỏ
+ *   + registeredCredits: mọi đăng ký của sinh viên trong học kỳ (kể cả không nằm trong giỏ)
+ *   + cartCredits: mọi học phần trong giỏ
+ *   + pendingCredits: học phần trong giỏ chưa có đăng ký
+ * - Đăng ký của học kỳ được nạp lại bằng load() khi đổi học kỳ hoặc sau khi gửi đăng ký
+ *
+ * Chỉ truy cập trên EDT.
+ */
+public final class CartModel extends AbstractListModel<CartModel.Item> {
+
+    /** Một học phần trong giỏ, kèm đăng ký hiện có của học phần (null nếu chưa đăng ký) */
+    public static final class Item {
+        public final Course course;
+        RegItem reg;
+
+        Item(Course course, RegItem reg) {
+            this.course = course;
+            this.reg = reg;
+        }
+
+        /** Trạng thái đăng ký, null nếu chưa đăng ký */
+        public RegStatus status() {
+            return reg == null ? null : reg.status;
+        }
+
+        /** Được xóa khỏi giỏ khi chưa đăng ký hoặc đăng ký còn ở trạng thái "Tạm" */
+        public boolean removable() {
+            return reg == null || reg.status == RegStatus.DRAFT;
+        }
+    }
+
+    private final List<Item> items = new ArrayList<>();
+    private final Map<String, Item> byCode = new HashMap<>();
+    /** Đăng ký của sinh viên trong học kỳ đang xem, theo mã học phần */
+    private final Map<String, RegItem> regs = new HashMap<>();
+    private String term;
+    private int registeredCredits, cartCredits, pendingCredits;
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public Item getElementAt(int index) {
+        return items.get(index);
+    }
+
+    /* ---------- đọc ---------- */
+
+    /** Học kỳ của các đăng ký đã nạp (null nếu chưa nạp) */
+    public String term() {
+        return term;
+    }
+
+    public boolean contains(String code) {
+        return byCode.containsKey(code);
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /** Mã các học phần trong giỏ, theo thứ tự thêm vào */
+    public List<String> codes() {
+        List<String> codes = new ArrayList<>(items.size());
+        for (Item item : items) codes.add(item.course.code);
+        return codes;
+    }
+
+    /** Đăng ký hiện có của học phần trong học kỳ đã nạp */
+    public RegItem registration(String code) {
+        return regs.get(code);
+    }
+
+    public int registeredCredits() {
+        return registeredCredits;
+    }
+
+    public int cartCredits() {
+        return cartCredits;
+    }
+
+    public int pendingCredits() {
+        return pendingCredits;
+    }
+
+    /** Tổng tín chỉ của học kỳ: đã đăng ký + học phần trong giỏ chưa đăng ký */
+    public int totalCredits() {
+        return registeredCredits + pendingCredits;
+    }
+
+    /* ---------- thay đổi ---------- */
+
+    /**
+     * Nạp lại đăng ký của học kỳ (đổi học kỳ, sau khi gửi đăng ký...)
+     *
+     * Học phần trong giỏ được tra lại qua findCourse; học phần đã bị xóa khỏi danh mục bị bỏ khỏi giỏ.
+     */
+    public void load(String term, Collection<RegItem> termRegs, Function<String, Course> findCourse) {
+        this.term = term;
+        regs.clear();
+        registeredCredits = 0;
+        for (RegItem r : termRegs) {
+            regs.put(r.course.code, r);
+            registeredCredits += r.course.credits;
+        }
+
+        int oldSize = items.size();
+        List<Item> kept = new ArrayList<>(oldSize);
+        for (Item item : items) {
+            Course c = findCourse.apply(item.course.code);
+            if (c != null) kept.add(new Item(c, regs.get(c.code)));
+        }
+        items.clear();
+        byCode.clear();
+        cartCredits = pendingCredits = 0;
+        for (Item item : kept) {
+            items.add(item);
+            byCode.put(item.course.code, item);
+            count(item, 1);
+        }
+        if (kept.size() < oldSize) fireIntervalRemoved(this, kept.size(), oldSize - 1);
+        if (!kept.isEmpty()) fireContentsChanged(this, 0, kept.size() - 1);
+    }
+
+    /** Thêm học phần vào cuối giỏ, false nếu đã có */
+    public boolean add(Course course) {
+        if (byCode.containsKey(course.code)) return false;
+        Item item = new Item(course, regs.get(course.code));
+        items.add(item);
+        byCode.put(course.code, item);
+        count(item, 1);
+        int index = items.size() - 1;
+        fireIntervalAdded(this, index, index);
+        return true;
+    }
+
+    /** Bỏ học phần khỏi giỏ (đăng ký, nếu có, vẫn được tính vào registeredCredits) */
+    public Item remove(String code) {
+        Item item = byCode.remove(code);
+        if (item == null) return null;
+        int index = items.indexOf(item);
+        items.remove(index);
+        count(item, -1);
+        fireIntervalRemoved(this, index, index);
+        return item;
+    }
+
+    /** Đăng ký của học phần đã bị xóa khỏi kho (sau deleteRegs) */
+    public void unregister(String code) {
+        RegItem r = regs.remove(code);
+        if (r == null) return;
+        registeredCredits -= r.course.credits;
+        Item item = byCode.get(code);
+        if (item != null) {
+            count(item, -1);
+            item.reg = null;
+            count(item, 1);
+            int index = items.indexOf(item);
+            fireContentsChanged(this, index, index);
+        }
+    }
+
+    /** Bỏ toàn bộ học phần khỏi giỏ */
+    public void clear() {
+        int size = items.size();
+        if (size == 0) return;
+        items.clear();
+        byCode.clear();
+        cartCredits = pendingCredits = 0;
+        fireIntervalRemoved(this, 0, size - 1);
+    }
+
+    private void count(Item item, int sign) {
+        int credits = sign * item.course.credits;
+        cartCredits += credits;
+        if (item.reg == null) pendingCredits += credits;
+    }
+}
@@ -2,7 +2,8 @@ package university.registration.ui;
 
 import university.registration.model.Student;
 import university.registration.service.StudentService;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 import university.registration.ui.components.CardPanel;
 
 import javax.swing.*;
@@ -20,6 +21,11 @@ import java.util.regex.Pattern;
  */
 public class CreateStudentDialog extends JDialog {
 
+    /**
+     * Kho dữ liệu (Memory hoặc file, chọn qua StorageProvider)
+     */
+    private final Storage store = StorageProvider.get();
+
     // Service xử lý logic nghiệp vụ liên quan đến Sinh viên
     private final StudentService studentService = new StudentService();
 
@@ -48,7 +54,7 @@ public class CreateStudentDialog extends JDialog {
         setLayout(new BorderLayout());
 
         // Load danh sách CTĐT từ Memory
-        for (String p : Memory.programs) cbProgram.addItem(p);
+        for (String p : store.programs()) cbProgram.addItem(p);
 
         // ========== TOP BLUE BAR ==========
         JPanel topBar = new JPanel(new BorderLayout());
@@ -0,0 +1,229 @@
+package university.registration.ui;
+
+import university.registration.metrics.Metrics;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.InvocationEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Phát hiện EDT bị chặn (giao diện "treo") và ghi lại nguyên nhân
+ *
+ * Cách hoạt động:
+ * - Thay hàng đợi sự kiện AWT bằng WatchedQueue: mỗi lần dispatch một sự kiện là một "lượt bận"
+ *   (bắt đầu lúc nào, sự kiện gì). Thời gian EDT chờ sự kiện (getNextEvent - kể cả khi đang mở
+ *   hộp thoại modal bên trong một sự kiện) không tính là bận, nên hộp thoại mở lâu không bị báo treo.
+ * - Luồng nền "edt-watchdog" kiểm tra lượt bận hiện tại vài lần mỗi ngưỡng; lượt nào vượt ngưỡng thì
+ *   chụp ngay stack của EDT (lúc đang bị chặn) và ghi một dòng cảnh báo - kể cả khi EDT không bao giờ
+ *   thoát ra (deadlock).
+ * - Khi lượt bận kết thúc (trên EDT), nếu dài hơn ngưỡng thì ghi thời gian thực tế, kèm số lần và
+ *   thời gian cộng dồn của hành động đó.
+ *
+ * Hành động (để biết treo ở đâu): method không phải lambda gần đỉnh stack nhất thuộc package ui
+ * (ví dụ "AdminFrame.filterApprovalTable", "AdminFrame.refreshCourseTable"); nếu EDT đang ở ngoài
+ * code giao diện thì dùng mô tả sự kiện (nút nào, invokeLater của lớp nào).
+ *
+ * Cấu hình:
+ * - -Dregistration.edtStallMs=...   ngưỡng (ms), mặc định 500
+ * - -Dregistration.edtLogFile=...   file nhật ký treo, xoay vòng 5 file x 1 MB (edt-stalls.0.log, ...);
+ *                                   không đặt thì ghi ra console
+ * Số lần treo và thời gian treo theo hành động cũng được đưa vào Metrics
+ * (bộ đếm "EdtWatchdog.stalls", Timer "EdtWatchdog.&lt;hành động&gt;").
+ */
+public final class EdtWatchdog {
+
+    private static final Logger LOG = Logger.getLogger("university.registration.ui.edt");
+    private static final LongAdder STALLS = Metrics.counter("EdtWatchdog.stalls");
+
+    /** Số lần và thời gian treo theo hành động (chỉ ghi trên EDT, đọc qua summary) */
+    private static final Map<String, long[]> byAction = new LinkedHashMap<>();
+
+    private static volatile long thresholdNanos;
+    private static volatile Busy busy;
+    private static volatile Thread edt;
+    private static boolean installed;
+
+    private EdtWatchdog() {}
+
+    /** Một lượt EDT bận: dispatch một sự kiện, từ start đến khi xong hoặc EDT quay lại chờ sự kiện */
+    private static final class Busy {
+        final long start = System.nanoTime();
+        final AWTEvent event;
+        volatile StackTraceElement[] stack; // chụp bởi luồng watchdog khi vượt ngưỡng
+        volatile String action;
+
+        Busy(AWTEvent event) {
+            this.event = event;
+        }
+    }
+
+    /** Cài đặt theo cấu hình hệ thống (gọi một lần khi khởi động; gọi lại không có tác dụng) */
+    public static void install() {
+        String file = System.getProperty("registration.edtLogFile");
+        install(Long.getLong("registration.edtStallMs", 500), file == null || file.isBlank() ? null : Path.of(file));
+    }
+
+    /**
+     * Cài đặt với ngưỡng thresholdMs và file nhật ký (null = console)
+     */
+    public static synchronized void install(long thresholdMs, Path logFile) {
+        if (installed) return;
+        installed = true;
+        thresholdNanos = thresholdMs * 1_000_000L;
+        LOG.setLevel(Level.INFO);
+        if (logFile != null) {
+            try {
+                Path dir = logFile.toAbsolutePath().getParent();
+                if (dir != null) Files.createDirectories(dir);
+                String name = logFile.toString();
+                String pattern = name.endsWith(".log") ? name.substring(0, name.length() - 4) + ".%g.log" : name + ".%g";
+                FileHandler handler = new FileHandler(pattern, 1 << 20, 5, true);
+                handler.setEncoding("UTF-8");
+                handler.setFormatter(new Formatter() {
+                    @Override
+                    public String format(LogRecord r) {
+                        return String.format(Locale.ROOT, "%1$tF %1$tT.%1$tL %2$s%n", r.getMillis(), r.getMessage());
+                    }
+                });
+                LOG.addHandler(handler);
+                LOG.setUseParentHandlers(false);
+            } catch (IOException e) {
+                System.err.println("Không mở được file nhật ký treo " + logFile + ": " + e.getMessage());
+            }
+        }
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new WatchedQueue());
+
+        Thread watchdog = new Thread(EdtWatchdog::watch, "edt-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /** Bảng số lần / tổng / lâu nhất theo hành động */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (byAction) {
+            byAction.forEach((action, s) -> sb.append(String.format(Locale.ROOT, "%s: %d lần, tổng %d ms, lâu nhất %d ms%n",
+                    action, s[0], s[1] / 1_000_000, s[2] / 1_000_000)));
+        }
+        return sb.toString();
+    }
+
+    /** Hàng đợi sự kiện ghi lại lượt bận của EDT */
+    private static final class WatchedQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            Busy outer = busy;
+            if (outer != null) finish(outer); // dispatch lồng nhau (hộp thoại modal): lượt ngoài tạm dừng
+            edt = Thread.currentThread();
+            busy = new Busy(event);
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                // Lượt bận của sự kiện này (được tạo lại sau mỗi lần mở hộp thoại modal bên trong)
+                Busy mine = busy;
+                if (mine != null) finish(mine);
+                // Lượt ngoài chạy tiếp từ bây giờ (thời gian trong hộp thoại không tính)
+                busy = outer == null ? null : new Busy(outer.event);
+            }
+        }
+
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            Busy outer = busy;
+            if (outer != null) {
+                finish(outer); // chờ sự kiện (vòng lặp của hộp thoại modal): EDT không bận
+                busy = null;
+            }
+            try {
+                return super.getNextEvent();
+            } finally {
+                if (outer != null) busy = new Busy(outer.event);
+            }
+        }
+    }
+
+    /** Kết thúc một lượt bận (trên EDT): ghi lại nếu dài hơn ngưỡng */
+    private static void finish(Busy b) {
+        long nanos = System.nanoTime() - b.start;
+        if (nanos < thresholdNanos) return;
+        String action = b.action != null ? b.action : describe(b.event);
+        STALLS.increment();
+        Metrics.timer("EdtWatchdog." + action).record(b.start);
+        long[] s;
+        synchronized (byAction) {
+            s = byAction.computeIfAbsent(action, a -> new long[3]);
+            s[0]++;
+            s[1] += nanos;
+            s[2] = Math.max(s[2], nanos);
+        }
+        LOG.warning(String.format(Locale.ROOT, "EDT bị chặn %d ms - %s (%s) | hành động này: %d lần, tổng %d ms, lâu nhất %d ms",
+                nanos / 1_000_000, action, describe(b.event), s[0], s[1] / 1_000_000, s[2] / 1_000_000));
+    }
+
+    /** Luồng watchdog: chụp stack của EDT khi lượt bận hiện tại vượt ngưỡng */
+    private static void watch() {
+        while (true) {
+            long threshold = thresholdNanos;
+            try {
+                Thread.sleep(Math.max(10, threshold / 5_000_000));
+            } catch (InterruptedException e) {
+                return;
+            }
+            Busy b = busy;
+            Thread t = edt;
+            if (b == null || t == null || b.stack != null || System.nanoTime() - b.start < threshold) continue;
+            StackTraceElement[] stack = t.getStackTrace();
+            if (busy != b) continue; // EDT đã thoát ra trong lúc chụp: stack không còn đúng
+            b.stack = stack;
+            b.action = action(stack);
+            String action = b.action != null ? b.action : describe(b.event); // như finish
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                    "EDT đang bị chặn quá %d ms - %s (%s), stack:", threshold / 1_000_000, action, describe(b.event)));
+            for (StackTraceElement e : stack) sb.append("\n    at ").append(e);
+            LOG.warning(sb.toString());
+        }
+    }
+
+    /** Method không phải lambda gần đỉnh stack nhất thuộc package ui (trừ lớp này) */
+    static String action(StackTraceElement[] stack) {
+        String pkg = EdtWatchdog.class.getPackageName() + ".";
+        for (StackTraceElement e : stack) {
+            String cls = e.getClassName();
+            if (!cls.startsWith(pkg) || cls.startsWith(EdtWatchdog.class.getName())) continue;
+            if (e.getMethodName().startsWith("lambda$") || e.getMethodName().startsWith("access$")) continue;
+            String simple = cls.substring(pkg.length());
+            int nested = simple.indexOf('$');
+            if (nested >= 0 && Character.isDigit(simple.charAt(nested + 1))) simple = simple.substring(0, nested); // lớp ẩn danh
+            return simple + "." + e.getMethodName();
+        }
+        return null;
+    }
+
+    /** Mô tả ngắn sự kiện: nút / lệnh nào, invokeLater của lớp nào */
+    static String describe(AWTEvent event) {
+        if (event instanceof ActionEvent a) {
+            return "ActionEvent \"" + a.getActionCommand() + "\" từ " + a.getSource().getClass().getSimpleName();
+        }
+        if (event instanceof InvocationEvent inv) {
+            String p = inv.paramString();
+            int i = p.indexOf("runnable=");
+            String cls = i < 0 ? "" : p.substring(i + 9).split("[,@$]")[0];
+            return "invokeLater " + cls.substring(cls.lastIndexOf('.') + 1);
+        }
+        return event.getClass().getSimpleName() + " từ " + event.getSource().getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,78 @@
+package university.registration.ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.List;
+
+/**
+ * TableModel chỉ đọc bọc một danh sách kết quả truy vấn (học phần, đăng ký...)
+ *
+ * - Giá trị ô được tính khi JTable cần vẽ (chỉ các dòng đang hiển thị),
+ *   không dựng sẵn Object[] / Vector cho mọi dòng như DefaultTableModel
+ * - setRows thay cả danh sách, phát một sự kiện fireTableDataChanged cho mỗi lần làm mới
+ * - Giữ lại phần tử của dòng vừa đọc: JTable vẽ lần lượt các ô của một dòng, nên danh sách
+ *   tạo phần tử khi đọc (Storage.queryRegs) chỉ tạo một đối tượng cho cả dòng
+ *
+ * Chỉ truy cập trên EDT.
+ *
+ * @param <T> kiểu phần tử của một dòng
+ */
+public final class ListTableModel<T> extends AbstractTableModel {
+
+    /** Giá trị của ô (column) tại dòng thứ index có phần tử row */
+    public interface CellValue<T> {
+        Object value(T row, int index, int column);
+    }
+
+    private final String[] columns;
+    private final CellValue<T> cell;
+    private List<T> rows = List.of();
+    private int cachedIndex = -1;
+    private T cachedRow;
+
+    public ListTableModel(String[] columns, CellValue<T> cell) {
+        this.columns = columns.clone();
+        this.cell = cell;
+    }
+
+    /** Thay toàn bộ dòng (một sự kiện) */
+    public void setRows(List<T> rows) {
+        this.rows = rows;
+        cachedIndex = -1;
+        cachedRow = null;
+        fireTableDataChanged();
+    }
+
+    /** Danh sách đang hiển thị */
+    public List<T> getRows() {
+        return rows;
+    }
+
+    /** Phần tử của dòng */
+    public T rowAt(int index) {
+        if (index != cachedIndex) {
+            cachedRow = rows.get(index);
+            cachedIndex = index;
+        }
+        return cachedRow;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return cell.value(rowAt(rowIndex), rowIndex, columnIndex);
+    }
+}
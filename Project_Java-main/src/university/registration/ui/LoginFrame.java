@@ -1,5 +1,6 @@
 package university.registration.ui;
 
+import university.registration.controller.AsyncLoginController;
 import university.registration.controller.LoginController;
 import university.registration.ui.components.CardPanel;
 
@@ -21,8 +22,8 @@ import java.awt.*;
  */
 public class LoginFrame extends JFrame {
 
-    // Controller xử lý logic nghiệp vụ (gọi Service layer)
-    private final LoginController loginController = new LoginController();
+    // Controller xử lý logic nghiệp vụ (gọi Service layer), chạy trên luồng nền
+    private final AsyncLoginController loginController = new AsyncLoginController();
 
     // ========== UI COMPONENTS ==========
     // Ô nhập tài khoản / email
@@ -234,7 +235,9 @@ public class LoginFrame extends JFrame {
      *    - Mở màn hình tương ứng (AdminFrame hoặc StudentRegistrationFrame)
      *    - Hoặc hiển thị thông báo lỗi
      * 
-     * Tất cả logic nghiệp vụ (validate, xác thực) được xử lý trong Controller
+     * Tất cả logic nghiệp vụ (validate, xác thực) được xử lý trong Controller.
+     * Xác thực chạy trên luồng nền (AsyncLoginController), EDT không bị chặn trong lúc chờ;
+     * kết quả được xử lý trên EDT (AsyncUi).
      */
     void doLogin(){
         // Lấy thông tin từ form
@@ -243,9 +246,11 @@ public class LoginFrame extends JFrame {
 
         // Gọi Controller để xử lý logic đăng nhập
         // Controller sẽ gọi Service layer để xử lý logic thực tế
-        LoginController.LoginResult result = loginController.login(user, pass);
-        
-        // Xử lý kết quả từ Controller (UI chỉ lo hiển thị và điều hướng)
+        AsyncUi.run(this, "Đang đăng nhập...", loginController.login(user, pass), this::showLoginResult);
+    }
+
+    /** Xử lý kết quả từ Controller (UI chỉ lo hiển thị và điều hướng) */
+    private void showLoginResult(LoginController.LoginResult result) {
         switch (result.type) {
             case ADMIN:
                 // Đăng nhập Admin thành công: mở màn hình quản trị
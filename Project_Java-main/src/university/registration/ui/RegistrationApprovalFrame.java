@@ -1,8 +1,10 @@
 package university.registration.ui;
 
-import university.registration.model.RegItem;
-import university.registration.model.Student;
-import university.registration.store.Memory;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 import university.registration.ui.components.CardPanel;
 
 import javax.swing.*;
@@ -11,11 +13,16 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class RegistrationApprovalFrame extends JFrame {
 
+    /**
+     * Kho dữ liệu (Memory hoặc file, chọn qua StorageProvider)
+     */
+    private final Storage store = StorageProvider.get();
+
     // Bảng & model hiển thị danh sách đăng ký
     JTable table;
     DefaultTableModel model;
@@ -26,6 +33,10 @@ public class RegistrationApprovalFrame extends JFrame {
     JComboBox<String> cbTerm = new JComboBox<>();
     JComboBox<String> cbDept = new JComboBox<>(new String[]{"Tất cả"});
 
+    // Lọc bảng: gõ phím được gom lại, truy vấn chạy trên luồng nền (xem SearchPipeline)
+    final SearchPipeline<RegQuery, List<Object[]>> search = new SearchPipeline<>(
+            this::currentQuery, this::rowsOf, this::showRows);
+
     public RegistrationApprovalFrame(JFrame owner) {
         setTitle("PĐT – Duyệt đăng ký học phần");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
@@ -99,12 +110,12 @@ public class RegistrationApprovalFrame extends JFrame {
         cbTerm.setPreferredSize(new Dimension(140, 40));
         cbTerm.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         cbTerm.addItem("Tất cả");
-        for (String t : Memory.loadTerms()) cbTerm.addItem(t);
+        for (String t : store.terms()) cbTerm.addItem(t);
 
         // Department filter
         cbDept.setPreferredSize(new Dimension(150, 40));
         cbDept.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        for (String p : Memory.programs) cbDept.addItem(p);
+        for (String p : store.programs()) cbDept.addItem(p);
 
         filterPanel.add(new JLabel("Tìm kiếm:"));
         filterPanel.add(searchField);
@@ -139,11 +150,11 @@ public class RegistrationApprovalFrame extends JFrame {
                 // Tô màu cột trạng thái
                 if (column == 6) {
                     String status = (String) getValueAt(row, column);
-                    if ("Đã duyệt".equals(status) || "Thành công".equals(status)) {
+                    if (RegStatus.APPROVED.label.equals(status)) {
                         c.setBackground(new Color(220, 255, 220));
-                    } else if ("Từ chối".equals(status) || "Đã từ chối".equals(status)) {
+                    } else if (RegStatus.REJECTED.label.equals(status)) {
                         c.setBackground(new Color(255, 220, 220));
-                    } else if ("Chờ xử lý".equals(status) || "Đã gửi".equals(status) || "Tạm".equals(status)) {
+                    } else if ("Chờ xử lý".equals(status) || RegStatus.DRAFT.label.equals(status)) {
                         c.setBackground(new Color(255, 255, 220));
                     }
                 }
@@ -317,11 +328,7 @@ public class RegistrationApprovalFrame extends JFrame {
         // ========== GẮN ACTION ==========
         // Make paginationInfo accessible in filterTable
         paginationInfoLabel = paginationInfo;
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
-        });
+        search.attach(searchField);
         cbStatus.addActionListener(e -> filterTable());
         cbTerm.addActionListener(e -> filterTable());
         cbDept.addActionListener(e -> filterTable());
@@ -335,138 +342,105 @@ public class RegistrationApprovalFrame extends JFrame {
     JLabel paginationInfoLabel;
     
     /**
-     * Lọc bảng theo search text, status, term, và department
+     * Lọc bảng theo search text, status, term, và department (cập nhật bảng ngay)
      */
     void filterTable() {
+        search.runNow();
+    }
+
+    /**
+     * Bộ lọc hiện tại trên giao diện (đọc trên EDT)
+     */
+    RegQuery currentQuery() {
         String searchText = searchField.getText().toLowerCase();
         String selectedStatus = (String) cbStatus.getSelectedItem();
         String selectedTerm = (String) cbTerm.getSelectedItem();
         String selectedDept = (String) cbDept.getSelectedItem();
+        return RegQuery.fromFilters(searchText, selectedStatus, selectedTerm, selectedDept, "Chờ xử lý");
+    }
 
-        // Load lại toàn bộ dữ liệu
-        model.setRowCount(0);
-        int regCount = 0;
-
-        // Duyệt tất cả sinh viên và các học kỳ của họ
-        for (Map.Entry<String, Map<String, List<RegItem>>> studentEntry : Memory.regs.entrySet()) {
-            String studentId = studentEntry.getKey();
-            Student student = Memory.studentsById.get(studentId);
-            if (student == null) continue;
-
-            // Filter by department
-            if (selectedDept != null && !selectedDept.equals("Tất cả")) {
-                if (!selectedDept.equals(student.program)) {
-                    continue;
-                }
-            }
-
-            Map<String, List<RegItem>> termRegs = studentEntry.getValue();
-            for (Map.Entry<String, List<RegItem>> termEntry : termRegs.entrySet()) {
-                String term = termEntry.getKey();
-                
-                // Filter by term
-                if (selectedTerm != null && !selectedTerm.equals("Tất cả")) {
-                    if (!selectedTerm.equals(term)) {
-                        continue;
-                    }
-                }
-
-                List<RegItem> regItems = termEntry.getValue();
-                for (RegItem item : regItems) {
-                    // Chuẩn hóa trạng thái
-                    String status = item.status;
-                    if ("Tạm".equals(status) || "Đã gửi".equals(status)) {
-                        status = "Chờ xử lý";
-                    }
-
-                    // Filter by status
-                    if (selectedStatus != null && !selectedStatus.equals("Tất cả")) {
-                        if (!selectedStatus.equals(status)) {
-                            continue;
-                        }
-                    }
-
-                    // Filter by search text
-                    if (!searchText.isEmpty()) {
-                        if (!student.fullName.toLowerCase().contains(searchText) &&
-                            !studentId.toLowerCase().contains(searchText) &&
-                            !item.course.name.toLowerCase().contains(searchText) &&
-                            !item.course.code.toLowerCase().contains(searchText)) {
-                            continue;
-                        }
-                    }
+    /**
+     * Dòng của bảng theo truy vấn (chạy được trên luồng nền)
+     */
+    List<Object[]> rowsOf(RegQuery query) {
+        // Lọc bằng index phụ của kho dữ liệu (học kỳ / trạng thái / Khoa-Viện / từ khóa)
+        List<RegRow> found = store.queryRegs(query);
+        List<Object[]> rows = new ArrayList<>(found.size());
+        for (RegRow r : found) {
+            // Đã có lượt lọc mới hơn: bỏ dở, kết quả này sẽ không được hiển thị
+            if ((rows.size() & 0xFFF) == 0 && SearchPipeline.cancelled()) break;
+
+            // Chuẩn hóa trạng thái ("Đã gửi" -> "Chờ xử lý")
+            String status = RegQuery.shownAs(r.status, "Chờ xử lý");
+
+            rows.add(new Object[]{
+                    RegRow.regCode(r.id),
+                    r.fullName,
+                    r.studentId,
+                    r.courseName,
+                    String.valueOf(r.credits),
+                    r.date,
+                    status,
+                    r.term,
+                    ""
+            });
+        }
+        return rows;
+    }
 
-                    regCount++;
-                    String regCode = "DK" + String.format("%03d", regCount);
-                    
-                    model.addRow(new Object[]{
-                            regCode,
-                            student.fullName,
-                            studentId,
-                            item.course.name,
-                            String.valueOf(item.course.credits),
-                            item.date,
-                            status,
-                            term,
-                            ""
-                    });
-                }
+    /**
+     * Đưa kết quả lọc lên bảng (một lần thay toàn bộ dòng) và cập nhật thông tin phân trang
+     */
+    void showRows(List<Object[]> rows) {
+        SearchPipeline.setRows(model, rows);
+        if (paginationInfoLabel != null) {
+            int count = model.getRowCount();
+            if (count > 0) {
+                paginationInfoLabel.setText("Hiển thị 1 - " + count + " trên " + count + " kết quả");
+            } else {
+                paginationInfoLabel.setText("Không có kết quả nào");
             }
         }
-        
-        // Update pagination after filtering
-        SwingUtilities.invokeLater(() -> {
-            if (paginationInfoLabel != null) {
-                int count = model.getRowCount();
-                if (count > 0) {
-                    paginationInfoLabel.setText("Hiển thị 1 - " + count + " trên " + count + " kết quả");
-                } else {
-                    paginationInfoLabel.setText("Không có kết quả nào");
-                }
-            }
-        });
     }
 
     /**
      * Duyệt đăng ký tại row được chỉ định
      */
     void approveRegistration(int row) {
-        String studentId = (String) model.getValueAt(row, 2);
-        String courseName = (String) model.getValueAt(row, 3);
-        String term = (String) model.getValueAt(row, 7);
-
-        // Cập nhật status trong Memory
-        List<RegItem> regs = Memory.loadReg(studentId, term);
-        for (RegItem item : regs) {
-            if (item.course.name.equals(courseName)) {
-                item.status = "Đã duyệt";
-                break;
-            }
-        }
-
-        filterTable();
-        JOptionPane.showMessageDialog(this, "Đã duyệt đăng ký thành công!");
+        decide(row, RegStatus.APPROVED, "Đã duyệt đăng ký thành công!", "Chỉ duyệt được đăng ký đang chờ xử lý");
     }
 
     /**
      * Từ chối đăng ký tại row được chỉ định
      */
     void rejectRegistration(int row) {
-        String studentId = (String) model.getValueAt(row, 2);
-        String courseName = (String) model.getValueAt(row, 3);
-        String term = (String) model.getValueAt(row, 7);
-
-        // Cập nhật status trong Memory
-        List<RegItem> regs = Memory.loadReg(studentId, term);
-        for (RegItem item : regs) {
-            if (item.course.name.equals(courseName)) {
-                item.status = "Đã từ chối";
-                break;
-            }
-        }
+        decide(row, RegStatus.REJECTED, "Đã từ chối đăng ký!", "Chỉ từ chối được đăng ký đang chờ xử lý");
+    }
 
+    /**
+     * Đổi trạng thái đăng ký của dòng theo mã ĐK (cột 0): mã không đổi theo bộ lọc,
+     * kho tra thẳng index chính thay vì tìm lại theo tên học phần
+     */
+    private void decide(int row, RegStatus status, String done, String illegal) {
+        long regId = RegRow.regId((String) model.getValueAt(row, 0));
+        RegRow current = store.findReg(regId);
+        if (current == null) {
+            filterTable();
+            JOptionPane.showMessageDialog(this, "Đăng ký không còn tồn tại.");
+            return;
+        }
+        if (!current.status.canMoveTo(status)) {
+            JOptionPane.showMessageDialog(this, illegal + " (hiện tại: " + current.status + ").");
+            return;
+        }
+        try {
+            store.setStatus(regId, status);
+        } catch (RuntimeException ex) { // nơi khác vừa xử lý đăng ký này
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
         filterTable();
-        JOptionPane.showMessageDialog(this, "Đã từ chối đăng ký!");
+        JOptionPane.showMessageDialog(this, done);
     }
 
     /**
@@ -0,0 +1,157 @@
+package university.registration.ui;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.text.JTextComponent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Luồng tìm kiếm dùng chung cho các bảng lọc theo ô tìm kiếm
+ *
+ * Mỗi lượt tìm gồm 3 bước:
+ * 1. input   (EDT)     : chụp lại giá trị các ô lọc (từ khóa, combobox...) thành một truy vấn Q
+ * 2. search  (nền)     : lọc dữ liệu theo Q, trả về kết quả R (ví dụ danh sách dòng của bảng)
+ * 3. publish (EDT)     : đưa R lên giao diện một lần (setRows: thay toàn bộ dòng, một sự kiện)
+ *
+ * - Gõ phím (request): gom các lần gõ liên tiếp, chỉ chạy khi ngừng gõ DEFAULT_DELAY_MS ms
+ * - Lượt mới làm lượt cũ hết hiệu lực: lượt cũ còn trong hàng đợi thì bỏ qua,
+ *   đang chạy thì kết quả bị bỏ (search dài có thể tự dừng sớm qua cancelled())
+ * - runNow: chạy đồng bộ trên EDT (sau khi thêm / sửa / xóa dữ liệu, code gọi cần bảng
+ *   được cập nhật ngay), đồng thời hủy các lượt đang chờ để kết quả cũ không ghi đè lên
+ *
+ * Tất cả pipeline dùng chung một luồng nền, không interrupt luồng đang chạy
+ * (kho dữ liệu dạng file dùng FileChannel, interrupt sẽ đóng kênh).
+ *
+ * @param <Q> truy vấn (giá trị các ô lọc tại thời điểm chạy)
+ * @param <R> kết quả lọc
+ */
+public final class SearchPipeline<Q, R> {
+
+    /** Thời gian chờ sau lần gõ phím cuối trước khi lọc (ms) */
+    public static final int DEFAULT_DELAY_MS = 150;
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search-worker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Lượt tìm đang chạy trên luồng nền (để search kiểm tra cancelled()) */
+    private static final ThreadLocal<BooleanSupplier> RUNNING = new ThreadLocal<>();
+
+    private final Supplier<Q> input;
+    private final Function<Q, R> search;
+    private final Consumer<R> publish;
+    private final Timer timer;
+    private final AtomicLong generation = new AtomicLong();
+    /** Lượt đã gửi sang luồng nền (chỉ truy cập trên EDT) */
+    private Future<?> pending;
+
+    public SearchPipeline(Supplier<Q> input, Function<Q, R> search, Consumer<R> publish) {
+        this(DEFAULT_DELAY_MS, input, search, publish);
+    }
+
+    public SearchPipeline(int delayMs, Supplier<Q> input, Function<Q, R> search, Consumer<R> publish) {
+        this.input = input;
+        this.search = search;
+        this.publish = publish;
+        this.timer = new Timer(delayMs, e -> submit());
+        this.timer.setRepeats(false);
+    }
+
+    /** Gắn vào ô tìm kiếm: mỗi lần nội dung thay đổi gọi request() */
+    public SearchPipeline<Q, R> attach(JTextComponent field) {
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void changedUpdate(DocumentEvent e) { request(); }
+            public void removeUpdate(DocumentEvent e) { request(); }
+            public void insertUpdate(DocumentEvent e) { request(); }
+        });
+        return this;
+    }
+
+    /** Hẹn một lượt tìm sau khi ngừng gõ (gọi trên EDT, gọi liên tiếp chỉ chạy một lần) */
+    public void request() {
+        timer.restart();
+    }
+
+    /** Tìm và cập nhật giao diện ngay trên EDT, hủy các lượt đang chờ */
+    public void runNow() {
+        timer.stop();
+        invalidate();
+        publish.accept(search.apply(input.get()));
+    }
+
+    /** Hủy lượt đang chờ / đang chạy (ví dụ khi đóng cửa sổ) */
+    public void cancel() {
+        timer.stop();
+        invalidate();
+    }
+
+    /**
+     * Lượt tìm đang chạy trên luồng nền đã bị thay bằng lượt mới hơn chưa.
+     * Search dài (duyệt nhiều dòng) có thể kiểm tra định kỳ và trả về sớm, kết quả sẽ không được dùng.
+     * Luôn là false khi chạy qua runNow.
+     */
+    public static boolean cancelled() {
+        BooleanSupplier stale = RUNNING.get();
+        return stale != null && stale.getAsBoolean();
+    }
+
+    /**
+     * Thay toàn bộ dòng của bảng bằng rows, chỉ phát một sự kiện fireTableDataChanged
+     * (thay cho setRowCount(0) + addRow từng dòng, mỗi dòng một sự kiện)
+     */
+    public static void setRows(DefaultTableModel model, List<Object[]> rows) {
+        @SuppressWarnings("unchecked")
+        Vector<Vector<Object>> data = (Vector<Vector<Object>>) (Vector<?>) model.getDataVector();
+        data.clear();
+        data.ensureCapacity(rows.size());
+        for (Object[] row : rows) data.add(new Vector<>(Arrays.asList(row)));
+        model.fireTableDataChanged();
+    }
+
+    /* ---------- nội bộ ---------- */
+
+    private long invalidate() {
+        if (pending != null) {
+            pending.cancel(false); // còn trong hàng đợi thì bỏ, đang chạy thì để chạy hết
+            pending = null;
+        }
+        return generation.incrementAndGet();
+    }
+
+    private void submit() {
+        long gen = invalidate();
+        Q query = input.get();
+        pending = WORKER.submit(() -> {
+            if (generation.get() != gen) return;
+            RUNNING.set(() -> generation.get() != gen);
+            R result;
+            try {
+                result = search.apply(query);
+            } catch (RuntimeException ex) {
+                // Báo lỗi trên EDT như khi lọc đồng bộ
+                SwingUtilities.invokeLater(() -> { throw ex; });
+                return;
+            } finally {
+                RUNNING.remove();
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (generation.get() == gen) publish.accept(result);
+            });
+        });
+    }
+}
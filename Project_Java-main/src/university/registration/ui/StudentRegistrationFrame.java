@@ -1,9 +1,13 @@
 package university.registration.ui;
 
+import university.registration.controller.StudentRegistrationController;
+import university.registration.controller.StudentRegistrationController.CatalogPage;
 import university.registration.model.Course;
 import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
 import university.registration.model.Student;
-import university.registration.store.Memory;
+import university.registration.store.Storage;
+import university.registration.store.StorageProvider;
 import university.registration.ui.components.CardPanel;
 
 import javax.swing.*;
@@ -44,6 +48,11 @@ import java.util.List;
  */
 public class StudentRegistrationFrame extends JFrame {
 
+    /**
+     * Kho dữ liệu (Memory hoặc file, chọn qua StorageProvider)
+     */
+    private final Storage store = StorageProvider.get();
+
     /**
      * Sinh viên đang đăng nhập và sử dụng màn hình này
      * 
@@ -52,6 +61,11 @@ public class StudentRegistrationFrame extends JFrame {
      */
     final Student student;
 
+    /**
+     * Controller của màn hình: lọc danh mục học phần theo trang (queryCatalogPage / getCatalogPage)
+     */
+    final StudentRegistrationController controller;
+
     /**
      * ComboBox để chọn học kỳ đăng ký
      * 
@@ -64,10 +78,25 @@ public class StudentRegistrationFrame extends JFrame {
      * TextField để tìm kiếm học phần
      * 
      * Sinh viên có thể nhập mã học phần hoặc tên học phần để tìm kiếm.
-     * Kết quả tìm kiếm được cập nhật real-time khi gõ (sử dụng DocumentListener).
+     * Kết quả tìm kiếm được cập nhật khi ngừng gõ (courseSearch, lọc trên luồng nền).
      */
     JTextField searchField = new JTextField();
     
+    /**
+     * Luồng lọc danh sách học phần: gom các lần gõ phím, lọc trên luồng nền,
+     * rồi hiển thị trang đầu trên EDT (xem SearchPipeline)
+     */
+    final SearchPipeline<String[], CatalogPage> courseSearch = new SearchPipeline<>(
+            () -> new String[]{(String) cbTerm.getSelectedItem(), searchField.getText().trim()},
+            this::queryCatalog,
+            this::showCourses);
+    
+    /**
+     * Trang học phần đang hiển thị; cursor của nó dùng để chuyển trang mà không lọc lại
+     * (null = chưa lọc, hoặc đã đổi học kỳ)
+     */
+    CatalogPage catalogPage;
+    
     /**
      * Bảng hiển thị danh sách học phần có thể đăng ký
      * 
@@ -87,14 +116,29 @@ public class StudentRegistrationFrame extends JFrame {
     DefaultTableModel courseModel;
     
     /**
-     * Panel chứa danh sách học phần đã thêm vào giỏ đăng ký
+     * Danh sách học phần đã thêm vào giỏ đăng ký (hiển thị qua CartCellRenderer)
      * 
-     * Mỗi học phần trong giỏ được hiển thị dưới dạng một item với:
+     * Mỗi học phần trong giỏ được hiển thị dưới dạng một dòng với:
      * - Mã HP, tên học phần, số tín chỉ
      * - Trạng thái đăng ký (nếu đã gửi)
-     * - Nút xóa (nếu chưa gửi hoặc trạng thái là "Tạm")
+     * - Nút xóa "x" (mờ đi nếu đã gửi và trạng thái không phải "Tạm")
+     */
+    JList<CartModel.Item> cartList;
+    
+    /**
+     * Khung cuộn của giỏ: hiển thị cartList, hoặc cartEmpty khi giỏ trống
      */
-    JPanel cartPanel;
+    JScrollPane cartScroll;
+    
+    /**
+     * Thông báo "Chưa có học phần nào" khi giỏ trống
+     */
+    JLabel cartEmpty;
+    
+    /**
+     * Dòng của giỏ đang được rê chuột lên nút xóa (-1 nếu không có), để tô đỏ nút xóa
+     */
+    int cartHoverRemove = -1;
     
     /**
      * Label hiển thị tổng số tín chỉ (không dùng nữa, thay bằng lbCreditRange)
@@ -140,13 +184,12 @@ public class StudentRegistrationFrame extends JFrame {
     JButton btnClearAll = new JButton("XÓA HẾT");
     
     /**
-     * Set chứa mã các học phần đã được thêm vào giỏ đăng ký
+     * Giỏ đăng ký: các học phần đã chọn, theo thứ tự thêm vào
      * 
-     * Dùng Set để đảm bảo không trùng lặp (mỗi học phần chỉ có thể thêm 1 lần).
-     * Khi sinh viên thêm học phần vào giỏ, mã học phần được thêm vào Set này.
-     * Khi xóa khỏi giỏ, mã học phần được xóa khỏi Set.
+     * Mỗi học phần chỉ có thể thêm 1 lần. Model giữ sẵn tổng tín chỉ
+     * (đã đăng ký, trong giỏ, chưa đăng ký) nên đọc tổng không cần duyệt lại đăng ký.
      */
-    Set<String> selectedCourseCodes = new HashSet<>();
+    final CartModel cart = new CartModel();
     
     /**
      * TabbedPane để chuyển đổi giữa 2 tab: "Đăng ký học phần" và "Lịch sử đăng ký"
@@ -203,105 +246,6 @@ public class StudentRegistrationFrame extends JFrame {
      */
     JPanel paginationPanel, paginationButtons;
     
-    /**
-     * Helper method: Xác định loại học phần dựa trên mã học phần
-     * 
-     * Phân loại học phần theo quy tắc đặt mã:
-     * - PE*: Giáo dục thể chất (GDTC)
-     * - MIL*: Quốc phòng An ninh (QP-AN)
-     * - FL*: Ngoại ngữ
-     * - SSH*: Lý luận chính trị
-     * - EM1170: Pháp luật
-     * - MI*, PH*, IT1110: Toán-KHCB
-     * - ET2*, ET3*, ET4*: Cơ sở ngành (có thể là mô đun chuyên ngành)
-     * - EM101*, EM118*, ED*, ET3262, CH202, ME312*: Bổ trợ
-     * - CT*: Tự chọn
-     * - MA*: Cơ sở
-     * 
-     * @param code Mã học phần (ví dụ: "CT101", "PE2101", "ET4010")
-     * @return Loại học phần (ví dụ: "Tự chọn", "GDTC - Tự chọn", "Cơ sở ngành")
-     */
-    private String getCourseType(String code) {
-        if (code == null || code.isEmpty()) return "Tự chọn";
-        
-        // GDTC - Giáo dục thể chất
-        if (code.startsWith("PE")) {
-            if (code.startsWith("PE31") || code.startsWith("PE32") || code.startsWith("PE33")) {
-                return "GDTC - Chuyên sâu";
-            }
-            if (code.startsWith("PE21") || code.startsWith("PE22") || code.startsWith("PE23") || 
-                code.startsWith("PE24") || code.startsWith("PE25") || code.startsWith("PE26") ||
-                code.startsWith("PE27") || code.startsWith("PE28") || code.startsWith("PE29")) {
-                return "GDTC - Tự chọn";
-            }
-            if (code.startsWith("PE10")) {
-                return "GDTC";
-            }
-            return "Bắt buộc";
-        }
-        
-        // QP-AN - Quốc phòng An ninh
-        if (code.startsWith("MIL")) return "QP-AN";
-        
-        // Ngoại ngữ
-        if (code.startsWith("FL")) return "Ngoại ngữ";
-        
-        // Lý luận chính trị
-        if (code.startsWith("SSH")) return "Lý luận chính trị";
-        
-        // Pháp luật
-        if (code.startsWith("EM1170")) return "Pháp luật";
-        
-        // Toán-KHCB
-        if (code.startsWith("MI") || code.startsWith("PH") || code.startsWith("IT1110")) {
-            return "Toán-KHCB";
-        }
-        
-        // Cơ sở ngành
-        if (code.startsWith("ET2") || code.startsWith("ET3") || code.startsWith("ET4")) {
-            if (code.startsWith("ET410") || code.startsWith("ET447") || code.startsWith("ET445") || 
-                code.startsWith("ET411") || code.startsWith("ET448") || code.startsWith("ET412")) {
-                return "Mô đun - Y sinh";
-            }
-            if (code.startsWith("ET413") || code.startsWith("ET414")) {
-                return "Mô đun - Hàng không/Vũ trụ";
-            }
-            if (code.startsWith("ET426") || code.startsWith("ET437")) {
-                return "Mô đun - Đa phương tiện";
-            }
-            if (code.startsWith("ET435") || code.startsWith("ET434") || code.startsWith("ET4033") || 
-                code.startsWith("ET436")) {
-                return "Mô đun - Vi mạch";
-            }
-            if (code.startsWith("ET331") || code.startsWith("ET423") || code.startsWith("ET425") || 
-                code.startsWith("ET407") || code.startsWith("ET429") || code.startsWith("ET318")) {
-                return "Mô đun";
-            }
-            if (code.startsWith("ET327")) {
-                return "Thực tập";
-            }
-            if (code.startsWith("ET329") || code.startsWith("ET401") || code.startsWith("ET492")) {
-                return code.startsWith("ET492") ? "Đồ án nghiên cứu" : "Cơ sở ngành";
-            }
-            if (code.startsWith("ET2022")) {
-                return "Cơ sở ngành";
-            }
-            return "Cơ sở ngành";
-        }
-        
-        // Bổ trợ
-        if (code.startsWith("EM101") || code.startsWith("EM118") || code.startsWith("ED") || 
-            code.startsWith("ET3262") || code.startsWith("CH202") || code.startsWith("ME312")) {
-            return "Bổ trợ";
-        }
-        
-        // Mặc định
-        if (code.startsWith("CT")) return "Tự chọn";
-        if (code.startsWith("MA")) return "Cơ sở";
-        
-        return "Tự chọn";
-    }
-
     /**
      * Constructor: Tạo màn hình đăng ký học phần cho sinh viên
      * 
@@ -322,6 +266,7 @@ public class StudentRegistrationFrame extends JFrame {
     public StudentRegistrationFrame(JFrame owner, Student s){
         // Lưu thông tin sinh viên đang đăng nhập
         this.student = s;
+        this.controller = new StudentRegistrationController(s);
 
         // Thiết lập tiêu đề cửa sổ: hiển thị tên và MSSV của sinh viên
         setTitle("Sinh viên – Đăng ký học phần | " +
@@ -441,17 +386,13 @@ public class StudentRegistrationFrame extends JFrame {
 
         // ====== GẮN ACTION ======
         cbTerm.addActionListener(e -> refreshAll());
-        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { refreshCourseTable(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { refreshCourseTable(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { refreshCourseTable(); }
-        });
+        courseSearch.attach(searchField);
         btnSubmit.addActionListener(e -> submit());
         btnClearAll.addActionListener(e -> clearCart());
 
         // Chọn kỳ đầu tiên, sau đó load dữ liệu
         cbTerm.removeAllItems();
-        for (String t : Memory.loadTerms()) cbTerm.addItem(t);
+        for (String t : store.terms()) cbTerm.addItem(t);
         if (cbTerm.getItemCount() > 0) {
             cbTerm.setSelectedIndex(0);
             refreshAll();
@@ -655,8 +596,7 @@ public class StudentRegistrationFrame extends JFrame {
         btnNextPage.setOpaque(true);
         btnNextPage.setFocusPainted(false);
         btnNextPage.addActionListener(e -> {
-            int totalPages = (int) Math.ceil((double) getFilteredCourses().size() / pageSize);
-            if (currentPage < totalPages) {
+            if (catalogPage != null && currentPage < catalogPage.totalPages) {
                 currentPage++;
                 refreshCourseTable();
             }
@@ -739,12 +679,47 @@ public class StudentRegistrationFrame extends JFrame {
         card.add(headerPanel, BorderLayout.NORTH);
         
         // Danh sách học phần đã chọn với scroll pane cố định
-        cartPanel = new JPanel();
-        cartPanel.setLayout(new BoxLayout(cartPanel, BoxLayout.Y_AXIS));
-        cartPanel.setOpaque(false);
-        cartPanel.setBorder(new EmptyBorder(0, 0, 0, 0));
+        cartList = new JList<>(cart) {
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return true; // tên dài bị cắt "...", không cuộn ngang
+            }
+        };
+        cartList.setCellRenderer(new CartCellRenderer());
+        cartList.setOpaque(false);
+        cartList.setFocusable(false);
+        cartList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        
+        // Nút xóa "x" ở cuối mỗi dòng: xử lý click và hover theo vị trí chuột
+        java.awt.event.MouseAdapter cartMouse = new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                int index = removeIndexAt(e.getPoint());
+                if (index >= 0 && cart.getElementAt(index).removable()) {
+                    removeFromCart(cart.getElementAt(index).course.code);
+                }
+            }
+            @Override
+            public void mouseMoved(java.awt.event.MouseEvent e) {
+                int index = removeIndexAt(e.getPoint());
+                boolean removable = index >= 0 && cart.getElementAt(index).removable();
+                setCartHover(removable ? index : -1);
+            }
+            @Override
+            public void mouseExited(java.awt.event.MouseEvent e) {
+                setCartHover(-1);
+            }
+        };
+        cartList.addMouseListener(cartMouse);
+        cartList.addMouseMotionListener(cartMouse);
+        
+        cartEmpty = new JLabel("<html><div style='text-align: center; color: #9CA3AF; padding: 60px 20px;'>" +
+                "<div style='font-size: 14px; line-height: 1.6;'>Chưa có học phần nào<br/>" +
+                "<span style='font-size: 12px; color: #D1D5DB;'>Thêm học phần từ danh sách bên trái</span></div>" +
+                "</div></html>", SwingConstants.CENTER);
+        cartEmpty.setVerticalAlignment(SwingConstants.TOP);
         
-        JScrollPane cartScroll = new JScrollPane(cartPanel);
+        cartScroll = new JScrollPane(cartEmpty);
         cartScroll.setBorder(null);
         cartScroll.setOpaque(false);
         cartScroll.getViewport().setOpaque(false);
@@ -889,15 +864,13 @@ public class StudentRegistrationFrame extends JFrame {
                 }
                 // Cột "Trạng thái" là cột cuối cùng (index 5)
                 if (column == 5) {
-                    String status = (String) getValueAt(row, column);
-                    if (status != null) {
-                        if ("Đã duyệt".equals(status) || "Thành công".equals(status)) {
-                            c.setBackground(new Color(220, 255, 220));
-                        } else if ("Từ chối".equals(status)) {
-                            c.setBackground(new Color(255, 220, 220));
-                        } else if ("Đã gửi".equals(status) || "Tạm".equals(status)) {
-                            c.setBackground(new Color(255, 255, 220));
-                        }
+                    Object status = getValueAt(row, column);
+                    if (status == RegStatus.APPROVED) {
+                        c.setBackground(new Color(220, 255, 220));
+                    } else if (status == RegStatus.REJECTED) {
+                        c.setBackground(new Color(255, 220, 220));
+                    } else if (status == RegStatus.SUBMITTED || status == RegStatus.DRAFT) {
+                        c.setBackground(new Color(255, 255, 220));
                     }
                 }
                 return c;
@@ -950,7 +923,7 @@ public class StudentRegistrationFrame extends JFrame {
         historyModel.setRowCount(0);
         
         // Load lịch sử
-        var allRegs = Memory.regs.get(student.studentId);
+        var allRegs = store.regsOf(student.studentId);
         if (allRegs != null) {
             for (var entry : allRegs.entrySet()) {
                 String term = entry.getKey();
@@ -1059,39 +1032,13 @@ public class StudentRegistrationFrame extends JFrame {
     }
     
     /**
-     * Lấy danh sách học phần đã được lọc theo các tiêu chí
-     * 
-     * Lọc học phần theo:
-     * 1. Học kỳ đã chọn (cbTerm)
-     * 2. Từ khóa tìm kiếm (searchField) - tìm trong mã HP và tên học phần
-     * 3. Offering phải đang mở (offering.open = true)
-     * 4. CTĐT của sinh viên phải được phép đăng ký:
-     *    - Nếu offering.allowedProgram = "Tất cả" → cho phép tất cả
-     *    - Nếu offering.allowedProgram = tên CTĐT cụ thể → chỉ cho phép sinh viên có program trùng khớp
+     * Lọc danh mục theo bộ lọc {học kỳ, từ khóa} và lấy trang đầu (chạy trên luồng nền)
      * 
-     * @return Danh sách Course đã được lọc, sẵn sàng để hiển thị trong bảng
+     * Điều kiện lọc (học phần đang mở, CTĐT được phép...) nằm trong
+     * StudentRegistrationController.queryCatalogPage.
      */
-    List<Course> getFilteredCourses() {
-        List<Course> filtered = new ArrayList<>();
-        String term = (String) cbTerm.getSelectedItem();
-        if (term == null) return filtered;
-        
-        String searchText = searchField.getText().toLowerCase().trim();
-        
-        for (Course c : Memory.courses.values()) {
-            var off = Memory.getOffering(term, c.code);
-            if (off != null && off.open &&
-                    ("Tất cả".equals(off.allowedProgram) || student.program.equals(off.allowedProgram))) {
-                
-                if (searchText.isEmpty() || 
-                    c.code.toLowerCase().contains(searchText) ||
-                    c.name.toLowerCase().contains(searchText)) {
-                    filtered.add(c);
-                }
-            }
-        }
-        
-        return filtered;
+    CatalogPage queryCatalog(String[] filters) {
+        return controller.queryCatalogPage(filters[0], filters[1], pageSize);
     }
     
     /**
@@ -1099,7 +1046,8 @@ public class StudentRegistrationFrame extends JFrame {
      * 
      * Phương thức này:
      * 1. Xóa tất cả dữ liệu cũ trong bảng
-     * 2. Lấy danh sách học phần đã được lọc (getFilteredCourses)
+     * 2. Lấy trang hiện tại qua cursor của kết quả lọc (controller.getCatalogPage, O(pageSize));
+     *    chưa có cursor (mới mở / đổi học kỳ) thì lọc lại từ đầu
      * 3. Tính toán pagination (trang hiện tại, tổng số trang)
      * 4. Cập nhật thông tin pagination (label + nút Previous/Next)
      * 5. Tạo các nút số trang (hiển thị tối đa 5 số trang xung quanh trang hiện tại)
@@ -1111,20 +1059,35 @@ public class StudentRegistrationFrame extends JFrame {
      * - Thay đổi từ khóa tìm kiếm
      * - Chuyển trang (pagination)
      * - Thêm/xóa học phần khỏi giỏ (để cập nhật trạng thái "ĐÃ CHỌN" / "THÊM")
+     * 
+     * Gõ phím trong ô tìm kiếm không gọi trực tiếp mà qua courseSearch.request().
      */
     void refreshCourseTable() {
-        courseModel.setRowCount(0);
-        List<Course> filtered = getFilteredCourses();
+        CatalogPage page = catalogPage == null ? null : controller.getCatalogPage(catalogPage.cursor, currentPage);
+        if (page == null) {
+            // Chưa lọc lần nào, hoặc cursor không còn trong cache: lọc lại từ đầu
+            courseSearch.runNow();
+        } else {
+            showCourses(page);
+        }
+    }
+    
+    /**
+     * Hiển thị một trang học phần + các nút phân trang (trên EDT)
+     */
+    void showCourses(CatalogPage page) {
+        catalogPage = page;
+        currentPage = page.page;
         
         // Pagination
-        int start = (currentPage - 1) * pageSize;
-        int end = Math.min(start + pageSize, filtered.size());
-        int totalPages = (int) Math.ceil((double) filtered.size() / pageSize);
+        int start = page.offset();
+        int end = start + page.courses.size();
+        int totalPages = page.totalPages;
         
         // Cập nhật pagination info
-        if (filtered.size() > 0) {
+        if (page.totalCount > 0) {
             lbPaginationInfo.setText(String.format("Hiển thị %d đến %d trên %d kết quả", 
-                    start + 1, end, filtered.size()));
+                    start + 1, end, page.totalCount));
         } else {
             lbPaginationInfo.setText("Không có kết quả");
         }
@@ -1226,13 +1189,13 @@ public class StudentRegistrationFrame extends JFrame {
         paginationButtons.revalidate();
         paginationButtons.repaint();
         
-        // Thêm các dòng cho trang hiện tại
-        for (int i = start; i < end; i++) {
-            Course c = filtered.get(i);
-            String type = getCourseType(c.code);
-            boolean isInCart = selectedCourseCodes.contains(c.code);
+        // Thêm các dòng cho trang hiện tại (thay một lần)
+        List<Object[]> rows = new ArrayList<>();
+        for (Course c : page.courses) {
+            String type = c.category;
+            boolean isInCart = cart.contains(c.code);
             
-            courseModel.addRow(new Object[]{
+            rows.add(new Object[]{
                     c.code,
                     c.name,
                     String.valueOf(c.credits),
@@ -1240,6 +1203,7 @@ public class StudentRegistrationFrame extends JFrame {
                     isInCart ? "ĐÃ CHỌN" : "THÊM"
             });
         }
+        SearchPipeline.setRows(courseModel, rows);
         
         // Đảm bảo renderer được áp dụng
         courseTable.revalidate();
@@ -1249,15 +1213,17 @@ public class StudentRegistrationFrame extends JFrame {
     /**
      * Tính tổng số tín chỉ đã đăng ký trong một học kỳ
      * 
-     * Lấy tất cả RegItem của sinh viên trong học kỳ đó từ Memory,
-     * sau đó tính tổng số tín chỉ của tất cả học phần đã đăng ký.
+     * Học kỳ đang xem: đọc tổng có sẵn trong giỏ (cart), không duyệt lại đăng ký
+     * (được gọi mỗi lần vẽ một ô "HÀNH ĐỘNG" của bảng học phần).
+     * Học kỳ khác: lấy tất cả RegItem của sinh viên trong học kỳ đó và cộng số tín chỉ.
      * 
      * @param term Học kỳ cần tính (ví dụ: "20252")
      * @return Tổng số tín chỉ đã đăng ký trong học kỳ đó (0 nếu term = null hoặc chưa đăng ký gì)
      */
     int getTotalRegisteredCredits(String term) {
         if (term == null) return 0;
-        var existingRegs = Memory.loadReg(student.studentId, term);
+        if (term.equals(cart.term())) return cart.registeredCredits();
+        var existingRegs = store.loadReg(student.studentId, term);
         return existingRegs.stream()
                 .mapToInt(r -> r.course.credits)
                 .sum();
@@ -1266,18 +1232,12 @@ public class StudentRegistrationFrame extends JFrame {
     /**
      * Tính tổng số tín chỉ của các học phần trong giỏ đăng ký hiện tại
      * 
-     * Duyệt qua selectedCourseCodes (Set chứa mã các học phần trong giỏ),
-     * lấy Course tương ứng từ Memory.courses và tính tổng số tín chỉ.
+     * Tổng được giỏ (cart) cộng / trừ dần khi thêm / xóa học phần.
      * 
      * @return Tổng số tín chỉ của tất cả học phần trong giỏ (0 nếu giỏ trống)
      */
     int getTotalCartCredits() {
-        return selectedCourseCodes.stream()
-                .mapToInt(code -> {
-                    Course c = Memory.courses.get(code);
-                    return c != null ? c.credits : 0;
-                })
-                .sum();
+        return cart.cartCredits();
     }
     
     /**
@@ -1290,22 +1250,23 @@ public class StudentRegistrationFrame extends JFrame {
      * 4. Kiểm tra tổng số tín chỉ:
      *    - Tính: đã đăng ký + trong giỏ + môn mới
      *    - Nếu > 24 TC: hiển thị cảnh báo và không cho thêm
-     * 5. Thêm mã học phần vào selectedCourseCodes
-     * 6. Refresh giỏ đăng ký và bảng học phần
+     * 5. Thêm học phần vào giỏ (cart): một dòng mới, tổng tín chỉ cập nhật theo
+     * 6. Cập nhật tổng kết của giỏ và bảng học phần
      * 
      * @param courseCode Mã học phần cần thêm vào giỏ (ví dụ: "CT101")
      */
     void addToCart(String courseCode) {
-        Course course = Memory.courses.get(courseCode);
+        Course course = store.findCourse(courseCode);
         if (course == null) return;
         
         String term = (String) cbTerm.getSelectedItem();
         if (term == null) return;
         
-        // Kiểm tra đã đăng ký chưa
-        var existingRegs = Memory.loadReg(student.studentId, term);
-        boolean alreadyRegistered = existingRegs.stream()
-                .anyMatch(r -> r.course.code.equals(courseCode));
+        // Kiểm tra đã đăng ký chưa (giỏ đã nạp đăng ký của học kỳ đang chọn)
+        boolean alreadyRegistered = term.equals(cart.term())
+                ? cart.registration(courseCode) != null
+                : store.loadReg(student.studentId, term).stream()
+                        .anyMatch(r -> r.course.code.equals(courseCode));
         
         if (alreadyRegistered) {
             JOptionPane.showMessageDialog(this, "Bạn đã đăng ký học phần này.");
@@ -1326,8 +1287,8 @@ public class StudentRegistrationFrame extends JFrame {
         }
         
         // Thêm vào giỏ
-        selectedCourseCodes.add(courseCode);
-        refreshCart();
+        cart.add(course);
+        updateCartSummary();
         refreshCourseTable();
     }
     
@@ -1335,148 +1296,38 @@ public class StudentRegistrationFrame extends JFrame {
      * Refresh (làm mới) giỏ đăng ký
      * 
      * Phương thức này:
-     * 1. Xóa tất cả items cũ trong giỏ
-     * 2. Duyệt qua selectedCourseCodes (các học phần trong giỏ)
-     * 3. Với mỗi học phần:
-     *    - Kiểm tra xem đã đăng ký chưa (có RegItem trong Memory không)
-     *    - Tạo item panel hiển thị: mã HP, tên, số TC, trạng thái (nếu đã đăng ký)
-     *    - Tạo nút xóa (disable nếu đã đăng ký và trạng thái không phải "Tạm")
-     * 4. Tính tổng số tín chỉ: đã đăng ký + chưa đăng ký trong giỏ
-     * 5. Cập nhật label tổng tín chỉ và progress bar
-     * 6. Hiển thị cảnh báo nếu < 12 TC hoặc > 24 TC
-     * 7. Nếu giỏ trống, hiển thị thông báo "Chưa có học phần nào"
+     * 1. Nạp lại đăng ký của sinh viên trong học kỳ đang chọn vào giỏ (một lần loadReg),
+     *    mỗi học phần trong giỏ được gắn trạng thái đăng ký (nếu có)
+     * 2. Cập nhật tổng tín chỉ, progress bar và cảnh báo (updateCartSummary)
      * 
      * Được gọi khi:
-     * - Thêm học phần vào giỏ
-     * - Xóa học phần khỏi giỏ
      * - Thay đổi học kỳ
      * - Sau khi gửi đăng ký (để cập nhật trạng thái)
+     * 
+     * Thêm / xóa từng học phần không cần gọi phương thức này: giỏ cập nhật
+     * đúng dòng thay đổi và các tổng tín chỉ (addToCart, removeFromCart).
      */
     void refreshCart() {
-        cartPanel.removeAll();
-        
         String term = (String) cbTerm.getSelectedItem();
         if (term == null) return;
         
-        // Lấy danh sách các môn đã đăng ký để kiểm tra trạng thái
-        var existingRegs = Memory.loadReg(student.studentId, term);
-        Map<String, RegItem> registeredMap = new HashMap<>();
-        for (RegItem item : existingRegs) {
-            registeredMap.put(item.course.code, item);
-        }
-        
-        // Tính tổng số tín chỉ: chỉ tính các môn CHƯA đăng ký trong giỏ + đã đăng ký
-        int registeredCredits = getTotalRegisteredCredits(term);
-        int unregisteredCartCredits = 0; // Chỉ tính các môn chưa đăng ký trong giỏ
-        
-        for (String code : selectedCourseCodes) {
-            Course course = Memory.courses.get(code);
-            if (course == null) continue;
-            
-            // Kiểm tra xem môn này đã được đăng ký chưa
-            RegItem regItem = registeredMap.get(code);
-            boolean isRegistered = regItem != null;
-            String status = isRegistered ? regItem.status : null;
-            
-            // Chỉ tính tín chỉ của các môn chưa đăng ký vào tổng
-            if (!isRegistered) {
-                unregisteredCartCredits += course.credits;
-            }
-            
-            // Tạo item trong giỏ - đơn giản, hiện đại
-            JPanel itemPanel = new JPanel(new BorderLayout(12, 0));
-            itemPanel.setOpaque(false);
-            itemPanel.setBorder(new EmptyBorder(10, 0, 10, 0));
-            
-            // Tạo label với trạng thái nếu đã đăng ký
-            String courseInfoText;
-            if (isRegistered && status != null) {
-                courseInfoText = "<html><div style='line-height: 1.5;'>" +
-                        "<span style='font-size: 14px; color: #111827; font-weight: 600;'>" + code + "</span> " +
-                        "<span style='font-size: 13px; color: #9CA3AF;'>" + course.credits + " TC</span><br/>" +
-                        "<span style='font-size: 13px; color: #374151;'>" + course.name + "</span><br/>" +
-                        "<span style='color: #10B981; font-size: 12px;'>" + status + "</span>" +
-                        "</div></html>";
-            } else {
-                courseInfoText = "<html><div style='line-height: 1.5;'>" +
-                        "<span style='font-size: 14px; color: #111827; font-weight: 600;'>" + code + "</span> " +
-                        "<span style='font-size: 13px; color: #9CA3AF;'>" + course.credits + " TC</span><br/>" +
-                        "<span style='font-size: 13px; color: #374151;'>" + course.name + "</span>" +
-                        "</div></html>";
-            }
-            
-            JLabel courseInfo = new JLabel(courseInfoText);
-            courseInfo.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-            
-            // Nút xóa - đơn giản, không border
-            JButton btnRemove = new JButton("x");
-            btnRemove.setFont(new Font("Segoe UI", Font.BOLD, 18));
-            btnRemove.setForeground(new Color(156, 163, 175));
-            btnRemove.setBackground(Color.WHITE);
-            btnRemove.setBorder(null);
-            btnRemove.setPreferredSize(new Dimension(28, 28));
-            btnRemove.setCursor(new Cursor(Cursor.HAND_CURSOR));
-            btnRemove.setFocusPainted(false);
-            btnRemove.setContentAreaFilled(false);
-            
-            // Hover effect - đơn giản
-            btnRemove.addMouseListener(new java.awt.event.MouseAdapter() {
-                @Override
-                public void mouseEntered(java.awt.event.MouseEvent e) {
-                    if (btnRemove.isEnabled()) {
-                        btnRemove.setForeground(new Color(239, 68, 68));
-                    }
-                }
-                @Override
-                public void mouseExited(java.awt.event.MouseEvent e) {
-                    if (btnRemove.isEnabled()) {
-                        btnRemove.setForeground(new Color(156, 163, 175));
-                    }
-                }
-            });
-            
-            // Nếu đã đăng ký, disable nút xóa hoặc chỉ cho phép xóa nếu trạng thái là "Tạm"
-            if (isRegistered && !"Tạm".equals(status)) {
-                btnRemove.setEnabled(false);
-                btnRemove.setForeground(new Color(200, 200, 200));
-            }
-            
-            btnRemove.addActionListener(e -> {
-                // Xóa khỏi giỏ
-                selectedCourseCodes.remove(code);
-                
-                // Nếu đã đăng ký, xóa khỏi đăng ký
-                if (term != null) {
-                    Set<String> codesToDelete = new HashSet<>();
-                    codesToDelete.add(code);
-                    Memory.deleteByCourseCodes(student.studentId, term, codesToDelete);
-                }
-                
-                refreshCart();
-                refreshCourseTable();
-                refreshHistory();
-            });
-            
-            itemPanel.add(courseInfo, BorderLayout.CENTER);
-            itemPanel.add(btnRemove, BorderLayout.EAST);
-            
-            // Thêm khoảng cách giữa các item
-            cartPanel.add(itemPanel);
-            cartPanel.add(Box.createVerticalStrut(8));
-        }
-        
-        // Nếu giỏ trống, hiển thị thông báo - đơn giản
-        if (selectedCourseCodes.isEmpty()) {
-            JLabel emptyLabel = new JLabel("<html><div style='text-align: center; color: #9CA3AF; padding: 60px 20px;'>" +
-                    "<div style='font-size: 14px; line-height: 1.6;'>Chưa có học phần nào<br/>" +
-                    "<span style='font-size: 12px; color: #D1D5DB;'>Thêm học phần từ danh sách bên trái</span></div>" +
-                    "</div></html>", SwingConstants.CENTER);
-            emptyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            cartPanel.add(emptyLabel);
-        }
+        cart.load(term, store.loadReg(student.studentId, term), store::findCourse);
+        updateCartSummary();
+    }
+    
+    /**
+     * Cập nhật phần tổng kết của giỏ từ các tổng tín chỉ có sẵn trong CartModel
+     * 
+     * 1. Tổng số tín chỉ = đã đăng ký + học phần trong giỏ chưa đăng ký
+     * 2. Cập nhật label tổng tín chỉ và progress bar
+     * 3. Hiển thị cảnh báo nếu < 12 TC hoặc > 24 TC
+     * 4. Nếu giỏ trống, hiển thị thông báo "Chưa có học phần nào"
+     */
+    void updateCartSummary() {
+        Component view = cart.isEmpty() ? cartEmpty : cartList;
+        if (cartScroll.getViewport().getView() != view) cartScroll.setViewportView(view);
         
-        // Tính tổng số tín chỉ: đã đăng ký + chưa đăng ký trong giỏ
-        int totalCredits = registeredCredits + unregisteredCartCredits;
+        int totalCredits = cart.totalCredits();
         
         // Cập nhật tổng số tín chỉ (bao gồm cả đã đăng ký)
         lbCreditRange.setText(totalCredits + "/24 TC");
@@ -1492,9 +1343,129 @@ public class StudentRegistrationFrame extends JFrame {
         } else {
             lbWarning.setVisible(false);
         }
+    }
+    
+    /**
+     * Xóa một học phần khỏi giỏ (nút "x")
+     * 
+     * Nếu học phần đã đăng ký (trạng thái "Tạm") thì xóa cả đăng ký.
+     * 
+     * @param code Mã học phần cần xóa
+     */
+    void removeFromCart(String code) {
+        String term = (String) cbTerm.getSelectedItem();
+        cart.remove(code);
+        setCartHover(-1);
+        
+        // Nếu đã đăng ký, xóa khỏi đăng ký
+        if (term != null) {
+            Set<String> codesToDelete = new HashSet<>();
+            codesToDelete.add(code);
+            store.deleteRegs(student.studentId, term, codesToDelete);
+            cart.unregister(code);
+        }
+        
+        updateCartSummary();
+        refreshCourseTable();
+        refreshHistory();
+    }
+    
+    /**
+     * Dòng của giỏ có nút xóa tại vị trí chuột (-1 nếu chuột không nằm trên nút xóa)
+     */
+    int removeIndexAt(Point p) {
+        int index = cartList.locationToIndex(p);
+        if (index < 0) return -1;
+        Rectangle cell = cartList.getCellBounds(index, index);
+        if (cell == null || !cell.contains(p) || p.x < cell.x + cell.width - 28) return -1;
+        return index;
+    }
+    
+    /**
+     * Đổi dòng đang hover nút xóa: chỉ vẽ lại dòng cũ và dòng mới
+     */
+    void setCartHover(int index) {
+        if (index == cartHoverRemove) return;
+        int old = cartHoverRemove;
+        cartHoverRemove = index;
+        repaintCartRow(old);
+        repaintCartRow(index);
+        cartList.setCursor(Cursor.getPredefinedCursor(index >= 0 ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR));
+    }
+    
+    private void repaintCartRow(int index) {
+        if (index < 0 || index >= cart.getSize()) return;
+        Rectangle cell = cartList.getCellBounds(index, index);
+        if (cell != null) cartList.repaint(cell);
+    }
+    
+    /**
+     * Renderer của giỏ đăng ký: một panel dùng lại cho mọi dòng, chỉ đổi nội dung các JLabel
+     * (không dùng HTML, không tạo component mới mỗi lần vẽ)
+     * 
+     * Dòng 1: mã HP (đậm) + số tín chỉ, dòng 2: tên học phần,
+     * dòng 3: trạng thái đăng ký (chỉ hiện khi đã đăng ký); bên phải là nút xóa "x".
+     */
+    class CartCellRenderer extends JPanel implements ListCellRenderer<CartModel.Item> {
+        private final JLabel lbCode = new JLabel();
+        private final JLabel lbCredits = new JLabel();
+        private final JLabel lbName = new JLabel();
+        private final JLabel lbStatus = new JLabel();
+        private final JLabel lbRemove = new JLabel("x", SwingConstants.CENTER);
+        
+        CartCellRenderer() {
+            super(new BorderLayout(12, 0));
+            setOpaque(false);
+            setBorder(new EmptyBorder(10, 0, 18, 0)); // 8px cách dòng kế tiếp
+            
+            lbCode.setFont(new Font("Segoe UI", Font.BOLD, 14));
+            lbCode.setForeground(new Color(17, 24, 39));
+            lbCredits.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+            lbCredits.setForeground(new Color(156, 163, 175));
+            lbName.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+            lbName.setForeground(new Color(55, 65, 81));
+            lbStatus.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            lbStatus.setForeground(new Color(16, 185, 129));
+            lbRemove.setFont(new Font("Segoe UI", Font.BOLD, 18));
+            lbRemove.setPreferredSize(new Dimension(28, 28));
+            
+            JPanel firstLine = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+            firstLine.setOpaque(false);
+            firstLine.add(lbCode);
+            firstLine.add(Box.createHorizontalStrut(6));
+            firstLine.add(lbCredits);
+            
+            JPanel info = new JPanel();
+            info.setLayout(new BoxLayout(info, BoxLayout.Y_AXIS));
+            info.setOpaque(false);
+            for (JComponent c : new JComponent[]{firstLine, lbName, lbStatus}) {
+                c.setAlignmentX(Component.LEFT_ALIGNMENT);
+                info.add(c);
+            }
+            
+            add(info, BorderLayout.CENTER);
+            add(lbRemove, BorderLayout.EAST);
+        }
         
-        cartPanel.revalidate();
-        cartPanel.repaint();
+        @Override
+        public Component getListCellRendererComponent(JList<? extends CartModel.Item> list, CartModel.Item item,
+                int index, boolean isSelected, boolean cellHasFocus) {
+            lbCode.setText(item.course.code);
+            lbCredits.setText(item.course.credits + " TC");
+            lbName.setText(item.course.name);
+            RegStatus status = item.status();
+            lbStatus.setText(status == null ? null : status.label);
+            lbStatus.setVisible(status != null);
+            
+            if (!item.removable()) {
+                lbRemove.setForeground(new Color(200, 200, 200));
+            } else if (index == cartHoverRemove) {
+                lbRemove.setForeground(new Color(239, 68, 68));
+            } else {
+                lbRemove.setForeground(new Color(156, 163, 175));
+            }
+            return this;
+        }
     }
     
     /**
@@ -1504,8 +1475,8 @@ public class StudentRegistrationFrame extends JFrame {
      * 1. Hiển thị dialog xác nhận (YES/NO)
      * 2. Nếu người dùng chọn YES:
      *    - Xóa tất cả đăng ký trong Memory (nếu đã đăng ký)
-     *    - Xóa tất cả mã học phần khỏi selectedCourseCodes
-     *    - Refresh giỏ đăng ký và bảng học phần
+     *    - Xóa tất cả học phần khỏi giỏ (cart)
+     *    - Cập nhật tổng tín chỉ và bảng học phần
      * 
      * Lưu ý: Chỉ xóa các đăng ký có trạng thái "Tạm" hoặc chưa đăng ký.
      * Các đăng ký đã gửi/đã duyệt sẽ không bị xóa (nút xóa đã bị disable).
@@ -1517,12 +1488,15 @@ public class StudentRegistrationFrame extends JFrame {
                 JOptionPane.YES_NO_OPTION);
         if (result == JOptionPane.YES_OPTION) {
             String term = (String) cbTerm.getSelectedItem();
+            List<String> codes = cart.codes();
             if (term != null) {
                 // Xóa tất cả đăng ký
-                Memory.deleteByCourseCodes(student.studentId, term, new HashSet<>(selectedCourseCodes));
+                store.deleteRegs(student.studentId, term, new HashSet<>(codes));
+                for (String code : codes) cart.unregister(code);
             }
-            selectedCourseCodes.clear();
-            refreshCart();
+            cart.clear();
+            setCartHover(-1);
+            updateCartSummary();
             refreshCourseTable();
         }
     }
@@ -1533,14 +1507,15 @@ public class StudentRegistrationFrame extends JFrame {
      * Phương thức này refresh cả bảng học phần và giỏ đăng ký.
      * Được gọi khi thay đổi học kỳ.
      * 
-     * Lưu ý: Không tự động load các môn đã đăng ký vào selectedCourseCodes.
+     * Lưu ý: Không tự động load các môn đã đăng ký vào giỏ.
      * Chỉ giữ lại các môn đã được thêm vào giỏ trong phiên hiện tại.
      * Điều này giúp sinh viên có thể chọn lại các môn đã đăng ký nếu muốn.
      */
     void refreshAll() {
-        // Không tự động load các môn đã đăng ký vào selectedCourseCodes
+        // Không tự động load các môn đã đăng ký vào giỏ
         // Chỉ giữ lại các môn đã được thêm vào giỏ trong phiên hiện tại
         currentPage = 1;
+        catalogPage = null; // đổi học kỳ: lọc lại
         
         refreshCourseTable();
         refreshCart();
@@ -1573,13 +1548,13 @@ public class StudentRegistrationFrame extends JFrame {
             return;
         }
         
-        if (selectedCourseCodes.isEmpty()) {
+        if (cart.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Giỏ đăng ký trống.");
             return;
         }
         
         // Lấy danh sách đăng ký hiện tại (dùng chung cho cả kiểm tra và submit)
-        var existingRegs = Memory.loadReg(student.studentId, term);
+        var existingRegs = store.loadReg(student.studentId, term);
         Set<String> registeredCodes = new HashSet<>();
         Map<String, RegItem> existingMap = new HashMap<>();
         for (RegItem item : existingRegs) {
@@ -1590,11 +1565,11 @@ public class StudentRegistrationFrame extends JFrame {
         // Tính tổng số tín chỉ: đã đăng ký + mới submit (chỉ tính các môn chưa đăng ký)
         int registeredCredits = getTotalRegisteredCredits(term);
         
-        // Chỉ tính các môn chưa đăng ký trong selectedCourseCodes
-        int newCredits = selectedCourseCodes.stream()
+        // Chỉ tính các môn chưa đăng ký trong giỏ
+        int newCredits = cart.codes().stream()
                 .filter(code -> !registeredCodes.contains(code))
                 .mapToInt(code -> {
-                    Course c = Memory.courses.get(code);
+                    Course c = store.findCourse(code);
                     return c != null ? c.credits : 0;
                 })
                 .sum();
@@ -1617,7 +1592,7 @@ public class StudentRegistrationFrame extends JFrame {
         }
         
         // Kiểm tra học kỳ có mở không
-        if (!Memory.isTermOpen(term)) {
+        if (!store.isTermOpen(term)) {
             JOptionPane.showMessageDialog(this, "Học kỳ đang khóa đăng ký.");
             return;
         }
@@ -1625,28 +1600,36 @@ public class StudentRegistrationFrame extends JFrame {
         // Thêm các học phần vào đăng ký hoặc cập nhật trạng thái
         String today = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
         int successCount = 0;
+        List<String> waitlisted = new ArrayList<>();
         
-        for (String code : selectedCourseCodes) {
-            Course course = Memory.courses.get(code);
+        for (String code : cart.codes()) {
+            Course course = store.findCourse(code);
             if (course == null) continue;
             
             RegItem existing = existingMap.get(code);
             if (existing != null) {
                 // Nếu đã đăng ký, cập nhật trạng thái thành "Đã gửi" nếu đang là "Tạm"
-                if ("Tạm".equals(existing.status)) {
-                    existing.status = "Đã gửi";
-                    existing.date = today; // Cập nhật ngày đăng ký
+                if (existing.status == RegStatus.DRAFT) {
+                    // Cập nhật trạng thái và ngày đăng ký
+                    store.setStatus(student.studentId, term, existing.course.code, RegStatus.SUBMITTED, today);
                     successCount++;
                 }
                 // Nếu đã có trạng thái khác (Đã gửi, Đã duyệt, v.v.), không làm gì
             } else {
                 // Nếu chưa đăng ký, thêm mới với trạng thái "Đã gửi"
-                boolean ok = Memory.addReg(student.studentId, term, 
-                        new RegItem(course, today, "Đã gửi"));
-                if (ok) successCount++;
+                // (lớp đã đầy thì xếp vào danh sách chờ)
+                var result = store.addReg(student.studentId, term, 
+                        new RegItem(course, today, RegStatus.SUBMITTED), true);
+                if (result == Storage.AddResult.ADDED) successCount++;
+                else if (result == Storage.AddResult.WAITLISTED) waitlisted.add(code);
             }
         }
         
+        if (!waitlisted.isEmpty()) {
+            JOptionPane.showMessageDialog(this, 
+                    "Các học phần đã hết chỗ, bạn được xếp vào danh sách chờ: " + String.join(", ", waitlisted));
+        }
+        
         if (successCount > 0) {
             JOptionPane.showMessageDialog(this, 
                     "Đã gửi đăng ký " + successCount + " học phần thành công!", 
@@ -1687,13 +1670,13 @@ public class StudentRegistrationFrame extends JFrame {
             if (row >= 0 && row < table.getRowCount()) {
                 String courseCode = (String) table.getValueAt(row, 0);
                 if (courseCode != null) {
-                    boolean isInCart = selectedCourseCodes.contains(courseCode);
+                    boolean isInCart = cart.contains(courseCode);
                     
                     // Kiểm tra tổng số tín chỉ để quyết định có cho phép thêm không
                     String term = (String) cbTerm.getSelectedItem();
                     int registeredCredits = term != null ? getTotalRegisteredCredits(term) : 0;
                     int cartCredits = getTotalCartCredits();
-                    Course course = Memory.courses.get(courseCode);
+                    Course course = store.findCourse(courseCode);
                     int currentTotal = registeredCredits + cartCredits;
                     boolean canAdd = !isInCart && course != null && (currentTotal + course.credits) <= 24;
                     
@@ -1760,13 +1743,13 @@ public class StudentRegistrationFrame extends JFrame {
                 boolean isSelected, int row, int column) {
             this.table = table;
             currentCode = (String) table.getValueAt(row, 0);
-            boolean isInCart = selectedCourseCodes.contains(currentCode);
+            boolean isInCart = cart.contains(currentCode);
             
             // Kiểm tra tổng số tín chỉ để quyết định có cho phép thêm không
             String term = (String) cbTerm.getSelectedItem();
             int registeredCredits = term != null ? getTotalRegisteredCredits(term) : 0;
             int cartCredits = getTotalCartCredits();
-            Course course = Memory.courses.get(currentCode);
+            Course course = store.findCourse(currentCode);
             int currentTotal = registeredCredits + cartCredits;
             boolean canAdd = !isInCart && course != null && (currentTotal + course.credits) <= 24;
             
@@ -0,0 +1,180 @@
+package university.registration.tools;
+
+import university.registration.controller.AsyncAdminController;
+import university.registration.controller.AsyncLoginController;
+import university.registration.controller.AsyncTasks;
+import university.registration.controller.LoginController;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.store.DataGenerator;
+import university.registration.store.Memory;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+import university.registration.ui.AsyncUi;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Kiểm tra các controller bất đồng bộ (AsyncTasks, Async*Controller, AsyncUi.onEdt)
+ *
+ * Kịch bản (dữ liệu sinh ngẫu nhiên, không cần màn hình):
+ * 1. Đăng nhập đúng / sai: chạy trên luồng nền "controller-*", kết quả áp dụng trên EDT
+ * 2. Duyệt hàng loạt mọi đăng ký chờ duyệt của một nửa: tiến độ tăng dần theo lô, kết thúc đúng tổng,
+ *    số đã duyệt khớp kho
+ * 3. Hủy sau lô đầu tiên (nửa còn lại): dừng ở ranh giới lô - đúng BATCH_SIZE đăng ký đã đổi;
+ *    callback trên EDT không được gọi
+ * 4. Hủy ngay sau khi gửi: task chưa chạy thì bị bỏ qua, đã chạy thì thấy AsyncTasks.cancelled()
+ * 5. Lỗi trong task: hoàn tất với lỗi gốc (không bị nuốt)
+ * 6. EDT bận không chặn luồng nền: 50 lời gọi chạy song song xong trong lúc EDT đang bị giữ
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes -Djava.awt.headless=true university.registration.tools.AsyncControllerCheck [spec]
+ *   spec mặc định: students=20000 (xem DataGenerator.Spec)
+ *
+ * Thoát với mã 1 nếu có kiểm tra sai.
+ */
+public class AsyncControllerCheck {
+
+    private static boolean ok = true;
+
+    public static void main(String[] args) throws Exception {
+        DataGenerator.Spec spec = DataGenerator.Spec.parse(args.length > 0 ? args[0] : "students=20000");
+        Memory.initGenerated(spec);
+
+        // 1. Đăng nhập
+        AsyncLoginController login = new AsyncLoginController();
+        AtomicReference<String> loginThread = new AtomicReference<>();
+        LoginController.LoginResult admin = login.login("pdt", "pdt123")
+                .thenApply(r -> { loginThread.set(Thread.currentThread().getName()); return r; })
+                .get(10, TimeUnit.SECONDS);
+        check("Đăng nhập PĐT trên luồng nền", admin.type == LoginController.LoginResultType.ADMIN
+                && loginThread.get().startsWith("controller-"), loginThread.get());
+        CountDownLatch applied = new CountDownLatch(1);
+        AtomicBoolean onEdt = new AtomicBoolean();
+        AtomicReference<LoginController.LoginResult> failed = new AtomicReference<>();
+        AsyncUi.onEdt(login.login(DataGenerator.studentId(0), "sai"), r -> {
+            onEdt.set(SwingUtilities.isEventDispatchThread());
+            failed.set(r);
+            applied.countDown();
+        }, null);
+        applied.await(10, TimeUnit.SECONDS);
+        check("Sai mật khẩu, kết quả áp dụng trên EDT", onEdt.get() && failed.get() != null
+                && failed.get().type == LoginController.LoginResultType.FAILED, "");
+
+        // 2. Duyệt hàng loạt có tiến độ
+        List<String> pending = pendingCodes();
+        int half = pending.size() / 2;
+        List<String> first = pending.subList(0, half), second = pending.subList(half, pending.size());
+        AsyncAdminController admins = new AsyncAdminController();
+        List<Long> progress = new ArrayList<>();
+        AtomicLong progressTotal = new AtomicLong();
+        Storage.BatchResult approved = admins.approveRegistrations(first, (done, total) -> {
+            synchronized (progress) {
+                progress.add(done);
+            }
+            progressTotal.set(total);
+        }).get(60, TimeUnit.SECONDS);
+        boolean increasing = true;
+        for (int i = 1; i < progress.size(); i++) increasing &= progress.get(i) > progress.get(i - 1);
+        int batches = (first.size() + AsyncAdminController.BATCH_SIZE - 1) / AsyncAdminController.BATCH_SIZE;
+        check("Duyệt " + first.size() + " đăng ký, tiến độ " + progress.size() + " lần",
+                increasing && progress.size() == batches && progressTotal.get() == first.size()
+                        && progress.get(progress.size() - 1) == first.size()
+                        && approved.changed == first.size() && approved.failures.isEmpty()
+                        && countStatus(first, RegStatus.APPROVED) == first.size(), "đã duyệt " + approved.changed);
+
+        // 3. Hủy giữa chừng: hủy ngay sau lô đầu tiên
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicBoolean callback = new AtomicBoolean();
+        CompletableFuture<Storage.BatchResult> rejecting = admins.rejectRegistrations(second, (done, total) -> {
+            started.countDown();
+            try {
+                proceed.await(); // giữ lô tiếp theo cho tới khi đã hủy
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AsyncUi.onEdt(rejecting, r -> callback.set(true), ex -> callback.set(true));
+        started.await(30, TimeUnit.SECONDS);
+        rejecting.cancel(false);
+        proceed.countDown();
+        Thread.sleep(300); // đợi lô đang chạy (nếu có) kết thúc
+        SwingUtilities.invokeAndWait(() -> {});
+        long rejected = countStatus(second, RegStatus.REJECTED);
+        check("Hủy sau lô đầu: đã từ chối " + rejected + "/" + second.size(),
+                rejecting.isCancelled() && !callback.get() && rejected == Math.min(second.size(), AsyncAdminController.BATCH_SIZE)
+                        && rejected < second.size(), "");
+
+        // 4. Hủy ngay sau khi gửi: chưa chạy thì bỏ qua, đã chạy thì thấy cancelled()
+        AtomicBoolean ran = new AtomicBoolean(), sawCancel = new AtomicBoolean();
+        CountDownLatch hold = new CountDownLatch(1);
+        CompletableFuture<Void> cancelled;
+        synchronized (ran) {
+            cancelled = AsyncTasks.run(() -> {
+                synchronized (ran) {
+                    ran.set(true);
+                    sawCancel.set(AsyncTasks.cancelled());
+                }
+                hold.countDown();
+            });
+            cancelled.cancel(false);
+        }
+        hold.await(200, TimeUnit.MILLISECONDS);
+        check("Hủy ngay: " + (ran.get() ? "task thấy cancelled()" : "task không chạy"),
+                cancelled.isCancelled() && (!ran.get() || sawCancel.get()), "");
+
+        // 5. Lỗi trong task
+        CompletableFuture<Object> failing = AsyncTasks.supply(() -> {
+            throw new RuntimeException("Học phần không tồn tại");
+        });
+        String error = failing.handle((r, ex) -> ex == null ? null : (ex.getCause() != null ? ex.getCause() : ex).getMessage()).get();
+        check("Lỗi trong task giữ nguyên thông điệp", "Học phần không tồn tại".equals(error), String.valueOf(error));
+
+        // 6. EDT bị giữ, luồng nền vẫn chạy
+        CountDownLatch release = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<CompletableFuture<Long>> counts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) counts.add(admins.getPendingCount(DataGenerator.term(0)));
+        long t0 = System.nanoTime();
+        CompletableFuture.allOf(counts.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        release.countDown();
+        check("50 lời gọi xong khi EDT đang bận (" + ms + " ms)", counts.stream().allMatch(CompletableFuture::isDone), "");
+
+        System.out.println(ok ? "OK - controller bất đồng bộ hoạt động đúng." : "LỖI: controller bất đồng bộ sai");
+        System.exit(ok ? 0 : 1); // EDT không tự dừng
+    }
+
+    private static List<String> pendingCodes() {
+        RegQuery query = new RegQuery();
+        query.statuses = Set.of(RegStatus.SUBMITTED);
+        List<String> codes = new ArrayList<>();
+        for (RegRow r : Memory.queryRegs(query)) codes.add(RegRow.regCode(r.id));
+        return codes;
+    }
+
+    private static long countStatus(List<String> codes, RegStatus status) {
+        return codes.stream().filter(c -> Memory.findReg(RegRow.regId(c)).status == status).count();
+    }
+
+    private static void check(String label, boolean passed, String detail) {
+        ok &= passed;
+        System.out.printf("%-55s %s %s%n", label, passed ? "đúng" : "<-- SAI", passed ? "" : detail);
+    }
+}
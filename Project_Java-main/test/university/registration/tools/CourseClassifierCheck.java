@@ -0,0 +1,126 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.CourseClassifier;
+import university.registration.store.Memory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Kiểm tra bộ quy tắc phân loại học phần (CourseClassifier + course-categories.rules)
+ * so với chuỗi startsWith cũ của getCourseType (StudentRegistrationFrame và AdminFrame)
+ *
+ * Kịch bản:
+ * 1. Lấy mã của mọi học phần mẫu trong Memory, cộng thêm mã ngẫu nhiên ghép từ các tiền tố đã biết
+ * 2. So loại học phần (sinh viên) và nhóm (quản trị) của hai cách cho từng mã
+ * 3. Đo thời gian phân loại mỗi mã của hai cách
+ *
+ * Khác biệt duy nhất được chấp nhận: ET3262 là "Bổ trợ" như chú thích của getCourseType cũ
+ * (chuỗi cũ xét ET3* trước nên không bao giờ trả về "Bổ trợ" cho mã này).
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes university.registration.tools.CourseClassifierCheck [randomCodes]
+ *
+ * Thoát với mã 1 nếu có mã được phân loại khác.
+ */
+public class CourseClassifierCheck {
+
+    static final String[] PREFIXES = {
+            "PE", "PE10", "PE2", "PE3", "MIL", "MI", "FL", "SSH", "EM", "EM1170", "EM101", "EM118", "ED",
+            "PH", "IT", "IT1110", "ET2", "ET3", "ET4", "ET41", "ET43", "ET44", "ET42", "ET32", "ET49",
+            "ET3262", "ET4033", "CH202", "ME312", "CT", "MA", "XY", ""
+    };
+
+    public static void main(String[] args) {
+        int random = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        Memory.init();
+        Set<String> codes = new LinkedHashSet<>();
+        for (Course c : Memory.courses.values()) codes.add(c.code);
+        Random rnd = new Random(11);
+        for (int i = 0; i < random; i++) {
+            String p = PREFIXES[rnd.nextInt(PREFIXES.length)];
+            codes.add(p + rnd.nextInt(p.length() < 4 ? 10000 : 100));
+        }
+        codes.add("");
+        codes.add("pe2101"); // chữ thường: không khớp tiền tố nào như startsWith cũ
+
+        CourseClassifier classifier = CourseClassifier.standard();
+        int diff = 0;
+        for (String code : codes) {
+            CourseClassifier.Category cat = classifier.classify(code);
+            String oldType = legacyType(code), oldGroup = legacyGroup(code);
+            if (cat.name.equals(oldType) && cat.group.equals(oldGroup)) continue;
+            if (code.startsWith("ET3262") && cat.name.equals("Bổ trợ") && cat.group.equals(oldGroup)) continue;
+            if (diff++ < 20) System.out.printf("Khác: %-10s cũ %s / %s | mới %s%n", code, oldType, oldGroup, cat);
+        }
+        System.out.printf("%,d mã, %,d mã phân loại khác cách cũ%n", codes.size(), diff);
+
+        List<String> list = new ArrayList<>(codes);
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            long sink = 0;
+            for (String code : list) sink += legacyType(code).length() + legacyGroup(code).length();
+            double oldNs = (System.nanoTime() - t0) / (double) list.size();
+            t0 = System.nanoTime();
+            for (String code : list) {
+                CourseClassifier.Category cat = classifier.classify(code);
+                sink += cat.name.length() + cat.group.length();
+            }
+            double newNs = (System.nanoTime() - t0) / (double) list.size();
+            System.out.printf("Lượt %d: startsWith %.1f ns/mã | trie %.1f ns/mã (%d)%n", round + 1, oldNs, newNs, sink % 10);
+        }
+
+        System.out.println(diff == 0 ? "OK - bộ quy tắc cho cùng kết quả với getCourseType cũ." : "LỖI: phân loại khác");
+        if (diff != 0) System.exit(1);
+    }
+
+    /** getCourseType cũ của StudentRegistrationFrame */
+    static String legacyType(String code) {
+        if (code == null || code.isEmpty()) return "Tự chọn";
+        if (code.startsWith("PE")) {
+            if (code.startsWith("PE31") || code.startsWith("PE32") || code.startsWith("PE33")) return "GDTC - Chuyên sâu";
+            if (code.startsWith("PE21") || code.startsWith("PE22") || code.startsWith("PE23") ||
+                code.startsWith("PE24") || code.startsWith("PE25") || code.startsWith("PE26") ||
+                code.startsWith("PE27") || code.startsWith("PE28") || code.startsWith("PE29")) return "GDTC - Tự chọn";
+            if (code.startsWith("PE10")) return "GDTC";
+            return "Bắt buộc";
+        }
+        if (code.startsWith("MIL")) return "QP-AN";
+        if (code.startsWith("FL")) return "Ngoại ngữ";
+        if (code.startsWith("SSH")) return "Lý luận chính trị";
+        if (code.startsWith("EM1170")) return "Pháp luật";
+        if (code.startsWith("MI") || code.startsWith("PH") || code.startsWith("IT1110")) return "Toán-KHCB";
+        if (code.startsWith("ET2") || code.startsWith("ET3") || code.startsWith("ET4")) {
+            if (code.startsWith("ET410") || code.startsWith("ET447") || code.startsWith("ET445") ||
+                code.startsWith("ET411") || code.startsWith("ET448") || code.startsWith("ET412")) return "Mô đun - Y sinh";
+            if (code.startsWith("ET413") || code.startsWith("ET414")) return "Mô đun - Hàng không/Vũ trụ";
+            if (code.startsWith("ET426") || code.startsWith("ET437")) return "Mô đun - Đa phương tiện";
+            if (code.startsWith("ET435") || code.startsWith("ET434") || code.startsWith("ET4033") ||
+                code.startsWith("ET436")) return "Mô đun - Vi mạch";
+            if (code.startsWith("ET331") || code.startsWith("ET423") || code.startsWith("ET425") ||
+                code.startsWith("ET407") || code.startsWith("ET429") || code.startsWith("ET318")) return "Mô đun";
+            if (code.startsWith("ET327")) return "Thực tập";
+            if (code.startsWith("ET492")) return "Đồ án nghiên cứu";
+            return "Cơ sở ngành";
+        }
+        if (code.startsWith("EM101") || code.startsWith("EM118") || code.startsWith("ED") ||
+            code.startsWith("ET3262") || code.startsWith("CH202") || code.startsWith("ME312")) return "Bổ trợ";
+        if (code.startsWith("CT")) return "Tự chọn";
+        if (code.startsWith("MA")) return "Cơ sở";
+        return "Tự chọn";
+    }
+
+    /** getCourseType cũ của AdminFrame */
+    static String legacyGroup(String code) {
+        if (code == null || code.isEmpty()) return "Tự chọn";
+        if (code.startsWith("CT")) return "Tự chọn";
+        if (code.startsWith("MA") || code.startsWith("PH") || code.startsWith("IT")) return "Cơ sở";
+        if (code.startsWith("PE") || code.startsWith("MIL") || code.startsWith("SSH")) return "Bắt buộc";
+        return "Tự chọn";
+    }
+}
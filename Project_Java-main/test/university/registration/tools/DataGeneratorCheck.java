@@ -0,0 +1,166 @@
+package university.registration.tools;
+
+import university.registration.model.Offering;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.store.DataGenerator;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.Storage;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Đo và kiểm tra bộ sinh dữ liệu tổng hợp (DataGenerator)
+ *
+ * Kịch bản:
+ * 1. Sinh bộ dữ liệu (mặc định 100.000 sinh viên x 20 đăng ký = ~2 triệu đăng ký), đo thời gian
+ * 2. Sinh lại cùng spec chỉ với 1 luồng: dấu vân tay (sinh viên, offering, sĩ số, đăng ký kèm mã) phải giống hệt;
+ *    đổi seed thì phải khác
+ * 3. Bất biến: số đăng ký gần đúng students x regs, mã đăng ký không trùng và findReg khớp, không trùng học phần
+ *    trong một (sinh viên, học kỳ), bộ đếm trạng thái / học phần khớp duyệt toàn bộ,
+ *    số chỗ đã giữ = số đăng ký giữ chỗ và không vượt sĩ số, có lớp đầy ở kỳ mới nhất
+ * 4. Nếu có tham số file thì ghi snapshot ra file đó (chạy lại bằng App --snapshot &lt;file&gt;)
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes university.registration.tools.DataGeneratorCheck [students] [regsPerStudent] [snapshotFile]
+ *
+ * Thoát với mã 1 nếu hai lần sinh khác nhau hoặc dữ liệu sinh ra sai bất biến.
+ */
+public class DataGeneratorCheck {
+
+    public static void main(String[] args) throws Exception {
+        DataGenerator.Spec spec = new DataGenerator.Spec();
+        spec.students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        spec.regs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Storage store = new MemoryStorage();
+
+        // Lần sinh tuần tự (1 luồng) làm mốc so sánh
+        ForkJoinPool single = new ForkJoinPool(1);
+        long t0 = System.nanoTime();
+        single.submit(() -> DataGenerator.generate(spec)).get();
+        double singleMs = (System.nanoTime() - t0) / 1e6;
+        single.shutdown();
+        long expected = fingerprint(store);
+
+        double bestMs = Double.MAX_VALUE;
+        boolean same = true;
+        for (int round = 0; round < 3; round++) {
+            t0 = System.nanoTime();
+            DataGenerator.generate(spec);
+            bestMs = Math.min(bestMs, (System.nanoTime() - t0) / 1e6);
+            same &= fingerprint(store) == expected;
+        }
+        long regs = count(store);
+        System.out.printf("Sinh %s: %,d sinh viên, %,d đăng ký | 1 luồng %,.0f ms | %d luồng %,.0f ms (%s mục tiêu vài giây)%n",
+                spec, Memory.studentsById.size(), regs, singleMs, ForkJoinPool.getCommonPoolParallelism(), bestMs,
+                bestMs < 5000 ? "đạt" : "CHƯA ĐẠT");
+        System.out.println(same ? "Cùng spec, khác số luồng: dữ liệu giống hệt" : "LỖI: cùng spec nhưng dữ liệu khác nhau");
+
+        boolean ok = same && check(store, spec, regs);
+
+        DataGenerator.Spec other = DataGenerator.Spec.parse(spec + ",seed=" + (spec.seed + 1));
+        DataGenerator.generate(other);
+        boolean differs = fingerprint(store) != expected;
+        System.out.println(differs ? "Đổi seed: dữ liệu khác" : "LỖI: đổi seed nhưng dữ liệu không đổi");
+        ok &= differs;
+
+        if (args.length > 2) {
+            DataGenerator.generate(spec);
+            Memory.saveSnapshot(Path.of(args[2]));
+            System.out.println("Đã ghi snapshot " + args[2] + " (chạy App --snapshot " + args[2] + ")");
+        }
+        System.out.println(ok ? "OK - bộ dữ liệu sinh ra ổn định và nhất quán." : "LỖI: bộ dữ liệu sinh ra sai");
+        if (!ok) System.exit(1);
+    }
+
+    static boolean check(Storage store, DataGenerator.Spec spec, long regs) {
+        long target = (long) spec.students * spec.regs;
+        boolean size = Math.abs(regs - target) <= target / 50 + 10;
+
+        Set<Long> ids = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        Map<String, Long> scanned = new HashMap<>();
+        Map<String, Integer> holding = new HashMap<>();
+        Map<String, Integer> perCourse = new HashMap<>();
+        boolean[] unique = {true};
+        store.forEachReg((sid, term, item) -> {
+            unique[0] &= item.id > 0 && ids.add(item.id) && keys.add(sid + "|" + term + "|" + item.course.code);
+            RegRow r = store.findReg(item.id);
+            unique[0] &= r != null && r.studentId.equals(sid) && r.term.equals(term) && r.courseCode.equals(item.course.code);
+            scanned.merge(term + "|" + item.status, 1L, Long::sum);
+            perCourse.merge(term + "|" + item.course.code, 1, Integer::sum);
+            if (item.status.holdsSeat()) holding.merge(term + "|" + item.course.code, 1, Integer::sum);
+        });
+
+        boolean counters = true;
+        for (String term : store.terms())
+            for (RegStatus status : RegStatus.values())
+                counters &= store.countRegs(term, status) == scanned.getOrDefault(term + "|" + status, 0L);
+        for (var e : perCourse.entrySet()) {
+            String[] k = e.getKey().split("\\|");
+            counters &= store.countRegByCourse(k[0], k[1]) == e.getValue();
+        }
+
+        boolean seats = true;
+        int full = 0, limited = 0;
+        String latest = store.terms().get(0);
+        for (String term : store.terms()) {
+            for (var e : Memory.offerings.get(term).entrySet()) {
+                Offering off = e.getValue();
+                int held = holding.getOrDefault(term + "|" + e.getKey(), 0);
+                seats &= off.seatsTaken() == held && (off.capacity <= 0 || held <= off.capacity);
+                if (term.equals(latest)) {
+                    seats &= off.capacity > 0;
+                    limited++;
+                    if (!off.hasFreeSeat()) full++;
+                }
+            }
+        }
+        seats &= full > 0;
+
+        System.out.printf("%-45s %,d (mục tiêu %,d) %s%n", "Số đăng ký", regs, target, size ? "" : "<-- LỆCH");
+        System.out.printf("%-45s %s%n", "Mã đăng ký / học phần trong học kỳ", unique[0] ? "không trùng, findReg khớp" : "<-- LỖI");
+        System.out.printf("%-45s %s%n", "Bộ đếm trạng thái / học phần", counters ? "khớp duyệt toàn bộ" : "<-- LỆCH");
+        System.out.printf("%-45s %d / %d lớp đầy, không vượt sĩ số %s%n", "Sĩ số kỳ " + latest, full, limited, seats ? "" : "<-- LỖI");
+        for (RegStatus status : RegStatus.values())
+            System.out.printf("  %-12s kỳ %s: %,9d | mọi kỳ: %,9d%n", status, latest,
+                    store.countRegs(latest, status), store.countRegs(null, status));
+        return size && unique[0] && counters && seats;
+    }
+
+    static long count(Storage store) {
+        long[] n = {0};
+        store.forEachReg((sid, term, item) -> n[0]++);
+        return n[0];
+    }
+
+    /** Dấu vân tay không phụ thuộc thứ tự duyệt: tổng hash của sinh viên, offering và đăng ký (kèm mã) */
+    static long fingerprint(Storage store) {
+        long[] h = {0};
+        Memory.studentsById.values().forEach(s -> h[0] += mix((s.studentId + "|" + s.fullName + "|" + s.dob + "|" + s.address
+                + "|" + s.email + "|" + s.program).hashCode()));
+        for (String term : store.terms()) {
+            Memory.offerings.get(term).forEach((code, off) -> h[0] += mix((term + "|" + code + "|" + off.allowedProgram
+                    + "|" + off.capacity + "|" + off.seatsTaken()).hashCode()));
+        }
+        store.forEachReg((sid, term, item) -> h[0] += mix(item.id * 31 + key(sid, term, item).hashCode()));
+        return h[0];
+    }
+
+    static String key(String sid, String term, RegItem item) {
+        return sid + "|" + term + "|" + item.course.code + "|" + item.status + "|" + item.date;
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
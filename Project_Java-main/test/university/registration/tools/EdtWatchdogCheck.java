@@ -0,0 +1,113 @@
+package university.registration.tools;
+
+import university.registration.metrics.Metrics;
+import university.registration.ui.EdtWatchdog;
+import university.registration.ui.ListTableModel;
+
+import java.awt.EventQueue;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Kiểm tra EdtWatchdog (chạy được không cần màn hình: -Djava.awt.headless=true)
+ *
+ * Kịch bản (ngưỡng 100 ms, nhật ký vào thư mục tạm):
+ * 1. 20 sự kiện ngắn (10 ms): không báo treo
+ * 2. Hai lần EDT bị chặn 300 ms bên trong code giao diện (ListTableModel.getValueAt gọi một ô chậm):
+ *    báo treo, hành động "ListTableModel.getValueAt", stack chụp lúc đang treo có method đó, đếm 2 lần
+ * 3. EDT bị chặn 250 ms ngoài code giao diện: hành động là mô tả sự kiện (invokeLater của lớp gọi),
+ *    cả khi báo lúc đang treo lẫn khi kết thúc
+ * 4. Một sự kiện mở vòng lặp con (như hộp thoại modal) và chờ 400 ms không có sự kiện nào:
+ *    không báo treo (EDT đang chờ, không bị chặn)
+ * 5. Bộ đếm Metrics "EdtWatchdog.stalls" = 3
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes -Djava.awt.headless=true university.registration.tools.EdtWatchdogCheck
+ *
+ * Thoát với mã 1 nếu báo treo sai, thiếu, hoặc gán sai hành động.
+ */
+public class EdtWatchdogCheck {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("edt-watchdog");
+        try {
+            EdtWatchdog.install(100, dir.resolve("edt-stalls.log"));
+            boolean ok = true;
+
+            for (int i = 0; i < 20; i++) EventQueue.invokeAndWait(() -> sleep(10));
+            ok &= expect("20 sự kiện ngắn", 0);
+
+            ListTableModel<String> slow = new ListTableModel<>(new String[]{"Cột"}, (row, index, column) -> {
+                sleep(300);
+                return row;
+            });
+            slow.setRows(List.of("a"));
+            EventQueue.invokeAndWait(() -> slow.getValueAt(0, 0));
+            EventQueue.invokeAndWait(() -> slow.getValueAt(0, 0));
+            ok &= expect("Ô bảng chậm 300 ms (2 lần)", 2);
+
+            EventQueue.invokeAndWait(() -> sleep(250));
+            ok &= expect("Chặn 250 ms ngoài code giao diện", 3);
+
+            EventQueue.invokeAndWait(() -> {
+                SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+                new Thread(() -> {
+                    sleep(400);
+                    loop.exit();
+                }).start();
+                loop.enter();
+            });
+            ok &= expect("Vòng lặp con chờ 400 ms (như hộp thoại)", 3);
+
+            String log;
+            try (Stream<Path> files = Files.list(dir)) {
+                Path file = files.filter(p -> p.getFileName().toString().matches("edt-stalls\\.\\d+\\.log")).findFirst().orElseThrow();
+                log = Files.readString(file, StandardCharsets.UTF_8);
+            }
+            boolean attributed = log.contains("EDT bị chặn") && log.contains("ListTableModel.getValueAt (")
+                    && log.contains("hành động này: 2 lần")
+                    && log.contains("đang bị chặn quá 100 ms - ListTableModel.getValueAt")
+                    && log.contains("at university.registration.ui.ListTableModel.getValueAt")
+                    && log.contains("invokeLater EdtWatchdogCheck")
+                    && !log.contains(" - null (");
+            System.out.printf("%-45s %s%n", "Nhật ký: hành động, stack, số lần", attributed ? "đúng" : "<-- SAI");
+            ok &= attributed;
+            long counted = Metrics.counterValues().getOrDefault("EdtWatchdog.stalls", 0L);
+            ok &= counted == 3;
+            System.out.printf("%-45s %d %s%n", "Metrics EdtWatchdog.stalls", counted, counted == 3 ? "" : "<-- SAI");
+
+            System.out.print(EdtWatchdog.summary());
+            System.out.println(ok ? "OK - phát hiện treo đúng." : "LỖI: phát hiện treo sai\n" + log);
+            if (!ok) System.exit(1);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+        System.exit(0); // EDT không tự dừng
+    }
+
+    static boolean expect(String label, long stalls) throws Exception {
+        // Rào: finish của sự kiện trước chạy trên EDT sau khi invokeAndWait đã trả về,
+        // một sự kiện rỗng nữa bảo đảm nó đã ghi nhận xong (máy 1 CPU hay đọc bộ đếm quá sớm)
+        EventQueue.invokeAndWait(() -> {});
+        long counted = Metrics.counterValues().getOrDefault("EdtWatchdog.stalls", 0L);
+        boolean ok = counted == stalls;
+        System.out.printf("%-45s %d lần treo %s%n", label, counted, ok ? "" : "<-- mong đợi " + stalls);
+        return ok;
+    }
+
+    static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
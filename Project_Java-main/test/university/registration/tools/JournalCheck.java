@@ -0,0 +1,259 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.store.Journal;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.Storage;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Kiểm tra khôi phục sau sự cố của Journal (snapshot + replay nhật ký)
+ *
+ * Kịch bản:
+ * 1. Bật nhật ký vào thư mục tạm với ngưỡng đoạn nhỏ (registration.snapshotBytes = 32KB) để snapshot
+ *    nền chạy liên tục. Nhiều thread cùng thêm / xóa / gửi / duyệt / từ chối đăng ký trên CÙNG một nhóm
+ *    sinh viên (thứ tự ghi nhật ký của một sinh viên phải trùng thứ tự áp dụng), trong lúc một thread khác
+ *    gọi Journal.snapshot() (xoay đoạn khi snapshot nền đang chạy: phải chờ, không xoay chồng)
+ * 2. Journal.close(), Journal.recover: dữ liệu (đăng ký, mã, trạng thái, bộ đếm) phải giống hệt
+ *    khi duyệt toàn bộ trước lúc đóng - replay đè lên snapshot "fuzzy" không làm sai dữ liệu
+ * 3. Cắt đoạn nhật ký cuối giữa chừng (giữa header, giữa payload) hoặc làm sai CRC bản ghi cuối:
+ *    khôi phục phải cho cùng kết quả như khi cắt gọn trước bản ghi đó, và file bị cắt về đúng chỗ đó
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes university.registration.tools.JournalCheck [students] [threads] [opsPerThread]
+ *
+ * Thoát với mã 1 nếu dữ liệu sau khôi phục khác dữ liệu trước khi đóng.
+ */
+public class JournalCheck {
+
+    static final String[] TERMS = {"20251", "20252"};
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int opsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+
+        Path dir = Files.createTempDirectory("journal-check");
+        try {
+            Path dataDir = dir.resolve("data");
+            System.setProperty("registration.dataDir", dataDir.toString());
+            System.setProperty("registration.fsync", "false");
+            System.setProperty("registration.snapshotBytes", String.valueOf(32 * 1024));
+            Memory.init();
+            Storage store = new MemoryStorage();
+            List<Course> courses = new ArrayList<>(store.courses());
+            List<String> programs = store.programs();
+            for (int s = 0; s < students; s++) {
+                String sid = "J" + s;
+                store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                        sid.toLowerCase() + "@journal.test", programs.get(s % programs.size())), "x");
+            }
+
+            // 1. Ghi đồng thời + snapshot chủ động chen giữa các snapshot nền
+            AtomicInteger rejected = new AtomicInteger();
+            AtomicInteger snapshots = new AtomicInteger();
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread snapshotter = new Thread(() -> {
+                while (running.get()) {
+                    Journal.snapshot();
+                    snapshots.incrementAndGet();
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "check-snapshotter");
+            snapshotter.start();
+            long t0 = System.nanoTime();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < opsPerThread; i++) {
+                        if (!randomOp(store, courses, students)) rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            pool.shutdown();
+            running.set(false);
+            snapshotter.join();
+            awaitBackgroundSnapshots();
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+
+            // Bảo đảm đoạn cuối có bản ghi (để replay và để cắt đuôi ở bước 3)
+            while (Files.size(lastSegment(dataDir)) == 0) {
+                for (int i = 0; i < 50; i++) randomOp(store, courses, students);
+                awaitBackgroundSnapshots();
+            }
+            Map<String, String> expected = scan(store);
+            Journal.close();
+            System.out.printf("%-48s %,d thao tác (%,d bị từ chối) trong %,d ms, %d snapshot chủ động, đến đoạn %s%n",
+                    "Ghi đồng thời", threads * opsPerThread, rejected.get(), ms, snapshots.get(),
+                    lastSegment(dataDir).getFileName());
+
+            // 2. Khôi phục: snapshot fuzzy + replay
+            Journal.recover(dataDir);
+            boolean ok = same("Sau close + recover", expected, scan(store));
+
+            // 3. Đuôi hỏng ở đoạn cuối
+            Path segment = lastSegment(dataDir);
+            byte[] full = Files.readAllBytes(segment);
+            List<Integer> ends = recordEnds(full);
+            int lastStart = ends.size() > 1 ? ends.get(ends.size() - 2) : 0;
+            int lastLen = full.length - lastStart - 8;
+            System.out.printf("%-48s %,d bản ghi, %,d byte; bản ghi cuối %,d byte từ vị trí %,d%n",
+                    "Đoạn cuối " + segment.getFileName(), ends.size(), full.length, lastLen, lastStart);
+
+            Files.write(segment, Arrays.copyOf(full, lastStart));
+            Journal.recover(dataDir);
+            Map<String, String> withoutLast = scan(store);
+            ok &= truncatedTo("Cắt gọn trước bản ghi cuối", segment, lastStart);
+
+            ok &= torn("Cắt giữa header bản ghi cuối", store, dataDir, segment, Arrays.copyOf(full, lastStart + 3),
+                    withoutLast, lastStart);
+            ok &= torn("Cắt giữa payload bản ghi cuối", store, dataDir, segment, Arrays.copyOf(full, lastStart + 8 + lastLen / 2),
+                    withoutLast, lastStart);
+            byte[] badCrc = full.clone();
+            badCrc[full.length - 1] ^= 0x5A;
+            ok &= torn("Sai CRC bản ghi cuối", store, dataDir, segment, badCrc, withoutLast, lastStart);
+
+            Files.write(segment, full);
+            Journal.recover(dataDir);
+            ok &= same("Đoạn cuối nguyên vẹn", expected, scan(store));
+
+            System.out.println(ok ? "OK - khôi phục đúng dữ liệu đã ghi." : "LỖI: dữ liệu sau khôi phục bị lệch");
+            if (!ok) System.exit(1);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /**
+     * Một thao tác ngẫu nhiên trên một sinh viên bất kỳ (nhiều thread có thể cùng chọn một sinh viên):
+     * thêm, xóa, gửi, duyệt hoặc từ chối. Trả về false nếu kho từ chối (trùng, hết chỗ, bước chuyển sai).
+     */
+    static boolean randomOp(Storage store, List<Course> courses, int students) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String sid = "J" + rnd.nextInt(students);
+        String term = TERMS[rnd.nextInt(TERMS.length)];
+        String code = courses.get(rnd.nextInt(courses.size())).code;
+        try {
+            switch (rnd.nextInt(5)) {
+                case 0, 1 -> {
+                    Course c = store.findCourse(code);
+                    return store.addReg(sid, term, new RegItem(c, "2025-01-15", RegStatus.DRAFT), false)
+                            == Storage.AddResult.ADDED;
+                }
+                case 2 -> store.deleteRegs(sid, term, Set.of(code));
+                case 3 -> {
+                    return store.setStatus(sid, term, code, RegStatus.SUBMITTED);
+                }
+                default -> {
+                    return store.setStatus(sid, term, code, rnd.nextBoolean() ? RegStatus.APPROVED : RegStatus.REJECTED);
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false; // bước chuyển không hợp lệ
+        }
+    }
+
+    /** Chờ snapshot nền (thread "journal-snapshot") đang chạy, nếu có, ghi xong */
+    static void awaitBackgroundSnapshots() throws InterruptedException {
+        for (Thread t : Thread.getAllStackTraces().keySet())
+            if (t.getName().equals("journal-snapshot")) t.join();
+    }
+
+    /** Toàn bộ dữ liệu đăng ký: (MSSV, học kỳ, học phần) -> mã, trạng thái, ngày; kèm bộ đếm và số sinh viên */
+    static Map<String, String> scan(Storage store) {
+        Map<String, String> state = new TreeMap<>();
+        long[] counted = new long[RegStatus.values().length * TERMS.length];
+        store.forEachReg((sid, term, item) -> {
+            state.put(sid + "|" + term + "|" + item.course.code, item.id + "|" + item.status + "|" + item.date);
+            int t = Arrays.asList(TERMS).indexOf(term);
+            if (t >= 0) counted[t * RegStatus.values().length + item.status.ordinal()]++;
+        });
+        for (int t = 0; t < TERMS.length; t++) {
+            for (RegStatus st : RegStatus.values()) {
+                long c = counted[t * RegStatus.values().length + st.ordinal()];
+                state.put("#count|" + TERMS[t] + "|" + st, c + (store.countRegs(TERMS[t], st) == c ? "" : " (bộ đếm lệch)"));
+            }
+        }
+        state.put("#students", String.valueOf(store.studentCount()));
+        return state;
+    }
+
+    static boolean same(String label, Map<String, String> expected, Map<String, String> actual) {
+        boolean ok = expected.equals(actual);
+        int diff = 0;
+        if (!ok) {
+            for (String k : expected.keySet()) if (!expected.get(k).equals(actual.get(k))) diff++;
+            for (String k : actual.keySet()) if (!expected.containsKey(k)) diff++;
+        }
+        System.out.printf("%-48s %,9d mục %s%n", label, actual.size(), ok ? "khớp duyệt toàn bộ" : "<-- LỆCH " + diff + " mục");
+        return ok;
+    }
+
+    /** Ghi đè đoạn cuối bằng bytes (đuôi hỏng), khôi phục, so với kết quả cắt gọn và kiểm tra đuôi đã bị cắt */
+    static boolean torn(String label, Storage store, Path dataDir, Path segment, byte[] bytes,
+                        Map<String, String> expected, int validLength) throws Exception {
+        Files.write(segment, bytes);
+        Journal.recover(dataDir);
+        boolean ok = same(label, expected, scan(store));
+        return ok & truncatedTo("  đuôi hỏng bị cắt", segment, validLength);
+    }
+
+    static boolean truncatedTo(String label, Path segment, long length) throws Exception {
+        long size = Files.size(segment);
+        boolean ok = size == length;
+        System.out.printf("%-48s %,9d byte %s%n", label, size, ok ? "" : "<-- phải là " + length);
+        return ok;
+    }
+
+    /** Vị trí kết thúc của từng bản ghi nguyên vẹn: [int độ dài][int CRC32][payload] (xem Journal) */
+    static List<Integer> recordEnds(byte[] all) {
+        List<Integer> ends = new ArrayList<>();
+        ByteBuffer buf = ByteBuffer.wrap(all);
+        while (buf.remaining() >= 8) {
+            int len = buf.getInt();
+            buf.getInt();
+            if (len <= 0 || len > buf.remaining()) break;
+            buf.position(buf.position() + len);
+            ends.add(buf.position());
+        }
+        return ends;
+    }
+
+    /** Đoạn nhật ký mới nhất (journal-&lt;gen&gt;.log có gen lớn nhất) */
+    static Path lastSegment(Path dataDir) throws Exception {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("journal-"))
+                    .max(Comparator.comparing(p -> p.getFileName().toString())).orElseThrow();
+        }
+    }
+}
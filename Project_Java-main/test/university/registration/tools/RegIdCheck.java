@@ -0,0 +1,241 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegRow;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.store.FileStorage;
+import university.registration.store.Journal;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.RegQuery;
+import university.registration.store.Storage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Kiểm tra mã đăng ký (RegItem.id) và index chính (Storage.findReg / setStatus theo mã)
+ *
+ * Kịch bản:
+ * 1. Bật nhật ký vào thư mục tạm, thêm N sinh viên x K đăng ký ở 2 học kỳ, rồi xóa / thêm lại
+ *    và duyệt / từ chối theo mã một phần
+ * 2. Mọi đăng ký có mã khác 0, không trùng; findReg(mã) trả đúng (MSSV, học kỳ, học phần, trạng thái)
+ * 3. Mã của một đăng ký giống nhau ở mọi bộ lọc (học kỳ, trạng thái, từ khóa) - không theo số thứ tự dòng
+ * 4. Mã giữ nguyên sau khi replay nhật ký, sau khi nạp lại snapshot, trên FileStorage (chép từ Memory)
+ *    và sau khi mở lại FileStorage; đăng ký thêm sau đó nhận mã lớn hơn mọi mã đã cấp (không cấp lại)
+ * 5. Đo thời gian tìm một đăng ký: theo mã (index chính) so với duyệt toàn bộ đăng ký theo tên học phần
+ *    (cách cũ khi bộ lọc học kỳ là "Tất cả")
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes university.registration.tools.RegIdCheck [students] [regsPerStudent]
+ *
+ * Thoát với mã 1 nếu có mã trùng, mã bị đổi hoặc bị cấp lại.
+ */
+public class RegIdCheck {
+
+    static final String[] TERMS = {"20251", "20252"};
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path dir = Files.createTempDirectory("reg-ids");
+        try {
+            Path dataDir = dir.resolve("data");
+            System.setProperty("registration.dataDir", dataDir.toString());
+            System.setProperty("registration.fsync", "false");
+            Memory.init();
+            Storage store = new MemoryStorage();
+            List<Course> courses = new ArrayList<>(store.courses());
+            List<String> programs = store.programs();
+            perStudent = Math.min(perStudent, courses.size());
+            for (int s = 0; s < students; s++) {
+                String sid = "B" + s;
+                store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                        sid.toLowerCase() + "@bench.test", programs.get(s % programs.size())), "x");
+                for (int k = 0; k < perStudent; k++) {
+                    Course c = courses.get((s + k * 7) % courses.size());
+                    RegStatus status = (s + k) % 3 == 0 ? RegStatus.DRAFT : RegStatus.SUBMITTED;
+                    store.addReg(sid, TERMS[k % 2], new RegItem(c, "2025-01-15", status), false);
+                }
+            }
+            churn(store, courses, students);
+
+            boolean ok = consistent("Sau khi thêm / xóa / duyệt", store);
+            ok &= stableAcrossFilters(store);
+            Map<Long, String> expected = ids(store);
+
+            Journal.close();
+            Journal.recover(dataDir);
+            ok &= same("Sau khi replay nhật ký", expected, store);
+            ok &= notReused("Thêm đăng ký sau khi replay", store, expected);
+            expected = ids(store);
+
+            System.clearProperty("registration.dataDir");
+            Path snapshot = dir.resolve("snapshot.bin");
+            Memory.saveSnapshot(snapshot);
+            Memory.initFromSnapshot(snapshot);
+            ok &= same("Sau khi nạp lại snapshot", expected, store);
+            ok &= notReused("Thêm đăng ký sau khi nạp snapshot", store, expected);
+            expected = ids(store);
+
+            FileStorage file = FileStorage.open(dir.resolve("file-store"));
+            ok &= same("FileStorage (chép từ Memory)", expected, file);
+            ok &= consistent("FileStorage", file);
+            churn(file, courses, students);
+            expected = ids(file);
+            file.close();
+            file = FileStorage.open(dir.resolve("file-store"));
+            ok &= same("FileStorage sau khi mở lại", expected, file);
+            ok &= notReused("Thêm đăng ký sau khi mở lại FileStorage", file, expected);
+            file.close();
+
+            timeLookup(store);
+            System.out.println(ok ? "OK - mã đăng ký ổn định và không bị cấp lại." : "LỖI: mã đăng ký sai");
+            if (!ok) System.exit(1);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /** Xóa / thêm lại đăng ký, gửi và duyệt / từ chối theo mã */
+    static void churn(Storage store, List<Course> courses, int students) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int s = 0; s < students; s += 5) {
+            String sid = "B" + s;
+            String term = TERMS[rnd.nextInt(TERMS.length)];
+            List<RegItem> regs = store.loadReg(sid, term);
+            if (regs.isEmpty()) continue;
+            store.deleteRegs(sid, term, Set.of(regs.get(0).course.code));
+            store.addReg(sid, term, new RegItem(courses.get(rnd.nextInt(courses.size())), "2025-02-01", RegStatus.DRAFT), false);
+        }
+        for (RegRow r : store.queryRegs(query(null, EnumSet.of(RegStatus.SUBMITTED), null, null))) {
+            if (rnd.nextInt(4) == 0) store.setStatus(r.id, rnd.nextBoolean() ? RegStatus.APPROVED : RegStatus.REJECTED);
+        }
+    }
+
+    /** Mã khác 0, không trùng, và findReg trả đúng đăng ký */
+    static boolean consistent(String label, Storage store) {
+        Map<Long, String> seen = new HashMap<>();
+        boolean[] ok = {true};
+        store.forEachReg((sid, term, item) -> {
+            String key = key(sid, term, item.course.code, item.status);
+            if (item.id <= 0 || seen.put(item.id, key) != null) ok[0] = false;
+            RegRow r = store.findReg(item.id);
+            if (r == null || !key.equals(key(r.studentId, r.term, r.courseCode, r.status))) ok[0] = false;
+        });
+        System.out.printf("%-45s %,9d đăng ký %s%n", label, seen.size(), ok[0] ? "mã duy nhất, findReg khớp" : "<-- LỖI");
+        return ok[0];
+    }
+
+    /** Cùng một đăng ký có cùng mã trong mọi bộ lọc */
+    static boolean stableAcrossFilters(Storage store) {
+        Map<String, Long> byKey = new HashMap<>();
+        for (RegRow r : store.queryRegs(new RegQuery())) byKey.put(key(r.studentId, r.term, r.courseCode, r.status), r.id);
+        List<RegQuery> filters = List.of(
+                query(TERMS[1], null, null, null),
+                query(null, EnumSet.of(RegStatus.SUBMITTED), null, null),
+                query(TERMS[0], EnumSet.of(RegStatus.DRAFT, RegStatus.APPROVED), null, "b1"),
+                query(null, null, store.programs().get(0), "giải"));
+        boolean ok = true;
+        int checked = 0;
+        for (RegQuery q : filters) {
+            for (RegRow r : store.queryRegs(q)) {
+                Long id = byKey.get(key(r.studentId, r.term, r.courseCode, r.status));
+                ok &= id != null && id == r.id;
+                checked++;
+            }
+        }
+        System.out.printf("%-45s %,9d dòng %s%n", "Mã theo bộ lọc", checked, ok ? "giống không lọc" : "<-- KHÁC");
+        return ok;
+    }
+
+    /** Mã -> (MSSV, học kỳ, học phần, trạng thái) */
+    static Map<Long, String> ids(Storage store) {
+        Map<Long, String> ids = new HashMap<>();
+        store.forEachReg((sid, term, item) -> ids.put(item.id, key(sid, term, item.course.code, item.status)));
+        return ids;
+    }
+
+    static boolean same(String label, Map<Long, String> expected, Storage store) {
+        Map<Long, String> actual = ids(store);
+        boolean ok = actual.equals(expected);
+        if (ok) {
+            for (Long id : expected.keySet()) {
+                RegRow r = store.findReg(id);
+                if (r == null || !expected.get(id).equals(key(r.studentId, r.term, r.courseCode, r.status))) {
+                    ok = false;
+                    break;
+                }
+            }
+        }
+        System.out.printf("%-45s %,9d đăng ký %s%n", label, actual.size(), ok ? "mã giữ nguyên" : "<-- LỆCH");
+        return ok;
+    }
+
+    /** Đăng ký mới nhận mã lớn hơn mọi mã đã thấy; xóa rồi thêm lại cũng nhận mã mới */
+    static boolean notReused(String label, Storage store, Map<Long, String> expected) {
+        long max = expected.keySet().stream().mapToLong(Long::longValue).max().orElse(0);
+        String sid = "B0";
+        List<RegItem> regs = store.loadReg(sid, TERMS[0]);
+        RegItem old = regs.get(0);
+        store.deleteRegs(sid, TERMS[0], Set.of(old.course.code));
+        RegItem again = new RegItem(old.course, "2025-03-01", RegStatus.DRAFT);
+        store.addReg(sid, TERMS[0], again, false);
+        long id = store.loadReg(sid, TERMS[0]).stream()
+                .filter(it -> it.course.code.equals(old.course.code)).findFirst().orElseThrow().id;
+        boolean ok = id > max && store.findReg(old.id) == null && store.findReg(id) != null;
+        System.out.printf("%-45s mã cũ %,d -> mã mới %,d (lớn nhất trước đó %,d) %s%n",
+                label, old.id, id, max, ok ? "" : "<-- CẤP LẠI");
+        return ok;
+    }
+
+    /** Tìm đăng ký theo mã so với duyệt toàn bộ theo (MSSV, tên học phần) như cách cũ */
+    static void timeLookup(Storage store) {
+        List<RegRow> all = store.queryRegs(new RegQuery());
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long scanNs = Long.MAX_VALUE, idNs = Long.MAX_VALUE, sink = 0;
+        for (int round = 0; round < 5; round++) {
+            RegRow target = all.get(rnd.nextInt(all.size()));
+            long[] found = {0};
+            long t0 = System.nanoTime();
+            store.forEachReg((sid, term, item) -> {
+                if (found[0] == 0 && sid.equals(target.studentId) && item.course.name.equals(target.courseName)) found[0] = item.id;
+            });
+            long t1 = System.nanoTime();
+            for (int i = 0; i < 10_000; i++) sink += store.findReg(all.get(rnd.nextInt(all.size())).id).credits;
+            long t2 = System.nanoTime();
+            scanNs = Math.min(scanNs, t1 - t0);
+            idNs = Math.min(idNs, (t2 - t1) / 10_000);
+            sink += found[0];
+        }
+        System.out.printf("Tìm một đăng ký: duyệt toàn bộ %.1f ms | theo mã %d ns (%d)%n",
+                scanNs / 1e6, idNs, sink % 10);
+    }
+
+    static RegQuery query(String term, Set<RegStatus> statuses, String program, String text) {
+        RegQuery q = new RegQuery();
+        q.term = term;
+        q.statuses = statuses;
+        q.program = program;
+        q.text = text;
+        return q;
+    }
+
+    static String key(String sid, String term, String code, RegStatus status) {
+        return sid + "|" + term + "|" + code + "|" + status;
+    }
+}
@@ -0,0 +1,161 @@
+package university.registration.tools;
+
+import university.registration.model.RegItem;
+import university.registration.model.Student;
+import university.registration.service.RegistrationService;
+import university.registration.store.Memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Công cụ stress-test cho kho đăng ký (Memory) khi nhiều thread cùng ghi
+ *
+ * Dự án không có thư mục test, nên đây là một chương trình chạy độc lập (có main).
+ * Chương trình bắn RegistrationService.addRegistration / deleteRegistrations từ nhiều thread
+ * và kiểm tra các bất biến sau khi chạy xong:
+ *
+ * Pha 1 - Thêm đồng thời (chỉ add):
+ * - Mỗi cặp (sinh viên, học phần) được nhiều thread cố gắng thêm cùng lúc
+ * - Số lần thêm thành công phải đúng bằng số cặp (không trùng, không mất)
+ * - Memory.addStudent cùng MSSV từ nhiều thread: mỗi MSSV chỉ thành công 1 lần
+ *
+ * Pha 2 - Thêm/xóa xen kẽ:
+ * - Không có học phần nào xuất hiện 2 lần trong list của một sinh viên
+ * - countRegByCourse khớp với số đếm thực tế khi duyệt regs
+ * - canDeleteCourse khớp với việc có/không có đăng ký thực tế
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes university.registration.tools.RegistrationStressTool [threads] [students] [opsPerThread]
+ *
+ * Thoát với mã 1 nếu phát hiện vi phạm.
+ */
+public class RegistrationStressTool {
+
+    static final String TERM = "20252";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int opsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        Memory.init();
+        List<String> codes = new ArrayList<>(Memory.courses.keySet()).subList(0, 20);
+        RegistrationService service = new RegistrationService();
+
+        System.out.printf("Stress: %d thread, %d sinh viên, %d học phần, %d thao tác/thread%n",
+                threads, students, codes.size(), opsPerThread);
+
+        List<String> errors = new ArrayList<>();
+
+        // ========== PHA 1: THÊM ĐỒNG THỜI ==========
+        AtomicInteger addOk = new AtomicInteger();
+        AtomicInteger studentOk = new AtomicInteger();
+        long t0 = System.nanoTime();
+        runConcurrently(threads, worker -> {
+            for (int s = 0; s < students; s++) {
+                String sid = "ST" + s;
+                try {
+                    Memory.addStudent(new Student(sid, "Stress " + s, "2004-01-01", "Hà Nội",
+                            sid.toLowerCase() + "@stress.test", "Công nghệ Thông tin 2021"), "x");
+                    studentOk.incrementAndGet();
+                } catch (RuntimeException ignored) {
+                    // MSSV đã được thread khác tạo - đúng như mong đợi
+                }
+                for (String code : codes) {
+                    if (service.addRegistration(sid, TERM, code)) addOk.incrementAndGet();
+                }
+            }
+        });
+        long phase1Ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        int expected = students * codes.size();
+        if (addOk.get() != expected)
+            errors.add("Pha 1: thêm thành công " + addOk.get() + " lần, mong đợi " + expected);
+        if (studentOk.get() != students)
+            errors.add("Pha 1: tạo được " + studentOk.get() + " sinh viên, mong đợi " + students);
+        checkInvariants(codes, errors);
+        System.out.printf("Pha 1: %d lượt thêm thành công trong %d ms%n", addOk.get(), phase1Ms);
+
+        // ========== PHA 2: THÊM/XÓA XEN KẼ ==========
+        t0 = System.nanoTime();
+        runConcurrently(threads, worker -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = 0; i < opsPerThread; i++) {
+                String sid = "ST" + rnd.nextInt(students);
+                String code = codes.get(rnd.nextInt(codes.size()));
+                if (rnd.nextBoolean()) {
+                    service.addRegistration(sid, TERM, code);
+                } else {
+                    service.deleteRegistrations(sid, TERM, Set.of(code));
+                }
+            }
+        });
+        long phase2Ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        checkInvariants(codes, errors);
+        long ops = (long) threads * opsPerThread;
+        System.out.printf("Pha 2: %d thao tác trong %d ms (%.0f ops/s)%n",
+                ops, phase2Ms, ops * 1000.0 / Math.max(1, phase2Ms));
+
+        if (errors.isEmpty()) {
+            System.out.println("OK - không phát hiện trùng lặp hay mất cập nhật.");
+        } else {
+            errors.forEach(e -> System.out.println("LỖI: " + e));
+            System.exit(1);
+        }
+    }
+
+    /** Chạy cùng một công việc trên nhiều thread, tất cả bắt đầu cùng lúc */
+    static void runConcurrently(int threads, IntConsumer work) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            final int worker = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    work.accept(worker);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+    }
+
+    /** So sánh dữ liệu thực tế trong regs với bộ đếm và index của Memory */
+    static void checkInvariants(List<String> codes, List<String> errors) {
+        Map<String, Integer> actual = new HashMap<>();
+        for (var e : Memory.regs.entrySet()) {
+            List<RegItem> list = e.getValue().get(TERM);
+            if (list == null) continue;
+            Set<String> seen = new HashSet<>();
+            for (RegItem it : list) {
+                if (!seen.add(it.course.code))
+                    errors.add("Trùng học phần " + it.course.code + " của " + e.getKey());
+                actual.merge(it.course.code, 1, Integer::sum);
+            }
+        }
+        for (String code : codes) {
+            int real = actual.getOrDefault(code, 0);
+            int counted = Memory.countRegByCourse(TERM, code);
+            if (real != counted)
+                errors.add("countRegByCourse(" + code + ") = " + counted + ", thực tế = " + real);
+            if (Memory.canDeleteCourse(code) != (real == 0))
+                errors.add("canDeleteCourse(" + code + ") sai, thực tế có " + real + " đăng ký");
+        }
+    }
+}
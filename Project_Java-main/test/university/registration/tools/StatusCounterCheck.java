@@ -0,0 +1,210 @@
+package university.registration.tools;
+
+import university.registration.model.Course;
+import university.registration.model.RegItem;
+import university.registration.model.RegStatus;
+import university.registration.model.Student;
+import university.registration.store.FileStorage;
+import university.registration.store.Memory;
+import university.registration.store.MemoryStorage;
+import university.registration.store.Storage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Kiểm tra bộ đếm đăng ký theo (học kỳ, trạng thái) và máy trạng thái RegStatus
+ *
+ * Kịch bản:
+ * 1. Thêm N sinh viên, mỗi sinh viên K đăng ký ở 2 học kỳ (Tạm / Đã gửi xen kẽ)
+ * 2. Nhiều thread cùng lúc gửi / duyệt / từ chối / xóa / thêm đăng ký (chỉ các bước chuyển hợp lệ)
+ * 3. So countRegs với số đếm khi duyệt toàn bộ đăng ký; lặp lại sau khi đổi mã học kỳ,
+ *    sau khi nạp lại snapshot và trên FileStorage (chép từ Memory rồi thay đổi tiếp)
+ * 4. Các bước chuyển không hợp lệ (Tạm -> Đã duyệt, Đã duyệt -> Đã từ chối...) phải bị từ chối
+ *    và không làm đổi bộ đếm
+ * 5. Đo thời gian đọc "số đăng ký chờ duyệt": bộ đếm so với duyệt toàn bộ
+ *
+ * Cách chạy:
+ *   java -cp app/target/classes:app/target/test-classes university.registration.tools.StatusCounterCheck [students] [regsPerStudent] [threads]
+ *
+ * Thoát với mã 1 nếu bộ đếm lệch hoặc bước chuyển không hợp lệ được chấp nhận.
+ */
+public class StatusCounterCheck {
+
+    static final String[] TERMS = {"20251", "20252"};
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int perStudent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        Memory.init();
+        Storage store = new MemoryStorage();
+        List<Course> courses = new ArrayList<>(store.courses());
+        List<String> programs = store.programs();
+        perStudent = Math.min(perStudent, courses.size());
+        for (int s = 0; s < students; s++) {
+            String sid = "B" + s;
+            store.addStudent(new Student(sid, "Sinh viên " + s, "2004-01-01", "Hà Nội",
+                    sid.toLowerCase() + "@bench.test", programs.get(s % programs.size())), "x");
+            for (int k = 0; k < perStudent; k++) {
+                Course c = courses.get((s + k * 7) % courses.size());
+                RegStatus status = (s + k) % 3 == 0 ? RegStatus.DRAFT : RegStatus.SUBMITTED;
+                store.addReg(sid, TERMS[k % 2], new RegItem(c, "2025-01-15", status), false);
+            }
+        }
+
+        boolean ok = compare("Sau khi thêm", store);
+        churn(store, courses, students, threads);
+        ok &= compare("Sau khi " + threads + " thread cùng thay đổi", store);
+        ok &= illegalMoves(store, students);
+
+        store.renameTerm(TERMS[0], "20250");
+        ok &= compare("Sau khi đổi mã học kỳ 20251 -> 20250", store);
+
+        Path dir = Files.createTempDirectory("status-counters");
+        try {
+            Path snapshot = dir.resolve("snapshot.bin");
+            Memory.saveSnapshot(snapshot);
+            Memory.initFromSnapshot(snapshot);
+            ok &= compare("Sau khi nạp lại snapshot", store);
+
+            FileStorage file = FileStorage.open(dir.resolve("file-store"));
+            ok &= compare("FileStorage (chép từ Memory)", file);
+            churn(file, courses, students, threads);
+            ok &= compare("FileStorage sau khi thay đổi", file);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+
+        timePending(store);
+        System.out.println(ok ? "OK - bộ đếm khớp với duyệt toàn bộ." : "LỖI: bộ đếm lệch");
+        if (!ok) System.exit(1);
+    }
+
+    /** Gửi / duyệt / từ chối / xóa / thêm lại đăng ký ngẫu nhiên từ nhiều thread */
+    static void churn(Storage store, List<Course> courses, int students, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < students; i++) {
+                    String sid = "B" + rnd.nextInt(students);
+                    String term = TERMS[rnd.nextInt(TERMS.length)];
+                    List<RegItem> regs = store.loadReg(sid, term);
+                    if (regs.isEmpty()) continue;
+                    RegItem it = regs.get(rnd.nextInt(regs.size()));
+                    try {
+                        switch (it.status) {
+                            case DRAFT -> store.setStatus(sid, term, it.course.code, RegStatus.SUBMITTED);
+                            case SUBMITTED -> store.setStatus(sid, term, it.course.code,
+                                    rnd.nextBoolean() ? RegStatus.APPROVED : RegStatus.REJECTED);
+                            default -> {
+                                store.deleteRegs(sid, term, Set.of(it.course.code));
+                                Course c = courses.get(rnd.nextInt(courses.size()));
+                                store.addReg(sid, term, new RegItem(c, "2025-02-01", RegStatus.DRAFT), false);
+                            }
+                        }
+                    } catch (RuntimeException ex) {
+                        // Thread khác vừa đổi trạng thái của đăng ký này: bước chuyển không còn hợp lệ
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+    }
+
+    /** Bước chuyển không hợp lệ phải ném lỗi, trạng thái và bộ đếm giữ nguyên */
+    static boolean illegalMoves(Storage store, int students) {
+        Map<RegStatus, RegStatus> illegal = Map.of(
+                RegStatus.DRAFT, RegStatus.APPROVED,
+                RegStatus.APPROVED, RegStatus.REJECTED,
+                RegStatus.REJECTED, RegStatus.SUBMITTED);
+        Map<RegStatus, Boolean> tested = new HashMap<>();
+        boolean ok = true;
+        for (int s = 0; s < students && tested.size() < illegal.size(); s++) {
+            String sid = "B" + s;
+            for (RegItem it : store.loadReg(sid, TERMS[1])) {
+                RegStatus next = illegal.get(it.status);
+                if (next == null || tested.containsKey(it.status)) continue;
+                long before = store.countRegs(TERMS[1], next);
+                boolean rejected;
+                try {
+                    store.setStatus(sid, TERMS[1], it.course.code, next);
+                    rejected = false;
+                } catch (RuntimeException ex) {
+                    rejected = true;
+                }
+                boolean same = rejected && store.countRegs(TERMS[1], next) == before;
+                System.out.printf("%-12s -> %-12s %s%n", it.status, next, same ? "bị từ chối" : "LỖI: được chấp nhận");
+                tested.put(it.status, same);
+                ok &= same;
+            }
+        }
+        return ok;
+    }
+
+    /** So countRegs với số đếm khi duyệt toàn bộ đăng ký */
+    static boolean compare(String label, Storage store) {
+        Map<String, long[]> scanned = new HashMap<>();
+        store.forEachReg((sid, term, item) ->
+                scanned.computeIfAbsent(term, t -> new long[RegStatus.count()])[item.status.ordinal()]++);
+        boolean ok = true;
+        long total = 0;
+        Set<String> terms = new TreeSet<>(store.terms());
+        terms.addAll(scanned.keySet());
+        for (String term : terms) {
+            long[] expected = scanned.getOrDefault(term, new long[RegStatus.count()]);
+            for (RegStatus status : RegStatus.values()) {
+                long counted = store.countRegs(term, status);
+                total += expected[status.ordinal()];
+                if (counted != expected[status.ordinal()]) {
+                    System.out.printf("  %s / %s: bộ đếm %d, duyệt toàn bộ %d%n", term, status, counted, expected[status.ordinal()]);
+                    ok = false;
+                }
+            }
+        }
+        ok &= store.countRegs(null, null) == total;
+        StringBuilder byStatus = new StringBuilder();
+        for (RegStatus status : RegStatus.values())
+            byStatus.append(String.format(" | %s %,d", status, store.countRegs(null, status)));
+        System.out.printf("%-40s %,9d đăng ký%s %s%n", label, total, byStatus, ok ? "" : "<-- LỆCH");
+        return ok;
+    }
+
+    /** Thời gian đọc số đăng ký chờ duyệt: bộ đếm so với duyệt toàn bộ */
+    static void timePending(Storage store) {
+        long scanNs = Long.MAX_VALUE, counterNs = Long.MAX_VALUE, sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long[] pending = new long[1];
+            long t0 = System.nanoTime();
+            store.forEachReg((sid, term, item) -> {
+                if (item.status == RegStatus.SUBMITTED) pending[0]++;
+            });
+            long t1 = System.nanoTime();
+            for (int i = 0; i < 1000; i++) sink += store.countRegs(null, RegStatus.SUBMITTED);
+            long t2 = System.nanoTime();
+            scanNs = Math.min(scanNs, t1 - t0);
+            counterNs = Math.min(counterNs, (t2 - t1) / 1000);
+            sink += pending[0];
+        }
+        System.out.printf("Số đăng ký chờ duyệt: duyệt toàn bộ %.1f ms | bộ đếm %d ns (%d)%n",
+                scanNs / 1e6, counterNs, sink % 10);
+    }
+}